@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.core.*;
@@ -31,6 +32,10 @@ public final class BaseXServer extends Main implements Runnable {
 
   /** New sessions. */
   private final HashSet<ClientListener> auth = new HashSet<ClientListener>();
+  /** Timer for authentication time outs. */
+  private final Timer timer = new Timer(true);
+  /** Non-blocking front end (can be {@code null}). */
+  private ClientSelector selector;
   /** Stopped flag. */
   private volatile boolean stopped;
   /** EventsListener. */
@@ -101,7 +106,9 @@ public final class BaseXServer extends Main implements Runnable {
       // execute command-line arguments
       for(final String c : commands) execute(c);
 
-      socket = new ServerSocket();
+      // use non-blocking front end if selector threads are specified
+      final int sel = mprop.num(MainProp.SELECTORS);
+      socket = sel > 0 ? ServerSocketChannel.open().socket() : new ServerSocket();
       // reuse address on Linux machines
       socket.setReuseAddress(!Prop.WIN);
       socket.bind(new InetSocketAddress(addr, port));
@@ -109,6 +116,7 @@ public final class BaseXServer extends Main implements Runnable {
       esocket.setReuseAddress(!Prop.WIN);
       esocket.bind(new InetSocketAddress(addr, eport));
       stop = stopFile(port);
+      if(sel > 0) selector = new ClientSelector(sel, mprop.num(MainProp.WORKERS));
 
       // show info when server is aborted
       context.log.writeServer(OK, SRV_STARTED);
@@ -159,15 +167,19 @@ public final class BaseXServer extends Main implements Runnable {
           // start authentication timeout
           final long to = context.mprop.num(MainProp.KEEPALIVE) * 1000L;
           if(to > 0) {
-            cl.auth.schedule(new TimerTask() {
+            cl.auth = new TimerTask() {
               @Override
               public void run() {
                 cl.quitAuth();
               }
-            }, to);
-            auth.add(cl);
+            };
+            synchronized(auth) {
+              auth.add(cl);
+            }
+            timer.schedule(cl.auth, to);
           }
-          cl.start();
+          if(selector != null) selector.add(cl, s.getChannel());
+          else cl.start();
         }
       } catch(final SocketException ex) {
         break;
@@ -200,6 +212,8 @@ public final class BaseXServer extends Main implements Runnable {
     for(final ClientListener cs : context.sessions) {
       cs.quit();
     }
+    if(selector != null) selector.close();
+    timer.cancel();
     super.quit();
 
     try {
@@ -340,7 +354,7 @@ public final class BaseXServer extends Main implements Runnable {
   public void remove(final ClientListener client) {
     synchronized(auth) {
       auth.remove(client);
-      client.auth.cancel();
+      if(client.auth != null) client.auth.cancel();
     }
   }
 
@@ -40,6 +40,10 @@ public final class DiskBuilder extends Builder {
   private DataOutput vout;
   /** Output stream for temporary values. */
   private DataOutput sout;
+  /** Text dictionary (can be {@code null}). */
+  private TextDictionary xdict;
+  /** Attribute value dictionary (can be {@code null}). */
+  private TextDictionary vdict;
 
   /** Database context. */
   final Context context;
@@ -79,6 +83,10 @@ public final class DiskBuilder extends Builder {
     meta = md;
     tags = new Names(md);
     atts = new Names(md);
+    if(md.dictionary) {
+      xdict = new TextDictionary();
+      vdict = new TextDictionary();
+    }
     try {
       tout = new DataOutput(new TableOutput(md, DATATBL));
       xout = new DataOutput(md.dbfile(DATATXT), bs);
@@ -102,6 +110,22 @@ public final class DiskBuilder extends Builder {
     in.close();
     md.dbfile(DATATMP).delete();
 
+    // write dictionaries
+    if(md.dictionary) {
+      xdict.write(md.dbfile(DATADIC + DATATXT));
+      vdict.write(md.dbfile(DATADIC + DATAATV));
+      xdict = null;
+      vdict = null;
+    }
+
+    // compress table and texts
+    if(md.compress) {
+      CompressedFile.pack(md.dbfile(DATATBL));
+      CompressedFile.pack(md.dbfile(DATATXT));
+      CompressedFile.pack(md.dbfile(DATAATV));
+      md.compressed = true;
+    }
+
     // return database instance
     final DiskData data = new DiskData(md, tags, atts, path, ns);
     data.finishUpdate();
@@ -195,11 +219,19 @@ public final class DiskBuilder extends Builder {
     final long v = Token.toSimpleInt(value);
     if(v != Integer.MIN_VALUE) return v | IO.OFFNUM;
 
+    // reuse dictionary entry
+    final TextDictionary dict = text ? xdict : vdict;
+    if(dict != null) {
+      final long ref = dict.ref(value);
+      if(ref != -1) return ref;
+    }
+
     // store text
     final DataOutput store = text ? xout : vout;
     final long off = store.size();
     final byte[] val = COMP.get().pack(value);
     store.writeToken(val);
-    return val == value ? off : off | IO.OFFCOMP;
+    final long ref = val == value ? off : off | IO.OFFCOMP;
+    return dict != null ? dict.add(value, ref, meta.maxlen) : ref;
   }
 }
@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import org.basex.data.*;
 import org.basex.io.random.*;
+import org.basex.query.*;
 import org.basex.query.util.pkg.*;
 import org.basex.server.*;
 import org.basex.util.list.*;
@@ -33,6 +34,8 @@ public final class Context {
   public final Events events;
   /** Database pool. */
   public final Datas datas;
+  /** Compiled queries. */
+  public final QueryPlans plans;
   /** Users. */
   public final Users users;
   /** Package repository. */
@@ -85,6 +88,7 @@ public final class Context {
     listener = cl;
     mprop = ctx.mprop;
     datas = ctx.datas;
+    plans = ctx.plans;
     events = ctx.events;
     sessions = ctx.sessions;
     databases = ctx.databases;
@@ -102,6 +106,7 @@ public final class Context {
   private Context(final MainProp mp) {
     mprop = mp;
     datas = new Datas();
+    plans = new QueryPlans(mp);
     events = new Events();
     sessions = new Sessions();
     blocker = new ClientBlocker();
@@ -119,6 +124,7 @@ public final class Context {
    */
   public synchronized void close() {
     while(!sessions.isEmpty()) sessions.get(0).quit();
+    plans.close();
     datas.close();
     log.close();
   }
@@ -258,6 +264,14 @@ public final class Context {
     locks.acquire(pr, sl);
   }
 
+  /**
+   * Waits until an updating process with deferred updates can apply its updates.
+   * @param pr progress, which is checked for interruptions
+   */
+  public void commit(final Progress pr) {
+    locks.commit(pr);
+  }
+
   /**
    * Unlocks the process and stops the timeout.
    * @param pr process
@@ -5,6 +5,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.*;
 import java.util.concurrent.locks.*;
 
@@ -20,6 +21,10 @@ import org.basex.util.list.*;
  *
  * Locks can only be released by the same thread which acquired it.
  *
+ * Only one updating transaction can lock an object at a time. Transactions with
+ * deferred updates ({@link Progress#deferred}) will only acquire the write locks when
+ * their updates are applied; until then, readers are not blocked.
+ *
  * This locking can be activated by setting {@link MainProp#DBLOCKING} to {@code true}.
  * It will get the default implementation in future versions.
  *
@@ -30,6 +35,11 @@ public final class DBLocking implements ILocking {
   /** Stores one lock for each object ever used for locking. */
   private final Map<String, ReentrantReadWriteLock> locks =
       new HashMap<String, ReentrantReadWriteLock>();
+  /** Stores one lock for each object ever locked by an updating transaction. */
+  private final Map<String, ReentrantLock> writers = new HashMap<String, ReentrantLock>();
+  /** Transactions with deferred updates, which have not acquired write locks yet. */
+  private final Set<Thread> deferred =
+      Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
   /**
    * Currently running transactions.
    *
@@ -108,23 +118,55 @@ public final class DBLocking implements ILocking {
         lock = new ReentrantReadWriteLock();
         locks.put(object, lock);
       }
-      (pr.updating ? lock.writeLock() : lock.readLock()).lock();
+      if(pr.updating) {
+        ReentrantLock writer = writers.get(object);
+        if(null == writer) {
+          writer = new ReentrantLock();
+          writers.put(object, writer);
+        }
+        writer.lock();
+        if(!pr.deferred) lock.writeLock().lock();
+      } else {
+        lock.readLock().lock();
+      }
+    }
+    if(pr.updating && pr.deferred) deferred.add(thread);
+  }
+
+  @Override
+  public void commit(final Progress pr) {
+    final Thread thread = Thread.currentThread();
+    if(!deferred.remove(thread)) return;
+
+    // Wait for readers and acquire write locks
+    for(final Object object : locked.get(thread)) {
+      final Lock lock = locks.get(object).writeLock();
+      try {
+        while(!lock.tryLock(100, TimeUnit.MILLISECONDS)) pr.checkStop();
+      } catch(final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        lock.lock();
+      }
     }
   }
 
   @Override
   public void release(final Progress pr) {
-    final Object[] objects = locked.remove(Thread.currentThread());
+    final Thread thread = Thread.currentThread();
+    final Object[] objects = locked.remove(thread);
     if(null == objects)
       throw new IllegalMonitorStateException("No locks held by current thread");
+    deferred.remove(thread);
 
     // Unlock all locks, no matter if read or write lock
     for(final Object object : objects) {
       final ReentrantReadWriteLock lock = locks.get(object);
-      if(lock.isWriteLockedByCurrentThread())
-        lock.writeLock().unlock();
-      else
+      if(pr.updating) {
+        if(lock.isWriteLockedByCurrentThread()) lock.writeLock().unlock();
+        writers.get(object).unlock();
+      } else {
         lock.readLock().unlock();
+      }
     }
 
     // Allow another transaction to run
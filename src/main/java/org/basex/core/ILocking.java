@@ -19,6 +19,15 @@ public interface ILocking {
    */
   void acquire(final Progress pr, final StringList db);
 
+  /**
+   * Called by an updating process with deferred updates ({@link Progress#deferred})
+   * before the updates are applied. Waits until the running readers have finished,
+   * and turns the locks of the process into exclusive locks.
+   * Does nothing if the current thread has not registered such a process.
+   * @param pr progress, which is checked for interruptions
+   */
+  void commit(final Progress pr);
+
   /**
    * Unlock all objects a transaction locked.
    * @param pr progress
@@ -3,6 +3,7 @@ package org.basex.core;
 import java.util.*;
 
 import org.basex.io.*;
+import org.basex.io.random.*;
 
 /**
  * This class assembles admin properties which are used all around the project.
@@ -30,6 +31,8 @@ public final class MainProp extends AProp {
   public static final Object[] LANG = { "LANG", Prop.language };
   /** Flag to include key names in the language strings. */
   public static final Object[] LANGKEYS = { "LANGKEYS", false };
+  /** Size of the buffer pool for disk-based databases (in megabytes). */
+  public static final Object[] BUFFERPOOL = { "BUFFERPOOL", 32 };
 
   /** Comment: written to property file. */
   public static final Object[] C_CLIENT = { "Client/Server Architecture" };
@@ -60,8 +63,15 @@ public final class MainProp extends AProp {
   public static final Object[] TIMEOUT = { "TIMEOUT", 30 };
   /** Keep alive time of clients; deactivated if set to 0. */
   public static final Object[] KEEPALIVE = { "KEEPALIVE", 600 };
+  /** Number of selector threads for non-blocking client connections;
+   *  deactivated if set to 0 (one thread per client will be used). */
+  public static final Object[] SELECTORS = { "SELECTORS", 0 };
+  /** Number of worker threads for requests of non-blocking client connections. */
+  public static final Object[] WORKERS = { "WORKERS", 16 };
   /** Defines the number of parallel readers. */
   public static final Object[] PARALLEL = { "PARALLEL", 8 };
+  /** Maximum number of cached compiled queries; deactivated if set to 0. */
+  public static final Object[] PLANCACHE = { "PLANCACHE", 100 };
   /** Logging flag. */
   public static final Object[] LOG = { "LOG", true };
   /** Log message cut-off. */
@@ -97,6 +107,7 @@ public final class MainProp extends AProp {
     Prop.language = get(LANG);
     Prop.langkeys = is(LANGKEYS);
     Prop.debug = is(DEBUG);
+    BufferPool.size(num(BUFFERPOOL));
     final String ph = get(PROXYHOST);
     final String pp = Integer.toString(num(PROXYPORT));
     AProp.setSystem("http.proxyHost", ph);
@@ -9,6 +9,8 @@ import org.basex.util.list.*;
  * Management of executing read/write processes.
  * Supports multiple readers, limited by {@link MainProp#PARALLEL},
  * and a single writer (readers/writer lock).
+ * A writer with deferred updates ({@link Progress#deferred}) will only get exclusive
+ * access when its updates are applied; until then, readers are not blocked.
  *
  * This locking is activated by default. It will be replace by {@link DBLocking}
  * in future versions.
@@ -28,6 +30,10 @@ final class ProcessLocking implements ILocking {
   private int readers;
   /** Writer flag. */
   private boolean writer;
+  /** Thread of a writer with deferred updates (may be {@code null}). */
+  private Thread preparer;
+  /** Indicates if a writer with deferred updates waits for exclusive access. */
+  private boolean committing;
 
   /**
    * Default constructor.
@@ -52,12 +58,19 @@ final class ProcessLocking implements ILocking {
         if(!writer && o == queue.get(0)) {
           if(pr.updating) {
             // check updating process
-            if(readers == 0) {
-              // start writing process
-              writer = true;
-              break;
+            if(preparer == null) {
+              if(pr.deferred) {
+                // start writing process, which will read until its updates are applied
+                preparer = Thread.currentThread();
+                break;
+              }
+              if(readers == 0) {
+                // start writing process
+                writer = true;
+                break;
+              }
             }
-          } else if(readers < maxReaders) {
+          } else if(!committing && readers < maxReaders) {
             // increase number of readers
             ++readers;
             break;
@@ -77,11 +90,35 @@ final class ProcessLocking implements ILocking {
     }
   }
 
+  @Override
+  public void commit(final Progress pr) {
+    synchronized(mutex) {
+      if(writer || preparer != Thread.currentThread()) return;
+      // block new readers and wait until running readers have finished
+      committing = true;
+      try {
+        while(readers != 0) {
+          pr.checkStop();
+          try {
+            mutex.wait();
+          } catch(final InterruptedException ex) {
+            Util.stack(ex);
+          }
+        }
+        writer = true;
+      } finally {
+        committing = false;
+        mutex.notifyAll();
+      }
+    }
+  }
+
   @Override
   public void release(final Progress pr) {
     synchronized(mutex) {
       if(pr.updating) {
         writer = false;
+        preparer = null;
       } else {
         --readers;
       }
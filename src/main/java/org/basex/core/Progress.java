@@ -16,6 +16,13 @@ import org.basex.util.list.*;
 public abstract class Progress {
   /** This flag indicates that a command may perform updates. */
   public boolean updating;
+  /**
+   * This flag indicates that the updates of an updating process are deferred: data
+   * will only be read until the updates are applied (see {@link Context#commit}).
+   * Until then, readers need not wait for the process, and they will see the last
+   * committed state of the databases.
+   */
+  public boolean deferred;
 
   /** Stopped flag. */
   private boolean stopped;
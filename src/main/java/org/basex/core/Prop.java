@@ -67,6 +67,12 @@ public final class Prop extends AProp {
   public static final Object[] MAINMEM = { "MAINMEM", false };
   /** Flag for opening a database after creating it. */
   public static final Object[] CREATEONLY = { "CREATEONLY", false };
+  /** Flag for memory-mapping the table of a database. */
+  public static final Object[] MAPTABLE = { "MAPTABLE", false };
+  /** Flag for compressing the table and text blocks of a database. */
+  public static final Object[] COMPRESS = { "COMPRESS", false };
+  /** Flag for storing repeated texts and attribute values only once. */
+  public static final Object[] DICTIONARY = { "DICTIONARY", false };
 
   // Parsing
 
@@ -118,6 +124,12 @@ public final class Prop extends AProp {
   public static final Object[] MAXCATS = { "MAXCATS", 100 };
   /** Flag for automatic index update. */
   public static final Object[] UPDINDEX = { "UPDINDEX", false };
+  /** Flag for indexing date and dateTime values in the value indexes. */
+  public static final Object[] DATEINDEX = { "DATEINDEX", false };
+  /** Number of threads used for building index structures. */
+  public static final Object[] INDEXTHREADS = { "INDEXTHREADS", 1 };
+  /** Memory budget for building a single index, in megabytes (0: no budget). */
+  public static final Object[] INDEXMEM = { "INDEXMEM", 0 };
 
   // Full-Text
 
@@ -136,6 +148,8 @@ public final class Prop extends AProp {
 
   /** Detailed query information. */
   public static final Object[] QUERYINFO = { "QUERYINFO", false };
+  /** Adds runtime statistics to the query plan. */
+  public static final Object[] PROFILE = { "PROFILE", false };
   /** Default XQuery version. */
   public static final Object[] XQUERY3 = { "XQUERY3", true };
   /** External variables, separated by commas. */
@@ -144,6 +158,12 @@ public final class Prop extends AProp {
   public static final Object[] QUERYPATH = { "QUERYPATH", "" };
   /** Caches the query results. */
   public static final Object[] CACHEQUERY = { "CACHEQUERY", false };
+  /** Number of threads used for evaluating FLWOR expressions. */
+  public static final Object[] FLWORTHREADS = { "FLWORTHREADS", 1 };
+  /** Maximum number of tuples that are sorted in main memory (0: no limit). */
+  public static final Object[] SORTLIMIT = { "SORTLIMIT", 0 };
+  /** Maximum number of groups that are built in main memory (0: no limit). */
+  public static final Object[] GROUPLIMIT = { "GROUPLIMIT", 0 };
   /** Forces database creation for unknown documents. */
   public static final Object[] FORCECREATE = { "FORCECREATE", false };
   /** Levenshtein default error. */
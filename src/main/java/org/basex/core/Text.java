@@ -585,6 +585,10 @@ public interface Text {
   String LI_SIZE = LI + "Size: ";
   /** Index info. */
   String LI_ENTRIES = LI + "Entries: ";
+  /** Index info. */
+  String LI_NUMERIC = LI + "Numeric Keys: ";
+  /** Index info. */
+  String LI_DATES = LI + "Date Keys: ";
 
   /** Index info. */
   String HASH = "Hash";
@@ -593,6 +597,23 @@ public interface Text {
   /** Index info. */
   String SORTED_LIST = "Sorted List";
 
+  /** Buffer pool info. */
+  String BUFFER_POOL = "Buffer Pool";
+  /** Buffer pool info. */
+  String LI_BUFFERS = LI + "Buffers: ";
+  /** Buffer pool info. */
+  String LI_HITS = LI + "Hits: ";
+  /** Buffer pool info. */
+  String LI_MISSES = LI + "Misses: ";
+  /** Query cache info. */
+  String QUERY_CACHE = "Query Cache";
+  /** Query cache info. */
+  String CACHE_ENTRIES = "Entries";
+  /** Query cache info. */
+  String CACHE_HITS = "Hits";
+  /** Query cache info. */
+  String CACHE_MISSES = "Misses";
+
   // XQUERY COMMAND ===========================================================
 
   /** Query info: query. */
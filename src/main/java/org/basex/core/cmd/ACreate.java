@@ -110,18 +110,81 @@ public abstract class ACreate extends Command {
    */
   protected static void create(final IndexType index, final Data data, final ACreate cmd)
       throws IOException {
+    create(data, cmd, index);
+  }
+
+  /**
+   * Builds the specified indexes. If {@link Prop#INDEXTHREADS} is greater than one,
+   * the indexes will be built concurrently.
+   * @param data data reference
+   * @param cmd calling command (can be {@code null})
+   * @param indexes indexes to be built
+   * @throws IOException I/O exception
+   */
+  protected static void create(final Data data, final ACreate cmd,
+      final IndexType... indexes) throws IOException {
 
     if(data.inMemory()) return;
 
-    final IndexBuilder ib;
-    switch(index) {
-      case TEXT:      ib = new ValueBuilder(data, true); break;
-      case ATTRIBUTE: ib = new ValueBuilder(data, false); break;
-      case FULLTEXT:  ib = new FTBuilder(data); break;
-      default:        throw Util.notexpected();
+    final int il = indexes.length;
+    final IndexBuilder[] ibs = new IndexBuilder[il];
+    for(int i = 0; i < il; i++) {
+      switch(indexes[i]) {
+        case TEXT:      ibs[i] = new ValueBuilder(data, true); break;
+        case ATTRIBUTE: ibs[i] = new ValueBuilder(data, false); break;
+        case FULLTEXT:  ibs[i] = new FTBuilder(data); break;
+        default:        throw Util.notexpected();
+      }
+      data.closeIndex(indexes[i]);
     }
-    data.closeIndex(index);
-    data.setIndex(index, (cmd == null ? ib : cmd.progress(ib)).build());
+
+    final Index[] built = new Index[il];
+    if(il < 2 || data.meta.prop.num(Prop.INDEXTHREADS) < 2) {
+      for(int i = 0; i < il; i++) {
+        built[i] = (cmd == null ? ibs[i] : cmd.progress(ibs[i])).build();
+      }
+    } else {
+      // build first index in the current thread, and the remaining ones in new threads
+      final Throwable[] error = new Throwable[1];
+      final Thread[] threads = new Thread[il];
+      for(int i = 1; i < il; i++) {
+        final int n = i;
+        threads[i] = new Thread() {
+          @Override
+          public void run() {
+            try {
+              built[n] = ibs[n].build();
+            } catch(final Throwable ex) {
+              synchronized(error) {
+                if(error[0] == null) error[0] = ex;
+              }
+              for(final IndexBuilder ib : ibs) ib.stop();
+            }
+          }
+        };
+        threads[i].start();
+      }
+      try {
+        built[0] = (cmd == null ? ibs[0] : cmd.progress(ibs[0])).build();
+      } finally {
+        // stop remaining builders if building the first index failed
+        if(built[0] == null) for(final IndexBuilder ib : ibs) ib.stop();
+        for(int i = 1; i < il; i++) {
+          while(threads[i].isAlive()) {
+            try {
+              threads[i].join();
+            } catch(final InterruptedException ex) {
+              Util.debug(ex);
+            }
+          }
+        }
+      }
+      final Throwable ex = error[0];
+      if(ex instanceof IOException) throw (IOException) ex;
+      if(ex instanceof RuntimeException) throw (RuntimeException) ex;
+      if(ex instanceof Error) throw (Error) ex;
+    }
+    for(int i = 0; i < il; i++) data.setIndex(indexes[i], built[i]);
   }
 
   /**
@@ -50,6 +50,8 @@ abstract class AQuery extends Command {
    */
   AQuery(final Perm p, final boolean d, final String... arg) {
     super(p, d, arg);
+    // updates are collected in a pending update list
+    deferred = true;
   }
 
   /**
@@ -79,7 +81,8 @@ abstract class AQuery extends Command {
           if(r == 0) plan(false);
           qp.compile();
           comp += p.time();
-          if(r == 0) plan(true);
+          // query plan with runtime statistics is shown after evaluation
+          if(r == 0 && !prop.is(Prop.PROFILE)) plan(true);
 
           final PrintOutput po = r == 0 && serial ? out : new NullOutput();
           final Serializer ser;
@@ -105,6 +108,7 @@ abstract class AQuery extends Command {
           }
           updates = qp.updates();
           ser.close();
+          if(r == 0 && prop.is(Prop.PROFILE)) plan(true);
           qp.close();
           prnt += p.time();
         }
@@ -42,6 +42,8 @@ public final class AlterDB extends ACreate {
 
     // close database if it's currently opened and not opened by others
     if(!closed) closed = close(context, src);
+    // discard compiled queries that have opened the database
+    context.plans.close(src);
     // check if source database is still opened
     if(context.pinned(src)) return error(DB_PINNED_X, src);
 
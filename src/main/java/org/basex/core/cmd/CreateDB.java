@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -10,8 +11,6 @@ import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.*;
 import org.basex.data.*;
 import org.basex.index.*;
-import org.basex.index.ft.*;
-import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.util.*;
@@ -89,6 +88,8 @@ public final class CreateDB extends ACreate {
         context.openDB(data);
         context.pin(data);
       } else {
+        // discard compiled queries that have opened the database
+        context.plans.close(name);
         if(context.pinned(name)) return error(DB_PINNED_X, name);
 
         // create disk-based instance
@@ -150,6 +151,8 @@ public final class CreateDB extends ACreate {
     final Prop prop = ctx.prop;
     if(prop.is(Prop.MAINMEM)) return MemBuilder.build(name, parser);
 
+    // discard compiled queries that have opened the database
+    ctx.plans.close(name);
     // database is currently locked by another process
     if(ctx.pinned(name)) throw new BaseXException(DB_PINNED_X, name);
 
@@ -159,12 +162,11 @@ public final class CreateDB extends ACreate {
     // build database and index structures
     try {
       final Data data = builder.build();
-      if(data.meta.createtext) data.setIndex(IndexType.TEXT,
-        new ValueBuilder(data, true).build());
-      if(data.meta.createattr) data.setIndex(IndexType.ATTRIBUTE,
-        new ValueBuilder(data, false).build());
-      if(data.meta.createftxt) data.setIndex(IndexType.FULLTEXT,
-        new FTBuilder(data).build());
+      final ArrayList<IndexType> types = new ArrayList<IndexType>();
+      if(data.meta.createtext) types.add(IndexType.TEXT);
+      if(data.meta.createattr) types.add(IndexType.ATTRIBUTE);
+      if(data.meta.createftxt) types.add(IndexType.FULLTEXT);
+      create(data, null, types.toArray(new IndexType[types.size()]));
       data.close();
     } finally {
       builder.close();
@@ -37,6 +37,8 @@ public final class DropDB extends ACreate {
     for(final String db : dbs) {
       // close database if it's currently opened
       close(context, db);
+      // discard compiled queries that have opened the database
+      context.plans.close(db);
       // check if database is still pinned
       if(context.pinned(db)) {
         info(DB_PINNED_X, db);
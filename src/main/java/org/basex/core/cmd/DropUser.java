@@ -37,6 +37,8 @@ public final class DropUser extends AUser {
 
   @Override
   protected boolean run() {
+    // discard compiled queries, as they may contain permission checks
+    context.plans.close();
     return run(0, true);
   }
 
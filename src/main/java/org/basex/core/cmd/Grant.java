@@ -57,6 +57,8 @@ public final class Grant extends AUser {
     }
     if(perm == null) return error(PERM_UNKNOWN_X, args[0]);
 
+    // discard compiled queries, as they may contain permission checks
+    context.plans.close();
     return run(1, false);
   }
 
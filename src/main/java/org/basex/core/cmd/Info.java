@@ -5,6 +5,7 @@ import static org.basex.core.Text.*;
 import java.io.*;
 
 import org.basex.core.*;
+import org.basex.query.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -47,6 +48,12 @@ public final class Info extends AInfo {
       info(tb, USED_MEM, Performance.getMemory());
     }
     if(context.user.has(Perm.ADMIN)) {
+      final QueryPlans plans = context.plans;
+      tb.add(NL + QUERY_CACHE + NL);
+      info(tb, CACHE_ENTRIES, Integer.toString(plans.size()));
+      info(tb, CACHE_HITS, Long.toString(plans.hits()));
+      info(tb, CACHE_MISSES, Long.toString(plans.misses()));
+
       final AProp prop = context.mprop;
       tb.add(NL + MAIN_OPTIONS + NL);
       for(final String s : prop) info(tb, s, prop.get(s).toString());
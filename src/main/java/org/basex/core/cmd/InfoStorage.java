@@ -10,6 +10,7 @@ import org.basex.core.*;
 import org.basex.core.parse.*;
 import org.basex.core.parse.Commands.*;
 import org.basex.data.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -63,6 +64,7 @@ public final class InfoStorage extends AQuery {
       }
       out.print(table(data, ps, pe));
     }
+    if(!data.inMemory()) out.print(buffers());
     return true;
   }
 
@@ -93,6 +95,19 @@ public final class InfoStorage extends AQuery {
     return tb.finish();
   }
 
+  /**
+   * Returns information on the buffer pool.
+   * @return info string
+   */
+  private static byte[] buffers() {
+    final TokenBuilder tb = new TokenBuilder().add(NL).add(BUFFER_POOL).add(NL);
+    tb.add(LI_SIZE).add(Performance.format((long) BufferPool.size() << 20)).add(NL);
+    tb.add(LI_BUFFERS).addLong(BufferPool.buffers()).add(NL);
+    tb.add(LI_HITS).addLong(BufferPool.hits()).add(NL);
+    tb.add(LI_MISSES).addLong(BufferPool.misses()).add(NL);
+    return tb.finish();
+  }
+
   /**
    * Writes the header for the 'table' command.
    * @return table
@@ -3,10 +3,12 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.ft.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -119,9 +121,14 @@ public final class Optimize extends ACreate {
     }
 
     // rebuild value indexes
-    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, c);
-    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, c);
-    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex, c);
+    final ArrayList<IndexType> types = new ArrayList<IndexType>();
+    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, types);
+    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, types);
+    // merge pending updates of the full-text index by rebuilding it
+    final boolean ftu = md.createftxt && data.ftxindex instanceof FTIndex &&
+        ((FTIndex) data.ftxindex).updated();
+    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex && !ftu, types);
+    create(data, c, types.toArray(new IndexType[types.size()]));
   }
 
   /**
@@ -130,18 +137,16 @@ public final class Optimize extends ACreate {
    * @param d data reference
    * @param create create flag
    * @param old old flag
-   * @param c calling command
-   * @throws IOException I/O exception
-   *
+   * @param types list of indexes to be created
    */
   private static void optimize(final IndexType type, final Data d,
-      final boolean create, final boolean old, final Optimize c) throws IOException {
+      final boolean create, final boolean old, final ArrayList<IndexType> types) {
 
     // check if flags are nothing has changed
     if(create == old) return;
 
     // create or drop index
-    if(create) create(type, d, c);
+    if(create) types.add(type);
     else drop(type, d);
   }
 }
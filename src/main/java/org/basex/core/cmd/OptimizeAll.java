@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -110,6 +111,10 @@ public final class OptimizeAll extends ACreate {
     // adopt original meta data
     ctx.prop.set(Prop.CHOP, m.chop);
     ctx.prop.set(Prop.UPDINDEX, m.updindex);
+    ctx.prop.set(Prop.MAPTABLE, m.maptable);
+    ctx.prop.set(Prop.COMPRESS, m.compress);
+    ctx.prop.set(Prop.DICTIONARY, m.dictionary);
+    ctx.prop.set(Prop.DATEINDEX, m.dateindex);
     ctx.prop.set(Prop.STEMMING, m.stemming);
     ctx.prop.set(Prop.CASESENS, m.casesens);
     ctx.prop.set(Prop.DIACRITICS, m.diacritics);
@@ -121,9 +126,11 @@ public final class OptimizeAll extends ACreate {
     final DiskBuilder builder = new DiskBuilder(tname, new DBParser(old, cmd), ctx);
     try {
       final DiskData d = builder.build();
-      if(m.createtext) create(IndexType.TEXT, d, cmd);
-      if(m.createattr) create(IndexType.ATTRIBUTE, d, cmd);
-      if(m.createftxt) create(IndexType.FULLTEXT, d, cmd);
+      final ArrayList<IndexType> types = new ArrayList<IndexType>();
+      if(m.createtext) types.add(IndexType.TEXT);
+      if(m.createattr) types.add(IndexType.ATTRIBUTE);
+      if(m.createftxt) types.add(IndexType.FULLTEXT);
+      create(d, cmd, types.toArray(new IndexType[types.size()]));
       // adopt original meta data
       d.meta.createtext = m.createtext;
       d.meta.createattr =  m.createattr;
@@ -47,6 +47,8 @@ public final class Restore extends Command {
 
     // close database if it's currently opened and not opened by others
     if(!closed) closed = close(context, db);
+    // discard compiled queries that have opened the database
+    context.plans.close(db);
     // check if database is still pinned
     if(context.pinned(db)) return error(DB_PINNED_X, db);
 
@@ -452,6 +452,24 @@ public abstract class Data {
    */
   public abstract int textLen(int pre, boolean text);
 
+  /**
+   * Returns the dictionary reference of a text or attribute value.
+   * Two dictionary-encoded values are equal if, and only if, their references
+   * are equal (see {@link TextDictionary}).
+   * @param pre pre value
+   * @param text text/attribute flag
+   * @return reference, or {@code -1} if the value is not dictionary-encoded
+   */
+  public abstract long textRef(int pre, boolean text);
+
+  /**
+   * Returns the dictionary reference of the specified value.
+   * @param value value
+   * @param text text/attribute flag
+   * @return reference, or {@code -1} if the value is not found in the dictionary
+   */
+  public abstract long textRef(byte[] value, boolean text);
+
   // UPDATE OPERATIONS ========================================================
 
   /**
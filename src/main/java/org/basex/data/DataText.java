@@ -40,12 +40,24 @@ public interface DataText {
   String DBPTHIDX = "PTHINDEX";
   /** Automatic index update. */
   String DBUPDIDX = "UPDINDEX";
+  /** Memory-mapped table. */
+  String DBMAPTBL = "MAPTABLE";
+  /** Compressed blocks. */
+  String DBCOMPR = "COMPRESS";
+  /** Compressed files. */
+  String DBCOMPRD = "COMPRESSED";
+  /** Dictionary encoding. */
+  String DBDICT = "DICTIONARY";
+  /** Date indexing. */
+  String DBDATIDX = "DATEINDEX";
   /** Text indexing. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute indexing. */
   String DBATVIDX = "ATVINDEX";
   /** Full-text indexing. */
   String DBFTXIDX = "FTXINDEX";
+  /** Full-text index references node ids. */
+  String DBFTXIDS = "FTXIDS";
   /** Full-text stemming. */
   String DBFTST = "FTSTEM";
   /** Full-text language. */
@@ -103,6 +115,8 @@ public interface DataText {
   String DATAFTX = "ftx";
   /** Database - Stopword list. */
   String DATASWL = "swl";
+  /** Database - Value dictionary. */
+  String DATADIC = "dic";
   /** Database - Updating flag. */
   String DATAUPD = "upd";
 
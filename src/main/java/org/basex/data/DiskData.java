@@ -43,6 +43,10 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Text dictionary (can be {@code null}). */
+  private TextDictionary xdict;
+  /** Attribute value dictionary (can be {@code null}). */
+  private TextDictionary vdict;
   /** Texts buffered for subsequent index updates. */
   private TokenObjMap<IntList> txts;
   /** Attribute values buffered for subsequent index updates. */
@@ -120,8 +124,12 @@ public final class DiskData extends Data {
    */
   public void init() throws IOException {
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbfile(DATATXT));
-    values = new DataAccess(meta.dbfile(DATAATV));
+    texts = new DataAccess(meta.dbfile(DATATXT), meta.compressed);
+    values = new DataAccess(meta.dbfile(DATAATV), meta.compressed);
+    if(meta.dictionary) {
+      xdict = new TextDictionary(meta.dbfile(DATADIC + DATATXT));
+      vdict = new TextDictionary(meta.dbfile(DATADIC + DATAATV));
+    }
   }
 
   /**
@@ -129,6 +137,16 @@ public final class DiskData extends Data {
    * @throws IOException I/O exception
    */
   private void write() throws IOException {
+    final TableDiskAccess tda = (TableDiskAccess) table;
+    if(meta.compressed && !(tda.compressed() && texts.compressed() &&
+        values.compressed())) {
+      // files are decompressed before they are modified: decompress remaining files
+      tda.unpack();
+      texts.unpack();
+      values.unpack();
+      meta.compressed = false;
+      meta.dirty = true;
+    }
     if(meta.dirty) {
       final DataOutput out = new DataOutput(meta.dbfile(DATAINF));
       meta.write(out);
@@ -214,6 +232,7 @@ public final class DiskData extends Data {
       values.flush();
       if(txtindex != null) ((DiskValues) txtindex).flush();
       if(atvindex != null) ((DiskValues) atvindex).flush();
+      if(ftxindex != null) ((FTIndex) ftxindex).flush();
     } catch(final IOException ex) {
       Util.stack(ex);
     } finally {
@@ -252,9 +271,10 @@ public final class DiskData extends Data {
     final long o = textOff(pre);
     if(num(o)) return numDigits((int) o);
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(o & IO.OFFCOMP - 1);
+    final long p = offset(o);
+    final int l = da.getNum(p);
     // compressed: next number contains number of compressed bytes
-    return cpr(o) ? da.readNum() : l;
+    return cpr(o) ? da.getNum(p + Num.length(l)) : l;
   }
 
   /**
@@ -264,10 +284,31 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long o, final boolean text) {
-    final byte[] txt = (text ? texts : values).readToken(o & IO.OFFCOMP - 1);
+    final byte[] txt = (text ? texts : values).getToken(offset(o));
     return cpr(o) ? COMP.get().unpack(txt) : txt;
   }
 
+  @Override
+  public long textRef(final int pre, final boolean text) {
+    final long o = textOff(pre);
+    return dict(o) ? o : -1;
+  }
+
+  @Override
+  public long textRef(final byte[] value, final boolean text) {
+    final TextDictionary dict = text ? xdict : vdict;
+    return dict != null ? dict.ref(value) : -1;
+  }
+
+  /**
+   * Returns the heap offset of the specified text reference.
+   * @param o text reference
+   * @return offset
+   */
+  private long offset(final long o) {
+    return o & (meta.dictionary ? IO.OFFDICT : IO.OFFCOMP) - 1;
+  }
+
   /**
    * Returns true if the specified value contains a number.
    * @param o offset
@@ -286,14 +327,23 @@ public final class DiskData extends Data {
     return (o & IO.OFFCOMP) != 0;
   }
 
+  /**
+   * Returns true if the specified value references a shared dictionary entry.
+   * @param o offset
+   * @return result of check
+   */
+  private boolean dict(final long o) {
+    return meta.dictionary && (o & (IO.OFFNUM | IO.OFFDICT)) == IO.OFFDICT;
+  }
+
   // UPDATE OPERATIONS ========================================================
 
   @Override
   protected void delete(final int pre, final boolean text) {
     // old entry (offset or value)
     final long old = textOff(pre);
-    // fill unused space with zero-bytes
-    if(!num(old)) (text ? texts : values).free(old & IO.OFFCOMP - 1, 0);
+    // fill unused space with zero-bytes (shared dictionary entries are kept)
+    if(!num(old) && !dict(old)) (text ? texts : values).free(offset(old), 0);
   }
 
   @Override
@@ -307,6 +357,10 @@ public final class DiskData extends Data {
       final DiskValues index = (DiskValues) (text ? txtindex : atvindex);
       // don't index document names
       if(index != null && kind != DOC) index.replace(oldval, value, id);
+      if(ftxindex != null && kind == TEXT) {
+        ((FTIndex) ftxindex).delete(id, oldval);
+        ((FTIndex) ftxindex).add(id, value);
+      }
     }
 
     // reference to text store
@@ -325,13 +379,13 @@ public final class DiskData extends Data {
     final long old = textOff(pre);
     // find text store offset
     final long off;
-    if(num(old)) {
-      // numeric entry: append new entry at the end
+    if(num(old) || dict(old)) {
+      // numeric or shared entry: append new entry at the end
       off = len;
     } else {
       // text size (0 if value will be inlined)
       final int l = vn ? 0 : vl.length + Num.length(vl.length);
-      off = store.free(old & IO.OFFCOMP - 1, l);
+      off = store.free(offset(old), l);
     }
 
     // store new entry
@@ -382,6 +436,9 @@ public final class DiskData extends Data {
       }
       ids.add(id);
     }
+    if(meta.updindex && kind == TEXT && ftxindex != null) {
+      ((FTIndex) ftxindex).add(id, value);
+    }
 
     // add text to text file
     // inline integer value...
@@ -397,7 +454,8 @@ public final class DiskData extends Data {
 
   @Override
   protected void indexDelete(final int pre, final int size) {
-    if(!(meta.textindex || meta.attrindex)) return;
+    final FTIndex ftx = (FTIndex) ftxindex;
+    if(!(meta.textindex || meta.attrindex || ftx != null)) return;
 
     // collect all keys and ids
     txts = new TokenObjMap<IntList>();
@@ -406,6 +464,7 @@ public final class DiskData extends Data {
     for(int p = pre; p < l; ++p) {
       final int k = kind(p);
       final boolean isAttr = k == ATTR;
+      if(ftx != null && k == TEXT) ftx.delete(id(p), text(p, true));
       // consider nodes which are attribute, text, comment, or proc. instruction
       if(meta.attrindex && isAttr ||
          meta.textindex && (k == TEXT || k == COMM || k == PI)) {
@@ -95,6 +95,16 @@ public final class MemData extends Data {
     return text(pre, text).length;
   }
 
+  @Override
+  public long textRef(final int pre, final boolean text) {
+    return -1;
+  }
+
+  @Override
+  public long textRef(final byte[] value, final boolean text) {
+    return -1;
+  }
+
   // UPDATE OPERATIONS ========================================================
 
   @Override
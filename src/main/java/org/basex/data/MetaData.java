@@ -47,12 +47,24 @@ public final class MetaData {
   public volatile boolean chop;
   /** Flag for activated automatic index update. */
   public volatile boolean updindex;
+  /** Flag for memory-mapping the table. */
+  public volatile boolean maptable;
+  /** Flag for compressing the table and text blocks. */
+  public volatile boolean compress;
+  /** Indicates if the table and text files are compressed (reset by updates). */
+  public volatile boolean compressed;
+  /** Flag for dictionary encoding of texts and attribute values. */
+  public volatile boolean dictionary;
+  /** Flag for indexing date and dateTime values. */
+  public volatile boolean dateindex;
   /** Indicates if a text index exists. */
   public volatile boolean textindex;
   /** Indicates if a attribute index exists. */
   public volatile boolean attrindex;
   /** Indicates if a full-text index exists. */
   public volatile boolean ftxtindex;
+  /** Indicates if the full-text index references node ids instead of pre values. */
+  public volatile boolean ftxtids;
   /** Indicates if text index is to be recreated. */
   public volatile boolean createtext;
   /** Indicates if attribute index is to be recreated. */
@@ -82,6 +94,8 @@ public final class MetaData {
   public volatile boolean corrupt;
   /** Dirty flag. */
   public volatile boolean dirty;
+  /** Number of updates since the database has been opened (not stored on disk). */
+  public volatile long changes;
 
   /** Table size. */
   public volatile int size;
@@ -130,6 +144,10 @@ public final class MetaData {
     stemming = prop.is(Prop.STEMMING);
     casesens = prop.is(Prop.CASESENS);
     updindex = prop.is(Prop.UPDINDEX);
+    maptable = prop.is(Prop.MAPTABLE);
+    compress = prop.is(Prop.COMPRESS);
+    dictionary = prop.is(Prop.DICTIONARY);
+    dateindex = prop.is(Prop.DATEINDEX);
     maxlen = prop.num(Prop.MAXLEN);
     maxcats = prop.num(Prop.MAXCATS);
     language = Language.get(prop);
@@ -302,9 +320,15 @@ public final class MetaData {
         else if(k.equals(DBFTDC))     diacritics = toBool(v);
         else if(k.equals(DBCHOP))     chop       = toBool(v);
         else if(k.equals(DBUPDIDX))   updindex   = toBool(v);
+        else if(k.equals(DBMAPTBL))   maptable   = toBool(v);
+        else if(k.equals(DBCOMPR))    compress   = toBool(v);
+        else if(k.equals(DBCOMPRD))   compressed = toBool(v);
+        else if(k.equals(DBDICT))     dictionary = toBool(v);
+        else if(k.equals(DBDATIDX))   dateindex  = toBool(v);
         else if(k.equals(DBTXTIDX))   textindex  = toBool(v);
         else if(k.equals(DBATVIDX))   attrindex  = toBool(v);
         else if(k.equals(DBFTXIDX))   ftxtindex  = toBool(v);
+        else if(k.equals(DBFTXIDS))   ftxtids    = toBool(v);
         else if(k.equals(DBCRTTXT))   createtext = toBool(v);
         else if(k.equals(DBCRTATV))   createattr = toBool(v);
         else if(k.equals(DBCRTFTX))   createftxt = toBool(v);
@@ -328,6 +352,11 @@ public final class MetaData {
     corrupt = dbfile(DATAUPD).exists();
     // deactivate full-text index if obsolete trie structure was used
     if(wcindex) ftxtindex = false;
+    // deactivate updatable full-text index if it references pre values
+    if(ftxtindex && updindex && !ftxtids) {
+      ftxtindex = false;
+      oldindex = true;
+    }
   }
 
   /**
@@ -346,9 +375,15 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBCHOP,     chop);
     writeInfo(out, DBUPDIDX,   updindex);
+    writeInfo(out, DBMAPTBL,   maptable);
+    writeInfo(out, DBCOMPR,    compress);
+    writeInfo(out, DBCOMPRD,   compressed);
+    writeInfo(out, DBDICT,     dictionary);
+    writeInfo(out, DBDATIDX,   dateindex);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBFTXIDX,   ftxtindex);
+    writeInfo(out, DBFTXIDS,   ftxtids);
     writeInfo(out, DBCRTTXT,   createtext);
     writeInfo(out, DBCRTATV,   createattr);
     writeInfo(out, DBCRTFTX,   createftxt);
@@ -373,11 +408,12 @@ public final class MetaData {
     time = System.currentTimeMillis();
     uptodate = false;
     dirty = true;
+    changes++;
     if(!updindex) {
       textindex = false;
       attrindex = false;
+      ftxtindex = false;
     }
-    ftxtindex = false;
   }
 
   // PRIVATE METHODS ==========================================================
@@ -0,0 +1,99 @@
+package org.basex.data;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.hash.*;
+
+/**
+ * This class organizes the dictionary of a text or attribute value heap.
+ * If dictionary encoding is enabled for a database, each distinct value is
+ * written to the heap only once when the database is created, and all nodes with
+ * this value share the same text reference, which is flagged with
+ * {@link IO#OFFDICT}. As a consequence, two dictionary-encoded values are equal
+ * if, and only if, their references are equal.
+ *
+ * The dictionary is limited to {@link #MAX} entries. Values that are longer than
+ * the maximum index token length, or that are added later on, will be stored
+ * separately.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class TextDictionary extends TokenSet {
+  /** Maximum number of entries. */
+  private static final int MAX = 1 << 18;
+  /** Text references. */
+  private long[] refs;
+
+  /**
+   * Default constructor.
+   */
+  public TextDictionary() {
+    refs = new long[CAP];
+  }
+
+  /**
+   * Constructor, specifying an input file.
+   * @param file dictionary file
+   * @throws IOException I/O exception
+   */
+  public TextDictionary(final IOFile file) throws IOException {
+    final DataInput in = new DataInput(file);
+    try {
+      read(in);
+      refs = in.readLongs(in.readNum());
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Returns the text reference of the specified value.
+   * @param value value
+   * @return reference, or {@code -1} if the value is not found
+   */
+  public long ref(final byte[] value) {
+    final int id = id(value);
+    return id == 0 ? -1 : refs[id];
+  }
+
+  /**
+   * Adds a value to the dictionary if the maximum number of entries has not
+   * been reached yet.
+   * @param value value
+   * @param ref text reference
+   * @param maxlen maximum length of dictionary values
+   * @return text reference, flagged as dictionary entry if the value was added
+   */
+  public long add(final byte[] value, final long ref, final int maxlen) {
+    if(size() >= MAX || value.length > maxlen) return ref;
+    final int id = add(value);
+    refs[id] = ref | IO.OFFDICT;
+    return refs[id];
+  }
+
+  /**
+   * Writes the dictionary to the specified file.
+   * @param file dictionary file
+   * @throws IOException I/O exception
+   */
+  public void write(final IOFile file) throws IOException {
+    final DataOutput out = new DataOutput(file);
+    try {
+      write(out);
+      out.writeLongs(refs);
+    } finally {
+      out.close();
+    }
+  }
+
+  @Override
+  protected void rehash() {
+    super.rehash();
+    refs = Arrays.copyOf(refs, size << 1);
+  }
+}
@@ -33,6 +33,8 @@ public abstract class IndexBuilder extends Progress {
   private final Runtime rt = Runtime.getRuntime();
   /** Maximum memory to consume. */
   private final long maxMem = (long) (rt.maxMemory() * 0.8);
+  /** Memory budget for cached index entries, in bytes (0: no budget). */
+  private final long budget;
 
   /** Free memory threshold. */
   private int cc;
@@ -52,12 +54,30 @@ public abstract class IndexBuilder extends Progress {
     if(Prop.debug && (pre & 0x1FFFFF) == 0) Util.err(".");
   }
 
+  /**
+   * Checks if the cached index entries have reached the memory budget,
+   * which is defined by {@link Prop#INDEXMEM}. If no budget has been assigned,
+   * checks if enough memory is left to continue index building.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param bytes estimated size of the cached index entries
+   * @param parts number of concurrently cached structures sharing the budget
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  protected final synchronized boolean memFull(final long bytes, final int parts)
+      throws IOException {
+    if(budget == 0) return memFull();
+    final boolean full = bytes >= budget / parts;
+    if(full) merge = true;
+    return full;
+  }
+
   /**
    * Checks if enough memory is left to continue index building.
    * @return result of check
    * @throws IOException I/O exception
    */
-  protected final boolean memFull() throws IOException {
+  private boolean memFull() throws IOException {
     final boolean full = rt.totalMemory() - rt.freeMemory() >= maxMem;
     if(full) {
       if(cc >= 0 && !singlegc) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
@@ -78,6 +98,7 @@ public abstract class IndexBuilder extends Progress {
     data = d;
     size = data.meta.size;
     singlegc = d.meta.prop.is(Prop.SINGLEGC);
+    budget = (long) d.meta.prop.num(Prop.INDEXMEM) << 20;
     if(rt.totalMemory() - rt.freeMemory() >= rt.maxMemory() >> 1 && !singlegc)
       Performance.gc(1);
   }
@@ -21,6 +21,8 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class FTBuilder extends IndexBuilder {
+  /** Estimated memory consumption of a cached token, excluding the token itself. */
+  private static final int ENTRY = 16;
   /** Value trees. */
   private final FTIndexTrees tree;
   /** Word parser. */
@@ -29,6 +31,8 @@ public final class FTBuilder extends IndexBuilder {
   int pos;
   /** Number of indexed tokens. */
   private long ntok;
+  /** Estimated size of the cached tokens. */
+  private long bytes;
 
   /**
    * Constructor.
@@ -81,11 +85,13 @@ public final class FTBuilder extends IndexBuilder {
         // skip too long and stopword tokens
         if(tok.length <= data.meta.maxlen && (sw.isEmpty() || !sw.contains(tok))) {
           // check if main memory is exhausted
-          if((ntok++ & 0xFFF) == 0 && memFull()) {
+          if((ntok++ & 0xFFF) == 0 && memFull(bytes, 1)) {
             writeIndex(csize++);
+            bytes = 0;
             Performance.gc(singlegc ? 1 : 2);
           }
           index(tok);
+          bytes += tok.length + ENTRY;
         }
       }
     }
@@ -94,6 +100,7 @@ public final class FTBuilder extends IndexBuilder {
     write();
 
     data.meta.ftxtindex = true;
+    data.meta.ftxtids = data.meta.updindex;
     Util.memory(perf);
   }
 
@@ -108,7 +115,8 @@ public final class FTBuilder extends IndexBuilder {
    * @param tok token to be indexed
    */
   void index(final byte[] tok) {
-    tree.index(tok, pre, pos, csize);
+    // updatable indexes reference ids instead of pre values
+    tree.index(tok, data.meta.updindex ? data.id(pre) : pre, pos, csize);
   }
 
   /**
@@ -43,6 +43,9 @@ import org.basex.util.list.*;
  *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
  * </ul>
  *
+ * <p>If the index is updatable, the index files reference ids instead of
+ * pre values, and all updates are organized by {@link FTUpdates}.</p>
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
@@ -65,6 +68,8 @@ public final class FTIndex implements Index {
   /** Storing pre and pos values for each token. */
   final DataAccess inZ;
 
+  /** Index updates ({@code null} if the index is not updatable). */
+  private final FTUpdates updates;
   /** Cache for number of hits and data reference per token. */
   final IndexCache cache = new IndexCache();
   /** Token positions. */
@@ -99,6 +104,45 @@ public final class FTIndex implements Index {
       tp[p] = r;
     }
     tp[tp.length - 1] = (int) inY.length();
+    updates = d.meta.updindex ? new FTUpdates(d) : null;
+  }
+
+  /**
+   * Indexes a text that has been added to an updatable database.
+   * @param id id of the text node
+   * @param text text
+   */
+  public synchronized void add(final int id, final byte[] text) {
+    updates.add(id, text);
+  }
+
+  /**
+   * Removes a text that has been deleted from an updatable database.
+   * @param id id of the text node
+   * @param text old text
+   */
+  public synchronized void delete(final int id, final byte[] text) {
+    updates.delete(id, text);
+  }
+
+  /**
+   * Checks if the index has been updated since it was built.
+   * @return result of check
+   */
+  public synchronized boolean updated() {
+    return updates != null && updates.updated();
+  }
+
+  /**
+   * Writes pending updates to disk.
+   */
+  public synchronized void flush() {
+    if(updates == null) return;
+    try {
+      updates.write();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
   }
 
   @Override
@@ -113,7 +157,7 @@ public final class FTIndex implements Index {
     final FTOpt opt = ((FTLexer) it).ftOpt();
     if(opt.is(FZ) || opt.is(WC)) return Math.max(1, data.meta.size / 10);
 
-    return entry(tok).size;
+    return entry(tok).size + (updates != null ? updates.count(tok) : 0);
   }
 
   @Override
@@ -132,7 +176,8 @@ public final class FTIndex implements Index {
 
     // return cached or new result
     final IndexEntry e = entry(tok);
-    return e.size > 0 ? iter(e.pointer, e.size, inZ) : FTIndexIterator.FTEMPTY;
+    return e.size > 0 || updates != null ? iter(e.pointer, e.size, tok) :
+      FTIndexIterator.FTEMPTY;
   }
 
   /**
@@ -241,6 +286,7 @@ public final class FTIndex implements Index {
 
   @Override
   public synchronized void close() {
+    flush();
     inX.close();
     inY.close();
     inZ.close();
@@ -337,11 +383,16 @@ public final class FTIndex implements Index {
       while(i < tp.length && r == -1) r = tp[i++];
       while(p < r) {
         if(ls.similar(inY.readBytes(p, s), token, k)) {
-          it = FTIndexIterator.union(iter(pointer(p, s), size(p, s), inZ), it);
+          it = FTIndexIterator.union(iter(pointer(p, s), size(p, s), null), it);
         }
         p += s + ENTRY;
       }
     }
+    if(updates != null) {
+      for(final byte[] t : updates.tokens()) {
+        if(ls.similar(t, token, k)) it = FTIndexIterator.union(iter(0, 0, t), it);
+      }
+    }
     return it;
   }
 
@@ -370,17 +421,15 @@ public final class FTIndex implements Index {
       while(i < e) {
         final byte[] t = inY.readBytes(i, ti);
         if(!startsWith(t, pref)) break;
-        if(wc.match(t)) {
-          inZ.cursor(pointer(i, ti));
-          final int s = size(i, ti);
-          for(int d = 0; d < s; d++) {
-            pr.add(inZ.readNum());
-            ps.add(inZ.readNum());
-          }
-        }
+        if(wc.match(t)) read(pointer(i, ti), size(i, ti), pr, ps);
         i += ti + ENTRY;
       }
     }
+    if(updates != null) {
+      for(final byte[] t : updates.tokens()) {
+        if(wc.match(t)) updates.entries(t, pr, ps);
+      }
+    }
     return iter(new FTCache(pr, ps));
   }
 
@@ -388,18 +437,37 @@ public final class FTIndex implements Index {
    * Returns an iterator for an index entry.
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
+   * @param token token, the added entries of which will be included
+   *        (can be {@code null})
    * @return iterator
    */
-  private FTIndexIterator iter(final long off, final int size, final DataAccess da) {
-    da.cursor(off);
+  private FTIndexIterator iter(final long off, final int size, final byte[] token) {
     final IntList pr = new IntList(size);
     final IntList ps = new IntList(size);
+    read(off, size, pr, ps);
+    if(updates != null && token != null) updates.entries(token, pr, ps);
+    return iter(new FTCache(pr, ps));
+  }
+
+  /**
+   * Reads the pre values and positions of an index entry.
+   * If the index is updatable, ids are replaced with pre values, and
+   * obsolete entries are skipped.
+   * @param off offset on entries
+   * @param size number of id/pos entries
+   * @param pr pre values
+   * @param ps positions
+   */
+  private void read(final long off, final int size, final IntList pr,
+      final IntList ps) {
+    inZ.cursor(off);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      final int id = inZ.readNum(), pos = inZ.readNum();
+      final int pre = updates == null ? id : updates.pre(id);
+      if(pre == -1) continue;
+      pr.add(pre);
+      ps.add(pos);
     }
-    return iter(new FTCache(pr, ps));
   }
 
   /**
@@ -0,0 +1,265 @@
+package org.basex.index.ft;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.ft.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class organizes the updates of an updatable full-text index. If the
+ * {@link Prop#UPDINDEX} option is enabled, the index files reference the ids of
+ * the indexed text nodes. Texts that are added after the index has been built are
+ * tokenized and kept in a delta segment, which is consulted in addition to the
+ * index files. The ids of deleted and replaced texts are recorded, and the
+ * corresponding entries of the index files are skipped.</p>
+ *
+ * <p>The updates are logged in the file {@code DATAFTX + 'u'}: each flush appends
+ * the texts that have been added or deleted since the last flush, and the log is
+ * replayed when the index is opened. The updates are merged into the index files
+ * when the index is rebuilt, e.g. via {@code OPTIMIZE}.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class FTUpdates {
+  /** Log entry: added text. */
+  private static final int ADD = 'a';
+  /** Log entry: deleted text. */
+  private static final int DELETE = 'd';
+
+  /** Added tokens, with alternating ids and positions. */
+  private final TokenObjMap<IntList> tokens = new TokenObjMap<IntList>();
+  /** Ids of texts whose entries in the index files are obsolete. */
+  private final IntSet deleted = new IntSet();
+  /** Number of obsolete occurrences of tokens in the index files. */
+  private final TokenIntMap removed = new TokenIntMap();
+  /** Updates that have not been written to disk yet. */
+  private final ArrayOutput log = new ArrayOutput();
+  /** Data reference. */
+  private final Data data;
+  /** Word parser. */
+  private final FTLexer lex;
+
+  /**
+   * Constructor.
+   * @param d data reference
+   * @throws IOException I/O exception
+   */
+  FTUpdates(final Data d) throws IOException {
+    data = d;
+    final MetaData md = d.meta;
+    final FTOpt fto = new FTOpt();
+    fto.set(FTFlag.DC, md.diacritics);
+    fto.set(FTFlag.CS, md.casesens);
+    fto.set(FTFlag.ST, md.stemming);
+    fto.sw = new StopWords();
+    fto.sw.comp(d);
+    fto.ln = md.language != null ? md.language : Language.get(md.prop);
+    lex = new FTLexer(fto);
+
+    final IOFile file = file();
+    if(!file.exists()) return;
+    final DataInput in = new DataInput(file);
+    try {
+      for(int op; (op = in.read()) != -1;) {
+        final int id = in.readNum();
+        final byte[] text = in.readToken();
+        if(op == ADD) index(id, text);
+        else remove(id, text);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Indexes the tokens of a text that has been added.
+   * @param id id of the text node
+   * @param text text
+   */
+  void add(final int id, final byte[] text) {
+    index(id, text);
+    log(ADD, id, text);
+  }
+
+  /**
+   * Removes the tokens of a text that has been deleted or replaced.
+   * @param id id of the text node
+   * @param text old text
+   */
+  void delete(final int id, final byte[] text) {
+    remove(id, text);
+    log(DELETE, id, text);
+  }
+
+  /**
+   * Adds the tokens of a text to the delta segment.
+   * @param id id of the text node
+   * @param text text
+   */
+  private void index(final int id, final byte[] text) {
+    int pos = -1;
+    final StopWords sw = lex.ftOpt().sw;
+    lex.init(text);
+    while(lex.hasNext()) {
+      final byte[] tok = lex.nextToken();
+      ++pos;
+      // skip too long and stopword tokens
+      if(!indexed(tok, sw)) continue;
+      IntList il = tokens.get(tok);
+      if(il == null) {
+        il = new IntList();
+        tokens.add(tok, il);
+      }
+      il.add(id);
+      il.add(pos);
+    }
+  }
+
+  /**
+   * Removes the tokens of a text from the delta segment. If the text has not been
+   * added to the delta segment, its occurrences in the index files are counted as
+   * obsolete.
+   * @param id id of the text node
+   * @param text old text
+   */
+  private void remove(final int id, final byte[] text) {
+    final boolean indexed = !deleted.contains(id);
+    deleted.add(id);
+    final TokenList toks = new TokenList();
+    boolean added = false;
+    final StopWords sw = lex.ftOpt().sw;
+    lex.init(text);
+    while(lex.hasNext()) {
+      final byte[] tok = lex.nextToken();
+      if(!indexed(tok, sw)) continue;
+      toks.add(tok);
+      final IntList il = tokens.get(tok);
+      if(il == null) continue;
+      for(int i = il.size() - 2; i >= 0; i -= 2) {
+        if(il.get(i) == id) {
+          il.deleteAt(i + 1);
+          il.deleteAt(i);
+          added = true;
+        }
+      }
+    }
+    if(indexed && !added) {
+      for(final byte[] tok : toks) removed.add(tok, Math.max(0, removed.value(tok)) + 1);
+    }
+  }
+
+  /**
+   * Checks if the specified token is stored in the index.
+   * Too long tokens and stopwords are skipped.
+   * @param tok token
+   * @param sw stopwords
+   * @return result of check
+   */
+  private boolean indexed(final byte[] tok, final StopWords sw) {
+    return tok.length <= data.meta.maxlen && (sw.isEmpty() || !sw.contains(tok));
+  }
+
+  /**
+   * Caches an update, which will be appended to disk with the next flush.
+   * @param op operation ({@link #ADD} or {@link #DELETE})
+   * @param id id of the text node
+   * @param text text
+   */
+  private void log(final int op, final int id, final byte[] text) {
+    try {
+      final DataOutput out = new DataOutput(log);
+      out.write(op);
+      out.writeNum(id);
+      out.writeToken(text);
+    } catch(final IOException ex) {
+      // not expected for main-memory output
+      throw Util.notexpected(ex);
+    }
+  }
+
+  /**
+   * Returns the pre value of an id that has been found in the index files.
+   * @param id id
+   * @return pre value, or {@code -1} if the entry is obsolete
+   */
+  int pre(final int id) {
+    return deleted.contains(id) ? -1 : data.pre(id);
+  }
+
+  /**
+   * Adds the pre values and positions of an added token to the specified lists.
+   * @param token token
+   * @param pr pre values
+   * @param ps positions
+   */
+  void entries(final byte[] token, final IntList pr, final IntList ps) {
+    final IntList il = tokens.get(token);
+    if(il == null) return;
+    final int s = il.size();
+    for(int i = 0; i < s; i += 2) {
+      pr.add(data.pre(il.get(i)));
+      ps.add(il.get(i + 1));
+    }
+  }
+
+  /**
+   * Returns the number of occurrences of an added token, minus the number of its
+   * obsolete occurrences in the index files.
+   * @param token token
+   * @return difference of occurrences
+   */
+  int count(final byte[] token) {
+    final IntList il = tokens.get(token);
+    return (il == null ? 0 : il.size() >> 1) - Math.max(0, removed.value(token));
+  }
+
+  /**
+   * Returns all added tokens.
+   * @return tokens
+   */
+  TokenSet tokens() {
+    return tokens;
+  }
+
+  /**
+   * Checks if the index has been updated.
+   * @return result of check
+   */
+  boolean updated() {
+    return deleted.size() != 0 || !tokens.isEmpty();
+  }
+
+  /**
+   * Appends the updates since the last flush to disk.
+   * @throws IOException I/O exception
+   */
+  void write() throws IOException {
+    if(log.size() == 0) return;
+    final FileOutputStream out = new FileOutputStream(file().file(), true);
+    try {
+      out.write(log.buffer(), 0, (int) log.size());
+    } finally {
+      out.close();
+    }
+    log.reset();
+  }
+
+  /**
+   * Returns the file storing the updates.
+   * @return file
+   */
+  private IOFile file() {
+    return data.meta.dbfile(DATAFTX + 'u');
+  }
+}
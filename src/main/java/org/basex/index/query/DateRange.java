@@ -0,0 +1,51 @@
+package org.basex.index.query;
+
+import org.basex.index.*;
+import org.basex.util.*;
+
+/**
+ * This class stores a range of date or dateTime values for index access.
+ * All values are represented as milliseconds since January 1, 1970, 00:00:00 GMT.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class DateRange implements IndexToken {
+  /** Index type. */
+  public final IndexType type;
+  /** Date or dateTime values. */
+  public final boolean date;
+  /** Minimum value (inclusive). */
+  public final double min;
+  /** Maximum value (inclusive). */
+  public final double max;
+  /** Offset of the implicit timezone, which is applied to values without timezone. */
+  public final double zone;
+
+  /**
+   * Constructor.
+   * @param it index type
+   * @param dt date or dateTime values
+   * @param mn minimum value (inclusive)
+   * @param mx maximum value (inclusive)
+   * @param zn offset of the implicit timezone (milliseconds)
+   */
+  public DateRange(final IndexType it, final boolean dt, final double mn,
+      final double mx, final double zn) {
+    type = it;
+    date = dt;
+    min = mn;
+    max = mx;
+    zone = zn;
+  }
+
+  @Override
+  public IndexType type() {
+    return type;
+  }
+
+  @Override
+  public byte[] get() {
+    return Token.EMPTY;
+  }
+}
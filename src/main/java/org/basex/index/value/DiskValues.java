@@ -12,7 +12,9 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
+import org.basex.query.value.item.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
@@ -38,10 +40,14 @@ public class DiskValues implements Index {
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
   protected final IntMap<byte[]> ctext = new IntMap<byte[]>();
 
-  /** Synchronization object. */
+  /** Synchronization object. Index entries are read without locking. */
   protected final Object monitor = new Object();
   /** Number of current index entries. */
   protected AtomicInteger size = new AtomicInteger();
+  /** Directory of numeric keys (can be {@code null}). */
+  protected NumericIndex numeric;
+  /** Directory of date and dateTime keys (can be {@code null}). */
+  protected NumericIndex dates;
 
   /**
    * Constructor, initializing the index structure.
@@ -67,6 +73,10 @@ public class DiskValues implements Index {
     idxl = new DataAccess(d.meta.dbfile(pref + "l"));
     idxr = new DataAccess(d.meta.dbfile(pref + "r"));
     size.set(idxl.read4());
+    final IOFile nf = d.meta.dbfile(pref + "n");
+    if(nf.exists()) numeric = new NumericIndex(nf);
+    final IOFile df = d.meta.dbfile(pref + "d");
+    if(df.exists()) dates = new NumericIndex(df);
   }
 
   @Override
@@ -78,14 +88,18 @@ public class DiskValues implements Index {
     tb.add(LI_STRUCTURE + SORTED_LIST + NL);
     final IndexStats stats = new IndexStats(data.meta.prop.num(Prop.MAXSTAT));
 
-    synchronized(monitor) {
-      final long l = idxl.length() + idxr.length();
-      tb.add(LI_SIZE + Performance.format(l, true) + NL);
-      final int s = size.get();
-      for(int m = 0; m < s; ++m) {
-        final long pos = idxr.read5(m * 5L);
-        final int oc = idxl.readNum(pos);
-        if(stats.adding(oc)) stats.add(data.text(pre(idxl.readNum()), text));
+    final NumericIndex ni = numeric;
+    final long l = idxl.length() + idxr.length();
+    tb.add(LI_SIZE + Performance.format(l, true) + NL);
+    if(ni != null) tb.add(LI_NUMERIC + ni.size() + NL);
+    final NumericIndex di = dates;
+    if(di != null) tb.add(LI_DATES + di.size() + NL);
+    final int s = size.get();
+    for(int m = 0; m < s; ++m) {
+      final long pos = idxr.get5(m * 5L);
+      final int oc = idxl.getNum(pos);
+      if(stats.adding(oc)) {
+        stats.add(data.text(pre(idxl.getNum(pos + Num.length(oc))), text));
       }
     }
 
@@ -97,6 +111,7 @@ public class DiskValues implements Index {
   public int count(final IndexToken it) {
     if(it instanceof StringRange) return idRange((StringRange) it).size();
     if(it instanceof NumericRange) return idRange((NumericRange) it).size();
+    if(it instanceof DateRange) return idRange((DateRange) it).size();
     final byte[] key = it.get();
     return key.length <= data.meta.maxlen ? entry(key).size : Integer.MAX_VALUE;
   }
@@ -105,6 +120,7 @@ public class DiskValues implements Index {
   public IndexIterator iter(final IndexToken it) {
     if(it instanceof StringRange) return idRange((StringRange) it);
     if(it instanceof NumericRange) return idRange((NumericRange) it);
+    if(it instanceof DateRange) return idRange((DateRange) it);
     final IndexEntry e = entry(it.get());
     return iter(e.size, e.pointer);
   }
@@ -122,18 +138,11 @@ public class DiskValues implements Index {
     final long p = get(tok);
     if(p < 0) return new IndexEntry(tok, 0, 0);
 
-    final int count;
-    final long pointer;
-
-    synchronized(monitor) {
-      // get position in heap file
-      final long pos = idxr.read5(p * 5L);
-      // the first heap entry represents the number of hits
-      count = idxl.readNum(pos);
-      pointer = idxl.cursor();
-    }
-
-    return cache.add(tok, count, pointer);
+    // get position in heap file
+    final long pos = idxr.get5(p * 5L);
+    // the first heap entry represents the number of hits
+    final int count = idxl.getNum(pos);
+    return cache.add(tok, count, pos + Num.length(count));
   }
 
   @Override
@@ -182,12 +191,10 @@ public class DiskValues implements Index {
       @Override
       public byte[] next() {
         if(++ix < s) {
-          synchronized(monitor) {
-            final IndexEntry entry = readKeyAt(ix);
-            if(startsWith(entry.key, prefix)) {
-              count = entry.size;
-              return entry.key;
-            }
+          final IndexEntry entry = readKeyAt(ix);
+          if(startsWith(entry.key, prefix)) {
+            count = entry.size;
+            return entry.key;
           }
         }
         count = -1;
@@ -215,11 +222,9 @@ public class DiskValues implements Index {
       @Override
       public byte[] next() {
         if(++ix <= last) {
-          synchronized(monitor) {
-            final IndexEntry entry = readKeyAt(ix);
-            count = entry.size;
-            return entry.key;
-          }
+          final IndexEntry entry = readKeyAt(ix);
+          count = entry.size;
+          return entry.key;
         }
         count = -1;
         return null;
@@ -246,11 +251,9 @@ public class DiskValues implements Index {
       @Override
       public byte[] next() {
         if(--ix >= first) {
-          synchronized(monitor) {
-            final IndexEntry entry = readKeyAt(ix);
-            count = entry.size;
-            return entry.key;
-          }
+          final IndexEntry entry = readKeyAt(ix);
+          count = entry.size;
+          return entry.key;
         }
         count = -1;
         return null;
@@ -265,7 +268,7 @@ public class DiskValues implements Index {
 
   /**
    * Read a key at the given position.
-   * <p><em>Important:</em> This method is NOT thread-safe, since it is used in loops.</p>
+   * <p><em>Important:</em> This method is thread-safe.</p>
    * @param index key position
    * @return key
    */
@@ -277,15 +280,12 @@ public class DiskValues implements Index {
       if(entry != null) return entry;
     }
 
-    final long pos = idxr.read5(index * 5L);
-    // read and ignore the number of ids in the list
-    final int cnt = idxl.readNum(pos);
-    if(key == null) {
-      final int id = idxl.readNum();
-      key = data.text(pre(id), text);
-    }
-
-    return cache.add(key, cnt, pos + Num.length(cnt));
+    final long pos = idxr.get5(index * 5L);
+    // read the number of ids in the list
+    final int cnt = idxl.getNum(pos);
+    final long ids = pos + Num.length(cnt);
+    if(key == null) key = data.text(pre(idxl.getNum(ids)), text);
+    return cache.add(key, cnt, ids);
   }
 
   /**
@@ -297,14 +297,7 @@ public class DiskValues implements Index {
    */
   private IndexIterator iter(final int s, final long ps) {
     final IntList pres = new IntList(s);
-    long p = ps;
-    synchronized(monitor) {
-      for(int i = 0, id = 0; i < s; i++) {
-        id += idxl.readNum(p);
-        p = idxl.cursor();
-        pres.add(pre(id));
-      }
-    }
+    add(pres, ps, s);
     return iter(pres.sort());
   }
 
@@ -317,23 +310,19 @@ public class DiskValues implements Index {
   private IndexIterator idRange(final StringRange tok) {
     // check if min and max are positive integers with the same number of digits
     final IntList pres = new IntList();
-    synchronized(monitor) {
-      final int i = get(tok.min);
-      final int s = size.get();
-      for(int l = i < 0 ? -i - 1 : tok.mni ? i : i + 1; l < s; l++) {
-        final int ps = idxl.readNum(idxr.read5(l * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
-
-        // value is too large: skip traversal
-        final int d = diff(data.text(pre, text), tok.max);
-        if(d > 0 || !tok.mxi && d == 0) break;
-        // add pre values
-        for(int p = 0; p < ps; ++p) {
-          pres.add(pre(id));
-          id += idxl.readNum();
-        }
-      }
+    final int i = get(tok.min);
+    final int s = size.get();
+    for(int l = i < 0 ? -i - 1 : tok.mni ? i : i + 1; l < s; l++) {
+      long pos = idxr.get5(l * 5L);
+      final int ps = idxl.getNum(pos);
+      pos += Num.length(ps);
+      final int pre = pre(idxl.getNum(pos));
+
+      // value is too large: skip traversal
+      final int d = diff(data.text(pre, text), tok.max);
+      if(d > 0 || !tok.mxi && d == 0) break;
+      // add pre values
+      add(pres, pos, ps);
     }
     return iter(pres.sort());
   }
@@ -348,37 +337,101 @@ public class DiskValues implements Index {
     final double min = tok.min;
     final double max = tok.max;
 
+    // use directory of numeric keys
+    final NumericIndex ni = numeric;
+    if(ni != null) {
+      final IntList keys = new IntList();
+      ni.keys(min, max, 0, keys);
+      return keys(keys);
+    }
+
     // check if min and max are positive integers with the same number of digits
     final int len = max > 0 && (long) max == max ? token(max).length : 0;
     final boolean simple = len != 0 && min > 0 && (long) min == min &&
         token(min).length == len;
 
     final IntList pres = new IntList();
-    synchronized(monitor) {
+    final int s = size.get();
+    for(int l = 0; l < s; ++l) {
+      long pos = idxr.get5(l * 5L);
+      final int ds = idxl.getNum(pos);
+      pos += Num.length(ds);
+      final int pre = pre(idxl.getNum(pos));
+
+      final double v = data.textDbl(pre, text);
+      if(v >= min && v <= max) {
+        // value is in range
+        add(pres, pos, ds);
+      } else if(simple && v > max && data.textLen(pre, text) == len) {
+        // if limits are integers, if min, max and current value have the same
+        // string length, and if current value is larger than max, test can be
+        // skipped, as all remaining values will be bigger
+        break;
+      }
+    }
+    return iter(pres.sort());
+  }
+
+  /**
+   * Performs a range query on date or dateTime values.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param tok index term
+   * @return results
+   */
+  private IndexIterator idRange(final DateRange tok) {
+    final NumericIndex ni = dates;
+    final IntList keys = new IntList();
+    final int flag = tok.date ? NumericIndex.DATE : 0;
+    if(ni != null) {
+      ni.keys(tok.min, tok.max, flag, keys);
+      ni.keys(tok.min + tok.zone, tok.max + tok.zone, flag | NumericIndex.LOCAL, keys);
+    } else {
+      // no directory available: parse all keys
       final int s = size.get();
-      for(int l = 0; l < s; ++l) {
-        final int ds = idxl.readNum(idxr.read5(l * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
-
-        final double v = data.textDbl(pre, text);
-        if(v >= min && v <= max) {
-          // value is in range
-          for(int d = 0; d < ds; ++d) {
-            pres.add(pre(id));
-            id += idxl.readNum();
-          }
-        } else if(simple && v > max && data.textLen(pre, text) == len) {
-          // if limits are integers, if min, max and current value have the same
-          // string length, and if current value is larger than max, test can be
-          // skipped, as all remaining values will be bigger
-          break;
-        }
+      for(int l = 0; l < s; l++) {
+        final ADate d = ADate.parse(readKeyAt(l).key);
+        if(d == null || (NumericIndex.flags(d) & NumericIndex.DATE) != flag) continue;
+        final double v = d.zoned() ? d.epoch() : d.epoch() - tok.zone;
+        if(v >= tok.min && v <= tok.max) keys.add(l);
       }
     }
+    return keys(keys);
+  }
+
+  /**
+   * Returns an iterator for the ids of the specified keys.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param keys key positions
+   * @return iterator
+   */
+  private IndexIterator keys(final IntList keys) {
+    final int ks = keys.size();
+    final IntList pres = new IntList();
+    for(int k = 0; k < ks; k++) {
+      final long pos = idxr.get5(keys.get(k) * 5L);
+      final int ds = idxl.getNum(pos);
+      add(pres, pos + Num.length(ds), ds);
+    }
     return iter(pres.sort());
   }
 
+  /**
+   * Adds the pre values of a delta-encoded id list to the specified list.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param pres pre values
+   * @param ps position of the first id
+   * @param s number of ids
+   */
+  private void add(final IntList pres, final long ps, final int s) {
+    long p = ps;
+    for(int i = 0, id = 0; i < s; i++) {
+      final int v = idxl.getNum(p);
+      p += Num.length(v);
+      id += v;
+      pres.add(pre(id));
+    }
+  }
+
   /**
    * Returns an iterator for the specified id list.
    * @param ids id list
@@ -435,15 +488,13 @@ public class DiskValues implements Index {
    */
   protected int get(final byte[] key, final int first, final int last) {
     int l = first, h = last;
-    synchronized(monitor) {
-      while(l <= h) {
-        final int m = l + h >>> 1;
-        final byte[] txt = readKeyAt(m).key;
-        final int d = diff(txt, key);
-        if(d == 0) return m;
-        if(d < 0) l = m + 1;
-        else h = m - 1;
-      }
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      final byte[] txt = readKeyAt(m).key;
+      final int d = diff(txt, key);
+      if(d == 0) return m;
+      if(d < 0) l = m + 1;
+      else h = m - 1;
     }
     return -(l + 1);
   }
@@ -462,6 +513,8 @@ public class DiskValues implements Index {
       flush();
       idxl.close();
       idxr.close();
+      if(numeric != null) numeric.close();
+      if(dates != null) dates.close();
     }
   }
 
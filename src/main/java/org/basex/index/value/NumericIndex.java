@@ -0,0 +1,151 @@
+package org.basex.index.value;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.query.value.item.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class provides access to a sorted directory of all numeric keys of a
+ * value index. It is used to evaluate numeric range queries in logarithmic time.</p>
+ *
+ * <p>The directory is stored in the file {@code DATATXT/ATV + 'n'}; a directory of
+ * date and dateTime keys is stored in {@code DATATXT/ATV + 'd'}. The number of
+ * entries is stored in the first 4 bytes of the file. It is followed by fixed-size
+ * entries, sorted by their numeric value: the 8-byte double value and the 4-byte
+ * position of the key in the value index. The two most significant bits of the
+ * position are reserved for the {@link #DATE} and {@link #LOCAL} flags.
+ * The smallest value of each block of {@link #FENCE} entries is kept in main
+ * memory as fence pointer; a lookup consists of a binary search on the fence
+ * pointers and a sequential scan of the subsequent entries.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class NumericIndex {
+  /** Number of entries per fence pointer. */
+  private static final int FENCE = 128;
+  /** Size of an entry. */
+  private static final int ENTRY = 12;
+  /** Flag for date keys (dateTime keys otherwise). */
+  static final int DATE = 1 << 31;
+  /** Flag for keys without timezone. */
+  static final int LOCAL = 1 << 30;
+  /** Flags. */
+  private static final int FLAGS = DATE | LOCAL;
+
+  /** Directory entries. */
+  private final DataAccess da;
+  /** Number of entries. */
+  private final int size;
+  /** Fence pointers: smallest values of all blocks. */
+  private final double[] fences;
+
+  /**
+   * Constructor, opening an existing directory.
+   * @param file index file
+   * @throws IOException I/O exception
+   */
+  NumericIndex(final IOFile file) throws IOException {
+    da = new DataAccess(file);
+    size = da.get4(0);
+    fences = new double[(size + FENCE - 1) / FENCE];
+    for(int f = 0; f < fences.length; f++) fences[f] = value(f * FENCE);
+  }
+
+  /**
+   * Writes a directory to disk.
+   * @param file index file
+   * @param values numeric values of the keys
+   * @param keys positions of the keys in the value index
+   * @param s number of keys
+   * @throws IOException I/O exception
+   */
+  static void write(final IOFile file, final double[] values, final int[] keys,
+      final int s) throws IOException {
+
+    final double[] vals = Arrays.copyOf(values, s);
+    final IntList order = new IntList(Arrays.copyOf(keys, s));
+    order.sort(vals, true);
+
+    final DataOutput out = new DataOutput(file);
+    try {
+      out.write4(s);
+      for(int i = 0; i < s; i++) {
+        final long l = Double.doubleToRawLongBits(vals[i]);
+        out.write4((int) (l >>> 32));
+        out.write4((int) l);
+        out.write4(order.get(i));
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Returns the flags for the specified date.
+   * @param date date item
+   * @return flags
+   */
+  static int flags(final ADate date) {
+    return (date instanceof Dat ? DATE : 0) | (date.zoned() ? 0 : LOCAL);
+  }
+
+  /**
+   * Returns the positions of all keys whose numeric values are located in the
+   * specified range.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param min minimum value (inclusive)
+   * @param max maximum value (inclusive)
+   * @param flags flags of the keys to be returned
+   * @param il list to which the key positions will be added
+   */
+  void keys(final double min, final double max, final int flags, final IntList il) {
+    if(min > max) return;
+
+    // find last block with a smallest value lower than the minimum
+    int l = 0, h = fences.length - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(fences[m] < min) l = m + 1;
+      else h = m - 1;
+    }
+    for(int i = Math.max(0, h) * FENCE; i < size; i++) {
+      final double v = value(i);
+      if(v > max) break;
+      if(v < min) continue;
+      final int k = da.get4(4L + i * (long) ENTRY + 8);
+      if((k & FLAGS) == flags) il.add(k & ~FLAGS);
+    }
+  }
+
+  /**
+   * Returns the number of entries.
+   * @return number of entries
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Closes the directory.
+   */
+  void close() {
+    da.close();
+  }
+
+  /**
+   * Returns the numeric value of the specified entry.
+   * @param i entry offset
+   * @return value
+   */
+  private double value(final int i) {
+    final long p = 4L + i * (long) ENTRY;
+    return Double.longBitsToDouble((long) da.get4(p) << 32 |
+        da.get4(p + 4) & 0xFFFFFFFFL);
+  }
+}
@@ -52,6 +52,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void index(final TokenObjMap<IntList> m) {
+    dropNumeric();
     final int s = size.get();
     final int last = s - 1;
 
@@ -124,6 +125,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void delete(final TokenObjMap<IntList> m) {
+    dropNumeric();
     // create a sorted list of all keys: allows faster binary search
     final TokenList allkeys = new TokenList(m.keys()).sort(true);
 
@@ -199,6 +201,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void replace(final byte[] o, final byte[] n, final int id) {
+    dropNumeric();
     // delete the id from the old key
     final int p = get(o);
     if(p >= 0) {
@@ -214,6 +217,25 @@ public final class UpdatableDiskValues extends DiskValues {
     insertId(n, id);
   }
 
+  /**
+   * Drops the directories of numeric and date keys, as they reference the
+   * positions of the keys. Range queries will be evaluated by scanning all keys
+   * until the index is rebuilt.
+   */
+  private void dropNumeric() {
+    final String pref = text ? DATATXT : DATAATV;
+    if(numeric != null) {
+      numeric.close();
+      numeric = null;
+      data.meta.drop(pref + 'n');
+    }
+    if(dates != null) {
+      dates.close();
+      dates = null;
+      data.meta.drop(pref + 'd');
+    }
+  }
+
   /**
    * Add a text entry to the index.
    * @param key text to index
@@ -5,12 +5,15 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
+import org.basex.query.value.item.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -29,16 +32,33 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'n'}: contains a sorted directory of all numeric
+ *   keys, which is used for range queries (see {@link NumericIndex}).</li>
+ * <li> {@code DATATXT/ATV + 'd'}: contains a sorted directory of all date and
+ *   dateTime keys. It is only created if {@link Prop#DATEINDEX} is enabled.</li>
  * </ul>
  *
+ * <p>If {@link Prop#INDEXTHREADS} is greater than one, the table is split into
+ * ranges of pre values, which are indexed by concurrent threads. The threads
+ * read the table without blocking each other (see {@link TableDiskAccess}).
+ * The partial indexes are written to temporary files and merged afterwards.</p>
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public final class ValueBuilder extends IndexBuilder {
-  /** Temporary value tree. */
-  private IndexTree index = new IndexTree();
+  /** Minimum number of nodes to be indexed by a single thread. */
+  private static final int RANGE = 1 << 16;
+  /** Estimated memory consumption of a cached value, excluding the key. */
+  private static final int ENTRY = 24;
+  /** Number of threads. */
+  private int threads;
   /** Index type (attributes/texts). */
   private final boolean text;
+  /** Numeric keys. */
+  private Keys nums = new Keys();
+  /** Date and dateTime keys ({@code null} if they are not indexed). */
+  private Keys dates;
 
   /**
    * Constructor.
@@ -48,6 +68,7 @@ public final class ValueBuilder extends IndexBuilder {
   public ValueBuilder(final Data d, final boolean txt) {
     super(d);
     text = txt;
+    if(d.meta.dateindex) dates = new Keys();
   }
 
   @Override
@@ -59,31 +80,26 @@ public final class ValueBuilder extends IndexBuilder {
     Util.debug(det());
 
     final String f = text ? DATATXT : DATAATV;
-    final int k = text ? Data.TEXT : Data.ATTR;
-
-    for(pre = 0; pre < size; ++pre) {
-      if((pre & 0x0FFF) == 0) {
-        check();
-        // check if main memory is exhausted
-        if(memFull()) {
-          write(f + csize++, false);
-          index = new IndexTree();
-          Performance.gc(singlegc ? 1 : 2);
-        }
+    threads = Math.max(1, Math.min(size / RANGE, data.meta.prop.num(Prop.INDEXTHREADS)));
+    if(threads == 1) {
+      final IndexTree index = index(0, size);
+      if(merge) {
+        write(index, f + temp(), false);
+      } else {
+        write(index, f, true);
       }
-      // skip too long values
-      if(data.kind(pre) == k && data.textLen(pre, text) <= data.meta.maxlen)
-        index.index(data.text(pre, text), data.meta.updindex ? data.id(pre) : pre);
+    } else {
+      index(f);
+      merge = true;
     }
-
     if(merge) {
-      write(f + csize++, false);
-      index = null;
       if(!singlegc) Performance.gc(1);
       merge();
-    } else {
-      write(f, true);
     }
+    nums.write(data.meta.dbfile(f + 'n'));
+    if(dates != null) dates.write(data.meta.dbfile(f + 'd'));
+    nums = null;
+    dates = null;
 
     if(text) data.meta.textindex = true;
     else data.meta.attrindex = true;
@@ -93,6 +109,99 @@ public final class ValueBuilder extends IndexBuilder {
         new UpdatableDiskValues(data, text) : new DiskValues(data, text);
   }
 
+  /**
+   * Indexes the values of the specified range of pre values.
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @return index tree with the remaining values
+   * @throws IOException I/O exception
+   */
+  private IndexTree index(final int start, final int end) throws IOException {
+    final String f = text ? DATATXT : DATAATV;
+    final int k = text ? Data.TEXT : Data.ATTR;
+    IndexTree index = new IndexTree();
+    long bytes = 0;
+    int n = start;
+    for(int p = start; p < end; ++p) {
+      if((p - start & 0x0FFF) == 0) {
+        step(p - n);
+        n = p;
+        check();
+        // check if memory budget or main memory is exhausted
+        if(memFull(bytes, threads)) {
+          write(index, f + temp(), false);
+          index = new IndexTree();
+          bytes = 0;
+          Performance.gc(singlegc ? 1 : 2);
+        }
+      }
+      // skip too long values
+      if(data.kind(p) == k && data.textLen(p, text) <= data.meta.maxlen) {
+        final byte[] key = data.text(p, text);
+        index.index(key, data.meta.updindex ? data.id(p) : p);
+        bytes += key.length + ENTRY;
+      }
+    }
+    step(end - n);
+    return index;
+  }
+
+  /**
+   * Indexes all values with concurrent threads.
+   * Each thread writes its partial index to a temporary file.
+   * @param f file prefix
+   * @throws IOException I/O exception
+   */
+  private void index(final String f) throws IOException {
+    final Throwable[] error = new Throwable[1];
+    final Thread[] workers = new Thread[threads];
+    for(int t = 0; t < threads; t++) {
+      final int start = (int) ((long) size * t / threads);
+      final int end = (int) ((long) size * (t + 1) / threads);
+      workers[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            write(index(start, end), f + temp(), false);
+          } catch(final Throwable ex) {
+            synchronized(error) {
+              if(error[0] == null) error[0] = ex;
+            }
+            ValueBuilder.this.stop();
+          }
+        }
+      };
+      workers[t].start();
+    }
+    try {
+      for(final Thread w : workers) w.join();
+    } catch(final InterruptedException ex) {
+      stop();
+      throw new IOException(Util.message(ex));
+    }
+
+    final Throwable ex = error[0];
+    if(ex instanceof IOException) throw (IOException) ex;
+    if(ex instanceof RuntimeException) throw (RuntimeException) ex;
+    if(ex instanceof Error) throw (Error) ex;
+  }
+
+  /**
+   * Returns the number of the next temporary index file.
+   * @return file number
+   */
+  private synchronized int temp() {
+    return csize++;
+  }
+
+  /**
+   * Increases the number of indexed nodes.
+   * @param n number of nodes
+   */
+  private synchronized void step(final int n) {
+    pre += n;
+  }
+
   /**
    * Merges cached index files.
    * @throws IOException I/O exception
@@ -103,48 +212,46 @@ public final class ValueBuilder extends IndexBuilder {
     final DataOutput outR = new DataOutput(data.meta.dbfile(f + 'r'));
     outL.write4(0);
 
-    // initialize cached index iterators
-    final IntList ml = new IntList();
-    final IntList il = new IntList();
-    final ValueMerger[] vm = new ValueMerger[csize];
-    for(int i = 0; i < csize; ++i) vm[i] = new ValueMerger(data, text, i);
-    int sz = 0;
+    // initialize cached index iterators, ordered by their current keys
+    final MinHeap<byte[], ValueMerger> heap = new MinHeap<byte[], ValueMerger>(csize,
+      new Comparator<byte[]>() {
+        @Override
+        public int compare(final byte[] a, final byte[] b) {
+          return diff(a, b);
+        }
+      });
+    for(int i = 0; i < csize; ++i) {
+      final ValueMerger vm = new ValueMerger(data, text, i);
+      if(vm.values.length != 0) heap.insert(vm.key, vm);
+    }
 
     // parse through all values
-    while(true) {
+    final ArrayList<ValueMerger> ml = new ArrayList<ValueMerger>();
+    final IntList il = new IntList();
+    int sz = 0;
+    while(!heap.isEmpty()) {
       checkStop();
 
-      // find first index which is not completely parsed yet
-      int min = -1;
-      while(++min < csize && vm[min].values.length == 0);
-      if(min == csize) break;
-
-      // find index entry with smallest key
-      ml.reset();
-      for(int i = min; i < csize; ++i) {
-        if(vm[i].values.length == 0) continue;
-        final int d = diff(vm[min].key, vm[i].key);
-        if(d < 0) continue;
-        if(d > 0) {
-          min = i;
-          ml.reset();
-        }
-        ml.add(i);
-      }
+      // find all index entries with the smallest key
+      final byte[] key = heap.minValue().key;
+      ml.clear();
+      do {
+        ml.add(heap.removeMin());
+      } while(!heap.isEmpty() && eq(key, heap.minValue().key));
 
       // parse through all values, cache and sort id values
-      final int ms = ml.size();
-      for(int m = 0; m < ms; ++m) {
-        final ValueMerger t = vm[ml.get(m)];
-        final int vl = t.values.length;
+      for(final ValueMerger vm : ml) {
+        final int vl = vm.values.length;
         for(int l = 4, v; l < vl; l += Num.length(v)) {
-          v = Num.get(t.values, l);
+          v = Num.get(vm.values, l);
           il.add(v);
         }
-        t.next();
+        vm.next();
+        if(vm.values.length != 0) heap.insert(vm.key, vm);
       }
       // write final structure to disk
       write(outL, outR, il);
+      keys(key, sz);
       ++sz;
     }
 
@@ -159,12 +266,14 @@ public final class ValueBuilder extends IndexBuilder {
   }
 
   /**
-   * Writes the current value tree to disk.
+   * Writes a value tree to disk.
+   * @param index value tree
    * @param name name
    * @param all writes the complete tree
    * @throws IOException I/O exception
    */
-  private void write(final String name, final boolean all) throws IOException {
+  private void write(final IndexTree index, final String name, final boolean all)
+      throws IOException {
     // write id arrays and references
     final DataOutput outL = new DataOutput(data.meta.dbfile(name + 'l'));
     final DataOutput outR = new DataOutput(data.meta.dbfile(name + 'r'));
@@ -172,8 +281,9 @@ public final class ValueBuilder extends IndexBuilder {
 
     final IntList il = new IntList();
     index.init();
-    while(index.more()) {
-      final byte[] values = index.values.get(index.next());
+    for(int k = 0; index.more(); k++) {
+      final int i = index.next();
+      final byte[] values = index.values.get(i);
       final int vs = Num.size(values);
 
       if(all) {
@@ -183,6 +293,7 @@ public final class ValueBuilder extends IndexBuilder {
         }
         // write final structure to disk
         write(outL, outR, il);
+        keys(index.keys.get(i), k);
       } else {
         // write temporary structure to disk: number of entries, absolute values
         outR.write5(outL.size());
@@ -224,6 +335,20 @@ public final class ValueBuilder extends IndexBuilder {
     il.reset();
   }
 
+  /**
+   * Caches the numeric and date values of a key.
+   * @param key key
+   * @param k position of the key
+   */
+  private void keys(final byte[] key, final int k) {
+    final double d = toDouble(key);
+    if(!Double.isNaN(d)) nums.add(d, k);
+    if(dates != null) {
+      final ADate dt = ADate.parse(key);
+      if(dt != null) dates.add(dt.epoch(), k | NumericIndex.flags(dt));
+    }
+  }
+
   @Override
   public void abort() {
     data.meta.drop((text ? DATATXT : DATAATV) + ".+");
@@ -235,4 +360,40 @@ public final class ValueBuilder extends IndexBuilder {
   protected String det() {
     return text ? INDEX_TEXT_D : INDEX_ATTRIBUTES_D;
   }
+
+  /**
+   * Cached keys of a sorted directory.
+   */
+  private static final class Keys {
+    /** Values. */
+    double[] values = new double[IntList.CAP];
+    /** Key positions. */
+    int[] keys = new int[IntList.CAP];
+    /** Number of keys. */
+    int size;
+
+    /**
+     * Adds a key.
+     * @param v value
+     * @param k key position
+     */
+    void add(final double v, final int k) {
+      if(size == values.length) {
+        final int s = size << 1;
+        values = Arrays.copyOf(values, s);
+        keys = Arrays.copyOf(keys, s);
+      }
+      values[size] = v;
+      keys[size++] = k;
+    }
+
+    /**
+     * Writes the directory to disk if it is not empty.
+     * @param file index file
+     * @throws IOException I/O exception
+     */
+    void write(final IOFile file) throws IOException {
+      if(size != 0) NumericIndex.write(file, values, keys, size);
+    }
+  }
 }
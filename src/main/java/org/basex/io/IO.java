@@ -74,6 +74,8 @@ public abstract class IO {
   public static final long OFFNUM = 0x8000000000L;
   /** Offset for compressing texts (see bit layout in {@link Data} class). */
   public static final long OFFCOMP = 0x4000000000L;
+  /** Offset for dictionary-encoded texts (see {@link org.basex.data.TextDictionary}). */
+  public static final long OFFDICT = 0x2000000000L;
 
   /** File path. The path uses forward slashes, no matter which OS is used. */
   String path;
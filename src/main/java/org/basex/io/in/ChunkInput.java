@@ -0,0 +1,81 @@
+package org.basex.io.in;
+
+import java.io.*;
+
+/**
+ * This client-side class wraps an {@link InputStream} filled by a database
+ * server, which sends a stream in length-prefixed chunks
+ * (see {@link org.basex.io.out.ChunkOutput}). A chunk of length {@code 0} is
+ * treated as end of stream, and -1 is returned. The same applies to a chunk of length
+ * {@code -1}, which indicates that the stream has been aborted (see {@link #aborted}).
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ChunkInput extends InputStream {
+  /** Input stream. */
+  private final InputStream input;
+  /** Remaining bytes of the current chunk. */
+  private int remaining;
+  /** All bytes have been read. */
+  private boolean more = true;
+  /** Indicates if the stream has been aborted by the server. */
+  private boolean aborted;
+
+  /**
+   * Constructor.
+   * @param in input stream to be wrapped
+   */
+  public ChunkInput(final InputStream in) {
+    input = in;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if(!next()) return -1;
+    final int b = input.read();
+    if(b == -1) throw new EOFException();
+    remaining--;
+    return b;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if(len == 0) return 0;
+    if(!next()) return -1;
+    final int r = input.read(b, off, Math.min(len, remaining));
+    if(r == -1) throw new EOFException();
+    remaining -= r;
+    return r;
+  }
+
+  /**
+   * Checks if more bytes are available, and reads the length of the next chunk
+   * if the current chunk has been completely read.
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  private boolean next() throws IOException {
+    while(more && remaining == 0) {
+      int l = 0;
+      for(int i = 0; i < 4; i++) {
+        final int b = input.read();
+        if(b == -1) throw new EOFException();
+        l = l << 8 | b;
+      }
+      aborted = l == -1;
+      remaining = aborted ? 0 : l;
+      more = l != 0 && !aborted;
+    }
+    return more;
+  }
+
+  /**
+   * Checks if the stream has been aborted. In this case, all bytes that have
+   * been read from the stream must be discarded.
+   * @return result of check
+   */
+  public boolean aborted() {
+    return aborted;
+  }
+}
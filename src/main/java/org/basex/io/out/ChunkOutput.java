@@ -0,0 +1,104 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+import org.basex.io.*;
+
+/**
+ * This server-side class writes streams in length-prefixed chunks:
+ * <ul>
+ * <li>a stream may be preceded by header bytes, which are written as is</li>
+ * <li>each chunk is preceded by its length (four bytes, big-endian)</li>
+ * <li>a chunk of length {@code 0} indicates the end of a stream</li>
+ * <li>a chunk of length {@code -1} indicates that a stream has been aborted;
+ *   all bytes of the stream must be discarded</li>
+ * </ul>
+ * In contrast to the {@link EncodingOutput}, bytes need not be escaped, and the
+ * chunks can be forwarded by the client before a stream has been completely sent.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ChunkOutput extends PrintOutput {
+  /** Output stream. */
+  private final OutputStream os;
+  /** Bytes of the current chunk. */
+  private final byte[] chunk = new byte[IO.BLOCKSIZE << 4];
+  /** Number of bytes in the current chunk. */
+  private int pos;
+  /** Indicates if a stream has been started. */
+  private boolean open;
+
+  /**
+   * Constructor.
+   * @param out output stream to be wrapped
+   */
+  public ChunkOutput(final OutputStream out) {
+    os = out;
+  }
+
+  /**
+   * Starts a new stream.
+   * @param header header bytes
+   * @throws IOException I/O exception
+   */
+  public void start(final byte... header) throws IOException {
+    if(open) finish();
+    os.write(header);
+    open = true;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if(pos == chunk.length) chunk();
+    chunk[pos++] = (byte) b;
+    size++;
+  }
+
+  /**
+   * Finishes the current stream by writing the remaining bytes and a chunk of
+   * length {@code 0}.
+   * @throws IOException I/O exception
+   */
+  public void finish() throws IOException {
+    chunk();
+    length(0);
+    open = false;
+  }
+
+  /**
+   * Aborts a stream that has been started, but not finished yet. The remaining
+   * bytes are dropped, and a chunk of length {@code -1} is written. The wrapped
+   * output stream will not be closed.
+   * @throws IOException I/O exception
+   */
+  public void abort() throws IOException {
+    if(!open) return;
+    pos = 0;
+    length(-1);
+    open = false;
+  }
+
+  /**
+   * Writes the current chunk.
+   * @throws IOException I/O exception
+   */
+  private void chunk() throws IOException {
+    if(pos == 0) return;
+    length(pos);
+    os.write(chunk, 0, pos);
+    pos = 0;
+  }
+
+  /**
+   * Writes the length of a chunk.
+   * @param l length
+   * @throws IOException I/O exception
+   */
+  private void length(final int l) throws IOException {
+    os.write(l >>> 24);
+    os.write(l >>> 16);
+    os.write(l >>> 8);
+    os.write(l);
+  }
+}
@@ -11,8 +11,19 @@ import org.basex.io.*;
 final class Buffer {
   /** Buffer data. */
   final byte[] data = new byte[IO.BLOCKSIZE];
-  /** Disk offset, or block position. */
-  long pos = -1;
+  /** Disk offset, or block position ({@code -1} if the buffer has not been filled). */
+  volatile long pos = -1;
   /** Dirty flag. */
   boolean dirty;
+
+  /** Buffer manager owning this buffer (can be {@code null}). */
+  Buffers owner;
+  /** Block position under which the buffer is registered in the pool. */
+  long block;
+  /** Number of pins: pinned buffers will not be evicted. */
+  int pins;
+  /** Reference flag, used by the clock algorithm. */
+  boolean ref;
+  /** Next buffer in the hash bucket. */
+  Buffer next;
 }
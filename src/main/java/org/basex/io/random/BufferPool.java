@@ -0,0 +1,311 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides a global pool of buffers, which is shared by all disk-based
+ * table and data files. The pool is divided into stripes, each of which is guarded
+ * by its own lock and managed by the clock algorithm. The buffers of a stripe are
+ * created on demand until the maximum size of the pool is reached.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPool {
+  /** Number of stripes (must be 1 << n). */
+  private static final int STRIPES = 1 << 4;
+  /** Minimum number of buffers per stripe. */
+  private static final int MINBUFFERS = 1 << 2;
+  /** Stripes. */
+  private static final Stripe[] STRIPE = new Stripe[STRIPES];
+  /** Pool size in megabytes. */
+  private static volatile int size;
+  /** Maximum number of buffers per stripe. */
+  private static volatile int max = MINBUFFERS;
+
+  static {
+    for(int s = 0; s < STRIPES; s++) STRIPE[s] = new Stripe();
+  }
+
+  /** Private constructor. */
+  private BufferPool() { }
+
+  /**
+   * Assigns the pool size. If the pool is shrunk, existing buffers will be kept.
+   * @param mb size in megabytes
+   */
+  public static void size(final int mb) {
+    size = mb;
+    max = Math.max(MINBUFFERS, (int) (((long) mb << 20) / IO.BLOCKSIZE / STRIPES));
+  }
+
+  /**
+   * Returns the pool size.
+   * @return size in megabytes
+   */
+  public static int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of allocated buffers.
+   * @return number of buffers
+   */
+  public static int buffers() {
+    int b = 0;
+    for(final Stripe s : STRIPE) b += s.size();
+    return b;
+  }
+
+  /**
+   * Returns the number of lookups that have been answered by existing buffers.
+   * @return number of hits
+   */
+  public static long hits() {
+    long h = 0;
+    for(final Stripe s : STRIPE) h += s.hits();
+    return h;
+  }
+
+  /**
+   * Returns the number of lookups that required a block to be read from disk.
+   * @return number of misses
+   */
+  public static long misses() {
+    long m = 0;
+    for(final Stripe s : STRIPE) m += s.misses();
+    return m;
+  }
+
+  /**
+   * Returns a pinned buffer for the specified position. If the position has
+   * not been requested before, a new or evicted buffer will be returned, and its
+   * {@link Buffer#pos} value will be set to {@code -1}.
+   * @param bm buffer manager
+   * @param pos block position
+   * @return buffer
+   */
+  static Buffer get(final Buffers bm, final long pos) {
+    final int h = hash(bm, pos);
+    return STRIPE[h >>> 28 & STRIPES - 1].get(bm, pos, h);
+  }
+
+  /**
+   * Unpins the specified buffer.
+   * @param bf buffer
+   */
+  static void unpin(final Buffer bf) {
+    STRIPE[hash(bf.owner, bf.block) >>> 28 & STRIPES - 1].unpin(bf);
+  }
+
+  /**
+   * Writes all dirty buffers of the specified buffer manager.
+   * @param bm buffer manager
+   * @throws IOException I/O exception
+   */
+  static void flush(final Buffers bm) throws IOException {
+    for(final Stripe s : STRIPE) s.flush(bm);
+  }
+
+  /**
+   * Releases all buffers of the specified buffer manager. The buffers remain
+   * readable until they are evicted, which will happen first.
+   * @param bm buffer manager
+   */
+  static void release(final Buffers bm) {
+    for(final Stripe s : STRIPE) s.release(bm);
+  }
+
+  /**
+   * Computes a hash value for the specified buffer manager and position.
+   * @param bm buffer manager
+   * @param pos block position
+   * @return hash value
+   */
+  private static int hash(final Buffers bm, final long pos) {
+    int h = (int) (pos ^ pos >>> 32) * 0x9E3779B9 + bm.id;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    return h ^ h >>> 16;
+  }
+
+  /** Single stripe of the buffer pool. */
+  private static final class Stripe {
+    /** Buffers. */
+    private Buffer[] buffers = new Buffer[MINBUFFERS];
+    /** Hash buckets. */
+    private Buffer[] buckets = new Buffer[MINBUFFERS];
+    /** Number of buffers. */
+    private int size;
+    /** Clock hand. */
+    private int hand;
+    /** Number of hits. */
+    private long hits;
+    /** Number of misses. */
+    private long misses;
+
+    /**
+     * Returns a pinned buffer for the specified position.
+     * @param bm buffer manager
+     * @param pos block position
+     * @param h hash value
+     * @return buffer
+     */
+    synchronized Buffer get(final Buffers bm, final long pos, final int h) {
+      for(Buffer b = buckets[h & buckets.length - 1]; b != null; b = b.next) {
+        if(b.owner == bm && b.block == pos) {
+          ++hits;
+          ++b.pins;
+          b.ref = true;
+          return b;
+        }
+      }
+      ++misses;
+      final Buffer b = victim();
+      b.owner = bm;
+      b.block = pos;
+      b.pos = -1;
+      b.pins = 1;
+      b.ref = true;
+      final int i = h & buckets.length - 1;
+      b.next = buckets[i];
+      buckets[i] = b;
+      return b;
+    }
+
+    /**
+     * Unpins a buffer.
+     * @param bf buffer
+     */
+    synchronized void unpin(final Buffer bf) {
+      --bf.pins;
+    }
+
+    /**
+     * Writes all dirty buffers of the specified buffer manager.
+     * @param bm buffer manager
+     * @throws IOException I/O exception
+     */
+    synchronized void flush(final Buffers bm) throws IOException {
+      for(int b = 0; b < size; b++) {
+        final Buffer bf = buffers[b];
+        if(bf.owner == bm && bf.dirty) bm.write(bf);
+      }
+    }
+
+    /**
+     * Releases all buffers of the specified buffer manager.
+     * @param bm buffer manager
+     */
+    synchronized void release(final Buffers bm) {
+      for(int b = 0; b < size; b++) {
+        final Buffer bf = buffers[b];
+        if(bf.owner != bm) continue;
+        bf.dirty = false;
+        bf.ref = false;
+      }
+    }
+
+    /**
+     * Returns the number of buffers.
+     * @return number of buffers
+     */
+    synchronized int size() {
+      return size;
+    }
+
+    /**
+     * Returns the number of hits.
+     * @return number of hits
+     */
+    synchronized long hits() {
+      return hits;
+    }
+
+    /**
+     * Returns the number of misses.
+     * @return number of misses
+     */
+    synchronized long misses() {
+      return misses;
+    }
+
+    /**
+     * Returns a new or evicted buffer.
+     * @return buffer
+     */
+    private Buffer victim() {
+      if(size >= max) {
+        // clock algorithm: choose first unpinned buffer that has not been referenced
+        for(int c = size << 1; c > 0; c--) {
+          final Buffer bf = buffers[hand];
+          hand = (hand + 1) % size;
+          if(bf.pins > 0) continue;
+          if(bf.ref) {
+            bf.ref = false;
+          } else {
+            if(bf.owner != null) {
+              if(bf.dirty) {
+                try {
+                  bf.owner.write(bf);
+                } catch(final IOException ex) {
+                  // keep the dirty buffer: the error will be raised again when
+                  // the owner flushes its buffers
+                  Util.debug(ex);
+                  continue;
+                }
+              }
+              remove(bf);
+            }
+            return bf;
+          }
+        }
+      }
+      // add new buffer (if maximum size is not reached, or if all buffers are pinned)
+      final Buffer bf = new Buffer();
+      if(size == buffers.length) buffers = Arrays.copyOf(buffers, size << 1);
+      buffers[size++] = bf;
+      if(size > buckets.length) rehash();
+      return bf;
+    }
+
+    /**
+     * Removes a buffer from its bucket and resets its owner.
+     * @param bf buffer
+     */
+    private void remove(final Buffer bf) {
+      final int i = hash(bf.owner, bf.block) & buckets.length - 1;
+      Buffer b = buckets[i];
+      if(b == bf) {
+        buckets[i] = bf.next;
+      } else {
+        while(b.next != bf) b = b.next;
+        b.next = bf.next;
+      }
+      bf.next = null;
+      bf.owner = null;
+      bf.pos = -1;
+    }
+
+    /**
+     * Doubles the number of hash buckets.
+     */
+    private void rehash() {
+      final Buffer[] bs = new Buffer[buckets.length << 1];
+      for(int b = 0; b < size; b++) {
+        final Buffer bf = buffers[b];
+        if(bf.owner == null) continue;
+        final int i = hash(bf.owner, bf.block) & bs.length - 1;
+        bf.next = bs[i];
+        bs[i] = bf;
+      }
+      buckets = bs;
+    }
+  }
+}
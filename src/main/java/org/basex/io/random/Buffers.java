@@ -1,53 +1,110 @@
 package org.basex.io.random;
 
+import java.io.*;
+import java.util.concurrent.atomic.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class provides access to the buffers of a single file. The buffers are
+ * managed by the global {@link BufferPool}; the current buffer is pinned
+ * and will not be evicted until the cursor is moved to another position.
+ * Additional buffers can be pinned by concurrent readers.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
-  /** Buffers. */
-  private final Buffer[] buf = new Buffer[BUFFERS];
-  /** Current buffer offset. */
-  private int off;
+abstract class Buffers {
+  /** Id counter. */
+  private static final AtomicInteger IDS = new AtomicInteger();
+  /** Id of the buffer manager. */
+  final int id = IDS.incrementAndGet();
+  /** Current buffer. */
+  private Buffer current;
+  /** Indicates if the buffers have been released. */
+  private boolean closed;
 
   /**
-   * Constructor.
+   * Returns the current buffer.
+   * @return current buffer
    */
-  Buffers() {
-    for(int b = 0; b < BUFFERS; ++b) buf[b] = new Buffer();
+  final Buffer current() {
+    return current;
   }
 
   /**
-   * Returns all buffers.
-   * @return buffers
+   * Chooses a buffer for the specified position and pins it.
+   * @param p buffer pointer
+   * @return true if the buffer has not been filled yet
    */
-  Buffer[] all() {
-    return buf;
+  final boolean cursor(final long p) {
+    final Buffer c = current;
+    if(c != null) {
+      if(c.block == p) return false;
+      if(c.owner == this) BufferPool.unpin(c);
+    }
+    current = closed ? buffer(p) : BufferPool.get(this, p);
+    return current.pos != p;
   }
 
   /**
-   * Returns the current buffer.
-   * @return current buffer
+   * Pins and returns the buffer for the specified position, without changing the
+   * current buffer. The buffer must be unpinned after it has been accessed.
+   * @param p buffer pointer
+   * @return buffer (its position is {@code -1} if it has not been filled yet)
+   */
+  final Buffer pin(final long p) {
+    return BufferPool.get(this, p);
+  }
+
+  /**
+   * Unpins a buffer that has been returned by {@link #pin(long)}.
+   * @param bf buffer
    */
-  Buffer current() {
-    return buf[off];
+  final void unpin(final Buffer bf) {
+    BufferPool.unpin(bf);
   }
 
   /**
-   * Chooses a buffer and sets the offset.
+   * Writes all dirty buffers to disk.
+   * @throws IOException I/O exception
+   */
+  final void flush() throws IOException {
+    BufferPool.flush(this);
+  }
+
+  /**
+   * Releases all buffers. Dirty buffers must have been flushed before.
+   * The current buffer is replaced by a private copy, and subsequent cursor
+   * moves will not pin any more pool buffers.
+   */
+  final void close() {
+    final Buffer c = current;
+    if(c != null) {
+      final Buffer bf = buffer(c.block);
+      System.arraycopy(c.data, 0, bf.data, 0, bf.data.length);
+      bf.pos = c.pos;
+      current = bf;
+      BufferPool.unpin(c);
+    }
+    closed = true;
+    BufferPool.release(this);
+  }
+
+  /**
+   * Returns a private buffer, which is not managed by the pool.
    * @param p buffer pointer
-   * @return true if cursor has changed
-   */
-  boolean cursor(final long p) {
-    final int o = off;
-    do {
-      if(buf[off].pos == p) return false;
-    } while((off = off + 1 & BUFFERS - 1) != o);
-    off = o + 1 & BUFFERS - 1;
-    return true;
+   * @return buffer
+   */
+  private static Buffer buffer(final long p) {
+    final Buffer bf = new Buffer();
+    bf.block = p;
+    return bf;
   }
+
+  /**
+   * Writes the specified buffer to disk and resets its dirty flag.
+   * This method will also be called when a dirty buffer is evicted from the pool.
+   * @param bf buffer to be written
+   * @throws IOException I/O exception
+   */
+  abstract void write(final Buffer bf) throws IOException;
 }
@@ -0,0 +1,309 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.concurrent.locks.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides read access to a file whose blocks have been compressed
+ * individually. Compressed files are read-optimized: before the first block is
+ * modified, the file is decompressed into a temporary file, which then replaces the
+ * original file. From then on, the file will be accessed in its original form.
+ *
+ * The compressed blocks are stored one after another, starting at the beginning of
+ * the file. Blocks that cannot be compressed are stored unchanged. The blocks are
+ * followed by a page directory, containing the 8-byte file offsets of all blocks
+ * and the end offset of the last block. The file is concluded by the offset of the
+ * directory, the original file length and a magic number (8 bytes each).
+ *
+ * As no compressed block is larger than its original, the offset of a compressed
+ * block is never larger than the offset of the original block. This allows the
+ * file to be compressed in place, from front to back.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedFile {
+  /** Magic number, marking the end of a compressed file. */
+  private static final long MAGIC = 0x4258424C4F434B5AL;
+  /** Length of the trailer. */
+  private static final int TRAILER = 24;
+  /** Decompressors. */
+  private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater(true);
+    }
+  };
+
+  /** File. */
+  private final RandomAccessFile file;
+  /** File channel. */
+  private final FileChannel channel;
+  /** Block offsets (the last entry references the end of the last block). */
+  private final long[] offsets;
+  /** Original file length. */
+  private final long length;
+  /** Lock, preventing blocks from being read while the file is decompressed. */
+  private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
+  /** Indicates if the file has been decompressed. */
+  private volatile boolean unpacked;
+
+  /**
+   * Constructor.
+   * @param f file
+   * @param off block offsets
+   * @param len original file length
+   */
+  private CompressedFile(final RandomAccessFile f, final long[] off, final long len) {
+    file = f;
+    channel = f.getChannel();
+    offsets = off;
+    length = len;
+  }
+
+  /**
+   * Returns a compressed file instance for the specified file, or {@code null}
+   * if the file is not compressed. This method is only called for files that have
+   * been marked as compressed in the meta data; the trailer is still checked, as the
+   * file may have been decompressed before the meta data was written.
+   * @param file file
+   * @return instance or {@code null}
+   * @throws IOException I/O exception
+   */
+  static CompressedFile open(final RandomAccessFile file) throws IOException {
+    final FileChannel fc = file.getChannel();
+    final long size = fc.size();
+    if(size < TRAILER) return null;
+
+    final ByteBuffer tr = read(fc, size - TRAILER, TRAILER);
+    final long dir = tr.getLong(), len = tr.getLong();
+    if(tr.getLong() != MAGIC || dir < 0 || (size - TRAILER - dir) % 8 != 0) return null;
+    final int n = (int) ((size - TRAILER - dir) / 8);
+    if(n != (len + IO.BLOCKSIZE - 1) / IO.BLOCKSIZE + 1) return null;
+
+    final ByteBuffer bb = read(fc, dir, n * 8);
+    final long[] off = new long[n];
+    for(int i = 0; i < n; i++) off[i] = bb.getLong();
+    return off[n - 1] == dir ? new CompressedFile(file, off, len) : null;
+  }
+
+  /**
+   * Compresses the blocks of the specified file in place.
+   * @param f file to be compressed
+   * @throws IOException I/O exception
+   */
+  public static void pack(final IOFile f) throws IOException {
+    final RandomAccessFile file = new RandomAccessFile(f.file(), "rw");
+    try {
+      final FileChannel fc = file.getChannel();
+      final long len = fc.size();
+      final int n = (int) ((len + IO.BLOCKSIZE - 1) / IO.BLOCKSIZE);
+      final ByteBuffer dir = ByteBuffer.allocate((n + 1) * 8 + TRAILER);
+
+      final Deflater def = new Deflater(Deflater.BEST_SPEED, true);
+      final byte[] data = new byte[IO.BLOCKSIZE], packed = new byte[IO.BLOCKSIZE];
+      long pos = 0;
+      try {
+        for(int b = 0; b < n; b++) {
+          final int l = (int) Math.min(IO.BLOCKSIZE, len - (long) b * IO.BLOCKSIZE);
+          final ByteBuffer bb = ByteBuffer.wrap(data, 0, l);
+          read(fc, bb, (long) b * IO.BLOCKSIZE);
+
+          // store block unchanged if it cannot be compressed
+          def.reset();
+          def.setInput(data, 0, l);
+          def.finish();
+          final int c = def.deflate(packed);
+          final boolean raw = !def.finished() || c >= l;
+          dir.putLong(pos);
+          pos += write(fc, ByteBuffer.wrap(raw ? data : packed, 0, raw ? l : c), pos);
+        }
+      } finally {
+        def.end();
+      }
+      dir.putLong(pos).putLong(pos).putLong(len).putLong(MAGIC);
+      dir.flip();
+      pos += write(fc, dir, pos);
+      file.setLength(pos);
+    } finally {
+      file.close();
+    }
+  }
+
+  /**
+   * Returns the original file length.
+   * @return length
+   */
+  long length() {
+    return length;
+  }
+
+  /**
+   * Reads and decompresses the specified block.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param pos block position
+   * @param data target array
+   * @return {@code false} if the file has already been decompressed
+   * @throws IOException I/O exception
+   */
+  boolean read(final long pos, final byte[] data) throws IOException {
+    if(unpacked) return false;
+    rwl.readLock().lock();
+    try {
+      if(unpacked) return false;
+      final int b = (int) (pos / IO.BLOCKSIZE);
+      if(b + 1 < offsets.length) unpack(b, data);
+      return true;
+    } finally {
+      rwl.readLock().unlock();
+    }
+  }
+
+  /**
+   * Decompresses the file into a temporary file, which then atomically replaces
+   * the original file. Compressed blocks can still be read while this method is
+   * called. The returned file must be assigned by the caller, and {@link #finish}
+   * must be called afterwards.
+   * @param path path of the original file
+   * @return decompressed file
+   * @throws IOException I/O exception
+   */
+  RandomAccessFile unpack(final File path) throws IOException {
+    final File tmp = new File(path.getPath() + ".tmp");
+    final RandomAccessFile out = new RandomAccessFile(tmp, "rw");
+    try {
+      final FileChannel fc = out.getChannel();
+      fc.truncate(0);
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      for(int b = 0; b + 1 < offsets.length; b++) {
+        final int l = unpack(b, data);
+        write(fc, ByteBuffer.wrap(data, 0, l), (long) b * IO.BLOCKSIZE);
+      }
+      fc.force(false);
+    } finally {
+      out.close();
+    }
+    if(tmp.renameTo(path)) return new RandomAccessFile(path, "rw");
+
+    // file cannot be replaced while it is opened (Windows): copy decompressed data
+    final RandomAccessFile in = new RandomAccessFile(tmp, "r");
+    try {
+      rwl.writeLock().lock();
+      try {
+        final ByteBuffer bb = ByteBuffer.allocate(IO.BLOCKSIZE);
+        for(long p = 0; p < length; p += IO.BLOCKSIZE) {
+          bb.clear();
+          bb.limit((int) Math.min(IO.BLOCKSIZE, length - p));
+          read(in.getChannel(), bb, p);
+          bb.flip();
+          write(channel, bb, p);
+        }
+        channel.truncate(length);
+        channel.force(false);
+        unpacked = true;
+      } finally {
+        rwl.writeLock().unlock();
+      }
+    } finally {
+      in.close();
+    }
+    if(!tmp.delete()) throw new IOException("File could not be deleted: " + tmp);
+    return file;
+  }
+
+  /**
+   * Marks the file as decompressed and closes the original file, once no more
+   * compressed blocks are read.
+   * @param f file returned by {@link #unpack}
+   * @throws IOException I/O exception
+   */
+  void finish(final RandomAccessFile f) throws IOException {
+    rwl.writeLock().lock();
+    try {
+      unpacked = true;
+      if(f != file) file.close();
+    } finally {
+      rwl.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Reads and decompresses a block.
+   * @param b block index
+   * @param data target array
+   * @return original length of the block
+   * @throws IOException I/O exception
+   */
+  private int unpack(final int b, final byte[] data) throws IOException {
+    final int l = (int) Math.min(IO.BLOCKSIZE, length - (long) b * IO.BLOCKSIZE);
+    final int c = (int) (offsets[b + 1] - offsets[b]);
+    if(c == l) {
+      read(channel, ByteBuffer.wrap(data, 0, l), offsets[b]);
+    } else {
+      final Inflater inf = INFLATER.get();
+      inf.reset();
+      inf.setInput(read(channel, offsets[b], c).array());
+      try {
+        if(inf.inflate(data, 0, l) != l) throw new IOException("Corrupt block: " + b);
+      } catch(final DataFormatException ex) {
+        throw new IOException(Util.message(ex));
+      }
+    }
+    return l;
+  }
+
+  /**
+   * Reads the specified number of bytes.
+   * @param fc file channel
+   * @param pos file position
+   * @param l number of bytes
+   * @return byte buffer, positioned at the beginning of the data
+   * @throws IOException I/O exception
+   */
+  private static ByteBuffer read(final FileChannel fc, final long pos, final int l)
+      throws IOException {
+    final ByteBuffer bb = ByteBuffer.allocate(l);
+    read(fc, bb, pos);
+    bb.flip();
+    return bb;
+  }
+
+  /**
+   * Fills the specified buffer with bytes.
+   * @param fc file channel
+   * @param bb byte buffer
+   * @param pos file position
+   * @throws IOException I/O exception
+   */
+  private static void read(final FileChannel fc, final ByteBuffer bb, final long pos)
+      throws IOException {
+    long p = pos;
+    while(bb.hasRemaining()) {
+      final int r = fc.read(bb, p);
+      if(r == -1) throw new EOFException();
+      p += r;
+    }
+  }
+
+  /**
+   * Writes the remaining bytes of the specified buffer.
+   * @param fc file channel
+   * @param bb byte buffer
+   * @param pos file position
+   * @return number of written bytes
+   * @throws IOException I/O exception
+   */
+  private static int write(final FileChannel fc, final ByteBuffer bb, final long pos)
+      throws IOException {
+    final int l = bb.remaining();
+    long p = pos;
+    while(bb.hasRemaining()) p += fc.write(bb, p);
+    return l;
+  }
+}
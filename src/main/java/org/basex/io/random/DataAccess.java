@@ -1,21 +1,34 @@
 package org.basex.io.random;
 
 import java.io.*;
+import java.nio.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
 
 /**
  * This class allows positional read and write access to a database file.
+ * The {@code read} and {@code write} methods move a shared file cursor.
+ * The {@code get} methods are thread-safe; they read values from an explicit
+ * position and leave the cursor untouched.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess {
   /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  private final Buffers bm = new Buffers() {
+    @Override
+    void write(final Buffer bf) throws IOException {
+      writeBlock(bf);
+    }
+  };
+  /** Path to the file. */
+  private final IOFile path;
   /** Reference to the data input stream. */
-  private final RandomAccessFile file;
+  private volatile RandomAccessFile file;
+  /** Compressed blocks ({@code null} if the file is not or no longer compressed). */
+  private volatile CompressedFile packed;
   /** File length. */
   private long len;
   /** Changed flag. */
@@ -29,8 +42,20 @@ public final class DataAccess {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile f) throws IOException {
+    this(f, false);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param f the file to be read
+   * @param compressed indicates if the file has been compressed
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile f, final boolean compressed) throws IOException {
+    path = f;
     file = new RandomAccessFile(f.file(), "rw");
-    len = file.length();
+    packed = compressed ? CompressedFile.open(file) : null;
+    len = packed != null ? packed.length() : file.length();
     cursor(0);
   }
 
@@ -39,7 +64,7 @@ public final class DataAccess {
    */
   public synchronized void flush() {
     try {
-      for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
+      bm.flush();
       if(changed) {
         file.setLength(len);
         changed = false;
@@ -54,6 +79,7 @@ public final class DataAccess {
    */
   public synchronized void close() {
     flush();
+    bm.close();
     try {
       file.close();
     } catch(final IOException ex) {
@@ -74,6 +100,7 @@ public final class DataAccess {
    * @param l file length
    */
   synchronized void length(final long l) {
+    modify();
     changed |= l != len;
     len = l;
   }
@@ -223,17 +250,101 @@ public final class DataAccess {
     if(!bm.cursor(b)) return;
 
     final Buffer bf = bm.current();
+    synchronized(bf) {
+      if(bf.pos != b) load(bf, b);
+    }
+  }
+
+  // THREAD-SAFE READ METHODS =================================================
+
+  /**
+   * Reads an integer value from the specified position.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param p position
+   * @return integer value; the next entry starts at {@code p + 4}
+   */
+  public int get4(final long p) {
+    final int o = (int) (p & IO.BLOCKSIZE - 1);
+    if(o + 4 > IO.BLOCKSIZE) return get4(getBytes(p, 4), 0);
+    final Buffer bf = pin(p - o);
     try {
-      if(bf.dirty) writeBlock(bf);
-      bf.pos = b;
-      file.seek(bf.pos);
-      if(bf.pos < file.length())
-        file.readFully(bf.data, 0, (int) Math.min(len - bf.pos, IO.BLOCKSIZE));
-    } catch(final IOException ex) {
-      Util.stack(ex);
+      return get4(bf.data, o);
+    } finally {
+      bm.unpin(bf);
+    }
+  }
+
+  /**
+   * Reads a 5-byte value from the specified position.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param p position
+   * @return long value; the next entry starts at {@code p + 5}
+   */
+  public long get5(final long p) {
+    final int o = (int) (p & IO.BLOCKSIZE - 1);
+    if(o + 5 > IO.BLOCKSIZE) return get5(getBytes(p, 5), 0);
+    final Buffer bf = pin(p - o);
+    try {
+      return get5(bf.data, o);
+    } finally {
+      bm.unpin(bf);
+    }
+  }
+
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param p position
+   * @return integer value; the next entry starts at {@code p + Num.length(value)}
+   */
+  public int getNum(final long p) {
+    final int o = (int) (p & IO.BLOCKSIZE - 1);
+    if(o + 5 > IO.BLOCKSIZE) return Num.get(getBytes(p, 5), 0);
+    final Buffer bf = pin(p - o);
+    try {
+      return Num.get(bf.data, o);
+    } finally {
+      bm.unpin(bf);
     }
   }
 
+  /**
+   * Reads a token from the specified position.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param p position
+   * @return token; the next entry starts at
+   *   {@code p + Num.length(token.length) + token.length}
+   */
+  public byte[] getToken(final long p) {
+    final int l = getNum(p);
+    return getBytes(p + Num.length(l), l);
+  }
+
+  /**
+   * Reads a number of bytes from the specified position.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param p position
+   * @param l number of bytes
+   * @return byte array
+   */
+  public byte[] getBytes(final long p, final int l) {
+    final byte[] b = new byte[l];
+    long ps = p;
+    for(int i = 0; i < l;) {
+      final int o = (int) (ps & IO.BLOCKSIZE - 1);
+      final int n = Math.min(l - i, IO.BLOCKSIZE - o);
+      final Buffer bf = pin(ps - o);
+      try {
+        System.arraycopy(bf.data, o, b, i, n);
+      } finally {
+        bm.unpin(bf);
+      }
+      i += n;
+      ps += n;
+    }
+    return b;
+  }
+
   /**
    * Reads the next compressed number and returns it as integer.
    * @return next integer
@@ -336,6 +447,7 @@ public final class DataAccess {
    * @param length token length
    */
   public void writeToken(final byte[] buf, final int offset, final int length) {
+    modify();
     writeNum(length);
 
     final int last = offset + length;
@@ -413,17 +525,114 @@ public final class DataAccess {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Pins and returns a filled buffer for the specified block.
+   * @param b block position
+   * @return buffer
+   */
+  private Buffer pin(final long b) {
+    final Buffer bf = bm.pin(b);
+    if(bf.pos != b) {
+      synchronized(bf) {
+        if(bf.pos != b) load(bf, b);
+      }
+    }
+    return bf;
+  }
+
+  /**
+   * Fills a buffer with the bytes of the specified block.
+   * As this method may be called by concurrent readers, it does not change the
+   * position of the file pointer.
+   * @param bf buffer
+   * @param b block position
+   */
+  private void load(final Buffer bf, final long b) {
+    try {
+      final CompressedFile cf = packed;
+      if(cf != null && cf.read(b, bf.data)) return;
+      final int l = (int) Math.max(0, Math.min(len - b, IO.BLOCKSIZE));
+      final ByteBuffer bb = ByteBuffer.wrap(bf.data, 0, l);
+      long p = b;
+      while(bb.hasRemaining()) {
+        final int r = file.getChannel().read(bb, p);
+        if(r == -1) break;
+        p += r;
+      }
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    } finally {
+      bf.pos = b;
+    }
+  }
+
+  /**
+   * Decodes an integer value.
+   * @param b byte array
+   * @param o offset
+   * @return integer value
+   */
+  private static int get4(final byte[] b, final int o) {
+    return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
+      ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
+  }
+
+  /**
+   * Decodes a 5-byte value.
+   * @param b byte array
+   * @param o offset
+   * @return long value
+   */
+  private static long get5(final byte[] b, final int o) {
+    return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
+      ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
+  }
+
   /**
    * Writes the specified block to disk.
+   * As this method may also be called by other threads, if the buffer is evicted
+   * from the pool, it does not change the position of the file pointer.
    * @param bf buffer to write
    * @throws IOException I/O exception
    */
   private void writeBlock(final Buffer bf) throws IOException {
-    file.seek(bf.pos);
-    file.write(bf.data);
+    final ByteBuffer bb = ByteBuffer.wrap(bf.data);
+    long p = bf.pos;
+    while(bb.hasRemaining()) p += file.getChannel().write(bb, p);
     bf.dirty = false;
   }
 
+  /**
+   * Prepares the file for modifications. A compressed file is decompressed before
+   * the first block is modified; compressed blocks can be read in the meantime.
+   */
+  private void modify() {
+    if(packed != null) unpack();
+  }
+
+  /**
+   * Checks if the file is compressed.
+   * @return result of check
+   */
+  public boolean compressed() {
+    return packed != null;
+  }
+
+  /**
+   * Decompresses the file.
+   */
+  public synchronized void unpack() {
+    final CompressedFile cf = packed;
+    if(cf == null) return;
+    try {
+      file = cf.unpack(path.file());
+      cf.finish(file);
+      packed = null;
+    } catch(final IOException ex) {
+      throw Util.notexpected(ex);
+    }
+  }
+
   /**
    * Reads the next byte.
    * @return next byte
@@ -438,6 +647,7 @@ public final class DataAccess {
    * @param b byte to be written
    */
   private void write(final int b) {
+    modify();
     final Buffer bf = buffer(off == IO.BLOCKSIZE);
     bf.dirty = true;
     bf.data[off++] = (byte) b;
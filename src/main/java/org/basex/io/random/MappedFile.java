@@ -0,0 +1,172 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+
+/**
+ * This class maps a file into memory. The file is divided into chunks, each of which
+ * is represented by a {@link MappedByteBuffer}. Single values are read directly from
+ * the operating system's page cache, without system calls or intermediate copies.
+ *
+ * Values that are read or written by the methods of this class must not cross chunk
+ * boundaries. This is guaranteed for all entries that are aligned to
+ * {@link org.basex.io.IO#BLOCKSIZE}.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class MappedFile {
+  /** Power of chunk size (must be greater than or equal to the block power). */
+  private static final int CHUNKPOWER = 28;
+  /** Chunk size. */
+  private static final long CHUNK = 1L << CHUNKPOWER;
+
+  /** File channel. */
+  private final FileChannel channel;
+  /** Mapped chunks. */
+  private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+  /** Number of mapped bytes. */
+  private volatile long mapped;
+
+  /**
+   * Constructor.
+   * @param fc file channel (must be readable and writable)
+   * @throws IOException I/O exception
+   */
+  MappedFile(final FileChannel fc) throws IOException {
+    channel = fc;
+    remap();
+  }
+
+  /**
+   * Maps all file contents that have not been mapped yet.
+   * Existing chunks that have been fully mapped will be reused.
+   * @throws IOException I/O exception
+   */
+  synchronized void remap() throws IOException {
+    final long len = channel.size();
+    if(len <= mapped) return;
+
+    final MappedByteBuffer[] cs = Arrays.copyOf(chunks,
+        (int) (len + CHUNK - 1 >>> CHUNKPOWER));
+    // remap last (incomplete) chunk and map new chunks
+    for(int c = (int) (mapped >>> CHUNKPOWER); c < cs.length; c++) {
+      final long pos = (long) c << CHUNKPOWER;
+      cs[c] = channel.map(MapMode.READ_WRITE, pos, Math.min(CHUNK, len - pos));
+    }
+    chunks = cs;
+    mapped = len;
+  }
+
+  /**
+   * Checks if the specified range of bytes has been mapped.
+   * @param pos file position
+   * @param len number of bytes
+   * @return result of check
+   */
+  boolean mapped(final long pos, final int len) {
+    return pos + len <= mapped;
+  }
+
+  /**
+   * Reads a byte value and returns it as an integer value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read1(final long pos) {
+    return chunk(pos).get(offset(pos)) & 0xFF;
+  }
+
+  /**
+   * Reads a short value and returns it as an integer value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read2(final long pos) {
+    return chunk(pos).getShort(offset(pos)) & 0xFFFF;
+  }
+
+  /**
+   * Reads an integer value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read4(final long pos) {
+    return chunk(pos).getInt(offset(pos));
+  }
+
+  /**
+   * Reads a 5-byte value and returns it as a long value.
+   * @param pos file position
+   * @return long value
+   */
+  long read5(final long pos) {
+    final MappedByteBuffer mb = chunk(pos);
+    final int o = offset(pos);
+    return (long) (mb.get(o) & 0xFF) << 32 | mb.getInt(o + 1) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Fills the specified array with bytes, starting from the specified file position.
+   * Bytes that have not been mapped yet will be read via the file channel.
+   * @param pos file position
+   * @param data byte array
+   * @throws IOException I/O exception
+   */
+  void read(final long pos, final byte[] data) throws IOException {
+    if(mapped(pos, data.length)) {
+      final ByteBuffer bb = chunk(pos).duplicate();
+      bb.position(offset(pos));
+      bb.get(data);
+    } else {
+      final ByteBuffer bb = ByteBuffer.wrap(data);
+      long p = pos;
+      while(bb.hasRemaining()) {
+        final int r = channel.read(bb, p);
+        if(r == -1) throw new EOFException();
+        p += r;
+      }
+    }
+  }
+
+  /**
+   * Writes the specified bytes to the specified file position.
+   * Bytes that exceed the mapped range will be written via the file channel;
+   * they will be mapped with the next call of {@link #remap()}.
+   * @param pos file position
+   * @param data byte array
+   * @throws IOException I/O exception
+   */
+  void write(final long pos, final byte[] data) throws IOException {
+    if(mapped(pos, data.length)) {
+      final ByteBuffer bb = chunk(pos).duplicate();
+      bb.position(offset(pos));
+      bb.put(data);
+    } else {
+      final ByteBuffer bb = ByteBuffer.wrap(data);
+      long p = pos;
+      while(bb.hasRemaining()) p += channel.write(bb, p);
+    }
+  }
+
+  /**
+   * Returns the chunk for the specified file position.
+   * @param pos file position
+   * @return chunk
+   */
+  private MappedByteBuffer chunk(final long pos) {
+    return chunks[(int) (pos >>> CHUNKPOWER)];
+  }
+
+  /**
+   * Returns the offset of the specified file position in its chunk.
+   * @param pos file position
+   * @return offset
+   */
+  private static int offset(final long pos) {
+    return (int) (pos & CHUNK - 1);
+  }
+}
@@ -3,8 +3,10 @@ package org.basex.io.random;
 import static org.basex.data.DataText.*;
 
 import java.io.*;
+import java.nio.*;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.locks.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -15,8 +17,11 @@ import org.basex.util.*;
 
 /**
  * This class stores the table on disk and reads it block-wise.
+ * If memory mapping is enabled for a database, clean blocks are directly
+ * read from the page cache.
  *
- * NOTE: this class is not thread-safe.
+ * NOTE: this class is not thread-safe. Only the read methods may be called by
+ * concurrent threads, as long as the table is not modified.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
@@ -24,9 +29,18 @@ import org.basex.util.*;
  */
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  private final Buffers bm = new Buffers() {
+    @Override
+    void write(final Buffer bf) throws IOException {
+      writeBlock(bf);
+    }
+  };
   /** File storing all blocks. */
-  private final RandomAccessFile file;
+  private RandomAccessFile file;
+  /** Memory mapping of the file (can be {@code null}). */
+  private final MappedFile map;
+  /** Compressed blocks ({@code null} if the file is not or no longer compressed). */
+  private volatile CompressedFile packed;
   /** Bitmap storing free (=0) and occupied (=1) pages. */
   private final BitArray freePages;
   /** File lock. */
@@ -48,6 +62,12 @@ public final class TableDiskAccess extends TableAccess {
   private int blocks;
   /** Number of used blocks. */
   private int used;
+  /** Indicates if blocks have been modified since the last flush. */
+  private boolean written;
+  /** Page index of the last mapped read. */
+  private int mpage;
+  /** Lock for reading entries via the cursor. */
+  private final ReentrantLock cursorLock = new ReentrantLock();
 
   /**
    * Constructor.
@@ -82,6 +102,8 @@ public final class TableDiskAccess extends TableAccess {
     if(lock) exclusiveLock();
     else sharedLock();
     if(fl == null) throw new BaseXException(Text.DB_PINNED_X, md.name);
+    packed = md.compressed ? CompressedFile.open(file) : null;
+    map = md.maptable && packed == null ? new MappedFile(file.getChannel()) : null;
   }
 
   /**
@@ -112,7 +134,10 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void flush() throws IOException {
-    for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
+    bm.flush();
+    if(map != null) map.remap();
+    written = false;
+    mpage = 0;
     if(!dirty) return;
 
     final DataOutput out = new DataOutput(meta.dbfile(DATATBL + 'i'));
@@ -133,7 +158,17 @@ public final class TableDiskAccess extends TableAccess {
   @Override
   public synchronized void close() throws IOException {
     flush();
-    file.close();
+    cursorLock.lock();
+    try {
+      bm.close();
+      file.close();
+      // invalidate the cached block pointers
+      page = -1;
+      fpre = -1;
+      npre = -1;
+    } finally {
+      cursorLock.unlock();
+    }
   }
 
   @Override
@@ -185,37 +220,32 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return b[o] & 0xFF;
+  public int read1(final int pre, final int off) {
+    if(mapped()) return map.read1(position(pre) + off);
+    return (int) read(pre, off, 1);
   }
 
   @Override
-  public synchronized int read2(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
+  public int read2(final int pre, final int off) {
+    if(mapped()) return map.read2(position(pre) + off);
+    return (int) read(pre, off, 2);
   }
 
   @Override
-  public synchronized int read4(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
-      ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
+  public int read4(final int pre, final int off) {
+    if(mapped()) return map.read4(position(pre) + off);
+    return (int) read(pre, off, 4);
   }
 
   @Override
-  public synchronized long read5(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
-      ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
+  public long read5(final int pre, final int off) {
+    if(mapped()) return map.read5(position(pre) + off);
+    return read(pre, off, 5);
   }
 
   @Override
   public void write1(final int pre, final int off, final int v) {
+    modify();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -225,6 +255,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write2(final int pre, final int off, final int v) {
+    modify();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -235,6 +266,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write4(final int pre, final int off, final int v) {
+    modify();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -247,6 +279,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write5(final int pre, final int off, final long v) {
+    modify();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -260,6 +293,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   protected void copy(final byte[] entries, final int pre, final int last) {
+    modify();
     for(int o = 0, i = pre; i < last; ++i, o += IO.NODESIZE) {
       final int off = cursor(i);
       final Buffer bf = bm.current();
@@ -272,6 +306,7 @@ public final class TableDiskAccess extends TableAccess {
   public void delete(final int pre, final int nr) {
     if(nr == 0) return;
     dirty = true;
+    modify();
 
     // get first block
     cursor(pre);
@@ -347,6 +382,7 @@ public final class TableDiskAccess extends TableAccess {
     final int nnew = entries.length;
     if(nnew == 0) return;
     dirty = true;
+    modify();
 
     // number of records to be inserted
     final int nr = nnew >>> IO.NODEPOWER;
@@ -464,6 +500,124 @@ public final class TableDiskAccess extends TableAccess {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Checks if entries can be read from the memory mapping.
+   * This is the case if no blocks have been modified since the last flush.
+   * @return result of check
+   */
+  private boolean mapped() {
+    return map != null && !written;
+  }
+
+  /**
+   * Reads a value from the entry of the specified pre value.
+   * The cursor is used by a single reader at a time. If it is used by another
+   * thread, the value is read from a pinned buffer, and the cursor is left unchanged.
+   * @param pre pre value
+   * @param off offset in the entry
+   * @param l number of bytes
+   * @return value
+   */
+  private long read(final int pre, final int off, final int l) {
+    if(cursorLock.tryLock()) {
+      try {
+        final int o = off + cursor(pre);
+        return value(bm.current().data, o, l);
+      } finally {
+        cursorLock.unlock();
+      }
+    }
+    final int p = page(pre);
+    final Buffer bf = pin(pages[p]);
+    try {
+      return value(bf.data, off + (pre - fpres[p] << IO.NODEPOWER), l);
+    } finally {
+      bm.unpin(bf);
+    }
+  }
+
+  /**
+   * Returns a big-endian value from the specified array.
+   * @param b byte array
+   * @param o offset
+   * @param l number of bytes
+   * @return value
+   */
+  private static long value(final byte[] b, final int o, final int l) {
+    long v = 0;
+    for(int i = 0; i < l; i++) v = v << 8 | b[o + i] & 0xFF;
+    return v;
+  }
+
+  /**
+   * Prepares the table for modifications. A compressed file is decompressed before
+   * the first block is modified.
+   */
+  private void modify() {
+    if(packed != null) unpack();
+    written = true;
+  }
+
+  /**
+   * Checks if the table file is compressed.
+   * @return result of check
+   */
+  public boolean compressed() {
+    return packed != null;
+  }
+
+  /**
+   * Decompresses the table file and acquires the existing lock on the new file.
+   */
+  public synchronized void unpack() {
+    if(packed == null) return;
+    try {
+      final RandomAccessFile f = packed.unpack(meta.dbfile(DATATBL).file());
+      if(f != file) {
+        final boolean shared = fl.isShared();
+        file = f;
+        fl = null;
+        lck(shared);
+      }
+      packed.finish(f);
+      packed = null;
+    } catch(final IOException ex) {
+      throw Util.notexpected(ex);
+    }
+  }
+
+  /**
+   * Returns the file position of the entry for the specified pre value.
+   * Does not change the state of the buffer manager.
+   * @param pre pre value
+   * @return file position
+   */
+  private long position(final int pre) {
+    int p = mpage;
+    if(pre < fpres[p] || p + 1 < used && pre >= fpres[p + 1]) {
+      p = page(pre);
+      mpage = p;
+    }
+    return (long) pages[p] * IO.BLOCKSIZE + (pre - fpres[p] << IO.NODEPOWER);
+  }
+
+  /**
+   * Returns the index of the page containing the entry for the specified pre value.
+   * Does not change the state of the cursor.
+   * @param pre pre value
+   * @return page index
+   */
+  private int page(final int pre) {
+    int l = 0;
+    int h = used - 1;
+    while(l < h) {
+      final int m = l + h + 1 >>> 1;
+      if(pre < fpres[m]) h = m - 1;
+      else l = m;
+    }
+    return l;
+  }
+
   /**
    * Searches for the block containing the entry for the specified pre value.
    * Reads the block and returns its offset inside the block.
@@ -524,18 +678,55 @@ public final class TableDiskAccess extends TableAccess {
     if(!bm.cursor(b)) return;
 
     final Buffer bf = bm.current();
-    try {
-      if(bf.dirty) writeBlock(bf);
+    if(b >= blocks) {
+      blocks = b + 1;
       bf.pos = b;
-      if(b >= blocks) {
-        blocks = b + 1;
-      } else {
-        file.seek(bf.pos * IO.BLOCKSIZE);
-        file.readFully(bf.data);
+    } else {
+      synchronized(bf) {
+        if(bf.pos != b) load(bf, b);
+      }
+    }
+  }
+
+  /**
+   * Pins and returns the buffer of the specified block.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param b block
+   * @return buffer, which must be unpinned after it has been accessed
+   */
+  private Buffer pin(final int b) {
+    final Buffer bf = bm.pin(b);
+    synchronized(bf) {
+      if(bf.pos != b) load(bf, b);
+    }
+    return bf;
+  }
+
+  /**
+   * Fills the specified buffer with the contents of a block. As blocks may be
+   * loaded by concurrent readers, the file pointer is not changed.
+   * @param bf buffer
+   * @param b block
+   */
+  private void load(final Buffer bf, final int b) {
+    final long p = (long) b * IO.BLOCKSIZE;
+    try {
+      if(packed == null || !packed.read(p, bf.data)) {
+        if(map != null) {
+          map.read(p, bf.data);
+        } else {
+          final ByteBuffer bb = ByteBuffer.wrap(bf.data);
+          for(long ps = p; bb.hasRemaining();) {
+            final int r = file.getChannel().read(bb, ps);
+            if(r == -1) throw new EOFException();
+            ps += r;
+          }
+        }
       }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    bf.pos = b;
   }
 
   /**
@@ -551,12 +742,19 @@ public final class TableDiskAccess extends TableAccess {
 
   /**
    * Writes the specified block to disk and resets the dirty flag.
+   * As this method may also be called by other threads, if the buffer is evicted
+   * from the pool, it does not change the position of the file pointer.
    * @param bf buffer to write
    * @throws IOException I/O exception
    */
   private void writeBlock(final Buffer bf) throws IOException {
-    file.seek(bf.pos * IO.BLOCKSIZE);
-    file.write(bf.data);
+    if(map != null) {
+      map.write(bf.pos * IO.BLOCKSIZE, bf.data);
+    } else {
+      final ByteBuffer bb = ByteBuffer.wrap(bf.data);
+      long p = bf.pos * IO.BLOCKSIZE;
+      while(bb.hasRemaining()) p += file.getChannel().write(bb, p);
+    }
     bf.dirty = false;
   }
 
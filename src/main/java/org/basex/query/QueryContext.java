@@ -15,6 +15,7 @@ import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.serial.*;
 import org.basex.query.expr.*;
+import org.basex.query.flwor.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.up.*;
@@ -46,12 +47,12 @@ public final class QueryContext extends Progress {
   /** Static context of an expression. */
   public StaticContext sc = new StaticContext();
   /** Variables. */
-  public final VarContext vars = new VarContext();
+  public final VarContext vars;
   /** Functions. */
-  public final UserFuncs funcs = new UserFuncs();
+  public final UserFuncs funcs;
 
   /** Query resources. */
-  public final QueryResources resource = new QueryResources(this);
+  public final QueryResources resource;
   /** Database context. */
   public final Context context;
 
@@ -104,6 +105,12 @@ public final class QueryContext extends Progress {
   public boolean leaf;
   /** Compilation flag: GFLWOR clause performs grouping. */
   public boolean grouping;
+  /** Group by clause whose non-grouping variables are compiled ({@code null}: none). */
+  public Group group;
+  /** Compilation flag: the compiled query will be cached and evaluated again. */
+  public boolean reuse;
+  /** Runtime statistics ({@code null} if profiling is disabled). */
+  public QueryProfiler profiler;
 
   /** Number of successive tail calls. */
   public int tailCalls;
@@ -133,7 +140,7 @@ public final class QueryContext extends Progress {
   /** String container for query background information. */
   private final TokenBuilder info = new TokenBuilder();
   /** Info flag. */
-  private final boolean inf;
+  final boolean inf;
   /** Optimization flag. */
   private boolean firstOpt = true;
   /** Evaluation flag. */
@@ -147,6 +154,9 @@ public final class QueryContext extends Progress {
    */
   public QueryContext(final Context ctx) {
     context = ctx;
+    vars = new VarContext();
+    funcs = new UserFuncs();
+    resource = new QueryResources(this);
     nodes = ctx.current();
     inf = ctx.prop.is(Prop.QUERYINFO) || Prop.debug;
     final String path = ctx.prop.get(Prop.QUERYPATH);
@@ -154,6 +164,76 @@ public final class QueryContext extends Progress {
     maxCalls = ctx.prop.num(Prop.TAILCALLS);
     modules = new ModuleLoader(ctx);
     sc.xquery3 = ctx.prop.is(Prop.XQUERY3);
+    if(ctx.prop.is(Prop.PROFILE)) profiler = new QueryProfiler();
+  }
+
+  /**
+   * Constructor for evaluating parts of a compiled query in a separate thread.
+   * The static context, functions, resources and global variables are shared with
+   * the specified context, and the local variables and the focus are copied.
+   * Global variables are evaluated at most once, even if they are requested by
+   * several threads (see {@link Var#value}). The new context must not be closed.
+   * @param qc query context
+   */
+  public QueryContext(final QueryContext qc) {
+    context = qc.context;
+    vars = new VarContext(qc.vars);
+    funcs = qc.funcs;
+    resource = qc.resource;
+    sc = qc.sc;
+    http = qc.http;
+    stop = qc.stop;
+    thes = qc.thes;
+    value = qc.value;
+    pos = qc.pos;
+    size = qc.size;
+    nodes = qc.nodes;
+    date = qc.date;
+    dtm = qc.dtm;
+    time = qc.time;
+    zone = qc.zone;
+    maxCalls = qc.maxCalls;
+    varIDs = qc.varIDs;
+    serProp = qc.serProp;
+    ctxItem = qc.ctxItem;
+    modules = qc.modules;
+    root = qc.root;
+    profiler = qc.profiler;
+    inf = false;
+  }
+
+  /**
+   * Constructor for evaluating a cached query (see {@link QueryPlans}).
+   * The static context, the functions and the compiled expression are shared with
+   * the cached query, and its global variables and resources are copied. The
+   * external values of the specified context are bound to the copied variables.
+   * @param plan query context of the compiled query
+   * @param qc query context with the database context and the external values
+   * @throws QueryException query exception
+   */
+  QueryContext(final QueryContext plan, final QueryContext qc) throws QueryException {
+    context = qc.context;
+    vars = new VarContext();
+    final VarStack gl = plan.vars.globals();
+    for(int v = 0; v < gl.size; v++) vars.updateGlobal(gl.vars[v].fork());
+    final VarStack ext = qc.vars.globals();
+    for(int v = 0; v < ext.size; v++) {
+      final Var var = ext.vars[v];
+      if(var.external) vars.globals().get(var.name).rebind(var.value(qc), this);
+    }
+    funcs = plan.funcs;
+    sc = plan.sc;
+    stop = plan.stop;
+    thes = plan.thes;
+    maxCalls = plan.maxCalls;
+    varIDs = plan.varIDs;
+    serProp = plan.serProp;
+    modules = new ModuleLoader(context);
+    root = plan.root;
+    profiler = qc.profiler;
+    if(plan.updates != null) updates = new Updates();
+    inf = false;
+    resource = new QueryResources(this, plan.resource);
   }
 
   /**
@@ -270,6 +350,10 @@ public final class QueryContext extends Progress {
    */
   public Value update() throws QueryException {
     if(updating) {
+      // parse and copy new nodes while other processes may still read the data
+      updates.prepare();
+      // wait until no other process reads the data
+      context.commit(this);
       updates.apply();
       if(updates.size() != 0 && context.data() != null) context.update();
       if(output.size() != 0) return output.value();
@@ -286,7 +370,7 @@ public final class QueryContext extends Progress {
    */
   public Iter iter(final Expr e) throws QueryException {
     checkStop();
-    return e.iter(this);
+    return profiler != null ? profiler.iter(e, this) : e.iter(this);
   }
 
   /**
@@ -297,7 +381,7 @@ public final class QueryContext extends Progress {
    */
   public Value value(final Expr expr) throws QueryException {
     checkStop();
-    return expr.value(this);
+    return profiler != null ? profiler.value(expr, this) : expr.value(this);
   }
 
   /**
@@ -530,15 +614,21 @@ public final class QueryContext extends Progress {
   }
 
   /**
-   * Recursively builds a query plan.
+   * Recursively builds a query plan. If the query has been profiled, the runtime
+   * statistics are added to the evaluated expressions.
    * @param doc root node
    */
-  void plan(final FDoc doc) {
+  public void plan(final FDoc doc) {
     // only show root node if functions or variables exist
     final FElem e = new FElem(PLAN);
-    funcs.plan(e);
-    vars.plan(e);
-    root.plan(e);
+    QueryProfiler.plan(profiler);
+    try {
+      funcs.plan(e);
+      vars.plan(e);
+      root.plan(e);
+    } finally {
+      QueryProfiler.plan(null);
+    }
     doc.add(e);
   }
 
@@ -573,10 +663,13 @@ public final class QueryContext extends Progress {
     final Var gl = vars.globals().get(qnm);
     if(gl == null) {
       // assign new variable
-      vars.updateGlobal(Var.create(this, null, qnm, null, null).bind(val, this));
+      final Var var = Var.create(this, null, qnm, null, null).bind(val, this);
+      var.external = true;
+      vars.updateGlobal(var);
     } else {
       // reset declaration state and bind new expression
       gl.declared = false;
+      gl.external = true;
       gl.bind(gl.type == null ? val :
         gl.type.type.cast(val.item(this, null), this, null), this);
     }
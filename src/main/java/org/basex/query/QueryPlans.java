@@ -0,0 +1,255 @@
+package org.basex.query;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.query.expr.Expr.Use;
+import org.basex.query.util.*;
+import org.basex.util.*;
+
+/**
+ * <p>This class caches compiled queries, which are reused if the same query is
+ * evaluated again. The cache is shared by all clients of a database context, and
+ * its size is limited by the {@link MainProp#PLANCACHE} option.</p>
+ *
+ * <p>Compiled queries are indexed by the query string, the name of the current user,
+ * the names of the externally bound variables and the current options. If a cached
+ * query is evaluated, a new query context is created, and the current values of
+ * the external variables are bound to it (see {@link QueryContext#reuse}). A single
+ * compiled query is never evaluated by more than one thread at a time; if the same
+ * query is requested in parallel, several compiled instances are cached.</p>
+ *
+ * <p>Queries will only be cached if no database is opened by the client, if they
+ * perform no updates, do not set any options, do not depend on the current time,
+ * and access no other resources than databases. A compiled query is discarded if
+ * one of the databases it has opened has been updated, or if its indexes have
+ * changed.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryPlans {
+  /** Cached queries, indexed by their keys, in the order of their last access. */
+  private final LinkedHashMap<String, ArrayList<Plan>> plans =
+      new LinkedHashMap<String, ArrayList<Plan>>(16, 0.75f, true);
+  /** Main properties. */
+  private final MainProp mprop;
+  /** Number of cached queries. */
+  private int size;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+
+  /**
+   * Constructor.
+   * @param mp main properties
+   */
+  public QueryPlans(final MainProp mp) {
+    mprop = mp;
+  }
+
+  /**
+   * Returns the key of a query, or {@code null} if the query cannot be cached.
+   * @param query query string
+   * @param qc query context, containing all bound variables
+   * @return key
+   */
+  String key(final String query, final QueryContext qc) {
+    if(mprop.num(MainProp.PLANCACHE) == 0 || qc.inf || qc.nodes != null ||
+        qc.ctxItem != null || qc.http != null || qc.modDeclared.size() != 0) return null;
+
+    final VarStack vs = qc.vars.globals();
+    final String[] names = new String[vs.size];
+    for(int v = 0; v < vs.size; v++) names[v] = Token.string(vs.vars[v].name.id());
+    Arrays.sort(names);
+
+    final StringBuilder sb = new StringBuilder(query).append('\0');
+    sb.append(qc.context.user.name).append('\0');
+    for(final String n : names) sb.append(n).append(' ');
+    return sb.append('\0').append(qc.context.prop).toString();
+  }
+
+  /**
+   * Returns a cached query for the specified key, or {@code null}. The query will
+   * be removed from the cache until it is released again.
+   * @param key key
+   * @return cached query
+   */
+  synchronized Plan get(final String key) {
+    final ArrayList<Plan> list = plans.get(key);
+    while(list != null && !list.isEmpty()) {
+      final Plan plan = list.remove(list.size() - 1);
+      size--;
+      if(list.isEmpty()) plans.remove(key);
+      if(plan.valid()) {
+        hits++;
+        return plan;
+      }
+      plan.close();
+    }
+    misses++;
+    return null;
+  }
+
+  /**
+   * Returns the specified query to the cache. The least recently used queries are
+   * discarded if the maximum number of cached queries is exceeded.
+   * @param key key
+   * @param plan compiled query
+   */
+  synchronized void release(final String key, final Plan plan) {
+    final int max = mprop.num(MainProp.PLANCACHE);
+    if(max == 0 || !plan.valid()) {
+      plan.close();
+      return;
+    }
+    ArrayList<Plan> list = plans.get(key);
+    if(list == null) {
+      list = new ArrayList<Plan>(1);
+      plans.put(key, list);
+    }
+    list.add(plan);
+    size++;
+
+    final Iterator<ArrayList<Plan>> it = plans.values().iterator();
+    while(size > max) {
+      final ArrayList<Plan> l = it.next();
+      for(final Plan p : l) p.close();
+      size -= l.size();
+      it.remove();
+    }
+  }
+
+  /**
+   * Discards all cached queries that have opened the specified database.
+   * @param db name of database
+   */
+  public synchronized void close(final String db) {
+    final Iterator<ArrayList<Plan>> it = plans.values().iterator();
+    while(it.hasNext()) {
+      final ArrayList<Plan> list = it.next();
+      if(list.get(0).opened(db)) {
+        for(final Plan p : list) p.close();
+        size -= list.size();
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Discards all cached queries.
+   */
+  public synchronized void close() {
+    for(final ArrayList<Plan> list : plans.values()) {
+      for(final Plan p : list) p.close();
+    }
+    plans.clear();
+    size = 0;
+  }
+
+  /**
+   * Returns the number of cached queries.
+   * @return number of queries
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of cache hits.
+   * @return number of hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of cache misses.
+   * @return number of misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns a new cache entry for the specified query, or {@code null} if the
+   * compiled query cannot be cached.
+   * @param qc query context of the compiled query
+   * @return cache entry
+   */
+  static Plan plan(final QueryContext qc) {
+    if(qc.updating || qc.root == null || qc.root.uses(Use.SEQ) ||
+        qc.dbOptions.size() != 0 || qc.date != null || qc.dtm != null ||
+        qc.time != null || qc.zone != null) return null;
+    // queries that have opened main-memory instances will not be cached
+    final Data[] datas = qc.resource.datas();
+    for(final Data d : datas) if(!(d instanceof DiskData)) return null;
+    return new Plan(qc, datas);
+  }
+
+  /**
+   * Compiled query, and the state of the databases it has opened.
+   */
+  static final class Plan {
+    /** Query context of the compiled query. */
+    final QueryContext qc;
+    /** Opened databases. */
+    private final Data[] datas;
+    /** States of the opened databases. */
+    private final long[] states;
+
+    /**
+     * Constructor.
+     * @param c query context
+     * @param d opened databases
+     */
+    Plan(final QueryContext c, final Data[] d) {
+      qc = c;
+      datas = d;
+      states = new long[d.length];
+      for(int s = 0; s < d.length; s++) states[s] = state(d[s]);
+    }
+
+    /**
+     * Checks if none of the opened databases has been changed.
+     * @return result of check
+     */
+    boolean valid() {
+      for(int s = 0; s < datas.length; s++) {
+        if(state(datas[s]) != states[s]) return false;
+      }
+      return true;
+    }
+
+    /**
+     * Checks if the specified database has been opened by the query.
+     * @param db name of database
+     * @return result of check
+     */
+    boolean opened(final String db) {
+      for(final Data d : datas) if(d.meta.name.equals(db)) return true;
+      return false;
+    }
+
+    /**
+     * Closes the query context.
+     */
+    void close() {
+      qc.close();
+    }
+
+    /**
+     * Returns the state of a database, derived from the number of updates and
+     * the available indexes.
+     * @param data data reference
+     * @return state
+     */
+    private static long state(final Data data) {
+      final MetaData md = data.meta;
+      return md.changes << 5 | (md.uptodate ? 1 : 0) | (md.textindex ? 2 : 0) |
+          (md.attrindex ? 4 : 0) | (md.ftxtindex ? 8 : 0) | (md.dateindex ? 16 : 0);
+    }
+  }
+}
@@ -25,7 +25,7 @@ import org.basex.util.list.*;
  */
 public final class QueryProcessor extends Progress {
   /** Expression context. */
-  public final QueryContext ctx;
+  public QueryContext ctx;
   /** Query. */
   private final String query;
   /** Parsed flag. */
@@ -33,6 +33,15 @@ public final class QueryProcessor extends Progress {
   /** Compilation flag. */
   private boolean compiled;
 
+  /** Key of the query in the cache of compiled queries ({@code null}: no caching). */
+  private String key;
+  /** Cached query (see {@link QueryPlans}). */
+  private QueryPlans.Plan plan;
+  /** Initial query context, if a cached query is evaluated. */
+  private QueryContext init;
+  /** Flag for caching the compiled query. */
+  private boolean cache = true;
+
   /**
    * Default constructor.
    * @param qu query to process
@@ -42,6 +51,8 @@ public final class QueryProcessor extends Progress {
     query = qu;
     ctx = new QueryContext(cx);
     progress(ctx);
+    // updates are collected in a pending update list
+    deferred = true;
   }
 
   /**
@@ -51,6 +62,18 @@ public final class QueryProcessor extends Progress {
   public void parse() throws QueryException {
     if(parsed) return;
     parsed = true;
+
+    // check if the query has already been compiled
+    final QueryPlans plans = ctx.context.plans;
+    key = cache ? plans.key(query, ctx) : null;
+    if(key != null) {
+      plan = plans.get(key);
+      if(plan != null) {
+        init = ctx;
+        ctx = progress(new QueryContext(plan.qc, init));
+        return;
+      }
+    }
     ctx.parse(query);
     updating = ctx.updating;
   }
@@ -63,7 +86,25 @@ public final class QueryProcessor extends Progress {
     if(compiled) return;
     compiled = true;
     parse();
+    if(init != null) {
+      // cached query: check if the databases have been changed in the meantime
+      if(plan.valid()) return;
+      ctx.close();
+      plan.close();
+      plan = null;
+      ctx = progress(init);
+      init = null;
+      ctx.parse(query);
+      updating = ctx.updating;
+    }
+
+    ctx.reuse = key != null && !ctx.updating;
     ctx.compile();
+    if(ctx.reuse) {
+      // cache compiled query, and evaluate it with a new context
+      plan = QueryPlans.plan(ctx);
+      if(plan != null) ctx = progress(new QueryContext(ctx, ctx));
+    }
   }
 
   /**
@@ -171,6 +212,7 @@ public final class QueryProcessor extends Progress {
    */
   public QueryProcessor namespace(final String prefix, final String uri)
       throws QueryException {
+    cache = false;
     ctx.sc.namespace(prefix, uri);
     return this;
   }
@@ -233,6 +275,14 @@ public final class QueryProcessor extends Progress {
    */
   public void close() {
     ctx.close();
+    if(init != null) {
+      init.close();
+      init = null;
+    }
+    if(plan != null) {
+      ctx.context.plans.release(key, plan);
+      plan = null;
+    }
   }
 
   /**
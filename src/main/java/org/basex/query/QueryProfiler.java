@@ -0,0 +1,152 @@
+package org.basex.query;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.util.*;
+
+/**
+ * <p>This class collects runtime statistics for the expressions of a query, if the
+ * {@link Prop#PROFILE} option is enabled. For each expression that is evaluated
+ * via {@link QueryContext#iter}, {@link QueryContext#value} or as effective
+ * boolean value (e.g. as predicate), the number of calls, the number of returned
+ * items and the cumulative evaluation time in nanoseconds are recorded. The time
+ * includes the evaluation of all subexpressions, and the time spent in iterators
+ * that are consumed lazily.</p>
+ *
+ * <p>The statistics are added as attributes to the expressions of the query plan.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryProfiler {
+  /** Profiler of the query plan that is currently created by a thread. */
+  private static final ThreadLocal<QueryProfiler> PLAN = new ThreadLocal<QueryProfiler>();
+  /** Attribute for the number of calls. */
+  private static final byte[] CALLS = Token.token("calls");
+  /** Attribute for the number of returned items. */
+  private static final byte[] ITEMS = Token.token("items");
+  /** Attribute for the evaluation time. */
+  private static final byte[] NANOS = Token.token("nanos");
+
+  /** Statistics of the evaluated expressions. */
+  private final IdentityHashMap<Expr, long[]> stats =
+      new IdentityHashMap<Expr, long[]>();
+
+  /**
+   * Evaluates the specified expression and returns an iterator, which records
+   * the returned items and the time spent for retrieving them.
+   * @param expr expression
+   * @param ctx query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  Iter iter(final Expr expr, final QueryContext ctx) throws QueryException {
+    final long t = System.nanoTime();
+    final Iter ir = expr.iter(ctx);
+    add(expr, 1, 0, System.nanoTime() - t);
+    // node iterators are expected by some path expressions
+    if(ir instanceof NodeIter) {
+      return new NodeIter() {
+        @Override
+        public ANode next() throws QueryException {
+          final long s = System.nanoTime();
+          final ANode n = ((NodeIter) ir).next();
+          add(expr, 0, n != null ? 1 : 0, System.nanoTime() - s);
+          return n;
+        }
+      };
+    }
+    return new Iter() {
+      @Override
+      public Item next() throws QueryException {
+        final long s = System.nanoTime();
+        final Item it = ir.next();
+        add(expr, 0, it != null ? 1 : 0, System.nanoTime() - s);
+        return it;
+      }
+      @Override
+      public Item get(final long i) throws QueryException {
+        final long s = System.nanoTime();
+        final Item it = ir.get(i);
+        add(expr, 0, 1, System.nanoTime() - s);
+        return it;
+      }
+      @Override
+      public long size() {
+        return ir.size();
+      }
+      @Override
+      public boolean reset() {
+        return ir.reset();
+      }
+    };
+  }
+
+  /**
+   * Evaluates the specified expression and returns the resulting value.
+   * @param expr expression
+   * @param ctx query context
+   * @return value
+   * @throws QueryException query exception
+   */
+  Value value(final Expr expr, final QueryContext ctx) throws QueryException {
+    final long t = System.nanoTime();
+    final Value v = expr.value(ctx);
+    add(expr, 1, v.size(), System.nanoTime() - t);
+    return v;
+  }
+
+  /**
+   * Records the evaluation of an expression.
+   * @param expr expression
+   * @param calls number of calls
+   * @param items number of returned items
+   * @param nanos evaluation time
+   */
+  public synchronized void add(final Expr expr, final long calls, final long items,
+      final long nanos) {
+    long[] st = stats.get(expr);
+    if(st == null) {
+      st = new long[3];
+      stats.put(expr, st);
+    }
+    st[0] += calls;
+    st[1] += items;
+    st[2] += nanos;
+  }
+
+  /**
+   * Assigns or removes the profiler, the statistics of which will be added to the
+   * query plan that is created by the current thread.
+   * @param qp profiler ({@code null} if no statistics will be added)
+   */
+  static void plan(final QueryProfiler qp) {
+    if(qp != null) PLAN.set(qp);
+    else PLAN.remove();
+  }
+
+  /**
+   * Adds the statistics of an expression to the specified element of a query plan,
+   * if a profiler has been assigned by {@link #plan}.
+   * @param expr expression
+   * @param el element of the query plan
+   */
+  public static void annotate(final Expr expr, final FElem el) {
+    final QueryProfiler qp = PLAN.get();
+    if(qp == null) return;
+    final long[] st;
+    synchronized(qp) {
+      st = qp.stats.get(expr);
+    }
+    if(st == null) return;
+    el.add(new FAttr(CALLS, Token.token(st[0])));
+    el.add(new FAttr(ITEMS, Token.token(st[1])));
+    el.add(new FAttr(NANOS, Token.token(st[2])));
+  }
+}
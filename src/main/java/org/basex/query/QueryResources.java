@@ -39,6 +39,8 @@ public final class QueryResources {
   private String[] collName = new String[1];
   /** Number of collections. */
   private int colls;
+  /** Temporary files. */
+  private final ArrayList<IOFile> temp = new ArrayList<IOFile>();
 
   /**
    * Constructor.
@@ -48,6 +50,31 @@ public final class QueryResources {
     ctx = qc;
   }
 
+  /**
+   * Constructor for evaluating a cached query. The databases and collections of the
+   * cached query are adopted, and the databases are pinned again.
+   * @param qc query context
+   * @param qr resources of the cached query
+   */
+  QueryResources(final QueryContext qc, final QueryResources qr) {
+    ctx = qc;
+    resources = qr.resources;
+    data = Arrays.copyOf(qr.data, qr.data.length);
+    datas = qr.datas;
+    for(int d = 0; d < datas; d++) qc.context.pin(data[d].meta.name);
+    coll = qr.coll.clone();
+    collName = qr.collName.clone();
+    colls = qr.colls;
+  }
+
+  /**
+   * Returns the opened databases.
+   * @return databases
+   */
+  Data[] datas() {
+    return Arrays.copyOf(data, datas);
+  }
+
   /**
    * Compiles the resources.
    * @param nodes input node set
@@ -70,13 +97,28 @@ public final class QueryResources {
   }
 
   /**
-   * Closes all opened data references that have not been added by the global context.
+   * Closes all opened data references that have not been added by the global context,
+   * and deletes temporary files.
    */
   void close() {
     for(int d = ctx.nodes != null ? 1 : 0; d < datas; d++) {
       Close.close(data[d], ctx.context);
     }
     datas = 0;
+    for(final IOFile file : temp) file.delete();
+    temp.clear();
+  }
+
+  /**
+   * Creates a temporary file, which will be deleted when the query is closed.
+   * @param name prefix of the file name
+   * @return file
+   * @throws IOException I/O exception
+   */
+  public synchronized IOFile temp(final String name) throws IOException {
+    final IOFile file = new IOFile(File.createTempFile(name, IO.BASEXSUFFIX));
+    temp.add(file);
+    return file;
   }
 
   /**
@@ -86,7 +128,8 @@ public final class QueryResources {
    * @return database instance
    * @throws QueryException query exception
    */
-  public Data data(final String name, final InputInfo info) throws QueryException {
+  public synchronized Data data(final String name, final InputInfo info)
+      throws QueryException {
     // check if a database with the same name has already been opened
     for(int d = 0; d < datas; ++d) {
       if(data[d].meta.name.equalsIgnoreCase(name)) return data[d];
@@ -110,7 +153,8 @@ public final class QueryResources {
    * @return document
    * @throws QueryException query exception
    */
-  public DBNode doc(final QueryInput qi, final InputInfo info) throws QueryException {
+  public synchronized DBNode doc(final QueryInput qi, final InputInfo info)
+      throws QueryException {
     // check currently opened databases
     for(int d = 0; d < datas; ++d) {
       final Data dt = data[d];
@@ -134,7 +178,7 @@ public final class QueryResources {
    * @return collection
    * @throws QueryException query exception
    */
-  public Value collection(final InputInfo info) throws QueryException {
+  public synchronized Value collection(final InputInfo info) throws QueryException {
     if(colls == 0) NODEFCOLL.thrw(info);
     return coll[0];
   }
@@ -147,7 +191,7 @@ public final class QueryResources {
    * @return collection
    * @throws QueryException query exception
    */
-  public Value collection(final String input, final InputInfo info)
+  public synchronized Value collection(final String input, final InputInfo info)
       throws QueryException {
 
     // merge input with base directory
@@ -701,6 +701,16 @@ public interface QueryText {
   /** Optimization info. */
   String OPTWHERE = "rewriting where clause to predicate(s)";
   /** Optimization info. */
+  String OPTHASHJOIN = "applying hash join to %";
+  /** Optimization info. */
+  String OPTPARALLEL = "evaluating FLWOR expression in % threads";
+  /** Optimization info. */
+  String OPTTOPK = "limiting number of sorted tuples to %";
+  /** Optimization info. */
+  String OPTAGGR = "aggregating % incrementally";
+  /** Optimization info. */
+  String OPTARITH = "applying % to all items";
+  /** Optimization info. */
   String OPTPRED = "rewriting % to predicate(s)";
   /** Optimization info. */
   String OPTCAST = "removing redundant % cast.";
@@ -721,6 +731,8 @@ public interface QueryText {
   /** Optimization info. */
   String OPTSRNGINDEX = "applying string range index";
   /** Optimization info. */
+  String OPTDRNGINDEX = "applying date range index";
+  /** Optimization info. */
   String OPTNOINDEX = "removing path with no index results";
   /** Optimization info. */
   String OPTBIND = "binding static variable %";
@@ -35,6 +35,7 @@ public final class And extends Logical {
     Pos ps = null;
     CmpR cr = null;
     CmpSR cs = null;
+    CmpDR cd = null;
     for(final Expr e : expr) {
       Expr tmp = null;
       if(e instanceof Pos) {
@@ -52,6 +53,11 @@ public final class And extends Logical {
         tmp = cs == null ? e : cs.intersect((CmpSR) e);
         if(tmp instanceof CmpSR) cs = (CmpSR) tmp;
         else if(tmp != null) return tmp;
+      } else if(e instanceof CmpDR) {
+        // merge comparisons
+        tmp = cd == null ? e : cd.intersect((CmpDR) e);
+        if(tmp instanceof CmpDR) cd = (CmpDR) tmp;
+        else if(tmp != null) return tmp;
       }
       // no optimization found; add original expression
       if(tmp == null) ex = Array.add(ex, e);
@@ -60,6 +66,7 @@ public final class And extends Logical {
     if(ps != null) expr = Array.add(expr, ps);
     if(cr != null) expr = Array.add(expr, cr);
     if(cs != null) expr = Array.add(expr, cs);
+    if(cd != null) expr = Array.add(expr, cd);
     if(ex.length != expr.length) ctx.compInfo(OPTWRITE, this);
     compFlatten(ctx);
 
@@ -17,7 +17,7 @@ import org.basex.util.*;
  */
 public final class Arith extends Arr {
   /** Calculation operator. */
-  private final Calc calc;
+  public final Calc calc;
 
   /**
    * Constructor.
@@ -6,8 +6,10 @@ import static org.basex.query.value.type.AtomType.*;
 import java.math.*;
 
 import org.basex.query.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.item.ANum;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 
@@ -235,6 +237,107 @@ public enum Calc {
   public abstract Item ev(final InputInfo ii, final Item a, final Item b)
     throws QueryException;
 
+  /**
+   * Performs the calculation for all items of a sequence and a single item.
+   * If the sequence is stored in its native representation, and if the item is an
+   * integer or a double, the items are computed in a tight loop, and a new native
+   * sequence is returned. The results and errors are the same as for
+   * {@link #ev(InputInfo, Item, Item)}.
+   * @param ii input info
+   * @param seq sequence
+   * @param it item
+   * @param swap swap operands (the item will be the first operand)
+   * @return resulting sequence, or {@code null} if the operands are not supported
+   * @throws QueryException query exception
+   */
+  public final Value ev(final InputInfo ii, final Value seq, final Item it,
+      final boolean swap) throws QueryException {
+
+    if(!(it instanceof Int || it instanceof Dbl)) return null;
+    final Type t = type(seq.type().type, it.type);
+    if(t == ITR) {
+      // integer division yields decimals
+      final long[] vals = NativeSeq.longs(seq);
+      if(vals == null || this == DIV) return null;
+      final long l = it.itr(ii);
+      final int s = vals.length;
+      final long[] res = new long[s];
+      for(int i = 0; i < s; i++) {
+        res[i] = swap ? ev(ii, l, vals[i]) : ev(ii, vals[i], l);
+      }
+      return IntSeq.get(res, ITR);
+    }
+
+    final double[] vals = NativeSeq.doubles(seq);
+    if(vals == null) return null;
+    final double d = it.dbl(ii);
+    final int s = vals.length;
+    // integer division yields integers
+    if(this == IDIV) {
+      final long[] res = new long[s];
+      for(int i = 0; i < s; i++) {
+        res[i] = swap ? idiv(ii, d, vals[i]) : idiv(ii, vals[i], d);
+      }
+      return IntSeq.get(res, ITR);
+    }
+    final double[] res = new double[s];
+    for(int i = 0; i < s; i++) {
+      final double a = swap ? d : vals[i], b = swap ? vals[i] : d;
+      switch(this) {
+        case PLUS:  res[i] = a + b; break;
+        case MINUS: res[i] = a - b; break;
+        case MULT:  res[i] = a * b; break;
+        case DIV:   res[i] = a / b; break;
+        default:    res[i] = a % b; break;
+      }
+    }
+    return DblSeq.get(res);
+  }
+
+  /**
+   * Performs the calculation for two integers.
+   * @param ii input info
+   * @param a first integer
+   * @param b second integer
+   * @return result
+   * @throws QueryException query exception
+   */
+  private long ev(final InputInfo ii, final long a, final long b) throws QueryException {
+    switch(this) {
+      case PLUS:
+        checkRange(ii, a + (double) b);
+        return a + b;
+      case MINUS:
+        checkRange(ii, a - (double) b);
+        return a - b;
+      case MULT:
+        checkRange(ii, a * (double) b);
+        return a * b;
+      case IDIV:
+        if(b == 0) DIVZERO.thrw(ii, Int.get(a));
+        return a / b;
+      default:
+        if(b == 0) DIVZERO.thrw(ii, Int.get(a));
+        return a % b;
+    }
+  }
+
+  /**
+   * Performs an integer division for two doubles.
+   * @param ii input info
+   * @param a first double
+   * @param b second double
+   * @return result
+   * @throws QueryException query exception
+   */
+  private static long idiv(final InputInfo ii, final double a, final double b)
+      throws QueryException {
+    if(b == 0) DIVZERO.thrw(ii, Dbl.get(a));
+    final double d = a / b;
+    if(Double.isNaN(d) || Double.isInfinite(d)) DIVFLOW.thrw(ii, a, b);
+    return (long) d;
+  }
+
   /**
    * Returns the numeric type with the highest precedence.
    * @param a first item type
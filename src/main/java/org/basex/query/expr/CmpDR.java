@@ -0,0 +1,213 @@
+package org.basex.query.expr;
+
+import static org.basex.query.QueryText.*;
+import static org.basex.query.util.Err.*;
+
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.*;
+import org.basex.query.expr.CmpV.OpV;
+import org.basex.query.iter.*;
+import org.basex.query.path.*;
+import org.basex.query.util.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Date range expression. If the expression is rewritten for index access,
+ * values that cannot be cast to the date type will be ignored.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class CmpDR extends Single {
+  /** Minimum (can be {@code null}). */
+  private final ADate min;
+  /** Include minimum value. */
+  private final boolean mni;
+  /** Maximum (can be {@code null}). */
+  private final ADate max;
+  /** Include maximum value. */
+  private final boolean mxi;
+  /** Index container. */
+  private DateRange rt;
+  /** Flag for atomic evaluation. */
+  private final boolean atomic;
+
+  /**
+   * Constructor.
+   * @param e (compiled) expression
+   * @param mn minimum value
+   * @param in include minimum value
+   * @param mx maximum value
+   * @param ix include maximum value
+   * @param ii input info
+   */
+  private CmpDR(final Expr e, final ADate mn, final boolean in, final ADate mx,
+      final boolean ix, final InputInfo ii) {
+
+    super(ii, e);
+    min = mn;
+    mni = in;
+    max = mx;
+    mxi = ix;
+    type = SeqType.BLN;
+    atomic = e.type().zeroOrOne();
+  }
+
+  /**
+   * Tries to convert the specified expression into a range expression.
+   * @param ex expression to be converted
+   * @return new or original expression
+   */
+  static Expr get(final CmpG ex) {
+    if(!(ex.expr[1] instanceof Dtm || ex.expr[1] instanceof Dat)) return ex;
+    final ADate d = (ADate) ex.expr[1];
+    final Expr e = ex.expr[0];
+    switch(ex.op.op) {
+      case GE: return new CmpDR(e, d, true, null, true, ex.info);
+      case GT: return new CmpDR(e, d, false, null, true, ex.info);
+      case LE: return new CmpDR(e, null, true, d, true, ex.info);
+      case LT: return new CmpDR(e, null, true, d, false, ex.info);
+      default: return ex;
+    }
+  }
+
+  @Override
+  public Bln item(final QueryContext ctx, final InputInfo ii) throws QueryException {
+    // atomic evaluation of arguments (faster)
+    if(atomic) {
+      final Item it = expr.item(ctx, info);
+      return Bln.get(it != null && eval(it, ctx));
+    }
+
+    // iterative evaluation
+    final Iter ir = ctx.iter(expr);
+    for(Item it; (it = ir.next()) != null;) {
+      if(eval(it, ctx)) return Bln.TRUE;
+    }
+    return Bln.FALSE;
+  }
+
+  /**
+   * Evaluates the range for the specified item.
+   * @param it item to be evaluated
+   * @param ctx query context
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean eval(final Item it, final QueryContext ctx) throws QueryException {
+    final Type t = (min != null ? min : max).type;
+    Item d = it;
+    if(it.type.isUntyped()) {
+      d = t.cast(it, ctx, info);
+    } else if(it instanceof FItem || it.type != t) {
+      XPTYPECMP.thrw(info, it.type, t);
+    }
+    return (min == null || (mni ? OpV.GE : OpV.GT).eval(info, d, min)) &&
+        (max == null || (mxi ? OpV.LE : OpV.LT).eval(info, d, max));
+  }
+
+  /**
+   * Creates an intersection of the existing and the specified expressions.
+   * @param c range comparison
+   * @return resulting expression or {@code null}
+   * @throws QueryException query exception
+   */
+  Expr intersect(final CmpDR c) throws QueryException {
+    // skip intersection if expressions to be compared or date types are different
+    final Type t = (min != null ? min : max).type;
+    if(!c.expr.sameAs(expr) || (c.min != null ? c.min : c.max).type != t) return null;
+
+    // find common minimum and maximum value
+    ADate mn = min, mx = max;
+    boolean in = mni, ix = mxi;
+    if(mn == null) {
+      mn = c.min;
+      in = c.mni;
+    } else if(c.min != null) {
+      final int d = mn.diff(info, c.min);
+      if(d < 0) mn = c.min;
+      in = d < 0 ? c.mni : d > 0 ? in : in && c.mni;
+    }
+    if(mx == null) {
+      mx = c.max;
+      ix = c.mxi;
+    } else if(c.max != null) {
+      final int d = mx.diff(info, c.max);
+      if(d > 0) mx = c.max;
+      ix = d > 0 ? c.mxi : d < 0 ? ix : ix && c.mxi;
+    }
+
+    if(mn != null && mx != null) {
+      final int d = mn.diff(info, mx);
+      // remove comparisons that will never yield results
+      if(d > 0) return Bln.FALSE;
+      if(d == 0) {
+        // return simplified comparison for exact hit, or false if value is not included
+        return in && ix ? new CmpG(expr, mn, CmpG.OpG.EQ, info) : Bln.FALSE;
+      }
+    }
+    return new CmpDR(expr, mn, in, mx, ix, info);
+  }
+
+  @Override
+  public boolean indexAccessible(final IndexContext ic) {
+    // accept only location path, string and equality expressions
+    final AxisStep s = CmpG.indexStep(expr);
+    // no range index support in main-memory index structures
+    if(s == null || ic.data.inMemory() || !ic.data.meta.dateindex) return false;
+
+    // check which index applies
+    final boolean text = s.test.type == NodeType.TXT && ic.data.meta.textindex;
+    final boolean attr = s.test.type == NodeType.ATT && ic.data.meta.attrindex;
+    if(!text && !attr) return false;
+
+    // create range access; the implicit timezone is applied to values without timezone
+    final double zone = ADate.zone() * 60000d;
+    rt = new DateRange(text ? IndexType.TEXT : IndexType.ATTRIBUTE,
+        (min != null ? min : max) instanceof Dat, bound(min, mni, true, zone),
+        bound(max, mxi, false, zone), zone);
+    ic.costs(Math.max(1, ic.data.meta.size / (min != null && max != null ? 10 : 5)));
+    return true;
+  }
+
+  /**
+   * Returns the inclusive bound of a range in milliseconds.
+   * @param d date (can be {@code null})
+   * @param inc inclusive flag
+   * @param lower lower or upper bound
+   * @param zone offset of the implicit timezone
+   * @return bound
+   */
+  private static double bound(final ADate d, final boolean inc, final boolean lower,
+      final double zone) {
+    if(d == null) return lower ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    final double v = d.zoned() ? d.epoch() : d.epoch() - zone;
+    return inc ? v : lower ? Math.nextUp(v) : -Math.nextUp(-v);
+  }
+
+  @Override
+  public Expr indexEquivalent(final IndexContext ic) {
+    final boolean text = rt.type() == IndexType.TEXT;
+    ic.ctx.compInfo(OPTDRNGINDEX);
+    return ic.invert(expr, new DateRangeAccess(info, rt, ic), text);
+  }
+
+  @Override
+  public void plan(final FElem plan) {
+    addPlan(plan, planElem(MIN, min != null ? min.string(info) : Token.EMPTY,
+      MAX, max != null ? max.string(info) : Token.EMPTY), expr);
+  }
+
+  @Override
+  public String toString() {
+    final TokenBuilder tb = new TokenBuilder();
+    if(min != null) tb.addExt(min).add(mni ? " <= " : " < ");
+    tb.addExt(expr);
+    if(max != null) tb.add(mxi ? " <= " : " < ").addExt(max);
+    return tb.toString();
+  }
+}
@@ -167,6 +167,7 @@ public final class CmpG extends Cmp {
       // rewrite path CMP number
       e = CmpR.get(this);
       if(e == this) e = CmpSR.get(this);
+      if(e == this) e = CmpDR.get(this);
       if(e != this) ctx.compInfo(OPTWRITE, this);
     }
     if(e != this) return e;
@@ -258,10 +259,55 @@ public final class CmpG extends Cmp {
     if(!(a instanceof FItem || b instanceof FItem) &&
         (ta == tb || ta.isUntyped() || tb.isUntyped() ||
         a instanceof ANum && b instanceof ANum ||
-        a instanceof AStr && b instanceof AStr)) return op.op.eval(info, a, b);
+        a instanceof AStr && b instanceof AStr)) {
+      if(op.op == OpV.EQ || op.op == OpV.NE) {
+        final int d = dict(a, b);
+        if(d != 0) return d > 0 == (op.op == OpV.EQ);
+      }
+      return op.op.eval(info, a, b);
+    }
     throw XPTYPECMP.thrw(info, ta, tb);
   }
 
+  /**
+   * Compares the dictionary references of a text or attribute node and another
+   * item. This way, dictionary-encoded values need not be read from disk.
+   * @param a first item
+   * @param b second item
+   * @return {@code 1} if the values are equal, {@code -1} if they differ, or
+   * {@code 0} if the references cannot be compared
+   * @throws QueryException query exception
+   */
+  private int dict(final Item a, final Item b) throws QueryException {
+    if(!(a instanceof DBNode)) return b instanceof DBNode ? dict(b, a) : 0;
+    final DBNode n = (DBNode) a;
+    final boolean text = n.type == NodeType.TXT;
+    if(!text && n.type != NodeType.ATT) return 0;
+    final long r = n.data.textRef(n.pre, text);
+    if(r == -1) return 0;
+
+    final long s;
+    if(b instanceof DBNode) {
+      final DBNode m = (DBNode) b;
+      if(m.data != n.data || m.type != n.type) return 0;
+      s = m.data.textRef(m.pre, text);
+      if(s == -1) return 0;
+    } else if(b.type == AtomType.STR || b.type == AtomType.ATM) {
+      s = n.data.textRef(b.string(info), text);
+    } else {
+      return 0;
+    }
+    return r == s ? 1 : -1;
+  }
+
+  /**
+   * Returns the comparator.
+   * @return comparator
+   */
+  public OpG op() {
+    return op;
+  }
+
   @Override
   public CmpG invert() {
     return expr[0].size() != 1 || expr[1].size() != 1 ? this :
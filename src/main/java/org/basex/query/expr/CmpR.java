@@ -2,6 +2,8 @@ package org.basex.query.expr;
 
 import static org.basex.query.QueryText.*;
 
+import java.util.*;
+
 import org.basex.index.*;
 import org.basex.index.name.*;
 import org.basex.index.query.*;
@@ -11,9 +13,11 @@ import org.basex.query.iter.*;
 import org.basex.query.path.*;
 import org.basex.query.path.Test.Mode;
 import org.basex.query.util.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.item.ANum;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 
@@ -83,18 +87,85 @@ public final class CmpR extends Single {
       final Item it = expr.item(ctx, info);
       if(it == null) return Bln.FALSE;
       final double d = it.dbl(info);
-      return Bln.get((mni ? d >= min : d > min) && (mxi ? d <= max : d < max));
+      return Bln.get(above(d) && below(d));
     }
 
     // iterative evaluation
     final Iter ir = ctx.iter(expr);
     for(Item it; (it = ir.next()) != null;) {
       final double d = it.dbl(info);
-      if((mni ? d >= min : d > min) && (mxi ? d <= max : d < max)) return Bln.TRUE;
+      if(above(d) && below(d)) return Bln.TRUE;
     }
     return Bln.FALSE;
   }
 
+  /**
+   * Checks if the specified value is greater than (or equal to) the minimum.
+   * @param d value
+   * @return result of check
+   */
+  private boolean above(final double d) {
+    return mni ? d >= min : d > min;
+  }
+
+  /**
+   * Checks if the specified value is less than (or equal to) the maximum.
+   * @param d value
+   * @return result of check
+   */
+  private boolean below(final double d) {
+    return mxi ? d <= max : d < max;
+  }
+
+  /**
+   * Filters a sequence by this comparison, if it is applied to the context item,
+   * and if the items of the sequence are stored in their native representation.
+   * The items are filtered in a tight loop; the bounds of ranges are found via
+   * binary search.
+   * @param v sequence
+   * @return filtered sequence, or {@code null} if the sequence is not supported
+   */
+  Value filter(final Value v) {
+    if(!(expr instanceof Context)) return null;
+
+    if(v instanceof RangeSeq) {
+      final RangeSeq rs = (RangeSeq) v;
+      final long st = rs.start(), n = rs.size();
+      // find first value that is not too small
+      long l = 0, h = n;
+      while(l < h) {
+        final long m = l + h >>> 1;
+        if(above(st + m)) h = m;
+        else l = m + 1;
+      }
+      // find first value that is too large
+      final long s = l;
+      h = n;
+      while(l < h) {
+        final long m = l + h >>> 1;
+        if(below(st + m)) l = m + 1;
+        else h = m;
+      }
+      final long sz = l - s;
+      return sz == 0 ? Empty.SEQ : sz == 1 ? Int.get(st + s) : new RangeSeq(st + s, sz);
+    }
+    if(v instanceof IntSeq) {
+      final long[] vals = NativeSeq.longs(v);
+      final long[] res = new long[vals.length];
+      int c = 0;
+      for(final long l : vals) if(above(l) && below(l)) res[c++] = l;
+      return IntSeq.get(Arrays.copyOf(res, c), v.type);
+    }
+    if(v instanceof DblSeq) {
+      final double[] vals = NativeSeq.doubles(v);
+      final double[] res = new double[vals.length];
+      int c = 0;
+      for(final double d : vals) if(above(d) && below(d)) res[c++] = d;
+      return DblSeq.get(Arrays.copyOf(res, c));
+    }
+    return null;
+  }
+
   /**
    * Creates an intersection of the existing and the specified expressions.
    * @param c range comparison
@@ -0,0 +1,63 @@
+package org.basex.query.expr;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.node.*;
+import org.basex.util.*;
+
+/**
+ * This index class retrieves date and dateTime ranges from a value index.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class DateRangeAccess extends IndexAccess {
+  /** Index token. */
+  final DateRange dr;
+
+  /**
+   * Constructor.
+   * @param ii input info
+   * @param t index reference
+   * @param ic index context
+   */
+  DateRangeAccess(final InputInfo ii, final DateRange t, final IndexContext ic) {
+    super(ic, ii);
+    dr = t;
+  }
+
+  @Override
+  public AxisIter iter(final QueryContext ctx) {
+    final Data data = ictx.data;
+    final byte kind = dr.type() == IndexType.TEXT ? Data.TEXT : Data.ATTR;
+
+    return new AxisIter() {
+      final IndexIterator it = data.iter(dr);
+      @Override
+      public ANode next() {
+        return it.more() ? new DBNode(data, it.next(), kind) : null;
+      }
+    };
+  }
+
+  @Override
+  public void plan(final FElem plan) {
+    addPlan(plan, planElem(DATA, ictx.data.meta.name,
+        MIN, dr.min, MAX, dr.max, TYP, dr.type));
+  }
+
+  @Override
+  public String toString() {
+    return new TokenBuilder(DB).add(':').
+      add(dr.type().toString().toLowerCase(Locale.ENGLISH)).add("-date-range(").
+      addExt(dr.min).add(SEP).addExt(dr.max).add(')').toString();
+  }
+}
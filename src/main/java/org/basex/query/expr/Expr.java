@@ -9,6 +9,7 @@ import org.basex.query.path.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
@@ -28,6 +29,7 @@ public abstract class Expr extends ExprInfo {
     /** Depends on context. Example: context node. */        CTX,
     /** Non-deterministic. Example: random(). */             NDT,
     /** Context position. Example: position(). */            POS,
+    /** Evaluation state. Example: full-text expression. */  SEQ,
     /** Performs updates. Example: insert expression. */     UPD,
     /** References a variable. Example: {@link VarRef}. */   VAR,
     /** Based on XQuery 3.0. Example: group by statement. */ X30,
@@ -315,6 +317,19 @@ public abstract class Expr extends ExprInfo {
     return false;
   }
 
+  /**
+   * Creates a new element node to be added to the expression tree.
+   * If the query has been profiled, the runtime statistics are added as attributes.
+   * @param atts optional attribute names and values
+   * @return tree node
+   */
+  @Override
+  protected FElem planElem(final Object... atts) {
+    final FElem el = super.planElem(atts);
+    QueryProfiler.annotate(this, el);
+    return el;
+  }
+
   /**
    * Finds and marks tail calls, enabling TCO.
    * @return the expression, with tail calls marked
@@ -60,6 +60,12 @@ public final class Extension extends Single {
     }
   }
 
+  @Override
+  public boolean uses(final Use u) {
+    // pragmas temporarily change global options
+    return u == Use.SEQ || super.uses(u);
+  }
+
   @Override
   public void plan(final FElem plan) {
     addPlan(plan, planElem(), pragmas, expr);
@@ -1,6 +1,7 @@
 package org.basex.query.expr;
 
 import org.basex.query.*;
+import org.basex.query.flwor.*;
 import org.basex.query.iter.*;
 import org.basex.query.path.*;
 import org.basex.query.util.*;
@@ -56,6 +57,10 @@ public class Filter extends Preds {
       final Expr e = super.compile(ctx);
       if(e != this) return e;
 
+      // positional predicate: only sort the required tuples of an order by clause
+      if(preds.length != 0 && preds[0] instanceof Pos && root instanceof GFLWOR)
+        ((GFLWOR) root).top(((Pos) preds[0]).max, ctx);
+
       // no predicates.. return root; otherwise, do some advanced compilations
       return preds.length == 0 ? root : comp2(ctx);
     } finally {
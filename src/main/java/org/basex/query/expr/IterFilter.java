@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 
 /**
@@ -21,10 +22,23 @@ final class IterFilter extends Filter {
   }
 
   @Override
-  public Iter iter(final QueryContext ctx) {
+  public Iter iter(final QueryContext ctx) throws QueryException {
+    Iter ir = null;
+    if(preds.length == 1 && preds[0] instanceof CmpR) {
+      // filter sequences in their native representation in a tight loop
+      ir = ctx.iter(root);
+      if(ir instanceof ValueIter) {
+        final Value v = ir.value();
+        final Value res = ((CmpR) preds[0]).filter(v);
+        if(res != null) return res.iter();
+        ir = v.iter();
+      }
+    }
+
+    final Iter start = ir;
     return new Iter() {
       /** Iterator. */
-      Iter iter;
+      Iter iter = start;
 
       @Override
       public Item next() throws QueryException {
@@ -70,13 +70,29 @@ public abstract class ParseExpr extends Expr {
       final Value v = item(ctx, info);
       return v == null ? Empty.SEQ : v;
     }
-    return ctx.iter(this).value();
+    ctx.checkStop();
+    return iter(ctx).value();
   }
 
   @Override
   public final Item ebv(final QueryContext ctx, final InputInfo ii)
       throws QueryException {
 
+    final QueryProfiler qp = ctx.profiler;
+    if(qp == null) return ebv(ctx);
+    final long t = System.nanoTime();
+    final Item it = ebv(ctx);
+    qp.add(this, 1, 1, System.nanoTime() - t);
+    return it;
+  }
+
+  /**
+   * Returns the effective boolean value of this expression.
+   * @param ctx query context
+   * @return item
+   * @throws QueryException query exception
+   */
+  private Item ebv(final QueryContext ctx) throws QueryException {
     final Item it;
     if(type().zeroOrOne()) {
       it = item(ctx, info);
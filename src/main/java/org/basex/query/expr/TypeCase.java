@@ -45,7 +45,7 @@ public final class TypeCase extends Single {
    */
   TypeCase compile(final QueryContext ctx, final Value v) throws QueryException {
     final int s = ctx.vars.size();
-    if(var.name != null) ctx.vars.add(v == null ? var : var.bind(v, ctx).copy());
+    if(var.name != null) ctx.vars.add(v == null ? var : var.copy().bind(v, ctx));
     try {
       super.compile(ctx);
     } catch(final QueryException ex) {
@@ -74,7 +74,7 @@ public final class TypeCase extends Single {
     if(var.name == null) return ctx.iter(expr);
 
     final int s = ctx.vars.size();
-    ctx.vars.add(var.bind(seq, ctx).copy());
+    ctx.vars.add(var.copy().bind(seq, ctx));
     try {
       return ctx.value(expr).iter();
     } finally {
@@ -9,6 +9,7 @@ import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -46,6 +47,18 @@ public final class VarRef extends ParseExpr {
     Expr e = var.expr();
     if(e == null) return this;
 
+    // compiled query will be reused: external values may change, and global
+    // expressions are only pre-evaluated if they yield a value
+    if(ctx.reuse && var.global) {
+      if(var.external) {
+        type = var.type != null ? var.type : SeqType.ITEM_ZM;
+        size = -1;
+        return this;
+      }
+      e = var.compile(ctx).expr();
+      if(!e.isValue()) return this;
+    }
+
     /* Choose expressions to be pre-evaluated.
      * If a variable is pre-evaluated, it may not be available for further
      * optimizations (index access, count, ...). On the other hand, repeated
@@ -65,20 +78,19 @@ public final class VarRef extends ParseExpr {
 
   @Override
   public Item item(final QueryContext ctx, final InputInfo ii) throws QueryException {
-    var = ctx.vars.get(var);
-    return var.item(ctx, ii);
+    // the bound variable is not assigned to the reference, as the same expression
+    // may be evaluated by several threads
+    return ctx.vars.get(var).item(ctx, ii);
   }
 
   @Override
   public Iter iter(final QueryContext ctx) throws QueryException {
-    var = ctx.vars.get(var);
-    return ctx.iter(var);
+    return ctx.iter(ctx.vars.get(var));
   }
 
   @Override
   public Value value(final QueryContext ctx) throws QueryException {
-    var = ctx.vars.get(var);
-    return ctx.value(var);
+    return ctx.value(ctx.vars.get(var));
   }
 
   @Override
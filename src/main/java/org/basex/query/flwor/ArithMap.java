@@ -0,0 +1,108 @@
+package org.basex.query.flwor;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Arithmetic expression, which is applied to all items of a sequence
+ * ({@code for $i in A return $i + 1}). If the items of the sequence are stored
+ * in their native representation, the results will be computed in a tight loop.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class ArithMap extends Single {
+  /** Variable. */
+  private final Var var;
+  /** Calculation operator. */
+  private final Calc calc;
+  /** Second operand. */
+  private final Item item;
+  /** Swap operands (the item is the first operand). */
+  private final boolean swap;
+
+  /**
+   * Constructor.
+   * @param f for clause
+   * @param a arithmetic expression
+   * @param it second operand
+   * @param s swap operands
+   */
+  private ArithMap(final For f, final Arith a, final Item it, final boolean s) {
+    super(a.info, f.expr);
+    var = f.var;
+    calc = a.calc;
+    item = it;
+    swap = s;
+    type = SeqType.get(a.type().type, expr.type().occ);
+    size = expr.size();
+  }
+
+  /**
+   * Tries to rewrite the specified clauses to a mapped arithmetic expression.
+   * @param f for clause
+   * @param a arithmetic expression
+   * @return new expression or {@code null}
+   */
+  static ArithMap get(final For f, final Arith a) {
+    if(f.pos != null || f.score != null || f.var.type != null) return null;
+    final Expr e0 = a.expr[0], e1 = a.expr[1];
+    if(num(e1) && e0 instanceof VarRef && ((VarRef) e0).var.is(f.var))
+      return new ArithMap(f, a, (Item) e1, false);
+    if(num(e0) && e1 instanceof VarRef && ((VarRef) e1).var.is(f.var))
+      return new ArithMap(f, a, (Item) e0, true);
+    return null;
+  }
+
+  /**
+   * Checks if the specified expression is an integer or double.
+   * @param e expression
+   * @return result of check
+   */
+  private static boolean num(final Expr e) {
+    return e instanceof Int || e instanceof Dbl;
+  }
+
+  @Override
+  public Iter iter(final QueryContext ctx) throws QueryException {
+    Iter ir = ctx.iter(expr);
+    if(ir instanceof ValueIter) {
+      // compute the results of native sequences in a tight loop
+      final Value v = ir.value();
+      final Value res = calc.ev(info, v, item, swap);
+      if(res != null) return res.iter();
+      ir = v.iter();
+    }
+
+    final Iter iter = ir;
+    return new Iter() {
+      @Override
+      public Item next() throws QueryException {
+        final Item it = iter.next();
+        return it == null ? null : swap ? calc.ev(info, item, it) :
+          calc.ev(info, it, item);
+      }
+    };
+  }
+
+  @Override
+  public void plan(final FElem plan) {
+    addPlan(plan, planElem(OP, calc), expr, item);
+  }
+
+  @Override
+  public String toString() {
+    final String op = ' ' + calc.toString() + ' ';
+    return FOR + ' ' + var + ' ' + IN + ' ' + expr + ' ' + RETURN + ' ' +
+        (swap ? item + op + var : var + op + item);
+  }
+}
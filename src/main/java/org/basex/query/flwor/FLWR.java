@@ -2,6 +2,7 @@ package org.basex.query.flwor;
 
 import static org.basex.query.QueryText.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
@@ -40,6 +41,22 @@ public final class FLWR extends GFLWOR {
         return fl[0].expr;
       }
     }
+
+    // apply arithmetic expression to all items (for $i in A return $i + 1)
+    if(fl.length == 1 && where == null && fl[0] instanceof For && ret instanceof Arith) {
+      final Expr am = ArithMap.get((For) fl[0], (Arith) ret);
+      if(am != null) {
+        ctx.compInfo(OPTARITH, ret.description());
+        return am;
+      }
+    }
+
+    // evaluate iterations of the first for clause in parallel
+    final int threads = ctx.context.prop.num(Prop.FLWORTHREADS);
+    if(threads > 1 && ParallelFLWR.parallel(fl, where, ret)) {
+      ctx.compInfo(OPTPARALLEL, threads);
+      return new ParallelFLWR(fl, where, ret, threads, info);
+    }
     return this;
   }
 
@@ -71,6 +71,8 @@ public final class For extends ForLet {
     final Var v = var.copy();
     final Var p = pos != null ? pos.copy() : null;
     final Var s = score != null ? score.copy() : null;
+    final HashJoin.Table table = expr instanceof HashJoin ?
+        ((HashJoin) expr).table() : null;
 
     return new Iter() {
       /** Variable stack size. */
@@ -118,7 +120,7 @@ public final class For extends ForLet {
       private void init() throws QueryException {
         if(ir == null) {
           vs = ctx.vars.size();
-          ir = ctx.iter(expr);
+          ir = table != null ? table.iter(ctx) : ctx.iter(expr);
           ctx.vars.add(v);
           if(p != null) ctx.vars.add(p);
           if(s != null) ctx.vars.add(s);
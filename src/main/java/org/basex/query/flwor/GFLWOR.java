@@ -111,9 +111,15 @@ public class GFLWOR extends ParseExpr {
       }
     }
 
-    if(group != null) group.compile(ctx);
+    final Group g = ctx.group;
+    if(group != null) {
+      group.compile(ctx);
+      ctx.group = group;
+    }
     if(order != null) order.compile(ctx);
     ret = ret.compile(ctx);
+    ctx.group = g;
+    if(group != null) group.optimize(order, ret);
     ctx.vars.size(vs);
     ctx.grouping = grp;
 
@@ -157,6 +163,8 @@ public class GFLWOR extends ParseExpr {
       }
     }
 
+    compJoin(ctx);
+
     // compute number of results to speed up count() operations
     if(where == null && group == null) {
       size = ret.size();
@@ -286,6 +294,43 @@ public class GFLWOR extends ParseExpr {
     where = null;
   }
 
+  /**
+   * Rewrites the inputs of inner for clauses to hash joins if they are filtered by
+   * equality comparisons with the variables of the outer clauses.
+   * @param ctx query context
+   */
+  private void compJoin(final QueryContext ctx) {
+    // clauses preceding the first for clause are only evaluated once
+    int first = -1;
+    for(int f = 0; f < fl.length; f++) {
+      final ForLet c = fl[f];
+      if(!(c instanceof For)) continue;
+      if(first == -1) {
+        first = f;
+      } else if(c.simple(false)) {
+        final HashJoin hj = HashJoin.get(c.expr, Arrays.copyOfRange(fl, first, f), info);
+        if(hj != null) {
+          ctx.compInfo(OPTHASHJOIN, c.var);
+          c.expr = hj;
+        }
+      }
+    }
+  }
+
+  /**
+   * Limits the number of tuples of the order by clause that will be sorted,
+   * if only the first items of the result are requested. The limit is only
+   * assigned if each tuple yields at least one item.
+   * @param k number of requested items
+   * @param ctx query context
+   */
+  public void top(final long k, final QueryContext ctx) {
+    if(order == null || k < 1 || k > Integer.MAX_VALUE / 2 ||
+        ret.type().mayBeZero() || order.top != 0 && order.top <= k) return;
+    ctx.compInfo(OPTTOPK, k);
+    order.top = (int) k;
+  }
+
   @Override
   public Iter iter(final QueryContext ctx) throws QueryException {
     final Iter[] iter = new Iter[fl.length];
@@ -293,21 +338,16 @@ public class GFLWOR extends ParseExpr {
     for(int f = 0; f < fl.length; ++f) iter[f] = ctx.iter(fl[f]);
 
     // evaluate pre grouping tuples
-    ArrayList<Item[]> keys = null;
-    ValueList vals = null;
-    if(order != null) {
-      keys = new ArrayList<Item[]>();
-      vals = new ValueList();
-    }
-    if(group != null) group.init(order);
-    iter(ctx, iter, 0, keys, vals);
+    final Tuples tuples = order != null ? new Tuples(order, ctx) : null;
+    if(group != null) group.init(order, ctx);
+    iter(ctx, iter, 0, tuples);
     ctx.vars.size(vs);
 
     for(final ForLet f : fl) ctx.vars.add(f.var);
 
     // order != null, otherwise it would have been handled in group
     final Iter ir = group != null ?
-        group.gp.ret(ctx, ret, keys, vals) : ctx.iter(order.set(keys, vals));
+        group.gp.ret(ctx, ret, tuples) : ctx.iter(order.set(tuples));
     ctx.vars.size(vs);
     return ir;
   }
@@ -317,23 +357,22 @@ public class GFLWOR extends ParseExpr {
    * @param ctx query context
    * @param it iterator
    * @param p variable position
-   * @param ks sort keys
-   * @param vs values to sort
+   * @param tuples tuples to sort
    * @throws QueryException query exception
    */
   private void iter(final QueryContext ctx, final Iter[] it, final int p,
-      final ArrayList<Item[]> ks, final ValueList vs) throws QueryException {
+      final Tuples tuples) throws QueryException {
 
     final boolean more = p + 1 != fl.length;
     while(it[p].next() != null) {
       if(more) {
-        iter(ctx, it, p + 1, ks, vs);
+        iter(ctx, it, p + 1, tuples);
       } else if(where == null || where.ebv(ctx, info).bool(info)) {
         if(group != null) {
           group.gp.add(ctx);
         } else if(order != null) {
           // order by will be handled in group by otherwise
-          order.add(ctx, ret, ks, vs);
+          order.add(ctx, ret, tuples);
         }
       }
     }
@@ -341,6 +380,8 @@ public class GFLWOR extends ParseExpr {
 
   @Override
   public final boolean uses(final Use u) {
+    // grouping and ordering clauses keep evaluation state
+    if(u == Use.SEQ && (group != null || order != null)) return true;
     for(final ForLet f : fl) if(f.uses(u)) return true;
     return where != null && where.uses(u) ||
            order != null && order.uses(u) ||
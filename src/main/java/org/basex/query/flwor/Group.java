@@ -2,8 +2,12 @@ package org.basex.query.flwor;
 
 import static org.basex.query.QueryText.*;
 
+import java.util.*;
+
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.node.*;
@@ -22,6 +26,10 @@ public final class Group extends ParseExpr {
   private final GroupSpec[] groupby;
   /** Non-grouping variables. */
   private final Var[][] nongroup;
+  /** Aggregates of non-grouping variables. */
+  private final ArrayList<GroupAggr> aggr = new ArrayList<GroupAggr>();
+  /** Indicates which non-grouping variables need to be materialized. */
+  private boolean[] cache;
   /** Grouping partition. **/
   GroupPartition gp;
 
@@ -35,14 +43,62 @@ public final class Group extends ParseExpr {
     super(ii);
     groupby = gb;
     nongroup = ng;
+    cache = new boolean[ng[1].length];
+    Arrays.fill(cache, true);
   }
 
   /**
    * Initializes the grouping partition.
    * @param ob order by specifier
+   * @param ctx query context
+   */
+  void init(final Order ob, final QueryContext ctx) {
+    gp = new GroupPartition(groupby, nongroup, cache,
+        aggr.toArray(new GroupAggr[aggr.size()]), ob,
+        ctx.context.prop.num(Prop.GROUPLIMIT), info);
+  }
+
+  /**
+   * Returns a variable to which the result of an aggregate function will be bound,
+   * or {@code null} if the function cannot be computed while grouping the tuples.
+   * The function will be computed incrementally if its single argument is a
+   * reference to a non-grouping variable.
+   * @param v referenced variable
+   * @param f aggregate function
+   * @param ctx query context
+   * @return variable or {@code null}
+   */
+  public Var aggregate(final Var v, final Function f, final QueryContext ctx) {
+    if(!GroupAggr.supports(f)) return null;
+    final Var[] ng = nongroup[1];
+    int p = -1;
+    while(++p < ng.length && !ng[p].is(v));
+    if(p == ng.length) return null;
+
+    for(final GroupAggr ga : aggr) {
+      if(ga.pos == p && ga.func == f) return ga.var;
+    }
+    final Var var = ctx.uniqueVar(info, null);
+    var.ret = f == Function.COUNT ? SeqType.ITR : f == Function.SUM ?
+        SeqType.AAT : SeqType.AAT_ZO;
+    ctx.vars.add(var);
+    aggr.add(new GroupAggr(f, p, var, info));
+    ctx.compInfo(OPTAGGR, f.args(v));
+    return var;
+  }
+
+  /**
+   * Checks which non-grouping variables are referenced by the specified
+   * expressions and need to be materialized.
+   * @param ob order by specifier (may be {@code null})
+   * @param ret return expression
    */
-  void init(final Order ob) {
-    gp = new GroupPartition(groupby, nongroup, ob, info);
+  void optimize(final Order ob, final Expr ret) {
+    final Var[] ng = nongroup[1];
+    cache = new boolean[ng.length];
+    for(int n = 0; n < ng.length; n++) {
+      cache[n] = ret.count(ng[n]) != 0 || ob != null && ob.count(ng[n]) != 0;
+    }
   }
 
   @Override
@@ -0,0 +1,88 @@
+package org.basex.query.flwor;
+
+import org.basex.query.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.util.*;
+
+/**
+ * Aggregate function ({@code count}, {@code sum}, {@code min} or {@code max}) that
+ * is applied to a non-grouping variable. The result is computed incrementally
+ * while the tuples are grouped, and the values of the variable will not be
+ * materialized if it is not referenced otherwise.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class GroupAggr {
+  /** Aggregate function. */
+  final Function func;
+  /** Position of the non-grouping variable. */
+  final int pos;
+  /** Variable to which the result is bound. */
+  final Var var;
+  /** Input info. */
+  private final InputInfo info;
+
+  /**
+   * Constructor.
+   * @param f aggregate function
+   * @param p position of the non-grouping variable
+   * @param v variable to which the result is bound
+   * @param ii input info
+   */
+  GroupAggr(final Function f, final int p, final Var v, final InputInfo ii) {
+    func = f;
+    pos = p;
+    var = v;
+    info = ii;
+  }
+
+  /**
+   * Checks if the specified function can be computed incrementally.
+   * @param f function with a single argument
+   * @return result of check
+   */
+  static boolean supports(final Function f) {
+    return f == Function.COUNT || f == Function.SUM || f == Function.MIN ||
+        f == Function.MAX;
+  }
+
+  /**
+   * Adds a value to an intermediate result.
+   * @param res intermediate result ({@code null} if no items have been added yet)
+   * @param v value to be added
+   * @param ctx query context
+   * @return new intermediate result
+   * @throws QueryException query exception
+   */
+  Item add(final Item res, final Value v, final QueryContext ctx) throws QueryException {
+    if(v.isEmpty()) return res;
+    if(func == Function.COUNT) {
+      return Int.get((res == null ? 0 : res.itr(info)) + v.size());
+    }
+    // the function is applied to the previous result and the new items
+    Value val = v;
+    if(res != null) {
+      final ValueBuilder vb = new ValueBuilder();
+      vb.add(res);
+      vb.add(v);
+      val = vb.value();
+    }
+    return new FNAggr(info, func, val).item(ctx, info);
+  }
+
+  /**
+   * Returns the final result.
+   * @param res intermediate result ({@code null} if no items have been added)
+   * @return result
+   */
+  Value value(final Item res) {
+    return res != null ? res : func == Function.COUNT || func == Function.SUM ?
+      Int.get(0) : Empty.SEQ;
+  }
+}
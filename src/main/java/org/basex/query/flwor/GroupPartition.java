@@ -2,25 +2,49 @@ package org.basex.query.flwor;
 
 import static org.basex.query.util.Err.*;
 
+import java.io.*;
 import java.util.*;
 
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
 /**
- * Stores the grouping for a group by clause.
+ * <p>Stores the grouping for a group by clause.</p>
+ *
+ * <p>The values of the non-grouping variables are only materialized if they are
+ * referenced by the return or order by clause. Aggregates of these variables
+ * (see {@link GroupAggr}) are computed while the tuples are added.</p>
+ *
+ * <p>If the {@link Prop#GROUPLIMIT} option is assigned, and if the number of groups
+ * in main memory reaches this limit, tuples that belong to new groups are
+ * distributed to temporary files by the hash values of their grouping keys. The
+ * groups in main memory are returned first; after that, the tuples of each file are
+ * grouped and returned. If a file yields too many groups again, its tuples are
+ * partitioned with other bits of their hash values. If a tuple contains items that
+ * cannot be written to disk (see {@link ItemStore}), all written tuples are read
+ * back, and the remaining tuples are grouped in main memory.</p>
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Michael Seiferle
  */
 final class GroupPartition {
+  /** Number of bits of a hash value that are used to choose a partition. */
+  private static final int BITS = 4;
+  /** Number of partitions. */
+  private static final int PARTS = 1 << BITS;
+
   /** Input information. */
   private final InputInfo info;
   /** Order by specifier. */
@@ -30,52 +54,126 @@ final class GroupPartition {
   private final GroupSpec[] gv;
   /** Non-grouping variables. */
   private final Var[][] ngv;
+  /** Non-grouping variables that are materialized. */
+  private final boolean[] cache;
+  /** Non-grouping variables that are materialized or aggregated. */
+  private final boolean[] needed;
+  /** Aggregates of non-grouping variables. */
+  private final GroupAggr[] aggr;
 
   /** Group partitioning. */
   private final ArrayList<GroupNode> part = new ArrayList<GroupNode>();
   /** Resulting sequence for non-grouping variables. */
   private final ArrayList<ValueBuilder[]> items;
+  /** Intermediate results of the aggregates. */
+  private final ArrayList<Item[]> results;
   /** HashValue, position (with overflow bucket). */
-  private final IntMap<IntList> hashes = new IntMap<IntList>();
+  private IntMap<IntList> hashes = new IntMap<IntList>();
+
+  /** Item store for written tuples. */
+  private final ItemStore store;
+  /** Partitioning level. */
+  private final int level;
+  /** Maximum number of groups in main memory (0: no limit). */
+  private int limit;
+  /** Temporary files with the tuples of new groups ({@code null}: none). */
+  private IOFile[] files;
+  /** Output streams. */
+  private DataOutput[] outs;
+  /** Number of written tuples per file. */
+  private int[] sizes;
 
   /**
    * Sets up an empty partitioning.
    * Sets up the ordering scheme.
    * @param groupby grouping variables
    * @param ng non-grouping variables
+   * @param c non-grouping variables that are materialized
+   * @param ag aggregates of non-grouping variables
    * @param ob order by specifier
+   * @param l maximum number of groups in main memory (0: no limit)
    * @param ii input info
    */
-  GroupPartition(final GroupSpec[] groupby, final Var[][] ng, final Order ob,
-      final InputInfo ii) {
+  GroupPartition(final GroupSpec[] groupby, final Var[][] ng, final boolean[] c,
+      final GroupAggr[] ag, final Order ob, final int l, final InputInfo ii) {
     gv = groupby;
     ngv = ng;
+    cache = c;
+    aggr = ag;
     order = ob;
-    items = ngv[0].length != 0 ? new ArrayList<ValueBuilder[]>() : null;
+    limit = l;
     info = ii;
+    level = 0;
+    store = new ItemStore(ii);
+
+    needed = cache.clone();
+    boolean it = false;
+    for(final boolean b : cache) it |= b;
+    for(final GroupAggr ga : aggr) needed[ga.pos] = true;
+    items = it ? new ArrayList<ValueBuilder[]>() : null;
+    results = aggr.length != 0 ? new ArrayList<Item[]>() : null;
+  }
+
+  /**
+   * Sets up an empty partitioning for the tuples of a temporary file.
+   * @param gp parent partitioning
+   */
+  private GroupPartition(final GroupPartition gp) {
+    gv = gp.gv;
+    ngv = gp.ngv;
+    cache = gp.cache;
+    needed = gp.needed;
+    aggr = gp.aggr;
+    order = gp.order;
+    info = gp.info;
+    store = gp.store;
+    level = gp.level + 1;
+    // all bits of the hash values have been used
+    limit = level * BITS < Integer.SIZE ? gp.limit : 0;
+    items = gp.items != null ? new ArrayList<ValueBuilder[]>() : null;
+    results = gp.results != null ? new ArrayList<Item[]>() : null;
   }
 
   /**
    * Adds the current grouping variable binding to the partitioning scheme.
    * Then the resulting non-grouping variable item sequence is built for each
    * candidate.
-   * Searches the known partition hashes {@link GroupPartition#hashes} for
-   * potential matches and checks them for equivalence.
-   * The GroupNode candidate is ignored if it exists otherwise added to the
-   * partitioning scheme.
    * @param ctx QueryContext
    * @throws QueryException exception
    */
   void add(final QueryContext ctx) throws QueryException  {
     final int gl = gv.length;
-    final Value[] vals = new Value[gl];
+    final Value[] keys = new Value[gl];
     for(int i = 0; i < gl; i++) {
       final Value val = ctx.value(gv[i]);
       if(val.size() > 1) XGRP.thrw(info);
-      vals[i] = val;
+      keys[i] = val;
     }
 
-    final GroupNode gn = new GroupNode(info, vals);
+    final int ngl = ngv[0].length;
+    final Value[] vals = new Value[ngl];
+    for(int i = 0; i < ngl; ++i) {
+      if(needed[i]) vals[i] = ctx.value(ctx.vars.get(ngv[0][i]));
+    }
+    add(keys, vals, ctx);
+  }
+
+  /**
+   * Adds a tuple to the partitioning scheme.
+   * Searches the known partition hashes {@link GroupPartition#hashes} for
+   * potential matches and checks them for equivalence.
+   * The GroupNode candidate is ignored if it exists otherwise added to the
+   * partitioning scheme, or written to a temporary file if the maximum number
+   * of groups has been reached.
+   * @param keys grouping values
+   * @param vals values of the non-grouping variables ({@code null}: not needed)
+   * @param ctx QueryContext
+   * @throws QueryException exception
+   */
+  private void add(final Value[] keys, final Value[] vals, final QueryContext ctx)
+      throws QueryException {
+
+    final GroupNode gn = new GroupNode(info, keys);
     final int h = gn.hash();
     final IntList ps = hashes.get(h);
     int p = -1;
@@ -89,6 +187,17 @@ final class GroupPartition {
       }
     }
     if(p < 0) {
+      if(limit != 0 && part.size() >= limit) {
+        if(ItemStore.storable(keys) && ItemStore.storable(vals)) {
+          write(h, keys, vals, ctx);
+          return;
+        }
+        // group all tuples in main memory
+        load(ctx);
+        add(keys, vals, ctx);
+        return;
+      }
+
       p = part.size();
       part.add(gn);
 
@@ -98,25 +207,28 @@ final class GroupPartition {
         hashes.add(h, pos);
       }
       pos.add(p);
+      if(items != null) items.add(new ValueBuilder[vals.length]);
+      if(results != null) results.add(new Item[aggr.length]);
     }
 
-    final int ngl = ngv[0].length;
-
-    // no non-grouping variables exist
-    if(ngl == 0) return;
-
     // adds the current non-grouping variable bindings to the p-th partition.
-    if(p == items.size()) items.add(new ValueBuilder[ngl]);
-    final ValueBuilder[] sq = items.get(p);
-
-    for(int i = 0; i < ngl; ++i) {
-      ValueBuilder vb = sq[i];
-      final Value result = ctx.value(ctx.vars.get(ngv[0][i]));
-      if(vb == null) {
-        vb = new ValueBuilder();
-        sq[i] = vb;
+    if(items != null) {
+      final ValueBuilder[] sq = items.get(p);
+      for(int i = 0; i < sq.length; ++i) {
+        if(!cache[i]) continue;
+        ValueBuilder vb = sq[i];
+        if(vb == null) {
+          vb = new ValueBuilder();
+          sq[i] = vb;
+        }
+        vb.add(vals[i]);
+      }
+    }
+    if(results != null) {
+      final Item[] rs = results.get(p);
+      for(int a = 0; a < aggr.length; a++) {
+        rs[a] = aggr[a].add(rs[a], vals[aggr[a].pos], ctx);
       }
-      vb.add(result);
     }
   }
 
@@ -124,15 +236,29 @@ final class GroupPartition {
    * Returns grouped variables.
    * @param ctx query context
    * @param ret return expression
-   * @param ks key list
-   * @param vs value list
+   * @param tuples tuples to be sorted
    * @return iterator on the result set
    * @throws QueryException query exception
    */
-  Iter ret(final QueryContext ctx, final Expr ret, final ArrayList<Item[]> ks,
-      final ValueList vs) throws QueryException {
+  Iter ret(final QueryContext ctx, final Expr ret, final Tuples tuples)
+      throws QueryException {
     final ValueBuilder vb = new ValueBuilder();
+    ret(ctx, ret, tuples, vb);
+    return order != null ? ctx.iter(order.set(tuples)) : vb;
+  }
 
+  /**
+   * Evaluates the return expression for all groups.
+   * @param ctx query context
+   * @param ret return expression
+   * @param tuples tuples to be sorted
+   * @param vb value builder for the results (if no order by clause is specified)
+   * @throws QueryException query exception
+   */
+  private void ret(final QueryContext ctx, final Expr ret, final Tuples tuples,
+      final ValueBuilder vb) throws QueryException {
+
+    final int vs = ctx.vars.size();
     for(int i = 0; i < part.size(); ++i) {
       final GroupNode gn = part.get(i);
       for(int j = 0; j < gv.length; ++j)
@@ -141,13 +267,120 @@ final class GroupPartition {
       if(items != null) {
         final ValueBuilder[] ii = items.get(i);
         for(int j = 0; j < ii.length; ++j) {
-          ctx.vars.add(ngv[1][j].copy().bind(ii[j].value(), ctx));
+          if(!cache[j]) continue;
+          final Value v = ii[j] != null ? ii[j].value() : Empty.SEQ;
+          ctx.vars.add(ngv[1][j].copy().bind(v, ctx));
+        }
+      }
+      if(results != null) {
+        final Item[] rs = results.get(i);
+        for(int a = 0; a < aggr.length; a++) {
+          ctx.vars.add(aggr[a].var.copy().bind(aggr[a].value(rs[a]), ctx));
         }
       }
       if(order != null) {
-        order.add(ctx, ret, ks, vs);
+        order.add(ctx, ret, tuples);
       } else vb.add(ctx.value(ret));
+      ctx.vars.size(vs);
+    }
+    if(files == null) return;
+
+    // release the groups in main memory, and group the tuples of each file
+    part.clear();
+    hashes = new IntMap<IntList>();
+    if(items != null) items.clear();
+    if(results != null) results.clear();
+    for(int p = 0; p < PARTS; p++) {
+      if(files[p] == null) continue;
+      final GroupPartition gp = new GroupPartition(this);
+      read(p, gp, ctx);
+      gp.ret(ctx, ret, tuples, vb);
+    }
+    files = null;
+  }
+
+  /**
+   * Writes a tuple to a temporary file.
+   * @param h hash value of the grouping keys
+   * @param keys grouping values
+   * @param vals values of the non-grouping variables
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  private void write(final int h, final Value[] keys, final Value[] vals,
+      final QueryContext ctx) throws QueryException {
+
+    if(files == null) {
+      files = new IOFile[PARTS];
+      outs = new DataOutput[PARTS];
+      sizes = new int[PARTS];
+    }
+    // choose partition from the next bits of the scrambled hash value
+    final int p = (h * 0x9E3779B9) >>> Integer.SIZE - BITS - level * BITS & PARTS - 1;
+    try {
+      if(files[p] == null) {
+        files[p] = ctx.resource.temp("group");
+        outs[p] = new DataOutput(files[p]);
+      }
+      final DataOutput out = outs[p];
+      for(final Value k : keys) store.write(out, k.isEmpty() ? null : k.itemAt(0));
+      for(final Value v : vals) if(v != null) store.write(out, v);
+      sizes[p]++;
+    } catch(final IOException ex) {
+      IOERR.thrw(info, ex);
+    }
+  }
+
+  /**
+   * Reads back all written tuples, and disables the limit for groups in main memory.
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  private void load(final QueryContext ctx) throws QueryException {
+    limit = 0;
+    if(files == null) return;
+    for(int p = 0; p < PARTS; p++) {
+      if(files[p] != null) read(p, this, ctx);
+    }
+    files = null;
+  }
+
+  /**
+   * Reads the tuples of a temporary file, adds them to the specified partitioning
+   * and deletes the file.
+   * @param p number of file
+   * @param gp target partitioning
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  private void read(final int p, final GroupPartition gp, final QueryContext ctx)
+      throws QueryException {
+
+    final IOFile file = files[p];
+    try {
+      outs[p].close();
+      final DataInput in = new DataInput(file);
+      try {
+        for(int t = 0; t < sizes[p]; t++) {
+          ctx.checkStop();
+          final Value[] keys = new Value[gv.length];
+          for(int k = 0; k < keys.length; k++) {
+            final Item it = store.item(in, ctx);
+            keys[k] = it != null ? it : Empty.SEQ;
+          }
+          final Value[] vals = new Value[needed.length];
+          for(int v = 0; v < vals.length; v++) {
+            if(needed[v]) vals[v] = store.value(in, ctx);
+          }
+          gp.add(keys, vals, ctx);
+        }
+      } finally {
+        in.close();
+      }
+    } catch(final IOException ex) {
+      IOERR.thrw(info, ex);
     }
-    return order != null ? ctx.iter(order.set(ks, vs)) : vb;
+    file.delete();
+    files[p] = null;
   }
 }
@@ -0,0 +1,355 @@
+package org.basex.query.flwor;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.CmpG.OpG;
+import org.basex.query.iter.*;
+import org.basex.query.path.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.query.value.type.SeqType.Occ;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>Hash join. This expression replaces the input of an inner for clause if its
+ * last predicate is an equality comparison between a key of the input items and
+ * a probe value, which depends on the variables of the outer clauses. Example:</p>
+ *
+ * <pre>for $a in X for $b in Y[k = $a/k] ...</pre>
+ *
+ * <p>This is also the representation of the equi-join
+ * {@code for $a in X for $b in Y where $a/k = $b/k}, as where clauses are
+ * rewritten to predicates. If no index can be applied, the input of the inner
+ * clause is evaluated once per outer tuple, and the predicate is evaluated for
+ * all combinations of items.</p>
+ *
+ * <p>A hash join evaluates the input once per evaluation of the FLWOR expression,
+ * and organizes its items in a hash table, using their key values. For each outer
+ * tuple, the items with matching keys are looked up and filtered by the original
+ * predicate. As a consequence, the semantics of general comparisons are preserved:
+ * strings and untyped values are hashed by their string values, and numbers and
+ * untyped values are hashed by their double values. The hash table yields a
+ * superset of the actual matches; all other items are considered as candidates
+ * for each lookup.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class HashJoin extends Arr {
+  /** Offset of the key operand in the comparison (the other one is the probe). */
+  private final int key;
+
+  /**
+   * Constructor.
+   * @param ii input info
+   * @param input input expression
+   * @param pred join predicate
+   * @param k offset of the key operand
+   */
+  private HashJoin(final InputInfo ii, final Expr input, final Expr pred, final int k) {
+    super(ii, input, pred);
+    key = k;
+    type = SeqType.get(input.type().type, Occ.ZERO_MORE);
+  }
+
+  /**
+   * Returns a hash join for the input of a for clause, or {@code null} if the
+   * input cannot be rewritten. If a join is returned, the join predicate will
+   * have been removed from the specified input.
+   * @param input input of the for clause
+   * @param outer outer clauses
+   * @param ii input info
+   * @return hash join or {@code null}
+   */
+  static HashJoin get(final Expr input, final ForLet[] outer, final InputInfo ii) {
+    // find predicates of a filter or the last step of a path
+    final Preds preds;
+    if(input instanceof Filter) {
+      preds = (Filter) input;
+    } else if(input instanceof AxisPath) {
+      final Expr[] steps = ((AxisPath) input).steps;
+      preds = (AxisStep) steps[steps.length - 1];
+    } else {
+      return null;
+    }
+    final int pl = preds.preds.length;
+    if(pl == 0 || !(preds.preds[pl - 1] instanceof CmpG)) return null;
+    final CmpG pred = (CmpG) preds.preds[pl - 1];
+    if(pred.op() != OpG.EQ || pred.uses(Use.POS) || pred.uses(Use.NDT)) return null;
+
+    // one operand must only depend on the outer clauses, the other one on the context
+    final int k = count(pred.expr[0], outer) == 0 ? 0 : 1;
+    final Expr kex = pred.expr[k], pex = pred.expr[1 - k];
+    if(count(kex, outer) != 0 || count(pex, outer) == 0 || pex.uses(Use.CTX))
+      return null;
+
+    // the remaining input must be independent of the outer clauses
+    if(count(input, outer) != count(pred, outer) || input.uses(Use.NDT) ||
+        input.uses(Use.CNS)) return null;
+
+    preds.preds = Arrays.copyOf(preds.preds, pl - 1);
+    final Expr in = pl == 1 && input instanceof Filter ? ((Filter) input).root : input;
+    return new HashJoin(ii, in, pred, k);
+  }
+
+  /**
+   * Counts the references to the variables of the specified clauses.
+   * @param e expression
+   * @param fl clauses
+   * @return number of references
+   */
+  private static int count(final Expr e, final ForLet[] fl) {
+    int c = 0;
+    for(final ForLet f : fl) for(final Var v : f.vars()) c += e.count(v);
+    return c;
+  }
+
+  /**
+   * Returns a new hash table, which will be filled on first access.
+   * @return hash table
+   */
+  Table table() {
+    return new Table();
+  }
+
+  @Override
+  public Iter iter(final QueryContext ctx) throws QueryException {
+    // evaluation outside a for clause: the table will only be used once
+    return new Table().iter(ctx);
+  }
+
+  @Override
+  public boolean uses(final Use u) {
+    // the predicate is evaluated with the input items as context
+    return expr[0].uses(u) || u != Use.CTX && expr[1].uses(u);
+  }
+
+  @Override
+  public boolean removable(final Var v) {
+    return expr[0].removable(v) && expr[1].count(v) == 0;
+  }
+
+  @Override
+  public String toString() {
+    return "(" + expr[0] + ")[" + expr[1] + ']';
+  }
+
+  /**
+   * Hash table, storing the input items and the offsets of all items with
+   * identical keys.
+   */
+  final class Table {
+    /** Offsets of items with string keys. */
+    private final TokenObjMap<IntList> strings = new TokenObjMap<IntList>();
+    /** Offsets of items with numeric keys. */
+    private final TokenObjMap<IntList> numbers = new TokenObjMap<IntList>();
+    /** Offsets of items with keys of other types (candidates for all lookups). */
+    private final IntList others = new IntList();
+    /** Input items ({@code null} if the table has not been built yet). */
+    private Value input;
+
+    /**
+     * Returns an iterator over all items that match the current outer tuple.
+     * @param ctx query context
+     * @return iterator
+     * @throws QueryException query exception
+     */
+    Iter iter(final QueryContext ctx) throws QueryException {
+      if(input == null) build(ctx);
+      final IntList offsets = probe(ctx);
+
+      return new Iter() {
+        /** Current offset. */
+        private int c;
+        /** Last returned offset. */
+        private int last = -1;
+
+        @Override
+        public Item next() throws QueryException {
+          final int is = offsets == null ? (int) input.size() : offsets.size();
+          while(c < is) {
+            final int o = offsets == null ? c : offsets.get(c);
+            c++;
+            if(o == last) continue;
+            last = o;
+            final Item it = input.itemAt(o);
+            if(matches(it, ctx)) return it;
+          }
+          return null;
+        }
+
+        @Override
+        public boolean reset() {
+          c = 0;
+          last = -1;
+          return true;
+        }
+      };
+    }
+
+    /**
+     * Evaluates the input and builds the hash table.
+     * @param ctx query context
+     * @throws QueryException query exception
+     */
+    private void build(final QueryContext ctx) throws QueryException {
+      input = ctx.value(expr[0]);
+      final Expr kex = ((Arr) expr[1]).expr[key];
+      final Value cv = ctx.value;
+      final long cs = ctx.size;
+      final long cp = ctx.pos;
+      try {
+        final int is = (int) input.size();
+        ctx.size = is;
+        for(int i = 0; i < is; i++) {
+          ctx.value = input.itemAt(i);
+          ctx.pos = i + 1;
+          final Iter ir = ctx.iter(kex);
+          for(Item it; (it = ir.next()) != null;) {
+            // floats are compared with single precision and cannot be hashed
+            if(it instanceof ANum && !(it instanceof Flt)) {
+              add(numbers, number(it.dbl(info)), i);
+            } else if(it.type.isUntyped()) {
+              final byte[] s = it.string(info);
+              add(strings, s, i);
+              add(numbers, number(s), i);
+            } else if(it instanceof AStr) {
+              add(strings, it.string(info), i);
+            } else if(others.isEmpty() || others.get(others.size() - 1) != i) {
+              others.add(i);
+            }
+          }
+        }
+      } finally {
+        ctx.value = cv;
+        ctx.size = cs;
+        ctx.pos = cp;
+      }
+    }
+
+    /**
+     * Returns the sorted offsets of all items that may match the probe values,
+     * or {@code null} if all items must be checked.
+     * @param ctx query context
+     * @return offsets or {@code null}
+     * @throws QueryException query exception
+     */
+    private IntList probe(final QueryContext ctx) throws QueryException {
+      final ArrayList<IntList> lists = new ArrayList<IntList>();
+      if(!others.isEmpty()) lists.add(others);
+
+      final Iter ir = ctx.iter(((Arr) expr[1]).expr[1 - key]);
+      for(Item it; (it = ir.next()) != null;) {
+        if(it instanceof ANum && !(it instanceof Flt)) {
+          add(lists, numbers, number(it.dbl(info)));
+        } else if(it.type.isUntyped()) {
+          final byte[] s = it.string(info);
+          add(lists, strings, s);
+          add(lists, numbers, number(s));
+        } else if(it instanceof AStr) {
+          add(lists, strings, it.string(info));
+        } else {
+          return null;
+        }
+      }
+      final int ls = lists.size();
+      if(ls == 0) return new IntList(0);
+      if(ls == 1) return lists.get(0);
+      final IntList il = new IntList();
+      for(final IntList l : lists) {
+        final int s = l.size();
+        for(int i = 0; i < s; i++) il.add(l.get(i));
+      }
+      return il.sort();
+    }
+
+    /**
+     * Checks if the specified item matches the join predicate.
+     * @param it item
+     * @param ctx query context
+     * @return result of check
+     * @throws QueryException query exception
+     */
+    private boolean matches(final Item it, final QueryContext ctx)
+        throws QueryException {
+      final Value cv = ctx.value;
+      final long cs = ctx.size;
+      final long cp = ctx.pos;
+      try {
+        ctx.value = it;
+        ctx.size = 1;
+        ctx.pos = 1;
+        return expr[1].test(ctx, info) != null;
+      } finally {
+        ctx.value = cv;
+        ctx.size = cs;
+        ctx.pos = cp;
+      }
+    }
+  }
+
+  /**
+   * Adds an offset to a hash table.
+   * @param map hash table
+   * @param k key (ignored if {@code null})
+   * @param o offset
+   */
+  static void add(final TokenObjMap<IntList> map, final byte[] k, final int o) {
+    if(k == null) return;
+    IntList il = map.get(k);
+    if(il == null) {
+      il = new IntList(1);
+      map.add(k, il);
+    }
+    if(il.isEmpty() || il.get(il.size() - 1) != o) il.add(o);
+  }
+
+  /**
+   * Adds the offsets of the specified key to a list.
+   * @param lists list of offsets
+   * @param map hash table
+   * @param k key (ignored if {@code null})
+   */
+  static void add(final ArrayList<IntList> lists, final TokenObjMap<IntList> map,
+      final byte[] k) {
+    if(k == null) return;
+    final IntList il = map.get(k);
+    if(il != null) lists.add(il);
+  }
+
+  /**
+   * Returns the hash key of a numeric value.
+   * @param d value
+   * @return key, or {@code null} if the value is never equal to another value
+   */
+  static byte[] number(final double d) {
+    if(Double.isNaN(d)) return null;
+    return Token.token(Double.doubleToLongBits(d == 0 ? 0 : d));
+  }
+
+  /**
+   * Returns the hash key of a string that is compared as number.
+   * @param s string
+   * @return key, or {@code null} if the string cannot be converted to a number
+   */
+  static byte[] number(final byte[] s) {
+    // skip strings that cannot be parsed as numbers
+    int i = 0;
+    final int sl = s.length;
+    while(i < sl && s[i] >= 0 && s[i] <= ' ') i++;
+    if(i == sl) return null;
+    final int c = s[i];
+    if(!Token.digit(c) && c != '-' && c != '+' && c != '.' && c != 'I') return null;
+    try {
+      return number(Dbl.parse(s, null));
+    } catch(final QueryException ex) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package org.basex.query.flwor;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Writes items to temporary files and reads them back. Atomic items are stored
+ * by their type and string value, and database nodes are stored as references to
+ * their database and pre value. Other items, such as constructed nodes or function
+ * items, cannot be stored.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class ItemStore {
+  /** Atomic types. */
+  private static final AtomType[] TYPES = AtomType.values();
+
+  /** Databases of the written nodes. */
+  private final ArrayList<Data> datas = new ArrayList<Data>();
+  /** Input info. */
+  private final InputInfo info;
+
+  /**
+   * Constructor.
+   * @param ii input info
+   */
+  ItemStore(final InputInfo ii) {
+    info = ii;
+  }
+
+  /**
+   * Checks if the specified items can be written to disk.
+   * @param items items ({@code null} references are ignored)
+   * @return result of check
+   */
+  static boolean storable(final Item[] items) {
+    for(final Item it : items) if(it != null && !storable(it)) return false;
+    return true;
+  }
+
+  /**
+   * Checks if the items of the specified values can be written to disk.
+   * @param vals values ({@code null} references are ignored)
+   * @return result of check
+   */
+  static boolean storable(final Value[] vals) {
+    for(final Value v : vals) if(v != null && !storable(v)) return false;
+    return true;
+  }
+
+  /**
+   * Checks if the items of the specified value can be written to disk.
+   * @param v value
+   * @return result of check
+   */
+  static boolean storable(final Value v) {
+    final long vs = v.size();
+    for(long i = 0; i < vs; i++) if(!storable(v.itemAt(i))) return false;
+    return true;
+  }
+
+  /**
+   * Checks if the specified item can be written to disk.
+   * @param it item
+   * @return result of check
+   */
+  static boolean storable(final Item it) {
+    return it instanceof DBNode ? it.score() == 0 : it instanceof AStr ||
+      it instanceof Atm || it instanceof ANum || it instanceof Bln ||
+      it instanceof ADate || it instanceof Dur || it instanceof Bin;
+  }
+
+  /**
+   * Writes the items of a value.
+   * @param out output stream
+   * @param v value
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  void write(final DataOutput out, final Value v) throws IOException, QueryException {
+    final long vs = v.size();
+    out.writeNum((int) vs);
+    for(long i = 0; i < vs; i++) write(out, v.itemAt(i));
+  }
+
+  /**
+   * Writes an item.
+   * @param out output stream
+   * @param it item ({@code null} for an empty sequence)
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  void write(final DataOutput out, final Item it) throws IOException, QueryException {
+    if(it == null) {
+      out.writeNum(0);
+    } else if(it instanceof DBNode) {
+      final DBNode n = (DBNode) it;
+      int d = datas.indexOf(n.data);
+      if(d == -1) {
+        d = datas.size();
+        datas.add(n.data);
+      }
+      out.writeNum(1);
+      out.writeNum(d);
+      out.writeNum(n.pre);
+    } else {
+      // floating point numbers are stored by their bit patterns
+      out.writeNum(((AtomType) it.type).ordinal() + 2);
+      out.writeToken(it instanceof Dbl || it instanceof Flt ?
+        Token.token(Double.doubleToRawLongBits(it.dbl(info))) : it.string(info));
+    }
+  }
+
+  /**
+   * Reads the items of a value.
+   * @param in input stream
+   * @param ctx query context
+   * @return value
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  Value value(final DataInput in, final QueryContext ctx)
+      throws IOException, QueryException {
+    final int vs = in.readNum();
+    final ValueBuilder vb = new ValueBuilder();
+    for(int i = 0; i < vs; i++) vb.add(item(in, ctx));
+    return vb.value();
+  }
+
+  /**
+   * Reads an item.
+   * @param in input stream
+   * @param ctx query context
+   * @return item ({@code null} for an empty sequence)
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  Item item(final DataInput in, final QueryContext ctx)
+      throws IOException, QueryException {
+    final int t = in.readNum();
+    if(t == 0) return null;
+    if(t == 1) {
+      final Data data = datas.get(in.readNum());
+      return new DBNode(data, in.readNum());
+    }
+    final AtomType type = TYPES[t - 2];
+    final byte[] v = in.readToken();
+    if(type == AtomType.DBL) return Dbl.get(Double.longBitsToDouble(Token.toLong(v)));
+    if(type == AtomType.FLT)
+      return Flt.get((float) Double.longBitsToDouble(Token.toLong(v)));
+    return type.cast(Str.get(v), ctx, info);
+  }
+}
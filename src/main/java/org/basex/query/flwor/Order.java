@@ -23,11 +23,11 @@ import org.basex.util.list.*;
 public final class Order extends ParseExpr {
   /** Sort list. */
   final OrderBy[] ob;
+  /** Maximum number of tuples to be returned (0: all tuples). */
+  int top;
 
-  /** Keys to sort by. */
-  private ArrayList<Item[]> keys;
-  /** Values to sort. */
-  private ValueList values;
+  /** Tuples to sort. */
+  private Tuples tuples;
 
  /**
    * Constructor.
@@ -51,19 +51,17 @@ public final class Order extends ParseExpr {
   }
 
   @Override
-  public Iter iter(final QueryContext ctx) {
-    return new OrderedIter(keys, values);
+  public Iter iter(final QueryContext ctx) throws QueryException {
+    return tuples.iter(ctx);
   }
 
   /**
-   * Sets the key and value lists for this Order instance.
-   * @param ks key list
-   * @param vs value list
+   * Sets the tuples for this Order instance.
+   * @param t tuples
    * @return reference to this object for convenience
    */
-  Order set(final ArrayList<Item[]> ks, final ValueList vs) {
-    keys = ks;
-    values = vs;
+  Order set(final Tuples t) {
+    tuples = t;
     return this;
   }
 
@@ -71,16 +69,31 @@ public final class Order extends ParseExpr {
    * Adds the items to be sorted.
    * @param ctx query context
    * @param e value to add
-   * @param ks key list
-   * @param vs value list
+   * @param t tuples
    * @throws QueryException query exception
    */
-  void add(final QueryContext ctx, final Expr e, final ArrayList<Item[]> ks,
-      final ValueList vs) throws QueryException {
+  void add(final QueryContext ctx, final Expr e, final Tuples t) throws QueryException {
     final Item[] k = new Item[ob.length];
-    for(int o = k.length; o-- > 0;) k[o] = ob[o].key(ctx, ks.size());
-    ks.add(k);
-    vs.add(ctx.value(e));
+    for(int o = k.length; o-- > 0;) k[o] = ob[o].key(ctx, t.size());
+    t.add(k, e, ctx);
+  }
+
+  /**
+   * Returns the difference of the sort keys of two tuples.
+   * @param sa sort keys of first tuple
+   * @param sb sort keys of second tuple
+   * @return result
+   * @throws QueryException query exception
+   */
+  int diff(final Item[] sa, final Item[] sb) throws QueryException {
+    for(int k = 0; k < ob.length; ++k) {
+      final OrderBy or = ob[k];
+      final Item m = sa[k], n = sb[k];
+      final int c = m == null ? n == null ? 0 : or.lst ? -1 : 1 :
+        n == null ? or.lst ? 1 : -1 : m.diff(info, n);
+      if(c != 0) return or.desc ? -c : c;
+    }
+    return 0;
   }
 
   @Override
@@ -116,7 +129,7 @@ public final class Order extends ParseExpr {
 
   @Override
   public void plan(final FElem plan) {
-    final FElem el = planElem();
+    final FElem el = top != 0 ? planElem(MAX, top) : planElem();
     for(int o = 0; o != ob.length - 1; ++o) ob[o].plan(el);
     addPlan(plan, el);
   }
@@ -157,14 +170,7 @@ public final class Order extends ParseExpr {
 
     @Override
     public Item next() throws QueryException {
-      if(order == null) {
-        // enumerate sort array and sort entries
-        end = vl.size();
-        order = new int[end];
-        for(int i = 0; i < end; ++i) order[i] = i;
-        sort(order, 0, end);
-      }
-
+      order();
       while(true) {
         if(ir != null) {
           final Item i = ir.next();
@@ -177,6 +183,22 @@ public final class Order extends ParseExpr {
       }
     }
 
+    /**
+     * Returns the positions of the sorted entries.
+     * @return order array
+     * @throws QueryException query exception
+     */
+    int[] order() throws QueryException {
+      if(order == null) {
+        // enumerate sort array and sort entries
+        end = vl.size();
+        order = new int[end];
+        for(int i = 0; i < end; ++i) order[i] = i;
+        sort(order, 0, end);
+      }
+      return order;
+    }
+
     /**
      * Recursively sorts the specified items.
      * The algorithm is derived from {@link Arrays#sort(int[])}.
@@ -210,13 +232,13 @@ public final class Order extends ParseExpr {
       int a = s, b = a, c = s + e - 1, d = c;
       while(true) {
         while(b <= c) {
-          final int h = d(kl.get(o[b]), im);
+          final int h = diff(kl.get(o[b]), im);
           if(h > 0) break;
           if(h == 0) swap(o, a++, b);
           ++b;
         }
         while(c >= b) {
-          final int h = d(kl.get(o[c]), im);
+          final int h = diff(kl.get(o[c]), im);
           if(h < 0) break;
           if(h == 0) swap(o, c, d--);
           --c;
@@ -236,24 +258,6 @@ public final class Order extends ParseExpr {
       if((k = d - c) > 1) sort(o, n - k, k);
     }
 
-    /**
-     * Returns the difference of two entries (part of QuickSort).
-     * @param sa sort keys of first item
-     * @param sb sort keys of second item
-     * @return result
-     * @throws QueryException query exception
-     */
-    private int d(final Item[] sa, final Item[] sb) throws QueryException {
-      for(int k = 0; k < ob.length; ++k) {
-        final OrderBy or = ob[k];
-        final Item m = sa[k], n = sb[k];
-        final int c = m == null ? n == null ? 0 : or.lst ? -1 : 1 :
-          n == null ? or.lst ? 1 : -1 : m.diff(info, n);
-        if(c != 0) return or.desc ? -c : c;
-      }
-      return 0;
-    }
-
     /**
      * Returns the difference of two entries (part of QuickSort).
      * @param o order array
@@ -263,7 +267,7 @@ public final class Order extends ParseExpr {
      * @throws QueryException query exception
      */
     private int d(final int[] o, final int a, final int b) throws QueryException {
-      return d(kl.get(o[a]), kl.get(o[b]));
+      return diff(kl.get(o[a]), kl.get(o[b]));
     }
 
     /**
@@ -278,8 +282,8 @@ public final class Order extends ParseExpr {
     private int m(final int[] o, final int a, final int b, final int c)
         throws QueryException {
       final Item[] ka = kl.get(o[a]), kb = kl.get(o[b]), kc = kl.get(o[c]);
-      return d(ka, kb) < 0 ? d(kb, kc) < 0 ? b : d(ka, kc) < 0 ? c : a :
-          d(kb, kc) > 0 ? b : d(ka, kc) > 0 ? c : a;
+      return diff(ka, kb) < 0 ? diff(kb, kc) < 0 ? b : diff(ka, kc) < 0 ? c : a :
+          diff(kb, kc) > 0 ? b : diff(ka, kc) > 0 ? c : a;
     }
   }
 }
@@ -0,0 +1,184 @@
+package org.basex.query.flwor;
+
+import org.basex.core.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.util.*;
+
+/**
+ * <p>FLWR clause, which is evaluated by several threads. The input of the first
+ * for clause is split into partitions, and each partition is evaluated by a
+ * separate thread with its own query context and variable stack. The results
+ * are concatenated in the order of the partitions.</p>
+ *
+ * <p>This expression is chosen if the {@link Prop#FLWORTHREADS} option is greater
+ * than one, and if the remaining clauses and the return expression neither
+ * perform updates, nor create new fragments, nor are non-deterministic, nor keep
+ * evaluation state in the expression tree. It is also evaluated sequentially if
+ * it is part of a partition that is evaluated in parallel.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class ParallelFLWR extends GFLWOR {
+  /** Maximum number of threads. */
+  private final int threads;
+
+  /**
+   * Constructor.
+   * @param f variable inputs
+   * @param w where clause
+   * @param r return expression
+   * @param t maximum number of threads
+   * @param ii input info
+   */
+  ParallelFLWR(final ForLet[] f, final Expr w, final Expr r, final int t,
+      final InputInfo ii) {
+    super(f, w, null, null, r, ii);
+    threads = t;
+  }
+
+  /**
+   * Checks if the specified clauses can be evaluated in parallel.
+   * @param fl variable inputs
+   * @param where where clause
+   * @param ret return expression
+   * @return result of check
+   */
+  static boolean parallel(final ForLet[] fl, final Expr where, final Expr ret) {
+    // the first clause must be a for clause without positional or score variable
+    if(!(fl[0] instanceof For) || !fl[0].simple(false)) return false;
+    for(final Use u : new Use[] { Use.CNS, Use.NDT, Use.SEQ, Use.UPD }) {
+      if(ret.uses(u) || where != null && where.uses(u)) return false;
+      for(int f = 1; f < fl.length; f++) if(fl[f].uses(u)) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public Iter iter(final QueryContext ctx) throws QueryException {
+    // nested expressions are evaluated sequentially
+    if(Thread.currentThread() instanceof Worker) {
+      return new FLWR(fl, where, ret, info).iter(ctx);
+    }
+
+    final Value in = ctx.value(fl[0].expr);
+    final long is = in.size();
+    final int ts = (int) Math.min(threads, is);
+    if(ts < 2) return flwr(in).iter(ctx);
+
+    // current date and time must be identical in all partitions
+    if(ctx.dtm == null) Function.CURRENT_DATETIME.get(info).item(ctx, info);
+
+    final Worker[] workers = new Worker[ts];
+    for(int t = 0; t < ts; t++) {
+      workers[t] = new Worker(new QueryContext(ctx), in, is * t / ts, is * (t + 1) / ts,
+          workers);
+    }
+    for(final Worker w : workers) w.start();
+    try {
+      for(final Worker w : workers) {
+        while(w.isAlive()) {
+          ctx.checkStop();
+          join(w, 100);
+        }
+      }
+    } catch(final ProgressException ex) {
+      // query was stopped: stop and wait for all threads
+      for(final Worker w : workers) w.qc.stop();
+      for(final Worker w : workers) while(w.isAlive()) join(w, 0);
+      throw ex;
+    }
+
+    // raise the first error that was not caused by stopping the other threads
+    Throwable error = null;
+    for(final Worker w : workers) {
+      if(w.error != null && (error == null || error instanceof ProgressException))
+        error = w.error;
+    }
+    if(error instanceof QueryException) throw (QueryException) error;
+    if(error instanceof RuntimeException) throw (RuntimeException) error;
+    if(error instanceof Error) throw (Error) error;
+
+    final ValueBuilder vb = new ValueBuilder();
+    for(final Worker w : workers) vb.add(w.result);
+    return vb;
+  }
+
+  /**
+   * Returns a sequential FLWR expression for the specified input of the first clause.
+   * @param in input
+   * @return expression
+   */
+  private FLWR flwr(final Value in) {
+    final ForLet[] f = fl.clone();
+    f[0] = new For(info, in, fl[0].var);
+    return new FLWR(f, where, ret, info);
+  }
+
+  /**
+   * Waits for a thread to finish.
+   * @param thread thread
+   * @param ms maximum time to wait (0: wait until thread has finished)
+   */
+  private static void join(final Thread thread, final long ms) {
+    try {
+      thread.join(ms);
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+    }
+  }
+
+  /**
+   * Thread, evaluating a partition of the input.
+   */
+  private final class Worker extends Thread {
+    /** Query context. */
+    final QueryContext qc;
+    /** Input of the first clause. */
+    private final Value input;
+    /** First position of the partition. */
+    private final long start;
+    /** Position after the last item of the partition. */
+    private final long end;
+    /** All threads. */
+    private final Worker[] workers;
+    /** Result. */
+    Value result;
+    /** Error. */
+    Throwable error;
+
+    /**
+     * Constructor.
+     * @param c query context
+     * @param in input of the first clause
+     * @param s first position
+     * @param e position after the last item
+     * @param w all threads
+     */
+    Worker(final QueryContext c, final Value in, final long s, final long e,
+        final Worker[] w) {
+      qc = c;
+      input = in;
+      start = s;
+      end = e;
+      workers = w;
+    }
+
+    @Override
+    public void run() {
+      try {
+        final ValueBuilder vb = new ValueBuilder();
+        for(long i = start; i < end; i++) vb.add(input.itemAt(i));
+        result = qc.value(flwr(vb.value()));
+      } catch(final Throwable ex) {
+        error = ex;
+        // stop remaining threads
+        for(final Worker w : workers) if(w != this) w.qc.stop();
+      }
+    }
+  }
+}
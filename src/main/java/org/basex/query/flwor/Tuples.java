@@ -0,0 +1,314 @@
+package org.basex.query.flwor;
+
+import static org.basex.query.util.Err.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * <p>Tuples of an order by clause. The sort keys and values of the tuples are
+ * cached in main memory. If the {@link Prop#SORTLIMIT} option is assigned, and if
+ * the number of cached tuples reaches this limit, the tuples are sorted and written
+ * to a temporary file. The resulting runs are lazily merged when the tuples are
+ * requested, and only the current tuple of each run is kept in main memory.</p>
+ *
+ * <p>If only the first tuples are requested (see {@link GFLWOR#top}), the best
+ * tuples are kept in a bounded heap, and the values of all other tuples will not
+ * be computed.</p>
+ *
+ * <p>Tuples are written by the {@link ItemStore}. If the cached tuples contain
+ * items that cannot be stored, such as constructed nodes or function items, no more
+ * runs will be written, and the remaining tuples are sorted in main memory.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class Tuples {
+  /** Order clause. */
+  private final Order order;
+  /** Sort keys of the cached tuples. */
+  private final ArrayList<Item[]> keys = new ArrayList<Item[]>();
+  /** Values of the cached tuples. */
+  private ValueList values = new ValueList();
+  /** Runs that have been written to disk. */
+  private final ArrayList<Run> runs = new ArrayList<Run>();
+  /** Item store. */
+  private final ItemStore store;
+  /** Heap with the best tuples, the worst one at the top ({@code null}: no limit). */
+  private final MinHeap<Item[], Value> heap;
+  /** Maximum number of cached tuples (0: no limit). */
+  private int limit;
+  /** Number of added tuples. */
+  private int size;
+
+  /**
+   * Constructor.
+   * @param o order clause
+   * @param ctx query context
+   */
+  Tuples(final Order o, final QueryContext ctx) {
+    order = o;
+    limit = ctx.context.prop.num(Prop.SORTLIMIT);
+    store = new ItemStore(o.info);
+    heap = o.top == 0 ? null : new MinHeap<Item[], Value>(o.top,
+        new Comparator<Item[]>() {
+      @Override
+      public int compare(final Item[] k1, final Item[] k2) {
+        try {
+          return order.diff(k2, k1);
+        } catch(final QueryException ex) {
+          throw new QueryError(ex);
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the number of added tuples.
+   * @return number of tuples
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Adds a tuple.
+   * @param k sort keys
+   * @param e expression that computes the value of the tuple
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  void add(final Item[] k, final Expr e, final QueryContext ctx)
+      throws QueryException {
+    size++;
+    if(heap != null) {
+      // skip tuples that are not better than the worst cached tuple
+      final boolean full = heap.size() == order.top;
+      if(full && order.diff(k, heap.minKey()) >= 0) return;
+      final Value v = ctx.value(e);
+      try {
+        if(full) heap.removeMin();
+        heap.insert(k, v);
+      } catch(final QueryError ex) {
+        throw ex.wrapped();
+      }
+      return;
+    }
+    keys.add(k);
+    values.add(ctx.value(e));
+    if(keys.size() == limit) write(ctx);
+  }
+
+  /**
+   * Returns an iterator over the values of the sorted tuples.
+   * @param ctx query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  Iter iter(final QueryContext ctx) throws QueryException {
+    if(heap != null) {
+      final Value[] vals = new Value[heap.size()];
+      try {
+        for(int v = vals.length; --v >= 0;) vals[v] = heap.removeMin();
+      } catch(final QueryError ex) {
+        throw ex.wrapped();
+      }
+      final ValueBuilder vb = new ValueBuilder();
+      for(final Value v : vals) vb.add(v);
+      return vb;
+    }
+
+    final Order.OrderedIter oi = order.new OrderedIter(keys, values);
+    if(runs.isEmpty()) return oi;
+
+    // merge the written runs and the cached tuples
+    final int rs = runs.size();
+    final Run[] heap = new Run[rs + 1];
+    int hs = 0;
+    for(final Run r : runs) if(r.next(ctx)) heap[hs++] = r;
+    final Run mem = new Run(oi.order());
+    if(mem.next(ctx)) heap[hs++] = mem;
+    for(int h = hs >>> 1; h-- > 0;) down(heap, hs, h);
+    final int n = hs;
+
+    return new Iter() {
+      /** Heap size. */
+      private int s = n;
+      /** Iterator over the value of the current tuple. */
+      private Iter ir;
+
+      @Override
+      public Item next() throws QueryException {
+        while(true) {
+          if(ir != null) {
+            final Item it = ir.next();
+            if(it != null) return it;
+            ir = null;
+            // proceed with the next tuple of the current run
+            if(!heap[0].next(ctx)) heap[0] = heap[--s];
+            down(heap, s, 0);
+          } else {
+            if(s == 0) return null;
+            ir = heap[0].value.iter();
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Lets the specified run sink down to its position in the heap.
+   * @param heap heap
+   * @param s heap size
+   * @param p position of the run
+   * @throws QueryException query exception
+   */
+  private void down(final Run[] heap, final int s, final int p)
+      throws QueryException {
+    final Run r = heap[p];
+    int i = p;
+    while(true) {
+      int c = (i << 1) + 1;
+      if(c >= s) break;
+      if(c + 1 < s && order.diff(heap[c + 1].key, heap[c].key) < 0) c++;
+      if(order.diff(heap[c].key, r.key) >= 0) break;
+      heap[i] = heap[c];
+      i = c;
+    }
+    heap[i] = r;
+  }
+
+  /**
+   * Sorts the cached tuples and writes them to a temporary file.
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  private void write(final QueryContext ctx) throws QueryException {
+    final int ts = keys.size();
+    for(int t = 0; t < ts; t++) {
+      if(!ItemStore.storable(keys.get(t)) || !ItemStore.storable(values.get(t))) {
+        // keep all remaining tuples in main memory
+        limit = 0;
+        return;
+      }
+    }
+
+    final int[] o = order.new OrderedIter(keys, values).order();
+    try {
+      final IOFile file = ctx.resource.temp("sort");
+      final DataOutput out = new DataOutput(file);
+      try {
+        for(final int t : o) {
+          ctx.checkStop();
+          for(final Item it : keys.get(t)) store.write(out, it);
+          store.write(out, values.get(t));
+        }
+      } finally {
+        out.close();
+      }
+      runs.add(new Run(file, ts));
+    } catch(final IOException ex) {
+      IOERR.thrw(order.info, ex);
+    }
+    keys.clear();
+    values = new ValueList();
+  }
+
+  /**
+   * Sorted run.
+   */
+  private final class Run {
+    /** Temporary file ({@code null}: cached tuples). */
+    private final IOFile file;
+    /** Positions of the sorted tuples (cached tuples only). */
+    private final int[] sorted;
+    /** Number of tuples. */
+    private final int tuples;
+    /** Input stream. */
+    private DataInput in;
+    /** Number of returned tuples. */
+    private int pos;
+    /** Sort keys of the current tuple. */
+    Item[] key;
+    /** Value of the current tuple. */
+    Value value;
+
+    /**
+     * Constructor for a run that has been written to disk.
+     * @param f temporary file
+     * @param t number of tuples
+     */
+    Run(final IOFile f, final int t) {
+      file = f;
+      tuples = t;
+      sorted = null;
+    }
+
+    /**
+     * Constructor for the cached tuples.
+     * @param s positions of the sorted tuples
+     */
+    Run(final int[] s) {
+      file = null;
+      tuples = s.length;
+      sorted = s;
+    }
+
+    /**
+     * Moves to the next tuple.
+     * @param ctx query context
+     * @return {@code false} if the run is exhausted
+     * @throws QueryException query exception
+     */
+    boolean next(final QueryContext ctx) throws QueryException {
+      key = null;
+      value = null;
+      if(pos == tuples) {
+        close();
+        return false;
+      }
+      if(file == null) {
+        key = keys.get(sorted[pos]);
+        value = values.get(sorted[pos]);
+      } else {
+        try {
+          if(in == null) in = new DataInput(file);
+          final Item[] k = new Item[order.ob.length];
+          for(int i = 0; i < k.length; i++) k[i] = store.item(in, ctx);
+          key = k;
+          value = store.value(in, ctx);
+        } catch(final IOException ex) {
+          IOERR.thrw(order.info, ex);
+        }
+      }
+      pos++;
+      return true;
+    }
+
+    /**
+     * Closes the input stream and deletes the temporary file.
+     * @throws QueryException query exception
+     */
+    private void close() throws QueryException {
+      if(file == null) return;
+      try {
+        if(in != null) in.close();
+      } catch(final IOException ex) {
+        IOERR.thrw(order.info, ex);
+      }
+      file.delete();
+    }
+  }
+}
@@ -61,6 +61,12 @@ public final class DynamicFunc extends Arr {
     return getFun(ctx).invIter(ctx, info, argv(ctx));
   }
 
+  @Override
+  public boolean uses(final Use u) {
+    // the body of the called function is unknown
+    return u == Use.SEQ || super.uses(u);
+  }
+
   /**
    * Evaluates all arguments.
    * @param ctx query context
@@ -78,6 +78,8 @@ public final class FNAdmin extends StandardFunc {
    */
   private Iter logs(final QueryContext ctx) throws QueryException {
     final ValueBuilder vb = new ValueBuilder();
+    // write queued entries
+    ctx.context.log.flush();
     if(expr.length == 0) {
       // return list of all log files
       for(final IOFile f : ctx.context.log.files()) {
@@ -6,9 +6,13 @@ import static org.basex.query.value.type.AtomType.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.CmpV.OpV;
+import org.basex.query.flwor.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.item.ANum;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 
@@ -31,7 +35,15 @@ public final class FNAggr extends StandardFunc {
 
   @Override
   public Item item(final QueryContext ctx, final InputInfo ii) throws QueryException {
-    final Iter iter = ctx.iter(expr[0]);
+    Iter iter = ctx.iter(expr[0]);
+    if(iter instanceof ValueIter && sig != Function.COUNT && expr.length == 1) {
+      // aggregate sequences in their native representation in a tight loop
+      final Value v = iter.value();
+      final Item it = aggr(v);
+      if(it != null) return it;
+      iter = v.iter();
+    }
+
     switch(sig) {
       case COUNT:
         long c = iter.size();
@@ -61,6 +73,11 @@ public final class FNAggr extends StandardFunc {
   @Override
   public Expr comp(final QueryContext ctx) throws QueryException {
     final Expr e = expr[0];
+    // compute aggregate of non-grouping variable while grouping the tuples
+    if(ctx.group != null && expr.length == 1 && e instanceof VarRef) {
+      final Var v = ctx.group.aggregate(((VarRef) e).var, sig, ctx);
+      if(v != null) return new VarRef(info, v).compile(ctx);
+    }
     final long c = e.size();
     if(c < 0 || e.uses(Use.NDT)) return this;
 
@@ -71,6 +88,63 @@ public final class FNAggr extends StandardFunc {
     }
   }
 
+  /**
+   * Computes the result for a sequence, the items of which are stored in their
+   * native representation. The results are the same as for the iterative evaluation.
+   * @param v value
+   * @return result, or {@code null} if the sequence is not supported or if the sum
+   *   of integers exceeds the integer range
+   * @throws QueryException query exception
+   */
+  private Item aggr(final Value v) throws QueryException {
+    final boolean min = sig == Function.MIN;
+    if(v instanceof DblSeq) {
+      final double[] vals = NativeSeq.doubles(v);
+      final int n = vals.length;
+      double r = vals[0];
+      if(sig == Function.SUM || sig == Function.AVG) {
+        for(int i = 1; i < n; i++) r += vals[i];
+        return sig == Function.SUM ? Dbl.get(r) :
+          Calc.DIV.ev(info, Dbl.get(r), Int.get(n));
+      }
+      // NaN will be returned if it occurs in the sequence
+      for(int i = 1; i < n; i++) {
+        final double d = vals[i];
+        if((min ? r > d : r < d) || Double.isNaN(d)) r = d;
+      }
+      return Dbl.get(r);
+    }
+
+    if(!(v instanceof IntSeq || v instanceof RangeSeq)) return null;
+    final long n = v.size();
+    if(sig == Function.MIN || sig == Function.MAX) {
+      if(v instanceof RangeSeq) return v.itemAt(min ? 0 : n - 1);
+      final long[] vals = NativeSeq.longs(v);
+      int p = 0;
+      for(int i = 1; i < n; i++) if(min ? vals[p] > vals[i] : vals[p] < vals[i]) p = i;
+      return v.itemAt(p);
+    }
+
+    long r;
+    final long s = v.itemAt(0).itr(info);
+    final long e = v.itemAt(n - 1).itr(info);
+    final long lim = Integer.MAX_VALUE;
+    if(v instanceof RangeSeq && Math.abs(s) <= lim && Math.abs(e) <= lim) {
+      // sum of arithmetic series; intermediate results cannot exceed the integer range
+      r = (n & 1) == 0 ? n / 2 * (s + e) : n * ((s + e) / 2);
+    } else {
+      final long[] vals = NativeSeq.longs(v);
+      r = vals[0];
+      for(int i = 1; i < n; i++) {
+        final long l = vals[i], t = r + l;
+        // overflow: fall back to iterative evaluation
+        if(((r ^ t) & (l ^ t)) < 0) return null;
+        r = t;
+      }
+    }
+    return sig == Function.SUM ? Int.get(r) : Calc.DIV.ev(info, Int.get(r), Int.get(n));
+  }
+
   /**
    * Sums up the specified item(s).
    * @param iter iterator
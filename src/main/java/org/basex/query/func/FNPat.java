@@ -10,7 +10,7 @@ import java.util.regex.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
-import org.basex.query.regex.parse.*;
+import org.basex.query.regex.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
@@ -41,6 +41,9 @@ public final class FNPat extends StandardFunc {
   /** Attribute for the analyze-string-result function. */
   private static final QNm Q_NR = new QNm("nr");
 
+  /** Pattern of a static regular expression ({@code null}: not compiled yet). */
+  private Pattern pattern;
+
   /**
    * Constructor.
    * @param ii input info
@@ -216,16 +219,31 @@ public final class FNPat extends StandardFunc {
 
   /**
    * Returns a regular expression pattern.
-   * @param pattern input pattern
+   * @param regex input pattern
    * @param mod modifier item
    * @param ctx query context
    * @return modified pattern
    * @throws org.basex.query.QueryException query exception
    */
-  private Pattern pattern(final Expr pattern, final Expr mod, final QueryContext ctx)
-      throws QueryException {
-    return RegExParser.parse(checkStr(pattern, ctx),
-        mod != null ? checkStr(mod, ctx) : null, ctx.sc.xquery3, info);
+  private Pattern pattern(final Expr regex, final Expr mod, final QueryContext ctx)
+      throws QueryException {
+    return pattern != null ? pattern : RegExCache.get(checkStr(regex, ctx),
+        mod != null ? checkStr(mod, ctx) : null, ctx.sc.xquery3, info);
+  }
+
+  @Override
+  Expr comp(final QueryContext ctx) throws QueryException {
+    // compile regular expression if pattern and modifiers are values
+    final int m = sig == Function.REPLACE ? 3 : 2;
+    if(expr[1].isValue() && (expr.length == m || expr[m].isValue())) {
+      try {
+        pattern = pattern(expr[1], expr.length == m ? null : expr[m], ctx);
+      } catch(final QueryException ex) {
+        // errors will be raised if the function is evaluated
+        Util.debug(ex);
+      }
+    }
+    return this;
   }
 
   @Override
@@ -1,5 +1,6 @@
 package org.basex.query.func;
 
+import static org.basex.query.util.Err.*;
 import static org.basex.util.Token.*;
 
 import org.basex.query.*;
@@ -7,6 +8,7 @@ import org.basex.query.expr.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 
 /**
@@ -42,6 +44,7 @@ public final class FNProf extends StandardFunc {
       case _PROF_CURRENT_MS: return Int.get(System.currentTimeMillis());
       case _PROF_CURRENT_NS: return Int.get(System.nanoTime());
       case _PROF_DUMP:       return dump(ctx);
+      case _PROF_PLAN:       return plan(ctx);
       default:               return super.item(ctx, ii);
     }
   }
@@ -104,6 +107,28 @@ public final class FNProf extends StandardFunc {
     return null;
   }
 
+  /**
+   * Evaluates a query and returns its query plan with runtime statistics.
+   * @param ctx query context
+   * @return query plan
+   * @throws QueryException query exception
+   */
+  private Item plan(final QueryContext ctx) throws QueryException {
+    final QueryContext qc = new QueryContext(ctx.context);
+    qc.profiler = new QueryProfiler();
+    try {
+      qc.parse(string(checkStr(expr[0], ctx)));
+      if(qc.updating) BXXQ_UPDATING.thrw(info);
+      qc.compile();
+      qc.value();
+      final FDoc doc = new FDoc();
+      qc.plan(doc);
+      return doc.children().next();
+    } finally {
+      qc.close();
+    }
+  }
+
   /**
    * Dumps the memory consumption.
    * @param min initial memory usage
@@ -10,6 +10,7 @@ import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.CmpV.OpV;
 import org.basex.query.expr.*;
+import org.basex.query.flwor.*;
 import org.basex.query.iter.*;
 import org.basex.query.path.*;
 import org.basex.query.util.*;
@@ -144,6 +145,20 @@ public final class FNSeq extends StandardFunc {
       return cmpDist(ctx);
     }
 
+    // only sort the required tuples of an order by clause
+    if(expr[0] instanceof GFLWOR) {
+      long k = 0;
+      if(sig == Function.HEAD) {
+        k = 1;
+      } else if(sig == Function.SUBSEQUENCE && expr.length > 2 &&
+          expr[1] instanceof ANum && expr[2] instanceof ANum) {
+        final double s = ((ANum) expr[1]).dbl(info), l = ((ANum) expr[2]).dbl(info);
+        if(!Double.isNaN(s) && !Double.isNaN(l))
+          k = StrictMath.round(s) + StrictMath.round(l) - 1;
+      }
+      ((GFLWOR) expr[0]).top(k, ctx);
+    }
+
     // all other types will return existing types
     Occ o = Occ.ZERO_MORE;
     // at most one returned item
@@ -29,10 +29,8 @@ import org.basex.util.*;
 public class AxisPath extends Path {
   /** Flag for result caching. */
   private boolean cache;
-  /** Cached result. */
-  private NodeSeqBuilder citer;
-  /** Last visited item. */
-  private Value lvalue;
+  /** Last visited item and cached result. */
+  private Value[] cached;
 
   /**
    * Constructor.
@@ -269,30 +267,43 @@ public class AxisPath extends Path {
     final Value r = root != null ? ctx.value(root) : cv;
 
     try {
-      /* cache values if:
+      /* return cached values if:
        * - caching is desirable
-       * - the code is called for the first time
-       * - the value has changed and the underlying node is not the same
+       * - the code has been called before
+       * - the value has not changed, or the underlying node is the same
+       * the item and result are read and written together, as the same path
+       * may be evaluated by several threads
        */
-      if(!cache || citer == null || lvalue != r && !(r instanceof ANode &&
-          lvalue instanceof ANode && ((ANode) lvalue).is((ANode) r))) {
-        lvalue = r;
-        citer = new NodeSeqBuilder().check();
-        if(r != null) {
-          final Iter ir = ctx.iter(r);
+      final Value[] lc = cached;
+      if(cache && lc != null && (lc[0] == r || r instanceof ANode &&
+          lc[0] instanceof ANode && ((ANode) lc[0]).is((ANode) r))) return lc[1].iter();
+
+      // evaluate leading steps set-at-a-time for database node sequences, or
+      // for a single unscored database node if the result will be cached
+      Value v = r;
+      int s = 0;
+      if(r instanceof DBNodeSeq ||
+          cache && r instanceof DBNode && ((DBNode) r).score() == 0) {
+        final Staircase sc = new Staircase(r);
+        while(s < steps.length && sc.step(step(s), ctx)) s++;
+        if(s != 0) v = sc.value();
+      }
+      if(s != steps.length) {
+        final NodeSeqBuilder nc = new NodeSeqBuilder().check();
+        if(v != null) {
+          final Iter ir = ctx.iter(v);
           for(Item it; (it = ir.next()) != null;) {
             ctx.value = it;
-            iter(0, citer, ctx);
+            iter(s, nc, ctx);
           }
         } else {
           ctx.value = null;
-          iter(0, citer, ctx);
+          iter(0, nc, ctx);
         }
-        citer.sort();
-      } else {
-        citer.reset();
+        v = nc.sort().value();
       }
-      return citer;
+      if(cache) cached = new Value[] { r, v };
+      return v.iter();
     } finally {
       ctx.value = cv;
       ctx.size = cs;
@@ -43,7 +43,7 @@ public class ExtTest extends Test {
   @Override
   public boolean eq(final ANode node) {
     return node.type == type &&
-      (name == null || node.qname(tmpq).eq(name)) &&
+      (name == null || node.qname().eq(name)) &&
       (ext == null || ext == AtomType.ATY ||
       (node instanceof DBNode || strip) && ext == AtomType.UTY ||
       type == NodeType.ATT && (ext == AtomType.AST ||
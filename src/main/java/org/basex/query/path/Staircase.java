@@ -0,0 +1,242 @@
+package org.basex.query.path;
+
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.name.*;
+import org.basex.query.*;
+import org.basex.query.path.Test.Mode;
+import org.basex.query.value.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>Staircase join. This class evaluates location steps set-at-a-time for a
+ * sorted, duplicate-free set of database nodes. Instead of iterating the axis of
+ * each single context node and sorting the merged results, the pre/size columns
+ * of the table are scanned once per step: context nodes that are contained in
+ * the subtree of a preceding context node are pruned, and visited ancestors are
+ * not visited twice.</p>
+ *
+ * <p>The pre values of all intermediate results are stored in arrays, and
+ * no node instances are created, unless a node test requires them.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class Staircase {
+  /** Data reference. */
+  private final Data data;
+  /** Sorted and duplicate-free pre values of the current context nodes. */
+  private int[] pres;
+
+  /** Node test of the current step. */
+  private Test test;
+  /** Tag name ids accepted by the current node test ({@code null}: use node). */
+  private BitArray names;
+  /** Node, which is reused for checking node tests. */
+  private DBNode node;
+
+  /**
+   * Constructor.
+   * @param nodes context nodes (a single database node or a node sequence)
+   */
+  Staircase(final Value nodes) {
+    data = nodes.data();
+    if(nodes instanceof DBNode) {
+      pres = new int[] { ((DBNode) nodes).pre };
+      return;
+    }
+    final int s = (int) nodes.size();
+    pres = Arrays.copyOf(((DBNodeSeq) nodes).pres, s);
+    // sort and remove duplicates if necessary
+    for(int p = 1; p < s; p++) {
+      if(pres[p - 1] >= pres[p]) {
+        pres = sort(new IntList(pres));
+        break;
+      }
+    }
+  }
+
+  /**
+   * Evaluates the specified step for all context nodes. Returns {@code false} if
+   * the step cannot be evaluated set-at-a-time.
+   * @param step axis step
+   * @param ctx query context
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  boolean step(final AxisStep step, final QueryContext ctx) throws QueryException {
+    if(step.preds.length != 0) return false;
+    init(step.test);
+
+    final IntList res = new IntList();
+    // indicates if results need to be sorted and freed from duplicates
+    boolean sort = false;
+    switch(step.axis) {
+      case SELF:
+        for(final int pre : pres) {
+          if(test(pre, data.kind(pre))) res.add(pre);
+        }
+        break;
+      case CHILD:
+        int end = 0;
+        for(final int pre : pres) {
+          ctx.checkStop();
+          final int k = data.kind(pre);
+          final int e = pre + data.size(pre, k);
+          // results of nested context nodes will not be ordered
+          if(pre < end) sort = true;
+          end = Math.max(end, e);
+          for(int p = pre + data.attSize(pre, k); p < e;) {
+            final int kp = data.kind(p);
+            if(test(p, kp)) res.add(p);
+            p += data.size(p, kp);
+          }
+        }
+        break;
+      case ATTR:
+        for(final int pre : pres) {
+          final int e = pre + data.attSize(pre, data.kind(pre));
+          for(int p = pre + 1; p < e; p++) {
+            if(test(p, Data.ATTR)) res.add(p);
+          }
+        }
+        break;
+      case DESC:
+      case DESCORSELF:
+        final boolean self = step.axis == Axis.DESCORSELF;
+        end = 0;
+        for(final int pre : pres) {
+          final int k = data.kind(pre);
+          if(pre < end) {
+            // prune nodes in the subtree of the last context node:
+            // only attributes have not been visited yet
+            if(self && k == Data.ATTR && test(pre, k)) {
+              res.add(pre);
+              sort = true;
+            }
+            continue;
+          }
+          ctx.checkStop();
+          end = pre + data.size(pre, k);
+          if(self && test(pre, k)) res.add(pre);
+          for(int p = pre + data.attSize(pre, k); p < end;) {
+            final int kp = data.kind(p);
+            if(test(p, kp)) res.add(p);
+            p += data.attSize(p, kp);
+          }
+        }
+        break;
+      case PARENT:
+        for(final int pre : pres) {
+          final int p = data.parent(pre, data.kind(pre));
+          if(p == -1 || !test(p, data.kind(p))) continue;
+          if(!res.isEmpty() && res.get(res.size() - 1) >= p) sort = true;
+          res.add(p);
+        }
+        break;
+      case ANC:
+      case ANCORSELF:
+        // each ancestor is visited only once: stop if a visited node is reached
+        final BitArray visited = new BitArray();
+        for(final int pre : pres) {
+          ctx.checkStop();
+          int p = step.axis == Axis.ANC ? data.parent(pre, data.kind(pre)) : pre;
+          while(p != -1 && !visited.get(p)) {
+            visited.set(p);
+            final int kp = data.kind(p);
+            if(test(p, kp)) res.add(p);
+            p = data.parent(p, kp);
+          }
+        }
+        res.sort();
+        break;
+      case FOLL:
+        // the following nodes of all context nodes start after the first subtree
+        int start = Integer.MAX_VALUE;
+        for(final int pre : pres) {
+          final int k = data.kind(pre);
+          // following nodes of attributes include siblings attributes
+          if(k == Data.ATTR) return false;
+          start = Math.min(start, pre + data.size(pre, k));
+        }
+        final int s = data.meta.size;
+        for(int p = start, c = 0; p < s; c++) {
+          if((c & 0xFFFF) == 0) ctx.checkStop();
+          final int kp = data.kind(p);
+          if(test(p, kp)) res.add(p);
+          p += data.attSize(p, kp);
+        }
+        break;
+      default:
+        return false;
+    }
+
+    pres = sort ? sort(res) : res.toArray();
+    return true;
+  }
+
+  /**
+   * Returns the current nodes as value.
+   * @return value
+   */
+  Value value() {
+    return DBNodeSeq.get(new IntList(pres), data, false, false);
+  }
+
+  /**
+   * Sorts the specified pre values and removes duplicates.
+   * @param il pre values
+   * @return resulting array
+   */
+  private static int[] sort(final IntList il) {
+    final int[] a = il.sort().toArray();
+    int u = 0;
+    for(final int p : a) if(u == 0 || a[u - 1] != p) a[u++] = p;
+    return Arrays.copyOf(a, u);
+  }
+
+  /**
+   * Prepares the node test of the next step.
+   * @param t node test
+   */
+  private void init(final Test t) {
+    test = t;
+    names = null;
+    // element names: compare name ids
+    if(t instanceof NameTest && t.type == NodeType.ELM && t.mode == Mode.NAME) {
+      names = new BitArray();
+      final Names tags = data.tagindex;
+      final byte[] ln = ((NameTest) t).ln;
+      if(data.nspaces.size() == 0) {
+        // no namespaces: names have no prefixes
+        final int id = tags.id(ln);
+        if(id != 0) names.set(id);
+      } else {
+        final int ts = tags.size();
+        for(int i = 1; i <= ts; i++) {
+          if(Token.eq(ln, Token.local(tags.key(i)))) names.set(i);
+        }
+      }
+    } else if(t != Test.NOD && node == null) {
+      node = new DBNode(data, 0);
+    }
+  }
+
+  /**
+   * Checks if the specified node matches the current node test.
+   * @param pre pre value
+   * @param kind node kind
+   * @return result of check
+   */
+  private boolean test(final int pre, final int kind) {
+    if(test == Test.NOD) return true;
+    if(names != null) return kind == Data.ELEM && names.get(data.name(pre));
+    node.set(pre, kind);
+    return test.eq(node);
+  }
+}
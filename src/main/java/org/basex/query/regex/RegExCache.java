@@ -0,0 +1,63 @@
+package org.basex.query.regex;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+import java.util.regex.*;
+
+import org.basex.query.*;
+import org.basex.query.regex.parse.*;
+import org.basex.util.*;
+
+/**
+ * This class caches compiled regular expressions. The cache is shared by all
+ * queries, and the least recently used patterns are discarded if the maximum
+ * number of patterns is exceeded.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class RegExCache {
+  /** Maximum number of cached patterns. */
+  private static final int MAX = 1000;
+  /** Cached patterns, in the order of their last access. */
+  private static final LinkedHashMap<String, Pattern> CACHE =
+      new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, Pattern> entry) {
+      return size() > MAX;
+    }
+  };
+
+  /** Private constructor. */
+  private RegExCache() { }
+
+  /**
+   * Returns a compiled pattern for the specified regular expression.
+   * See {@link RegExParser#parse} for more details.
+   * @param regex regular expression
+   * @param mod modifiers (may be {@code null})
+   * @param ext XQuery 3.0 syntax
+   * @param ii input info
+   * @return pattern
+   * @throws QueryException query exception
+   */
+  public static Pattern get(final byte[] regex, final byte[] mod, final boolean ext,
+      final InputInfo ii) throws QueryException {
+
+    final String key = new StringBuilder(string(regex)).append('\0').
+        append(mod != null ? string(mod) : "").append(ext ? '3' : '1').toString();
+    Pattern p;
+    synchronized(CACHE) {
+      p = CACHE.get(key);
+    }
+    if(p == null) {
+      // invalid expressions are not cached
+      p = RegExParser.parse(regex, mod, ext, ii);
+      synchronized(CACHE) {
+        CACHE.put(key, p);
+      }
+    }
+    return p;
+  }
+}
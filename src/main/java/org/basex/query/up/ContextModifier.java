@@ -66,16 +66,23 @@ public abstract class ContextModifier {
   }
 
   /**
-   * Checks constraints and applies all update primitives to the databases if
-   * no constraints are hurt.
+   * Checks constraints and prepares all update primitives. The databases are only
+   * read by this method.
+   * @throws QueryException query exception
+   */
+  final void prepare() throws QueryException {
+    for(final DatabaseUpdates c : pendingUpdates.values()) c.check();
+    for(final DBCreate c : dbCreates.values()) c.prepare();
+  }
+
+  /**
+   * Applies all update primitives to the databases. Must be called after
+   * {@link #prepare()}.
    * @throws QueryException query exception
    */
   final void apply() throws QueryException {
-    // checked constraints
     final Collection<DatabaseUpdates> updates = pendingUpdates.values();
     final Collection<DBCreate> creates = dbCreates.values();
-    for(final DatabaseUpdates c : updates) c.check();
-    for(final DBCreate c : creates) c.prepare();
 
     int i = 0;
     try {
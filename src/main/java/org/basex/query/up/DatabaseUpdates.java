@@ -95,8 +95,8 @@ final class DatabaseUpdates {
   }
 
   /**
-   * Checks updates for violations. If a violation is found the complete update
-   * process is aborted.
+   * Checks updates for violations and prepares the insertion sequences. If a violation
+   * is found the complete update process is aborted.
    * @throws QueryException query exception
    */
   void check() throws QueryException {
@@ -113,6 +113,7 @@ final class DatabaseUpdates {
         if(p instanceof NodeCopy) ((NodeCopy) p).prepare();
       }
     }
+    for(final BasicOperation d : dbops) d.prepare();
 
     // check attribute duplicates
     int p = nodes.size() - 1;
@@ -178,10 +179,7 @@ final class DatabaseUpdates {
     final BasicOperation[] dbo = new BasicOperation[dbops.size()];
     dbops.toArray(dbo);
     Arrays.sort(dbo);
-    for(final BasicOperation d : dbo) {
-      d.prepare();
-      d.apply();
-    }
+    for(final BasicOperation d : dbo) d.apply();
 
     // execute fn:put operations
     final Put[] o = puts.values().toArray(new Put[puts.values().size()]);
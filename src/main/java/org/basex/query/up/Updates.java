@@ -115,7 +115,16 @@ public final class Updates {
   }
 
   /**
-   * Executes all updates.
+   * Checks constraints and prepares all updates. The addressed databases are only
+   * read by this method.
+   * @throws QueryException query exception
+   */
+  public void prepare() throws QueryException {
+    if(mod != null) mod.prepare();
+  }
+
+  /**
+   * Executes all updates. Must be called after {@link #prepare()}.
    * @throws QueryException query exception
    */
   public void apply() throws QueryException {
@@ -82,6 +82,7 @@ public final class Transform extends Arr {
         pu.addData(i.data());
       }
       ctx.value(expr[0]);
+      ctx.updates.prepare();
       ctx.updates.apply();
       return ctx.value(expr[1]);
     } finally {
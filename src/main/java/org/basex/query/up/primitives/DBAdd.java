@@ -65,7 +65,7 @@ public final class DBAdd extends BasicOperation {
   @Override
   public void prepare() throws QueryException {
     // build data with all documents, to prevent dirty reads
-    md = new MemData(data);
+    md = new MemData(data.meta.prop);
     for(int i = 0; i < docs.size(); i++) {
       md.insert(md.meta.size, -1, docData(
           docs.get(i), paths.get(i), ctx, data.meta.name));
@@ -89,6 +89,8 @@ public final class DBCreate extends BasicOperation {
   public void apply() throws QueryException {
     // close data instance in query processor
     ctx.resource.removeData(name);
+    // discard compiled queries that have opened the database
+    ctx.context.plans.close(name);
     // check if addressed databases are still pinned
     if(ctx.context.pinned(name)) BXDB_OPENED.thrw(info, name);
 
@@ -54,6 +54,8 @@ public final class DBDrop extends BasicOperation {
     ctx.resource.removeData(name);
     // invalidate data instance to avoid repeated removal of locks
     data = null;
+    // discard compiled queries that have opened the database
+    ctx.context.plans.close(name);
     // check if database is stilled pinned by another process
     if(ctx.context.pinned(name)) BXDB_OPENED.thrw(info, name);
     // check if database files can be safely removed
@@ -44,8 +44,9 @@ public abstract class NodeCopy extends UpdatePrimitive {
    */
   @SuppressWarnings("unused")
   public final void prepare() throws QueryException {
-    // build main memory representation of nodes to be copied
-    insseq = new MemData(data);
+    // build main memory representation of nodes to be copied. the name indexes
+    // of the database are not shared, as they may still be read by other processes
+    insseq = new MemData(data.meta.prop);
 
     // text nodes still need to be merged. two adjacent iterators may lead to two
     // adjacent text nodes
@@ -33,6 +33,8 @@ public final class Var extends ParseExpr {
   public boolean declared;
   /** Cast flag (default: {@code true}). */
   public boolean cast = true;
+  /** Flag for values that have been bound from outside the query. */
+  public boolean external;
 
   /** Static context. */
   private final StaticContext sc;
@@ -42,6 +44,8 @@ public final class Var extends ParseExpr {
   private Value value;
   /** Bound expression. */
   private Expr expr;
+  /** Compilation flag. */
+  private boolean compiled;
 
   /**
    * Constructor.
@@ -83,11 +87,12 @@ public final class Var extends ParseExpr {
 
   @Override
   public Var compile(final QueryContext ctx) throws QueryException {
-    if(expr != null) {
+    if(expr != null && !compiled) {
       final StaticContext s = ctx.sc;
       ctx.sc = sc;
       try {
         bind(expr.compile(ctx), ctx);
+        compiled = true;
       } finally {
         ctx.sc = s;
       }
@@ -153,12 +158,28 @@ public final class Var extends ParseExpr {
 
   @Override
   public Value value(final QueryContext ctx) throws QueryException {
+    // global variables may be requested by concurrent threads (see ParallelFLWR)
+    if(global) {
+      synchronized(this) {
+        return init(ctx);
+      }
+    }
+    return init(ctx);
+  }
+
+  /**
+   * Evaluates the bound expression if no value has been assigned yet.
+   * @param ctx query context
+   * @return value
+   * @throws QueryException query exception
+   */
+  private Value init(final QueryContext ctx) throws QueryException {
     if(value == null) {
       if(expr == null) VAREMPTY.thrw(info, this);
       final StaticContext s = ctx.sc;
       ctx.sc = sc;
       try {
-        value = cast(ctx.value(expr.compile(ctx)), ctx);
+        value = cast(ctx.value(compiled ? expr : expr.compile(ctx)), ctx);
       } finally {
         ctx.sc = s;
       }
@@ -199,9 +220,35 @@ public final class Var extends ParseExpr {
     v.type = type;
     v.ret = ret;
     v.cast = cast;
+    v.external = external;
+    v.compiled = compiled;
+    return v;
+  }
+
+  /**
+   * Returns a copy of this global variable for another evaluation of a compiled
+   * query. A value that has been computed from the bound expression is discarded.
+   * @return copy
+   */
+  public Var fork() {
+    final Var v = copy();
+    if(expr != null && !expr.isValue()) v.value = null;
     return v;
   }
 
+  /**
+   * Binds a new external value to a declared variable. The value is converted
+   * as if it had been bound before the query was parsed.
+   * @param v value to be bound
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  public void rebind(final Value v, final QueryContext ctx) throws QueryException {
+    expr = v;
+    value = v;
+    if(type != null) reset(type, ctx);
+  }
+
   @Override
   public boolean uses(final Use u) {
     return u == Use.VAR;
@@ -13,9 +13,28 @@ import org.basex.query.value.node.*;
  */
 public final class VarContext extends ExprInfo {
   /** Global variables. */
-  private final VarStack global = new VarStack();
+  private final VarStack global;
   /** Local variables. */
-  private VarStack local = new VarStack();
+  private VarStack local;
+
+  /**
+   * Default constructor.
+   */
+  public VarContext() {
+    global = new VarStack();
+    local = new VarStack();
+  }
+
+  /**
+   * Constructor for the evaluation of an expression in a separate thread.
+   * The global variables are shared, and the local variables are copied.
+   * @param vc variable context
+   */
+  public VarContext(final VarContext vc) {
+    global = vc.global;
+    local = new VarStack(Math.max(4, vc.local.size));
+    for(int v = 0; v < vc.local.size; v++) local.add(vc.local.vars[v]);
+  }
 
   /**
    * Returns the global variables.
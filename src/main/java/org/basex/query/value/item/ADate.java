@@ -30,7 +30,7 @@ public abstract class ADate extends Item {
   static final byte[] DAYS = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
   /** Date pattern. */
   private static final Pattern DAT = Pattern.compile(
-      "(-?)([0-9]{4})-([0-9]{2})-([0-9]{2})" + ZONE);
+      "(-?)([1-9][0-9]{4,}|[0-9]{4})-([0-9]{2})-([0-9]{2})" + ZONE);
   /** Time pattern. */
   private static final Pattern TIM = Pattern.compile(
       "([0-9]{2}):([0-9]{2}):([0-9]{2})(\\.([0-9]+))?" + ZONE);
@@ -190,15 +190,73 @@ public abstract class ADate extends Item {
     final int m = xc.getMinute() == UNDEF ? 0 : xc.getMinute();
     final int s = xc.getSecond() == UNDEF ? 0 : xc.getSecond();
     int z = xc.getTimezone();
-    if(z == UNDEF) {
-      final long ms = System.currentTimeMillis();
-      z = Calendar.getInstance().getTimeZone().getOffset(ms) / 60000;
-    }
+    if(z == UNDEF) z = zone();
     BigDecimal bd = xc.getFractionalSecond();
     if(bd == null) bd = BigDecimal.valueOf(0);
     return bd.add(BigDecimal.valueOf(h * 3600 + m * 60 - z * 60 + s));
   }
 
+  /**
+   * Returns the number of milliseconds since January 1, 1970, 00:00:00 GMT.
+   * UTC is assumed if the date has no timezone.
+   * @return milliseconds
+   */
+  public final double epoch() {
+    final int y = xc.getYear() == UNDEF ? 1970 : xc.getYear();
+    final int m = xc.getMonth() == UNDEF ? 1 : xc.getMonth();
+    final int d = xc.getDay() == UNDEF ? 1 : xc.getDay();
+    final int h = xc.getHour() == UNDEF ? 0 : xc.getHour();
+    final int n = xc.getMinute() == UNDEF ? 0 : xc.getMinute();
+    final int s = xc.getSecond() == UNDEF ? 0 : xc.getSecond();
+    final int z = xc.getTimezone() == UNDEF ? 0 : xc.getTimezone();
+    final BigDecimal bd = xc.getFractionalSecond();
+
+    // days since the epoch in the proleptic Gregorian calendar
+    final long yr = m > 2 ? y : y - 1;
+    final long era = (yr >= 0 ? yr : yr - 399) / 400;
+    final long yoe = yr - era * 400;
+    final long doy = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + d - 1;
+    final long days = era * 146097 + yoe * 365 + yoe / 4 - yoe / 100 + doy - 719468;
+    final long sec = days * 86400 + h * 3600 + (n - z) * 60 + s;
+    return sec * 1000d + (bd == null ? 0 : bd.doubleValue() * 1000);
+  }
+
+  /**
+   * Checks if the date has a timezone.
+   * @return result of check
+   */
+  public final boolean zoned() {
+    return xc.getTimezone() != UNDEF;
+  }
+
+  /**
+   * Parses a date or dateTime value. This method is used to index date values.
+   * @param value value
+   * @return date item, or {@code null} if the value cannot be cast to a date or dateTime
+   */
+  public static ADate parse(final byte[] value) {
+    // skip values that do not start with a year of at least four digits
+    final byte[] v = Token.trim(value);
+    final int s = v.length != 0 && v[0] == '-' ? 1 : 0;
+    int y = s;
+    while(y < v.length && Token.digit(v[y])) y++;
+    if(y - s < 4 || v.length < y + 6 || v[y] != '-') return null;
+    try {
+      return Token.contains(v, 'T') ? new Dtm(v, null) : new Dat(v, null);
+    } catch(final QueryException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the offset of the implicit timezone in minutes.
+   * @return offset
+   */
+  public static int zone() {
+    final long ms = System.currentTimeMillis();
+    return Calendar.getInstance().getTimeZone().getOffset(ms) / 60000;
+  }
+
   /**
    * Returns the number of days since AD.
    * @return days
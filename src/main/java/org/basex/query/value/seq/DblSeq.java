@@ -16,7 +16,7 @@ import org.basex.query.value.type.*;
  */
 public final class DblSeq extends NativeSeq {
   /** Values. */
-  private final double[] values;
+  final double[] values;
 
   /**
    * Constructor.
@@ -16,7 +16,7 @@ import org.basex.query.value.type.*;
  */
 public final class IntSeq extends NativeSeq {
   /** Values. */
-  private final long[] values;
+  final long[] values;
 
   /**
    * Constructor.
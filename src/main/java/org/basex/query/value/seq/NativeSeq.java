@@ -3,6 +3,7 @@ package org.basex.query.value.seq;
 import static org.basex.query.util.Err.*;
 
 import org.basex.query.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.type.*;
 import org.basex.query.value.type.SeqType.*;
@@ -46,4 +47,38 @@ public abstract class NativeSeq extends Seq {
   public final SeqType type() {
     return SeqType.get(type, Occ.ONE_MORE);
   }
+
+  // STATIC METHODS =====================================================================
+
+  /**
+   * Returns the integers of the specified value as array, if they are stored in their
+   * native representation, or if the value is a range sequence. The returned array
+   * must not be modified.
+   * @param v value
+   * @return integers, or {@code null}
+   */
+  public static long[] longs(final Value v) {
+    if(v instanceof IntSeq) return ((IntSeq) v).values;
+    if(!(v instanceof RangeSeq)) return null;
+    final RangeSeq rs = (RangeSeq) v;
+    final long[] vals = new long[(int) rs.size];
+    for(int s = 0; s < vals.length; s++) vals[s] = rs.start + s;
+    return vals;
+  }
+
+  /**
+   * Returns the numbers of the specified value as array of doubles, if they are
+   * stored in their native representation, or if the value is a range sequence.
+   * The returned array must not be modified.
+   * @param v value
+   * @return doubles, or {@code null}
+   */
+  public static double[] doubles(final Value v) {
+    if(v instanceof DblSeq) return ((DblSeq) v).values;
+    final long[] l = longs(v);
+    if(l == null) return null;
+    final double[] vals = new double[l.length];
+    for(int s = 0; s < vals.length; s++) vals[s] = l[s];
+    return vals;
+  }
 }
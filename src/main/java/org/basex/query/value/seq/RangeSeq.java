@@ -18,7 +18,7 @@ import org.basex.util.*;
  */
 public final class RangeSeq extends Seq {
   /** Start value. */
-  private final long start;
+  final long start;
 
   /**
    * Constructor.
@@ -30,6 +30,14 @@ public final class RangeSeq extends Seq {
     start = s;
   }
 
+  /**
+   * Returns the start value.
+   * @return start value
+   */
+  public long start() {
+    return start;
+  }
+
   @Override
   public Object toJava() {
     final long[] obj = new long[(int) size];
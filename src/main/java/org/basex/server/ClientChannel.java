@@ -0,0 +1,251 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Client connection of the non-blocking server front end. The incoming bytes are
+ * buffered by the selector thread until a request is complete. The request is then
+ * processed by a worker thread, which also writes the response to the channel.
+ * No bytes are read while a request is being processed.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class ClientChannel implements Runnable {
+  /** Client. */
+  private final ClientListener client;
+  /** Socket channel. */
+  private final SocketChannel channel;
+  /** Selector thread. */
+  private final ClientSelector.Loop loop;
+  /** Worker threads. */
+  private final ExecutorService workers;
+
+  /** Selection key. */
+  private SelectionKey key;
+  /** Selector for waiting until bytes can be written ({@code null} if not opened yet). */
+  private volatile Selector writer;
+  /** Buffered bytes ({@code null} if no bytes are buffered). */
+  private ByteList buffer;
+  /** Number of buffered bytes that have been scanned. */
+  private int pos;
+  /** Number of missing arguments of the current request. */
+  private int args;
+  /** Flag for an encoded input argument. */
+  private boolean input;
+  /** Flag for an escaped byte. */
+  private boolean esc;
+  /** Login flag (the first request contains the login data). */
+  private boolean login = true;
+  /** Flag for pipelined requests, which are prefixed with a request id. */
+  private boolean pipeline;
+  /** Flag for a request id that is currently being scanned. */
+  private boolean rid;
+  /** Request to be processed ({@code null}: end of stream). */
+  private byte[] request;
+
+  /**
+   * Constructor.
+   * @param cl client
+   * @param ch socket channel
+   * @param lp selector thread
+   * @param wk worker threads
+   */
+  ClientChannel(final ClientListener cl, final SocketChannel ch,
+      final ClientSelector.Loop lp, final ExecutorService wk) {
+    client = cl;
+    channel = ch;
+    loop = lp;
+    workers = wk;
+  }
+
+  /**
+   * Returns an output stream for writing bytes to the channel.
+   * @return output stream
+   */
+  OutputStream output() {
+    return new OutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len)
+          throws IOException {
+        final ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+        while(bb.hasRemaining()) {
+          if(channel.write(bb) == 0) await();
+        }
+      }
+    };
+  }
+
+  /**
+   * Registers the channel, or resumes reading after a request has been processed.
+   * Called by the selector thread.
+   * @param selector selector
+   */
+  void resume(final Selector selector) {
+    try {
+      if(key == null) key = channel.register(selector, SelectionKey.OP_READ, this);
+      // process requests that have already been buffered
+      if(!dispatch()) key.interestOps(SelectionKey.OP_READ);
+    } catch(final IOException ex) {
+      close();
+    } catch(final CancelledKeyException ex) {
+      close();
+    }
+  }
+
+  /**
+   * Reads incoming bytes. Called by the selector thread.
+   * @param bb read buffer
+   */
+  void read(final ByteBuffer bb) {
+    bb.clear();
+    int n;
+    try {
+      n = channel.read(bb);
+    } catch(final IOException ex) {
+      n = -1;
+    }
+    if(n == -1) {
+      // end of stream: close session
+      key.cancel();
+      request = null;
+      workers.execute(this);
+    } else if(n > 0) {
+      if(buffer == null) buffer = new ByteList(n);
+      buffer.add(bb.array(), 0, n);
+      if(dispatch()) key.interestOps(0);
+    }
+  }
+
+  @Override
+  public void run() {
+    final boolean l = login;
+    login = false;
+    if(client.request(request, l)) loop.resume(this);
+    else close();
+  }
+
+  /**
+   * Dispatches a complete request to a worker thread.
+   * @return {@code true} if a request was dispatched
+   */
+  private boolean dispatch() {
+    if(buffer == null || !complete()) return false;
+    final byte[] data = buffer.toArray();
+    if(pos == data.length) {
+      request = data;
+      buffer = null;
+    } else {
+      request = Arrays.copyOf(data, pos);
+      buffer = new ByteList(data.length - pos).add(data, pos, data.length);
+    }
+    pos = 0;
+    workers.execute(this);
+    return true;
+  }
+
+  /**
+   * Scans the buffered bytes and checks if the current request is complete.
+   * @return result of check
+   */
+  private boolean complete() {
+    final int size = buffer.size();
+    for(; pos < size; pos++) {
+      final int b = buffer.get(pos) & 0xFF;
+      if(rid) {
+        // request id of a pipelined request: {ID}0
+        if(b == 0) rid = false;
+        continue;
+      }
+      if(args == 0) {
+        // start of a request: {USER}0{PASSWORD}0, or control byte and arguments
+        if(login) {
+          args = 2;
+          input = false;
+        } else {
+          final ServerCmd sc = ServerCmd.get(b);
+          args = sc.args();
+          input = sc.input();
+          if(sc == ServerCmd.PIPELINE) pipeline = true;
+          if(args == 0) return next();
+          if(sc != ServerCmd.COMMAND) continue;
+        }
+      }
+      if(esc) {
+        esc = false;
+      } else if(input && args == 1 && b == 0xFF) {
+        esc = true;
+      } else if(b == 0 && --args == 0) {
+        return next();
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finishes the scan of a complete request.
+   * @return {@code true}
+   */
+  private boolean next() {
+    pos++;
+    rid = pipeline;
+    return true;
+  }
+
+  /**
+   * Waits until bytes can be written to the channel. The selector is opened
+   * once and reused for all further writes to this channel.
+   * @throws IOException I/O exception
+   */
+  private void await() throws IOException {
+    Selector s = writer;
+    if(s == null) {
+      s = Selector.open();
+      try {
+        channel.register(s, SelectionKey.OP_WRITE);
+      } catch(final IOException ex) {
+        s.close();
+        throw ex;
+      }
+      writer = s;
+      // channel may have been closed in the meantime
+      if(!channel.isOpen()) s.close();
+    }
+    try {
+      s.select(1000);
+      s.selectedKeys().clear();
+    } catch(final ClosedSelectorException ex) {
+      throw new ClosedChannelException();
+    }
+  }
+
+  /**
+   * Closes the channel.
+   */
+  private void close() {
+    try {
+      channel.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    final Selector s = writer;
+    if(s == null) return;
+    try {
+      s.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
+}
@@ -25,10 +25,10 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class ClientListener extends Thread {
-  /** Timer for authentication time out. */
-  public final Timer auth = new Timer();
+  /** Authentication time out (may be {@code null}). */
+  public TimerTask auth;
   /** Timestamp of last interaction. */
-  public long last;
+  public volatile long last;
 
   /** Active queries. */
   private final HashMap<String, QueryListener> queries =
@@ -54,10 +54,14 @@ public final class ClientListener extends Thread {
   private PrintOutput out;
   /** Current command. */
   private Command command;
+  /** Timestamp, which is sent to the client for authentication. */
+  private String ts;
   /** Query id counter. */
   private int id;
   /** Indicates if the server thread is running. */
   private boolean running;
+  /** Flag for pipelined requests (see {@link ServerCmd#PIPELINE}). */
+  private boolean pipeline;
 
   /**
    * Constructor.
@@ -77,89 +81,22 @@ public final class ClientListener extends Thread {
   public void run() {
     if(!authenticate()) return;
 
-    ServerCmd sc = null;
-    String cmd = null;
     try {
       while(running) {
-        command = null;
+        final int b;
         try {
-          final int b = in.read();
-          if(b == -1) {
-            // end of stream: exit session
-            quit();
-            break;
-          }
-
-          last = System.currentTimeMillis();
-          perf.time();
-          sc = ServerCmd.get(b);
-          cmd = null;
-          if(sc == ServerCmd.CREATE) {
-            create();
-          } else if(sc == ServerCmd.ADD) {
-            add();
-          } else if(sc == ServerCmd.WATCH) {
-            watch();
-          } else if(sc == ServerCmd.UNWATCH) {
-            unwatch();
-          } else if(sc == ServerCmd.REPLACE) {
-            replace();
-          } else if(sc == ServerCmd.STORE) {
-            store();
-          } else if(sc != ServerCmd.COMMAND) {
-            query(sc);
-          } else {
-            // database command
-            cmd = new ByteList().add(b).add(in.readBytes()).toString();
-          }
+          b = in.read();
         } catch(final IOException ex) {
           // this exception may be thrown if a session is stopped
           quit();
           break;
         }
-        if(sc != ServerCmd.COMMAND) continue;
-
-        // parse input and create command instance
-        try {
-          command = new CommandParser(cmd, context).parseSingle();
-          log(command, null);
-        } catch(final QueryException ex) {
-          // log invalid command
-          final String msg = ex.getMessage();
-          log(cmd, null);
-          log(msg, false);
-          // send 0 to mark end of potential result
-          out.write(0);
-          // send {INFO}0
-          out.writeString(msg);
-          // send 1 to mark error
-          send(false);
-          continue;
-        }
-
-        // execute command and send {RESULT}
-        boolean ok = true;
-        String info;
-        try {
-          // run command
-          command.execute(context, new EncodingOutput(out));
-          info = command.info();
-        } catch(final BaseXException ex) {
-          ok = false;
-          info = ex.getMessage();
-          if(info.startsWith(INTERRUPTED)) info = TIMEOUT_EXCEEDED;
-        }
-
-        // send 0 to mark end of result
-        out.write(0);
-        // send info
-        info(info, ok);
-
-        // stop console
-        if(command instanceof Exit) {
-          command = null;
+        if(b == -1) {
+          // end of stream: exit session
           quit();
+          break;
         }
+        process(b);
       }
     } catch(final IOException ex) {
       log(ex, false);
@@ -170,22 +107,194 @@ public final class ClientListener extends Thread {
     command = null;
   }
 
+  /**
+   * Initializes a session, the requests of which will be read by a non-blocking
+   * front end (see {@link ClientSelector}), and sends the timestamp for authentication.
+   * @param os output stream
+   * @throws IOException I/O exception
+   */
+  void init(final OutputStream os) throws IOException {
+    out = PrintOutput.get(os);
+    challenge();
+  }
+
+  /**
+   * Processes a complete request that has been read by a non-blocking front end.
+   * The first request contains the login data.
+   * @param req request ({@code null} if the end of the stream has been reached)
+   * @param login login flag
+   * @return {@code false} if the session has been closed
+   */
+  boolean request(final byte[] req, final boolean login) {
+    if(req == null) {
+      // end of stream: exit session
+      if(login) server.remove(this);
+      quit();
+      return false;
+    }
+    in = new ArrayInput(req);
+    if(login) return authenticate();
+    try {
+      process(in.read());
+    } catch(final IOException ex) {
+      log(ex, false);
+      Util.debug(ex);
+      command = null;
+      quit();
+    }
+    return running;
+  }
+
+  /**
+   * Processes a single request.
+   * @param b first byte of the request
+   * @throws IOException I/O exception
+   */
+  private void process(final int b) throws IOException {
+    if(pipeline) pipelined(b);
+    else serve(b);
+  }
+
+  /**
+   * Processes a pipelined request: {ID}0 and the request. The response is cached
+   * and sent as {ID}0{LENGTH}0{RESPONSE}, so that clients can assign it to the
+   * request.
+   * @param b first byte of the request
+   * @throws IOException I/O exception
+   */
+  private void pipelined(final int b) throws IOException {
+    final ByteList rid = new ByteList();
+    if(b != 0) rid.add(b).add(in.readBytes());
+    final int c = in.read();
+    if(c == -1) {
+      quit();
+      return;
+    }
+
+    final PrintOutput po = out;
+    final ArrayOutput ao = new ArrayOutput();
+    out = ao;
+    try {
+      serve(c);
+    } finally {
+      out = po;
+    }
+    if(!running) return;
+
+    out.write(rid.toArray());
+    out.write(0);
+    out.writeString(Long.toString(ao.size()));
+    out.write(ao.toArray());
+    out.flush();
+  }
+
+  /**
+   * Serves a single request.
+   * @param b first byte of the request
+   * @throws IOException I/O exception
+   */
+  private void serve(final int b) throws IOException {
+    command = null;
+    final ServerCmd sc = ServerCmd.get(b);
+    String cmd = null;
+    try {
+      last = System.currentTimeMillis();
+      perf.time();
+      if(sc == ServerCmd.CREATE) {
+        create();
+      } else if(sc == ServerCmd.ADD) {
+        add();
+      } else if(sc == ServerCmd.WATCH) {
+        watch();
+      } else if(sc == ServerCmd.UNWATCH) {
+        unwatch();
+      } else if(sc == ServerCmd.REPLACE) {
+        replace();
+      } else if(sc == ServerCmd.STORE) {
+        store();
+      } else if(sc == ServerCmd.PIPELINE) {
+        pipeline = true;
+        send(true);
+      } else if(sc != ServerCmd.COMMAND) {
+        query(sc);
+      } else {
+        // database command
+        cmd = new ByteList().add(b).add(in.readBytes()).toString();
+      }
+    } catch(final IOException ex) {
+      // this exception may be thrown if a session is stopped
+      quit();
+      return;
+    }
+    if(sc != ServerCmd.COMMAND) return;
+
+    // parse input and create command instance
+    try {
+      command = new CommandParser(cmd, context).parseSingle();
+      log(command, null);
+    } catch(final QueryException ex) {
+      // log invalid command
+      final String msg = ex.getMessage();
+      log(cmd, null);
+      log(msg, false);
+      // send 0 to mark end of potential result
+      out.write(0);
+      // send {INFO}0
+      out.writeString(msg);
+      // send 1 to mark error
+      send(false);
+      return;
+    }
+
+    // execute command and send {RESULT}
+    boolean ok = true;
+    String info;
+    try {
+      // run command
+      command.execute(context, new EncodingOutput(out));
+      info = command.info();
+    } catch(final BaseXException ex) {
+      ok = false;
+      info = ex.getMessage();
+      if(info.startsWith(INTERRUPTED)) info = TIMEOUT_EXCEEDED;
+    }
+
+    // send 0 to mark end of result
+    out.write(0);
+    // send info
+    info(info, ok);
+
+    // stop console
+    final boolean exit = command instanceof Exit;
+    command = null;
+    if(exit) quit();
+  }
+
+  /**
+   * Sends the timestamp for authentication.
+   * @throws IOException I/O exception
+   */
+  private void challenge() throws IOException {
+    ts = Long.toString(System.nanoTime());
+    // send {TIMESTAMP}0
+    out.print(ts);
+    send(true);
+  }
+
   /**
    * Initializes a session via cram-md5.
    * @return success flag
    */
   private boolean authenticate() {
     try {
-      final String ts = Long.toString(System.nanoTime());
       final byte[] address = socket.getInetAddress().getAddress();
-
-      // send {TIMESTAMP}0
-      out = PrintOutput.get(socket.getOutputStream());
-      out.print(ts);
-      send(true);
+      if(ts == null) {
+        out = PrintOutput.get(socket.getOutputStream());
+        challenge();
+        in = new BufferInput(socket.getInputStream());
+      }
 
       // evaluate login data
-      in = new BufferInput(socket.getInputStream());
       // receive {USER}0{PASSWORD}0
       final String us = in.readString();
       final String pw = in.readString();
@@ -486,11 +595,13 @@ public final class ClientListener extends Thread {
           info.append(val);
           if(!typ.isEmpty()) info.append(" as ").append(typ);
         } else if(sc == ServerCmd.ITER) {
-          qp.execute(true, out, true, false);
+          qp.execute(true, out, true, false, false);
+        } else if(sc == ServerCmd.STREAM) {
+          qp.execute(true, out, false, false, true);
         } else if(sc == ServerCmd.EXEC) {
-          qp.execute(false, out, true, false);
+          qp.execute(false, out, true, false, false);
         } else if(sc == ServerCmd.FULL) {
-          qp.execute(true, out, true, true);
+          qp.execute(true, out, true, true, false);
         } else if(sc == ServerCmd.INFO) {
           out.print(qp.info());
         } else if(sc == ServerCmd.OPTIONS) {
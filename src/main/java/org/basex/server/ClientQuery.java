@@ -1,14 +1,19 @@
 package org.basex.server;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
+import org.basex.io.*;
 import org.basex.io.in.*;
+import org.basex.util.list.*;
 
 /**
  * This class defines all methods for iteratively evaluating queries with the
  * client/server architecture. All sent data is received by the
  * {@link ClientListener} and interpreted by the {@link QueryListener}.
+ * Requests can be pipelined via the asynchronous methods (see
+ * {@link ClientSession#pipeline}), and results can be streamed (see {@link #stream}).
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
@@ -19,6 +24,13 @@ public class ClientQuery extends Query {
   /** Query id. */
   protected final String id;
 
+  /** Streaming flag. */
+  private boolean stream;
+  /** Input of the streamed result ({@code null} if no result is being streamed). */
+  private BufferInput input;
+  /** Error message of a streamed result. */
+  private String error;
+
   /**
    * Standard constructor.
    * @param query query to be run
@@ -34,6 +46,47 @@ public class ClientQuery extends Query {
     out = os;
   }
 
+  /**
+   * Enables or disables the streaming of results. If enabled, the server sends each
+   * item as soon as it has been serialized, and {@link #more} and {@link #next} read
+   * the items one by one. As the server stops evaluating the query if the client does
+   * not consume the items, the result will never be completely held in memory.
+   * If another request is sent via the same session before all items have been
+   * read, the remaining items will be cached. Results will not be streamed if
+   * requests are pipelined.
+   * @param s streaming flag
+   */
+  public void stream(final boolean s) {
+    stream = s;
+  }
+
+  @Override
+  public boolean more() throws IOException {
+    if(cache == null && stream) {
+      input = cs.stream(this);
+      if(input != null) {
+        cache = new TokenList();
+        types = new ByteList();
+        pos = 0;
+      }
+    }
+    if(input != null && pos == cache.size()) {
+      // all items have been consumed: read next item
+      cache.reset();
+      types.reset();
+      pos = 0;
+      if(!item()) finish();
+    }
+    if(error != null && pos == cache.size()) {
+      final String err = error;
+      error = null;
+      cache = null;
+      types = null;
+      throw new BaseXException(err);
+    }
+    return super.more();
+  }
+
   @Override
   public String info() throws IOException {
     return cs.exec(ServerCmd.INFO, id, null);
@@ -51,7 +104,21 @@ public class ClientQuery extends Query {
 
   @Override
   public void bind(final String n, final Object v, final String t) throws IOException {
-    cs.exec(ServerCmd.BIND, id + '\0' + n + '\0' + v + '\0' + (t == null ? "" : t), null);
+    cs.exec(ServerCmd.BIND, binding(n, v, t), null);
+  }
+
+  /**
+   * Binds a value with an optional type to an external variable without waiting
+   * for the response. The request is pipelined.
+   * @param n name of variable
+   * @param v value to be bound
+   * @param t type
+   * @return future result
+   * @throws IOException I/O exception
+   */
+  public Future<String> bindAsync(final String n, final Object v, final String t)
+      throws IOException {
+    return cs.execAsync(ServerCmd.BIND, binding(n, v, t), null);
   }
 
   @Override
@@ -64,6 +131,15 @@ public class ClientQuery extends Query {
     return cs.exec(ServerCmd.EXEC, id, out);
   }
 
+  /**
+   * Executes the query without waiting for the response. The request is pipelined.
+   * @return future result
+   * @throws IOException I/O exception
+   */
+  public Future<String> executeAsync() throws IOException {
+    return cs.execAsync(ServerCmd.EXEC, id, out);
+  }
+
   @Override
   public void close() throws IOException {
     cs.exec(ServerCmd.CLOSE, id, null);
@@ -71,11 +147,62 @@ public class ClientQuery extends Query {
 
   @Override
   protected void cache() throws IOException {
-    cs.sout.write(ServerCmd.ITER.code);
-    cs.send(id);
-    cs.sout.flush();
-    final BufferInput bi = new BufferInput(cs.sin);
-    cache(bi);
-    if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+    cs.request(new ClientSession.Request<Object>(ServerCmd.ITER, null, id) {
+      @Override
+      protected Object read(final BufferInput bi) throws IOException {
+        cache(bi);
+        if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+        return null;
+      }
+    });
+  }
+
+  /**
+   * Caches the remaining items of a streamed result.
+   * @throws IOException I/O exception
+   */
+  void drain() throws IOException {
+    while(item());
+    finish();
+  }
+
+  /**
+   * Reads the next item of a streamed result.
+   * @return {@code false} if all items have been read
+   * @throws IOException I/O exception
+   */
+  private boolean item() throws IOException {
+    final int t = input.read();
+    if(t <= 0) return false;
+    final ByteList bl = new ByteList();
+    final ChunkInput ci = new ChunkInput(input);
+    final byte[] b = new byte[IO.BLOCKSIZE];
+    for(int l; (l = ci.read(b, 0, b.length)) != -1;) bl.add(b, 0, l);
+    // discard an aborted item: the end marker and the error will follow
+    if(ci.aborted()) return item();
+    cache.add(bl.toArray());
+    types.add(t);
+    return true;
+  }
+
+  /**
+   * Finishes a streamed result by reading the success flag.
+   * @throws IOException I/O exception
+   */
+  private void finish() throws IOException {
+    if(!ClientSession.ok(input)) error = input.readString();
+    input = null;
+    cs.streamed = null;
+  }
+
+  /**
+   * Returns the argument for binding a variable.
+   * @param n name of variable
+   * @param v value to be bound
+   * @param t type
+   * @return argument
+   */
+  private String binding(final String n, final Object v, final String t) {
+    return id + '\0' + n + '\0' + v + '\0' + (t == null ? "" : t);
   }
 }
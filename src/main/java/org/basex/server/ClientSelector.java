@@ -0,0 +1,131 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.util.*;
+
+/**
+ * Non-blocking front end of the database server. The connections of the clients
+ * are distributed to a small number of selector threads, which read the incoming
+ * requests. Complete requests are processed by a bounded pool of worker threads.
+ * As a result, idle sessions will not occupy a thread.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelector {
+  /** Worker threads. */
+  final ExecutorService workers;
+  /** Selector threads. */
+  private final Loop[] loops;
+  /** Index of the next selector thread. */
+  private int next;
+
+  /**
+   * Constructor, starting the threads.
+   * @param sel number of selector threads
+   * @param work number of worker threads
+   * @throws IOException I/O exception
+   */
+  public ClientSelector(final int sel, final int work) throws IOException {
+    workers = Executors.newFixedThreadPool(Math.max(1, work), new ThreadFactory() {
+      @Override
+      public Thread newThread(final Runnable r) {
+        final Thread t = new Thread(r);
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    loops = new Loop[Math.max(1, sel)];
+    for(int l = 0; l < loops.length; l++) {
+      loops[l] = new Loop();
+      loops[l].start();
+    }
+  }
+
+  /**
+   * Adds a new client connection and sends the timestamp for authentication.
+   * @param client client
+   * @param channel socket channel
+   * @throws IOException I/O exception
+   */
+  public synchronized void add(final ClientListener client, final SocketChannel channel)
+      throws IOException {
+
+    channel.configureBlocking(false);
+    final Loop loop = loops[next++ % loops.length];
+    final ClientChannel cc = new ClientChannel(client, channel, loop, workers);
+    client.init(cc.output());
+    loop.resume(cc);
+  }
+
+  /**
+   * Stops all threads.
+   */
+  public void close() {
+    for(final Loop loop : loops) {
+      try {
+        loop.selector.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    workers.shutdownNow();
+  }
+
+  /**
+   * Selector thread, which reads the incoming bytes of its client connections.
+   */
+  final class Loop extends Thread {
+    /** Selector. */
+    final Selector selector;
+    /** Read buffer. */
+    final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    /** Connections that will be registered or resumed. */
+    private final ConcurrentLinkedQueue<ClientChannel> queue =
+        new ConcurrentLinkedQueue<ClientChannel>();
+
+    /**
+     * Constructor.
+     * @throws IOException I/O exception
+     */
+    Loop() throws IOException {
+      selector = Selector.open();
+      setDaemon(true);
+    }
+
+    /**
+     * Registers a connection, or resumes reading bytes after a request has been
+     * processed. This method can be called by any thread.
+     * @param cc connection
+     */
+    void resume(final ClientChannel cc) {
+      queue.add(cc);
+      selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+      while(selector.isOpen()) {
+        try {
+          selector.select();
+          for(ClientChannel cc; (cc = queue.poll()) != null;) cc.resume(selector);
+          final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+          while(it.hasNext()) {
+            final SelectionKey key = it.next();
+            it.remove();
+            if(key.isValid()) ((ClientChannel) key.attachment()).read(buffer);
+          }
+        } catch(final ClosedSelectorException ex) {
+          break;
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+      }
+    }
+  }
+}
@@ -3,12 +3,14 @@ package org.basex.server;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.Commands.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class offers methods to execute database commands via the
@@ -25,11 +27,18 @@ import org.basex.util.*;
  * <li> {@link #close} closes the session by sending the {@link Cmd#EXIT}
  * command to the server.</li>
  * </ul>
+ * <p>If {@link #pipeline} is called, requests are sent with ids, and the responses
+ * are received by a separate thread. Many requests can then be sent over the
+ * same connection without waiting for the previous responses, and their results
+ * can be requested via {@link Future} instances (see e.g. {@link #executeAsync}).
+ * </p>
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public class ClientSession extends Session {
+  /** Error message for events in the pipelined mode. */
+  private static final String EVENTS = "Events cannot be watched in the pipelined mode.";
   /** Event notifications. */
   protected final Map<String, EventNotifier> notifiers =
     Collections.synchronizedMap(new HashMap<String, EventNotifier>());
@@ -45,6 +54,17 @@ public class ClientSession extends Session {
   /** Socket event reference. */
   private Socket esocket;
 
+  /** Pending responses of pipelined requests, indexed by their ids. */
+  private final Map<String, Response<?>> responses = new HashMap<String, Response<?>>();
+  /** Id of the next pipelined request. */
+  private int rid;
+  /** Pipelining flag. */
+  private volatile boolean pipelined;
+  /** Indicates if no more responses can be received. */
+  private boolean closed;
+  /** Query, the result of which is currently being streamed (may be {@code null}). */
+  ClientQuery streamed;
+
   /**
    * Constructor, specifying login data.
    * @param context database context
@@ -124,6 +144,50 @@ public class ClientSession extends Session {
     if(!ok(bi)) throw new LoginException();
   }
 
+  /**
+   * Switches to the pipelined mode (see {@link ServerCmd#PIPELINE}). All subsequent
+   * requests will be sent with ids, and their responses will be received by a
+   * separate thread. The method is implicitly called by the asynchronous methods.
+   * @throws IOException I/O exception
+   */
+  public synchronized void pipeline() throws IOException {
+    if(pipelined) return;
+    unstream();
+    sout.write(ServerCmd.PIPELINE.code);
+    sout.flush();
+    final BufferInput bi = new BufferInput(sin);
+    if(!ok(bi)) throw new BaseXException(bi.readString());
+    pipelined = true;
+
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        responses(bi);
+      }
+    };
+    t.setDaemon(true);
+    t.start();
+  }
+
+  /**
+   * Sends a command without waiting for the response. The request is pipelined.
+   * @param command command to be parsed
+   * @return future result, or {@code null} reference if the result is
+   * serialized to the output stream of the session
+   * @throws IOException I/O exception
+   */
+  public Future<String> executeAsync(final String command) throws IOException {
+    final OutputStream os = out;
+    return submit(new Request<String>(null, null, command) {
+      @Override
+      protected String read(final BufferInput bi) throws IOException {
+        final ArrayOutput ao = os == null ? new ArrayOutput() : null;
+        receive(bi, ao != null ? ao : os, true);
+        return ao != null ? ao.toString() : null;
+      }
+    });
+  }
+
   @Override
   public void create(final String name, final InputStream input) throws IOException {
     send(ServerCmd.CREATE, input, name);
@@ -157,9 +221,13 @@ public class ClientSession extends Session {
 
   @Override
   protected void execute(final String cmd, final OutputStream os) throws IOException {
-    send(cmd);
-    sout.flush();
-    receive(os);
+    request(new Request<Object>(null, null, cmd) {
+      @Override
+      protected Object read(final BufferInput bi) throws IOException {
+        receive(bi, os, true);
+        return null;
+      }
+    });
   }
 
   @Override
@@ -176,6 +244,8 @@ public class ClientSession extends Session {
   public void watch(final String name, final EventNotifier notifier)
       throws IOException {
 
+    if(pipelined) throw new BaseXException(EVENTS);
+    unstream();
     sout.write(ServerCmd.WATCH.code);
     if(esocket == null) {
       sout.flush();
@@ -194,7 +264,7 @@ public class ClientSession extends Session {
     }
     send(name);
     sout.flush();
-    receive(null);
+    receive(new BufferInput(sin), null, true);
     notifiers.put(name, notifier);
   }
 
@@ -204,10 +274,12 @@ public class ClientSession extends Session {
    * @throws IOException I/O exception
    */
   public void unwatch(final String name) throws IOException {
+    if(pipelined) throw new BaseXException(EVENTS);
+    unstream();
     sout.write(ServerCmd.UNWATCH.code);
     send(name);
     sout.flush();
-    receive(null);
+    receive(new BufferInput(sin), null, true);
     notifiers.remove(name);
   }
 
@@ -234,29 +306,139 @@ public class ClientSession extends Session {
   }
 
   /**
-   * Sends the specified stream to the server.
-   * @param input input stream
+   * Receives the responses of pipelined requests, until the connection is closed.
+   * @param bi buffered server input
+   */
+  void responses(final BufferInput bi) {
+    try {
+      for(int b; (b = bi.read()) != -1;) {
+        // receive {ID}0{LENGTH}0{RESPONSE}
+        final ByteList id = new ByteList();
+        if(b != 0) id.add(b).add(bi.readBytes());
+        final int l = Integer.parseInt(bi.readString());
+        final byte[] data = new byte[l];
+        for(int d = 0; d < l; d++) {
+          final int c = bi.read();
+          if(c == -1) throw new EOFException();
+          data[d] = (byte) c;
+        }
+        final Response<?> r;
+        synchronized(responses) {
+          r = responses.remove(id.toString());
+        }
+        if(r != null) r.done(data);
+      }
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    } catch(final NumberFormatException ex) {
+      Util.debug(ex);
+    }
+    // no more responses will be received
+    synchronized(responses) {
+      closed = true;
+      for(final Response<?> r : responses.values()) r.fail();
+      responses.clear();
+    }
+  }
+
+  /**
+   * Sends a request and returns its result. If requests are pipelined, the method
+   * waits until the response has been received.
+   * @param req request
+   * @param <T> result type
+   * @return result
    * @throws IOException I/O exception
    */
-  private void send(final InputStream input) throws IOException {
-    final EncodingOutput eo = new EncodingOutput(sout);
-    for(int b; (b = input.read()) != -1;) eo.write(b);
-    sout.write(0);
+  protected final <T> T request(final Request<T> req) throws IOException {
+    if(pipelined) return result(submit(req));
+    unstream();
+    req.write(this);
     sout.flush();
-    receive(null);
+    return req.read(new BufferInput(sin));
+  }
+
+  /**
+   * Requests the result of a query, the items of which will be streamed in chunks
+   * (see {@link ServerCmd#STREAM}). Results cannot be streamed in the pipelined mode.
+   * @param cq client query
+   * @return input for the streamed result, or {@code null} if requests are pipelined
+   * @throws IOException I/O exception
+   */
+  BufferInput stream(final ClientQuery cq) throws IOException {
+    if(pipelined) return null;
+    unstream();
+    sout.write(ServerCmd.STREAM.code);
+    send(cq.id);
+    sout.flush();
+    streamed = cq;
+    return new BufferInput(sin);
+  }
+
+  /**
+   * Caches the remaining items of a streamed result, so that a new request can be sent.
+   * @throws IOException I/O exception
+   */
+  private void unstream() throws IOException {
+    if(streamed != null) streamed.drain();
+  }
+
+  /**
+   * Sends a pipelined request without waiting for the response.
+   * @param req request
+   * @param <T> result type
+   * @return future result
+   * @throws IOException I/O exception
+   */
+  protected final <T> Future<T> submit(final Request<T> req) throws IOException {
+    pipeline();
+    final Response<T> r = new Response<T>(req);
+    synchronized(sout) {
+      final String id = Integer.toString(rid++);
+      synchronized(responses) {
+        if(closed) throw new BaseXException(Text.CONNECTION_ERROR);
+        responses.put(id, r);
+      }
+      send(id);
+      req.write(this);
+      sout.flush();
+    }
+    return r;
   }
 
   /**
-   * Receives the info string.
+   * Waits for the result of a pipelined request.
+   * @param f future result
+   * @param <T> result type
+   * @return result
+   * @throws IOException I/O exception
+   */
+  protected static <T> T result(final Future<T> f) throws IOException {
+    try {
+      return f.get();
+    } catch(final InterruptedException ex) {
+      throw new BaseXException(ex);
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof IOException) throw (IOException) th;
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      throw new BaseXException(Util.message(th));
+    }
+  }
+
+  /**
+   * Receives the result and the info string.
+   * @param bi buffered server input
    * @param os output stream to send result to. If {@code null}, no result
    *           will be requested
+   * @param cmd command flag (the info string will be assigned to the session)
    * @throws IOException I/O exception
    */
-  private void receive(final OutputStream os) throws IOException {
-    final BufferInput bi = new BufferInput(sin);
+  void receive(final BufferInput bi, final OutputStream os, final boolean cmd)
+      throws IOException {
     if(os != null) receive(bi, os);
-    info = bi.readString();
-    if(!ok(bi)) throw new BaseXException(info);
+    final String inf = bi.readString();
+    if(cmd) info = inf;
+    if(!ok(bi)) throw new BaseXException(inf);
   }
 
   /**
@@ -279,9 +461,13 @@ public class ClientSession extends Session {
   protected void send(final ServerCmd cmd, final InputStream input,
       final String... strings) throws IOException {
 
-    sout.write(cmd.code);
-    for(final String s : strings) send(s);
-    send(input);
+    request(new Request<Object>(cmd, input, strings) {
+      @Override
+      protected Object read(final BufferInput bi) throws IOException {
+        receive(bi, null, true);
+        return null;
+      }
+    });
   }
 
   /**
@@ -316,19 +502,142 @@ public class ClientSession extends Session {
    */
   protected String exec(final ServerCmd cmd, final String arg, final OutputStream os)
       throws IOException {
+    return request(new Exec(cmd, arg, os));
+  }
 
-    final OutputStream o = os == null ? new ArrayOutput() : os;
-    sout.write(cmd.code);
-    send(arg);
-    sout.flush();
-    final BufferInput bi = new BufferInput(sin);
-    ClientSession.receive(bi, o);
-    if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
-    return o.toString();
+  /**
+   * Sends a pipelined server command without waiting for the response.
+   * @param cmd server command
+   * @param arg argument
+   * @param os target output stream
+   * @return future result
+   * @throws IOException I/O exception
+   */
+  protected Future<String> execAsync(final ServerCmd cmd, final String arg,
+      final OutputStream os) throws IOException {
+    return submit(new Exec(cmd, arg, os));
   }
 
   @Override
   public String toString() {
      return ehost + ':' + socket.getPort();
   }
+
+  /**
+   * Request to the server, consisting of an optional control byte, string arguments
+   * and an optional input stream.
+   * @param <T> result type
+   */
+  protected abstract static class Request<T> implements Callable<T> {
+    /** Server command ({@code null} for database commands). */
+    private final ServerCmd cmd;
+    /** Input stream (may be {@code null}). */
+    private final InputStream input;
+    /** String arguments. */
+    private final String[] strings;
+    /** Response of a pipelined request. */
+    private BufferInput response;
+
+    /**
+     * Constructor.
+     * @param sc server command ({@code null} for database commands)
+     * @param in input stream (may be {@code null})
+     * @param args string arguments
+     */
+    protected Request(final ServerCmd sc, final InputStream in, final String... args) {
+      cmd = sc;
+      input = in;
+      strings = args;
+    }
+
+    /**
+     * Writes the request.
+     * @param cs client session
+     * @throws IOException I/O exception
+     */
+    final void write(final ClientSession cs) throws IOException {
+      if(cmd != null) cs.sout.write(cmd.code);
+      for(final String s : strings) cs.send(s);
+      if(input != null) {
+        final EncodingOutput eo = new EncodingOutput(cs.sout);
+        for(int b; (b = input.read()) != -1;) eo.write(b);
+        cs.sout.write(0);
+      }
+    }
+
+    /**
+     * Reads the response and returns the result.
+     * @param bi buffered response
+     * @return result
+     * @throws IOException I/O exception
+     */
+    protected abstract T read(final BufferInput bi) throws IOException;
+
+    @Override
+    public final T call() throws IOException {
+      return read(response);
+    }
+  }
+
+  /**
+   * Future result of a pipelined request. The response is parsed by the thread
+   * that receives it.
+   * @param <T> result type
+   */
+  private static final class Response<T> extends FutureTask<T> {
+    /** Request. */
+    private final Request<T> request;
+
+    /**
+     * Constructor.
+     * @param req request
+     */
+    Response(final Request<T> req) {
+      super(req);
+      request = req;
+    }
+
+    /**
+     * Parses the received response.
+     * @param data response
+     */
+    void done(final byte[] data) {
+      request.response = new ArrayInput(data);
+      run();
+    }
+
+    /**
+     * Indicates that no response will be received.
+     */
+    void fail() {
+      setException(new BaseXException(Text.CONNECTION_ERROR));
+    }
+  }
+
+  /**
+   * Request of a server command, which returns a result string.
+   */
+  private static final class Exec extends Request<String> {
+    /** Target output stream. */
+    private final OutputStream out;
+
+    /**
+     * Constructor.
+     * @param sc server command
+     * @param arg argument
+     * @param os target output stream (may be {@code null})
+     */
+    Exec(final ServerCmd sc, final String arg, final OutputStream os) {
+      super(sc, null, arg);
+      out = os;
+    }
+
+    @Override
+    protected String read(final BufferInput bi) throws IOException {
+      final OutputStream o = out == null ? new ArrayOutput() : out;
+      receive(bi, o);
+      if(!ok(bi)) throw new BaseXException(bi.readString());
+      return o.toString();
+    }
+  }
 }
@@ -43,14 +43,14 @@ public class LocalQuery extends Query {
   @Override
   protected void cache() throws IOException {
     final ArrayOutput ao = new ArrayOutput();
-    ql.execute(true, ao, true, false);
+    ql.execute(true, ao, true, false, false);
     cache(new ArrayInput(ao.toArray()));
   }
 
   @Override
   public String execute() throws IOException {
     final OutputStream os = out == null ? new ArrayOutput() : out;
-    ql.execute(false, os, false, false);
+    ql.execute(false, os, false, false, false);
     return out == null ? os.toString() : null;
   }
 
@@ -5,9 +5,12 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
 
 import org.basex.core.*;
 import org.basex.io.*;
+import org.basex.io.out.*;
 import org.basex.util.*;
 
 /**
@@ -22,6 +25,14 @@ import org.basex.util.*;
  *   <li><b>Performance</b>: Measured time in milliseconds</li>
  * </ul>
  *
+ * <p>Entries are added to a lock-free ring buffer and written by a background
+ * thread, which is started with the first entry. The thread writes the queued entries
+ * in batches and flushes the file if its buffer is full or if no entries have been
+ * flushed for a while. It is stopped by {@link #close}, if logging is disabled, or by
+ * a shutdown hook if the JVM exits. If the buffer is full, new entries are dropped,
+ * and the number of dropped entries is logged as soon as the buffer has been
+ * drained.</p>
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
@@ -33,12 +44,28 @@ public final class Log {
   /** REQUEST string. */
   public static final String REQUEST = "REQUEST";
 
+  /** Capacity of the ring buffer (must be a power of two). */
+  private static final int CAPACITY = 1 << 14;
+  /** Number of queued entries after which the writer thread is woken up. */
+  private static final int BATCH = 256;
+  /** Size of the file buffer. */
+  private static final int BUFFER = 1 << 16;
+  /** Maximum time (in milliseconds) after which written entries are flushed. */
+  private static final long INTERVAL = 100;
+
   /** Main properties. */
   private final MainProp mprop;
-  /** Start date of log. */
-  private String start;
-  /** Output stream. */
-  private FileOutputStream fos;
+  /** Queued entries: timestamp and strings. */
+  private final AtomicReferenceArray<Object[]> ring =
+      new AtomicReferenceArray<Object[]>(CAPACITY);
+  /** Number of entries that have been added to the ring buffer. */
+  private final AtomicLong head = new AtomicLong();
+  /** Number of entries that have been removed from the ring buffer. */
+  private volatile long tail;
+  /** Number of dropped entries. */
+  private final AtomicLong dropped = new AtomicLong();
+  /** Writer thread ({@code null} if no thread is running). */
+  private volatile LogWriter writer;
 
   /**
    * Constructor.
@@ -52,7 +79,7 @@ public final class Log {
    * Writes an error to the log file.
    * @param th throwable
    */
-  public synchronized void writeError(final Throwable th) {
+  public void writeError(final Throwable th) {
     Util.debug(th);
     writeServer(ERROR, Util.bug(th));
   }
@@ -61,7 +88,7 @@ public final class Log {
    * Writes a server entry to the log file.
    * @param str strings to be written
    */
-  public synchronized void writeServer(final Object... str) {
+  public void writeServer(final Object... str) {
     final Object[] tmp = new Object[str.length + 2];
     tmp[0] = SERVER;
     tmp[1] = Text.ADMIN;
@@ -70,62 +97,91 @@ public final class Log {
   }
 
   /**
-   * Writes an entry to the log file.
+   * Adds an entry to the log file. The entry will be written by the writer thread.
    * @param str strings to be written
    */
-  public synchronized void write(final Object... str) {
+  public void write(final Object... str) {
     if(!mprop.is(MainProp.LOG)) {
-      close();
+      // logging has been disabled: write queued entries and close the log file
+      if(writer != null) close();
       return;
     }
 
-    // initializes the output stream and returns the current date
-    final Date date = new Date();
-    try {
-      // check if day has changed
-      final String nstart = DateTime.format(date, DateTime.DATE);
-      if(fos != null && !start.equals(nstart)) close();
-
-      // create new log file
-      if(fos == null) {
-        final IOFile dir = dir();
-        dir.md();
-        fos = new FileOutputStream(new IOFile(dir, nstart + IO.LOGSUFFIX).file(), true);
-        start = nstart;
-      }
+    // objects are converted to strings in advance, as their state may change
+    final Object[] entry = new Object[str.length + 1];
+    entry[0] = System.currentTimeMillis();
+    for(int s = 0; s < str.length; s++) {
+      final Object o = str[s];
+      entry[s + 1] = o == null || o instanceof Boolean ? o :
+        o instanceof Throwable ? Util.message((Throwable) o) : o.toString();
+    }
 
-      // construct log text
-      final int ml = mprop.num(MainProp.LOGMSGMAXLEN);
-      final TokenBuilder tb = new TokenBuilder(DateTime.format(date, DateTime.TIME));
-      for(final Object s : str) {
-        tb.add('\t');
-        String st;
-        if(s == null) st = REQUEST;
-        else if(s instanceof Boolean) st = (Boolean) s ? OK : ERROR;
-        else if(s instanceof Throwable) st = Util.message((Throwable) s);
-        else st = s.toString();
-        tb.add(chop(token(st.replaceAll("\\s+", " ").trim()), ml));
+    // claim a slot, or drop the entry if the buffer is full
+    long h;
+    do {
+      h = head.get();
+      if(h - tail >= CAPACITY) {
+        dropped.incrementAndGet();
+        return;
       }
-      tb.add(Prop.NL);
+    } while(!head.compareAndSet(h, h + 1));
+    ring.lazySet((int) h & CAPACITY - 1, entry);
+
+    final LogWriter w = writer;
+    if(w == null) start();
+    else if(h - tail == BATCH) LockSupport.unpark(w);
+  }
+
+  /**
+   * Returns the number of entries that have been queued, but not written yet.
+   * @return number of queued entries
+   */
+  public int queued() {
+    return (int) (head.get() - tail);
+  }
+
+  /**
+   * Returns the number of entries that have been dropped, because the buffer
+   * was full.
+   * @return number of dropped entries
+   */
+  public long dropped() {
+    return dropped.get();
+  }
 
-      // write and flush text
-      fos.write(tb.finish());
-      fos.flush();
-    } catch(final IOException ex) {
-      Util.stack(ex);
+  /**
+   * Writes all queued entries to disk.
+   */
+  public void flush() {
+    final long h = head.get();
+    for(LogWriter w; (w = writer) != null && w.flushed < h && w.isAlive();) {
+      w.sync = true;
+      LockSupport.unpark(w);
+      Performance.sleep(1);
     }
   }
 
   /**
-   * Closes the log file.
+   * Writes all queued entries and closes the log file.
    */
   public synchronized void close() {
-    if(fos == null) return;
+    final LogWriter w = writer;
+    if(w == null) return;
+    writer = null;
+    w.running = false;
+    LockSupport.unpark(w);
     try {
-      fos.close();
-      fos = null;
-    } catch(final IOException ex) {
-      Util.stack(ex);
+      w.join();
+    } catch(final InterruptedException ex) {
+      Util.debug(ex);
+    }
+    if(Thread.currentThread() != w.hook) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(w.hook);
+      } catch(final IllegalStateException ex) {
+        // shutdown is in progress: hook will be run anyway
+        Util.debug(ex);
+      }
     }
   }
 
@@ -133,7 +189,7 @@ public final class Log {
    * Returns a reference to the log directory.
    * @return log directory
    */
-  public synchronized IOFile dir() {
+  public IOFile dir() {
     // log suffix, plural
     return mprop.dbpath(IO.LOGSUFFIX + "s");
   }
@@ -142,7 +198,178 @@ public final class Log {
    * Returns all log files.
    * @return log directory
    */
-  public synchronized IOFile[] files() {
+  public IOFile[] files() {
     return dir().children(".*\\" + IO.LOGSUFFIX);
   }
+
+  /**
+   * Starts the writer thread.
+   */
+  private synchronized void start() {
+    if(writer != null) return;
+    final LogWriter w = new LogWriter();
+    writer = w;
+    w.start();
+    try {
+      Runtime.getRuntime().addShutdownHook(w.hook);
+    } catch(final IllegalStateException ex) {
+      // shutdown is in progress: write queued entries immediately
+      close();
+    }
+  }
+
+  /**
+   * Thread that writes the queued entries to disk.
+   */
+  private final class LogWriter extends Thread {
+    /** Running flag. */
+    volatile boolean running = true;
+    /** Flag for requesting a flush. */
+    volatile boolean sync;
+    /** Number of entries that have been flushed. */
+    volatile long flushed;
+    /** Shutdown hook, which writes the remaining entries if the JVM exits. */
+    final Thread hook = new Thread() {
+      @Override
+      public void run() {
+        Log.this.close();
+      }
+    };
+
+    /** Output stream. */
+    private BufferOutput out;
+    /** Start date of log. */
+    private String start;
+    /** Start of the next day (in milliseconds). */
+    private long next;
+    /** Time of the last flush. */
+    private long last;
+    /** Indicates if entries have been written since the last flush. */
+    private boolean dirty;
+    /** Number of dropped entries that have been reported. */
+    private long reported;
+
+    /**
+     * Constructor.
+     */
+    LogWriter() {
+      super("Log");
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      while(true) {
+        // check flag before draining the buffer, so that no entries will be lost
+        final boolean stop = !running;
+        final int n = drain();
+        final long time = System.currentTimeMillis();
+        if(dirty && (stop || sync || time - last >= INTERVAL)) {
+          try {
+            out.flush();
+          } catch(final IOException ex) {
+            Util.stack(ex);
+          }
+          dirty = false;
+        }
+        if(!dirty) {
+          last = time;
+          flushed = tail;
+          sync = false;
+        }
+        if(stop) break;
+        if(n == 0) LockSupport.parkNanos(INTERVAL * 1000000);
+      }
+      close();
+    }
+
+    /**
+     * Writes all queued entries.
+     * @return number of written entries
+     */
+    private int drain() {
+      int n = 0;
+      final long h = head.get();
+      for(long t = tail; t < h; t++) {
+        final int i = (int) t & CAPACITY - 1;
+        // wait until the entry of a claimed slot is visible
+        Object[] entry;
+        while((entry = ring.get(i)) == null) Thread.yield();
+        ring.lazySet(i, null);
+        tail = t + 1;
+        write(entry);
+        n++;
+      }
+      // report dropped entries
+      final long d = dropped.get();
+      if(d != reported) {
+        write(new Object[] { System.currentTimeMillis(), SERVER, Text.ADMIN, ERROR,
+          d - reported + " log entries were dropped" });
+        reported = d;
+      }
+      return n;
+    }
+
+    /**
+     * Writes a single entry.
+     * @param entry timestamp and strings
+     */
+    private void write(final Object[] entry) {
+      final long time = (Long) entry[0];
+      final Date date = new Date(time);
+      try {
+        // check if day has changed
+        if(time >= next) {
+          close();
+          final Calendar cal = Calendar.getInstance();
+          cal.setTime(date);
+          cal.set(Calendar.HOUR_OF_DAY, 0);
+          cal.set(Calendar.MINUTE, 0);
+          cal.set(Calendar.SECOND, 0);
+          cal.set(Calendar.MILLISECOND, 0);
+          cal.add(Calendar.DATE, 1);
+          next = cal.getTimeInMillis();
+          start = DateTime.format(date, DateTime.DATE);
+        }
+
+        // create new log file
+        if(out == null) {
+          final IOFile dir = dir();
+          dir.md();
+          out = new BufferOutput(new FileOutputStream(
+              new IOFile(dir, start + IO.LOGSUFFIX).file(), true), BUFFER);
+        }
+
+        // construct log text
+        final int ml = mprop.num(MainProp.LOGMSGMAXLEN);
+        final TokenBuilder tb = new TokenBuilder(DateTime.format(date, DateTime.TIME));
+        for(int e = 1; e < entry.length; e++) {
+          final Object s = entry[e];
+          tb.add('\t');
+          final String st = s == null ? REQUEST : s instanceof Boolean ?
+            (Boolean) s ? OK : ERROR : s.toString();
+          tb.add(chop(token(st.replaceAll("\\s+", " ").trim()), ml));
+        }
+        tb.add(Prop.NL);
+        out.write(tb.finish());
+        dirty = true;
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+    }
+
+    /**
+     * Closes the log file.
+     */
+    private void close() {
+      if(out == null) return;
+      try {
+        out.close();
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+      out = null;
+      dirty = false;
+    }
+  }
 }
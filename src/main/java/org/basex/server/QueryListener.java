@@ -110,12 +110,15 @@ final class QueryListener extends Progress {
    * @param out output stream
    * @param enc encode stream
    * @param full return full type information
+   * @param chunks send the items of an iterative evaluation in chunks
+   *   (see {@link ChunkOutput}); the stream will not be encoded
    * @throws IOException I/O Exception
    */
   void execute(final boolean iter, final OutputStream out, final boolean enc,
-      final boolean full) throws IOException {
+      final boolean full, final boolean chunks) throws IOException {
 
     check();
+    final ChunkOutput co = iter && chunks ? new ChunkOutput(out) : null;
     try {
       // parses the query
       init();
@@ -128,29 +131,40 @@ final class QueryListener extends Progress {
         final boolean wrap = !options.get(S_WRAP_PREFIX).isEmpty();
 
         // iterate through results
-        final PrintOutput po = PrintOutput.get(enc ? new EncodingOutput(out) : out);
-        if(iter && wrap) po.write(1);
+        final PrintOutput po = co != null ? co :
+          PrintOutput.get(enc ? new EncodingOutput(out) : out);
+        if(iter && wrap) {
+          if(co != null) co.start((byte) 1);
+          else po.write(1);
+        }
 
         final Serializer ser = Serializer.get(po, full ? null : options);
         int c = 0;
         for(Item it; (it = ir.next()) != null;) {
           if(iter && !wrap) {
-            if(full) {
-              po.write(it.xdmInfo());
-            } else {
-              po.write(it.typeId());
-            }
+            final byte[] type = full ? it.xdmInfo() : new byte[] { (byte) it.typeId() };
+            if(co != null) co.start(type);
+            else po.write(type);
             ser.reset();
           }
           ser.serialize(it);
           if(iter && !wrap) {
-            po.flush();
-            out.write(0);
+            if(co != null) {
+              // send each item as soon as it has been serialized
+              co.finish();
+              out.flush();
+            } else {
+              po.flush();
+              out.write(0);
+            }
           }
           c++;
         }
         ser.close();
-        if(iter && wrap) out.write(0);
+        if(iter && wrap) {
+          if(co != null) co.finish();
+          else out.write(0);
+        }
 
         // generate query info
         final int up = qp.updates();
@@ -169,6 +183,8 @@ final class QueryListener extends Progress {
         ctx.unregister(qp);
       }
     } finally {
+      // abort an item that has been interrupted by an error
+      if(co != null) co.abort();
       // close processor and stop monitoring
       qp.close();
       closed = true;
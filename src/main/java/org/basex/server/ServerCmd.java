@@ -37,6 +37,11 @@ public enum ServerCmd {
   STORE(13),
   /** Code for binding a context item: {id}0{val}0{type}0. */
   CONTEXT(14),
+  /** Code for pipelining all subsequent requests: {id}0 will be prefixed to each
+   * request, and responses will be returned as {id}0{length}0{response}. */
+  PIPELINE(15),
+  /** Code for executing the query and streaming the items in chunks: {id}0. */
+  STREAM(16),
   /** Code for returning the update flag: {id}0. */
   UPDATING(30),
   /** Code for executing a query and returning all information relevant for XQJ: {id}0. */
@@ -66,4 +71,32 @@ public enum ServerCmd {
     // current default for unknown codes: database command.
     return COMMAND;
   }
+
+  /**
+   * Returns the number of zero-terminated arguments that are sent with this command.
+   * The control byte is not counted, and database commands are sent as a single
+   * argument.
+   * @return number of arguments
+   */
+  int args() {
+    switch(this) {
+      case PIPELINE: return 0;
+      case BIND:     return 4;
+      case CONTEXT:  return 3;
+      case CREATE:
+      case ADD:
+      case REPLACE:
+      case STORE:    return 2;
+      default:       return 1;
+    }
+  }
+
+  /**
+   * Checks if the last argument is an input stream, the zero bytes of which are
+   * encoded (see {@link org.basex.io.in.DecodingInput}).
+   * @return result of check
+   */
+  boolean input() {
+    return this == CREATE || this == ADD || this == REPLACE || this == STORE;
+  }
 }
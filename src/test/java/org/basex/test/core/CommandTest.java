@@ -329,7 +329,7 @@ public class CommandTest extends SandboxTest {
   public final void infoTable() {
     no(new InfoStorage("1", "2"));
     ok(new CreateDB(NAME, FILE));
-    ok(new InfoStorage("1", "2"));
+    assertTrue(ok(new InfoStorage("1", "2")).contains(Text.BUFFER_POOL));
     ok(new InfoStorage("1", null));
     ok(new InfoStorage("// li", null));
   }
@@ -0,0 +1,171 @@
+package org.basex.test.core;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests if read-only queries can be run while an updating query
+ * collects its pending updates.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class DeferredUpdateTest extends SandboxTest {
+  /** Time spent for collecting the updates. */
+  private static final int SLEEP = 1000;
+  /** Number of elements of the large document. */
+  private static final int ELEMENTS = 200000;
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void create() throws BaseXException {
+    new CreateDB(NAME, "<x/>").execute(context);
+    new Close().execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void drop() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Runs a read-only query while the updates of another query are collected.
+   * @throws Exception exception
+   */
+  @Test
+  public void read() throws Exception {
+    final Updater updater = new Updater();
+    updater.start();
+    // wait until the updating query is evaluated
+    Thread.sleep(SLEEP / 5);
+    final Performance p = new Performance();
+    assertEquals("0", query(session(), "count(db:open('" + NAME + "')//a)"));
+    // the reader was not blocked, and it has not seen the pending updates
+    assertTrue(updater.isAlive());
+    assertTrue(p.time() < SLEEP * 1000000L / 2);
+    updater.join();
+    assertNull(updater.error);
+    assertEquals("1", query(session(), "count(db:open('" + NAME + "')//a)"));
+    query(session(), "delete node db:open('" + NAME + "')//a");
+  }
+
+  /**
+   * Runs read-only queries while a large document is added via db:replace.
+   * The document is parsed before the exclusive lock is acquired.
+   * @throws Exception exception
+   */
+  @Test
+  public void replace() throws Exception {
+    final IOFile file = new IOFile(sandbox(), "large.xml");
+    final TokenBuilder tb = new TokenBuilder("<large>");
+    for(int i = 0; i < ELEMENTS; i++) tb.add("<b>").add(Token.token(i)).add("</b>");
+    file.write(tb.add("</large>").finish());
+
+    final Updater updater = new Updater("db:replace('" + NAME + "', 'large.xml', '" +
+        file.path() + "')");
+    final Performance p = new Performance();
+    updater.start();
+    // run readers until the update has been applied
+    long max = 0;
+    int reads = 0;
+    while(updater.isAlive()) {
+      final Performance r = new Performance();
+      assertEquals("1", query(session(), "count(db:open('" + NAME + "')/x)"));
+      max = Math.max(max, r.time());
+      reads++;
+    }
+    final long total = p.time();
+    updater.join();
+    assertNull(updater.error);
+    // readers were only blocked while the parsed document was inserted
+    assertTrue(reads > 1);
+    assertTrue(max < total / 2);
+    assertEquals(String.valueOf(ELEMENTS),
+        query(session(), "count(db:open('" + NAME + "', 'large.xml')//b)"));
+    query(session(), "db:delete('" + NAME + "', 'large.xml')");
+  }
+
+  /**
+   * Runs two updating queries in parallel.
+   * @throws Exception exception
+   */
+  @Test
+  public void write() throws Exception {
+    final Updater u1 = new Updater(), u2 = new Updater();
+    u1.start();
+    u2.start();
+    u1.join();
+    u2.join();
+    assertNull(u1.error);
+    assertNull(u2.error);
+    assertEquals("2", query(session(), "count(db:open('" + NAME + "')//a)"));
+    query(session(), "delete node db:open('" + NAME + "')//a");
+  }
+
+  /**
+   * Returns a new session context.
+   * @return context
+   */
+  static Context session() {
+    final Context ctx = new Context(context, null);
+    ctx.user = context.user;
+    return ctx;
+  }
+
+  /**
+   * Runs the specified query.
+   * @param ctx database context
+   * @param query query
+   * @return result
+   * @throws BaseXException database exception
+   */
+  static String query(final Context ctx, final String query) throws BaseXException {
+    return new XQuery(query).execute(ctx);
+  }
+
+  /** Thread that runs an updating query, the evaluation of which takes some time. */
+  private static final class Updater extends Thread {
+    /** Updating query. */
+    private final String query;
+    /** Error message ({@code null} if the query was successful). */
+    String error;
+
+    /**
+     * Constructor for a query that inserts a node.
+     */
+    Updater() {
+      this("insert node <a>{ prof:sleep(" + SLEEP + ") }</a> into db:open('" +
+          NAME + "')/x");
+    }
+
+    /**
+     * Constructor.
+     * @param qu updating query
+     */
+    Updater(final String qu) {
+      query = qu;
+    }
+
+    @Override
+    public void run() {
+      try {
+        query(session(), query);
+      } catch(final BaseXException ex) {
+        error = Util.message(ex);
+      }
+    }
+  }
+}
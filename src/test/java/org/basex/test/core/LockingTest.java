@@ -168,6 +168,49 @@ public final class LockingTest extends SandboxTest {
     th2.release();
   }
 
+  /**
+   * Fetch read lock while a deferred write lock is held.
+   * @throws InterruptedException Got interrupted.
+   */
+  @Test
+  public void deferredWriteReadTest() throws InterruptedException {
+    final CountDownLatch locked = new CountDownLatch(1), commit = new CountDownLatch(1),
+        committed = new CountDownLatch(1);
+    final Cmd writer = new Cmd(true);
+    writer.deferred = true;
+    final Thread th = new Thread() {
+      @Override
+      public void run() {
+        locks.acquire(writer, new StringList().add(objects));
+        locked.countDown();
+        try {
+          commit.await();
+        } catch(final InterruptedException e) {
+          throw new RuntimeException("Unexpectedly interrupted.");
+        }
+        locks.commit(writer);
+        committed.countDown();
+        locks.release(writer);
+      }
+    };
+    th.start();
+    assertTrue("Writer should be able to acquire lock.",
+        locked.await(WAIT, TimeUnit.MILLISECONDS));
+
+    final CountDownLatch read = new CountDownLatch(1);
+    final LockTester th2 = new LockTester(null, false, objects, read);
+    th2.start();
+    assertTrue("Reader should be able to acquire lock.",
+        read.await(WAIT, TimeUnit.MILLISECONDS));
+    commit.countDown();
+    assertFalse("Writer shouldn't be able to commit yet.",
+        committed.await(WAIT, TimeUnit.MILLISECONDS));
+    th2.release();
+    assertTrue("Writer should be able to commit now.",
+        committed.await(WAIT, TimeUnit.MILLISECONDS));
+    th.join();
+  }
+
   /**
    * Test parallel transaction limit.
    * @throws InterruptedException Got interrupted.
@@ -0,0 +1,75 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.junit.*;
+
+/**
+ * This class tests the block compression of the table and texts.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressTest extends StorageTest {
+  /** Update query. */
+  private static final String UPDATE =
+      "replace value of node //item[@id = 'item3']/name with 'X', " +
+      "insert node <new id='new'>{ (//item)[1]/description }</new> into //regions";
+  /** Size of the compressed table. */
+  private long size;
+
+  /**
+   * Constructor.
+   */
+  public CompressTest() {
+    super(Prop.COMPRESS, QUERY);
+  }
+
+  @Override
+  void created(final boolean enabled) {
+    assertEquals(enabled, context.data().meta.compress);
+    assertEquals(enabled, context.data().meta.compressed);
+    if(enabled) size = table().length();
+    else assertTrue(size < table().length());
+  }
+
+  /**
+   * Updates a compressed database and reads the modified blocks.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    new Set(Prop.COMPRESS, false).execute(context);
+    new CreateDB(NAME, FILE).execute(context);
+    new XQuery(UPDATE).execute(context);
+    final String result = new XQuery(QUERY).execute(context);
+    new Set(Prop.COMPRESS, true).execute(context);
+
+    new CreateDB(NAME, FILE).execute(context);
+    assertTrue(context.data().meta.compressed);
+    new XQuery(UPDATE).execute(context);
+    assertEquals(result, new XQuery(QUERY).execute(context));
+    // decompressed files replace the original files
+    assertEquals(0, context.mprop.dbpath(NAME).children(".*\\.tmp").length);
+    new Close().execute(context);
+
+    new Open(NAME).execute(context);
+    // the option is kept, but the files are no longer compressed
+    assertTrue(context.data().meta.compress);
+    assertFalse(context.data().meta.compressed);
+    assertEquals(result, new XQuery(QUERY).execute(context));
+    assertEquals("1", new XQuery("count(//new/description)").execute(context));
+  }
+
+  /**
+   * Returns the table file of the test database.
+   * @return file
+   */
+  private static IOFile table() {
+    return MetaData.file(context.mprop.dbpath(NAME), DataText.DATATBL);
+  }
+}
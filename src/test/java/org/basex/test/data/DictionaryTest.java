@@ -0,0 +1,65 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.junit.*;
+
+/**
+ * This class tests the dictionary encoding of texts and attribute values.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class DictionaryTest extends StorageTest {
+  /** Query with comparisons of texts and attribute values. */
+  private static final String COMPARE = "concat(" +
+      "count(//*[@income = '9876.00']), ' ', " +
+      "count(//item[payment = 'Creditcard']), ' ', " +
+      "count(//@category[. != 'category0']), ' ', " +
+      "count(//person[@id = //buyer/@person]), ' ', " +
+      "count(//item[location/text() = //person/address/country/text()]), ' ', " +
+      "//item[@id = 'item3']/name)";
+  /** Size of the encoded attribute values. */
+  private long size;
+
+  /**
+   * Constructor.
+   */
+  public DictionaryTest() {
+    super(Prop.DICTIONARY, COMPARE);
+  }
+
+  @Override
+  void created(final boolean enabled) {
+    assertEquals(enabled, context.data().meta.dictionary);
+    final long length = context.data().meta.dbfile(DataText.DATAATV).length();
+    if(enabled) size = length;
+    else assertTrue(size < length);
+  }
+
+  /**
+   * Updates shared values.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    new CreateDB(NAME, "<X><a v='x'>t</a><a v='x'>t</a><a v='x'>t</a></X>").execute(
+        context);
+    new XQuery("replace value of node (//@v)[1] with 'y'").execute(context);
+    new XQuery("replace value of node (//text())[1] with 'u'").execute(context);
+    new XQuery("delete node (//a)[2]").execute(context);
+    new XQuery("insert node <a v='x'>t</a> into /X").execute(context);
+    new Close().execute(context);
+
+    new Open(NAME).execute(context);
+    assertTrue(context.data().meta.dictionary);
+    assertEquals("yu xt xt", new XQuery("string-join(//a/concat(@v, .), ' ')").
+        execute(context));
+    assertEquals("2 2 1", new XQuery("concat(count(//@v[. = 'x']), ' ', " +
+        "count(//a[text() = //a[2]/text()]), ' ', count(//a[@v != //a[3]/@v]))").
+        execute(context));
+  }
+}
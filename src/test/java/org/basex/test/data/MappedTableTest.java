@@ -0,0 +1,49 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+
+/**
+ * This class tests the memory-mapped table storage.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class MappedTableTest extends StorageTest {
+  /**
+   * Constructor.
+   */
+  public MappedTableTest() {
+    super(Prop.MAPTABLE, QUERY);
+  }
+
+  @Override
+  void created(final boolean enabled) {
+    assertEquals(enabled, context.data().meta.maptable);
+  }
+
+  /**
+   * Updates the mapped table and reads the modified blocks.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    new CreateDB(NAME, "<X/>").execute(context);
+    final String insert = "insert node (for $i in 1 to 100 return <a>{ $i }</a>) into /X";
+    for(int i = 0; i < 50; i++) {
+      new XQuery(insert).execute(context);
+      final String count = new XQuery("count(//a)").execute(context);
+      assertEquals(String.valueOf((i + 1) * 100), count);
+    }
+    new XQuery("delete node //a[. > 50]").execute(context);
+    assertEquals("2500", new XQuery("count(//a)").execute(context));
+    new Close().execute(context);
+
+    new Open(NAME).execute(context);
+    assertTrue(context.data().meta.maptable);
+    assertEquals("63750", new XQuery("sum(//a)").execute(context));
+  }
+}
@@ -0,0 +1,87 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * Base class for tests of storage options. It compares the query results of
+ * databases that have been created with and without the tested option.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public abstract class StorageTest extends SandboxTest {
+  /** Test file. */
+  static final String FILE = "src/test/resources/xmark.xml";
+  /** Default test query. */
+  static final String QUERY = "concat(count(//*), ' ', " +
+      "sum(for $i in //@id return string-length($i)), ' ', //item[@id = 'item3']/name)";
+
+  /** Tested option. */
+  private final Object[] option;
+  /** Query, the results of which are compared. */
+  private final String query;
+
+  /**
+   * Constructor.
+   * @param opt tested option
+   * @param qu query to be compared
+   */
+  StorageTest(final Object[] opt, final String qu) {
+    option = opt;
+    query = qu;
+  }
+
+  /**
+   * Enables the tested option.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public final void enable() throws BaseXException {
+    new Set(option, true).execute(context);
+  }
+
+  /**
+   * Drops the test database and disables the tested option.
+   * @throws BaseXException database exception
+   */
+  @After
+  public final void disable() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(option, false).execute(context);
+  }
+
+  /**
+   * Compares the results of databases created with and without the tested option.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public final void read() throws BaseXException {
+    final String result = create(true);
+    assertEquals(result, create(false));
+  }
+
+  /**
+   * Checks a database that has been created by {@link #read()}. The database with
+   * the option is created first.
+   * @param enabled indicates if the option was enabled
+   */
+  abstract void created(final boolean enabled);
+
+  /**
+   * Creates the test database and returns the result of the query.
+   * @param enabled option flag
+   * @return query result
+   * @throws BaseXException database exception
+   */
+  private String create(final boolean enabled) throws BaseXException {
+    new Set(option, enabled).execute(context);
+    new CreateDB(NAME, FILE).execute(context);
+    created(enabled);
+    return new XQuery(query).execute(context);
+  }
+}
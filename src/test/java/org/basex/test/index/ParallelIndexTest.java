@@ -0,0 +1,104 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.CmdIndex;
+import org.basex.core.parse.Commands.CmdIndexInfo;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the concurrent construction of index structures, and the
+ * construction with a limited memory budget.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelIndexTest extends SandboxTest {
+  /** Test document. */
+  private static final String DOC = "<X>{ for $i in 1 to 100000 return " +
+      "<a b='{ $i mod 97 }'>{ 'v' || $i mod 1013 }</a> }</X>";
+  /** Test query. */
+  private static final String QUERY = "concat(" +
+      "count(//a[text() = 'v17']), ' ', count(//a[@b = '42']), ' ', " +
+      "count(//a[text() contains text 'v1012']), ' ', " +
+      "sum(//a[@b = ('3', '5')][text() = ('v3', 'v5', 'v8')]/@b))";
+
+  /**
+   * Initializes the test.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new Set(Prop.FTINDEX, true).execute(context);
+  }
+
+  /**
+   * Finishes the test.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.FTINDEX, false).execute(context);
+    new Set(Prop.INDEXTHREADS, 1).execute(context);
+    new Set(Prop.INDEXMEM, 0).execute(context);
+  }
+
+  /**
+   * Compares the results of sequentially and concurrently built indexes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void create() throws BaseXException {
+    new Set(Prop.INDEXTHREADS, 1).execute(context);
+    new CreateDB(NAME).execute(context);
+    new XQuery("db:replace('" + NAME + "', 'doc.xml', " + DOC + ')').execute(context);
+    new Optimize().execute(context);
+    final String result = query();
+
+    new Set(Prop.INDEXTHREADS, 4).execute(context);
+    new OptimizeAll().execute(context);
+    assertEquals(result, query());
+
+    new CreateIndex(CmdIndex.TEXT).execute(context);
+    assertEquals(result, query());
+  }
+
+  /**
+   * Compares the results of indexes that have been built with and without
+   * memory budget.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void budget() throws BaseXException {
+    new Set(Prop.INDEXTHREADS, 1).execute(context);
+    new CreateDB(NAME).execute(context);
+    new XQuery("db:replace('" + NAME + "', 'doc.xml', " + DOC + ')').execute(context);
+    new Optimize().execute(context);
+    final String result = query();
+
+    // force merging of partial indexes
+    new Set(Prop.INDEXMEM, 1).execute(context);
+    new OptimizeAll().execute(context);
+    assertEquals(result, query());
+    new Set(Prop.INDEXTHREADS, 4).execute(context);
+    new OptimizeAll().execute(context);
+    assertEquals(result, query());
+    new Set(Prop.INDEXMEM, 0).execute(context);
+  }
+
+  /**
+   * Returns the result of the test query and the index information.
+   * @return result
+   * @throws BaseXException database exception
+   */
+  private static String query() throws BaseXException {
+    return new XQuery(QUERY).execute(context) +
+      new InfoIndex(CmdIndexInfo.TEXT).execute(context) +
+      new InfoIndex(CmdIndexInfo.ATTRIBUTE).execute(context) +
+      new InfoIndex(CmdIndexInfo.FULLTEXT).execute(context);
+  }
+}
@@ -0,0 +1,126 @@
+package org.basex.test.io;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link BufferPool}.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPoolTest {
+  /** Number of blocks (exceeds the number of buffers of the minimum pool size). */
+  private static final int BLOCKS = 1000;
+  /** Number of threads. */
+  private static final int THREADS = 8;
+
+  /** Temporary file. */
+  private IOFile file;
+  /** Instance under test. */
+  private DataAccess da;
+  /** Original pool size. */
+  private int size;
+
+  /**
+   * Set up method.
+   * @throws IOException I/O exception
+   */
+  @Before
+  public void setUp() throws IOException {
+    size = BufferPool.size();
+    // minimum pool size: buffers will be evicted
+    BufferPool.size(0);
+    file = new IOFile(File.createTempFile("pool", IO.BASEXSUFFIX));
+    da = new DataAccess(file);
+  }
+
+  /**
+   * Tear down method.
+   */
+  @After
+  public void tearDown() {
+    da.close();
+    file.delete();
+    BufferPool.size(size);
+  }
+
+  /**
+   * Checks that dirty buffers are written back when they are evicted.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void evict() throws IOException {
+    for(int b = 0; b < BLOCKS; b++) da.write4((long) b * IO.BLOCKSIZE, b);
+    assertTrue(BufferPool.buffers() < BLOCKS);
+
+    // evicted blocks must have been written to disk
+    for(int b = 0; b < BLOCKS; b++) assertEquals(b, da.read4((long) b * IO.BLOCKSIZE));
+    for(int b = BLOCKS - 1; b >= 0; b--) assertEquals(b, da.get4((long) b * IO.BLOCKSIZE));
+
+    da.close();
+    da = new DataAccess(file);
+    for(int b = 0; b < BLOCKS; b++) assertEquals(b, da.get4((long) b * IO.BLOCKSIZE));
+  }
+
+  /**
+   * Checks that the current buffer stays pinned while other blocks are read.
+   */
+  @Test
+  public void pin() {
+    for(int b = 0; b < BLOCKS; b++) da.write4((long) b * IO.BLOCKSIZE, b);
+    da.cursor(0);
+    // read all other blocks without moving the cursor
+    for(int b = 1; b < BLOCKS; b++) assertEquals(b, da.get4((long) b * IO.BLOCKSIZE));
+    da.write4(-1);
+    assertEquals(-1, da.read4(0));
+  }
+
+  /**
+   * Checks that buffers pinned by concurrent readers are not evicted.
+   * @throws Exception exception
+   */
+  @Test
+  public void concurrent() throws Exception {
+    for(int b = 0; b < BLOCKS; b++) {
+      final long p = (long) b * IO.BLOCKSIZE;
+      for(int o = 0; o < IO.BLOCKSIZE; o += 4) da.write4(p + o, b);
+    }
+    da.flush();
+
+    final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+    final Thread[] threads = new Thread[THREADS];
+    for(int t = 0; t < THREADS; t++) {
+      final int seed = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            final Random rnd = new Random(seed);
+            for(int i = 0; i < 5000; i++) {
+              final int b = rnd.nextInt(BLOCKS);
+              final long p = (long) b * IO.BLOCKSIZE;
+              final byte[] bytes = da.getBytes(p, IO.BLOCKSIZE);
+              for(int o = 0; o < bytes.length; o += 4) {
+                final int v = (bytes[o] & 0xFF) << 24 | (bytes[o + 1] & 0xFF) << 16 |
+                  (bytes[o + 2] & 0xFF) << 8 | bytes[o + 3] & 0xFF;
+                if(v != b) throw new AssertionError("Block " + b + ": " + v);
+              }
+            }
+          } catch(final Throwable ex) {
+            errors.add(ex);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for(final Thread t : threads) t.join();
+    assertTrue(errors.toString(), errors.isEmpty());
+  }
+}
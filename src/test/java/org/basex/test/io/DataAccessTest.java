@@ -197,6 +197,72 @@ public class DataAccessTest {
     assertEquals(STR, Token.string(da.readToken(BLOCK_BOUNDARY_POS)));
   }
 
+  /** Test method for {@link DataAccess#get4(long)}. */
+  @Test
+  public final void testGet4() {
+    final long off = STR_BIN.length + BYTE_BIN.length + LONG_BIN.length;
+    da.cursor(0);
+    assertEquals(INT, da.get4(off));
+    assertEquals(0L, da.cursor());
+  }
+
+  /** Test method for {@link DataAccess#get5(long)}. */
+  @Test
+  public final void testGet5() {
+    final long off = STR_BIN.length + BYTE_BIN.length;
+    assertEquals(LONG, da.get5(off));
+  }
+
+  /** Test method for {@link DataAccess#getNum(long)}. */
+  @Test
+  public final void testGetNum() {
+    long off = STR_BIN.length + BYTE_BIN.length + LONG_BIN.length +
+        INT_BIN.length;
+    assertEquals(CINT5, da.getNum(off));
+    off += Num.length(CINT5);
+    assertEquals(CINT4, da.getNum(off));
+    off += Num.length(CINT4);
+    assertEquals(CINT2, da.getNum(off));
+    off += Num.length(CINT2);
+    assertEquals(CINT1, da.getNum(off));
+  }
+
+  /** Test method for {@link DataAccess#getToken(long)}. */
+  @Test
+  public final void testGetToken() {
+    assertEquals(STR, Token.string(da.getToken(0L)));
+    assertEquals(STR, Token.string(da.getToken(BLOCK_BOUNDARY_POS)));
+  }
+
+  /**
+   * Reads tokens from concurrent threads.
+   * @throws Exception exception
+   */
+  @Test
+  public final void testGetConcurrent() throws Exception {
+    final Thread[] threads = new Thread[8];
+    final boolean[] ok = new boolean[threads.length];
+    for(int t = 0; t < threads.length; t++) {
+      final int n = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          boolean b = true;
+          for(int i = 0; i < 10000 && b; i++) {
+            b = STR.equals(Token.string(da.getToken(i % 2 == 0 ? 0L :
+              BLOCK_BOUNDARY_POS)));
+          }
+          ok[n] = b;
+        }
+      };
+      threads[t].start();
+    }
+    for(int t = 0; t < threads.length; t++) {
+      threads[t].join();
+      assertTrue(ok[t]);
+    }
+  }
+
   /** Test method for {@link DataAccess#readToken()}. */
   @Test
   public final void testReadToken() {
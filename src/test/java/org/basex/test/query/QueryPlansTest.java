@@ -0,0 +1,124 @@
+package org.basex.test.query;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the cache of compiled queries.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryPlansTest extends SandboxTest {
+  /** Query with external variables. */
+  private static final String QUERY = "declare variable $x external; " +
+      "declare variable $y := $x * 2; " +
+      "declare function local:f($a) { $a + $x }; " +
+      "(count(db:open('" + NAME + "')//a), $x, $y, local:f(1), <e>{ $x }</e>)";
+
+  /**
+   * Creates the test database and discards all cached queries.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    new CreateDB(NAME, "<r><a>1</a><a>2</a></r>").execute(context);
+    new Close().execute(context);
+    context.plans.close();
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Evaluates a cached query with different external values.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void bind() throws QueryException {
+    final long hits = context.plans.hits();
+    for(int i = 0; i < 3; i++) {
+      assertEquals("2 " + i + ' ' + i * 2 + ' ' + (i + 1) + "<e>" + i + "</e>",
+          query(QUERY, "x", i));
+    }
+    assertEquals(hits + 2, context.plans.hits());
+    assertEquals(1, context.plans.size());
+  }
+
+  /**
+   * Discards cached queries if a database has been updated.
+   * @throws Exception exception
+   */
+  @Test
+  public void update() throws Exception {
+    assertEquals("2 1 2 2<e>1</e>", query(QUERY, "x", 1));
+    new XQuery("insert node <a/> into db:open('" + NAME + "')/r").execute(context);
+    assertEquals("3 1 2 2<e>1</e>", query(QUERY, "x", 1));
+    new Open(NAME).execute(context);
+    new CreateIndex("fulltext").execute(context);
+    new Close().execute(context);
+    final long hits = context.plans.hits();
+    assertEquals("3 1 2 2<e>1</e>", query(QUERY, "x", 1));
+    assertEquals(hits, context.plans.hits());
+  }
+
+  /**
+   * Discards cached queries if a database is dropped.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void drop() throws QueryException {
+    query(QUERY, "x", 1);
+    assertEquals(1, context.plans.size());
+    // the database can be dropped, although it is pinned by the cached query
+    assertTrue(new DropDB(NAME).run(context));
+    assertEquals(0, context.plans.size());
+    assertEquals(0, context.datas.pins(NAME));
+  }
+
+  /**
+   * Checks that non-deterministic results are not cached.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void nondeterministic() throws QueryException {
+    final String qu = "declare variable $t := random:double(); " +
+        "(current-dateTime(), $t)";
+    assertFalse(query(qu, "x", 1).equals(query(qu, "x", 1)));
+    final String rnd = "declare variable $t := random:double(); $t";
+    assertFalse(query(rnd, "x", 1).equals(query(rnd, "x", 1)));
+    // updating queries are not cached
+    query("delete node db:open('" + NAME + "')//a[1]", "x", 1);
+    assertEquals(1, context.plans.size());
+  }
+
+  /**
+   * Evaluates a query.
+   * @param query query
+   * @param name name of the external variable
+   * @param value value of the external variable
+   * @return result
+   * @throws QueryException query exception
+   */
+  private static String query(final String query, final String name, final Object value)
+      throws QueryException {
+    final QueryProcessor qp = new QueryProcessor(query, context);
+    try {
+      qp.bind(name, value);
+      return qp.value().serialize().toString();
+    } finally {
+      qp.close();
+    }
+  }
+}
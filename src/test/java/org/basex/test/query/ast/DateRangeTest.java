@@ -0,0 +1,141 @@
+package org.basex.test.query.ast;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.query.expr.*;
+import org.basex.query.util.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests if date range queries are correctly evaluated with(out) the index.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class DateRangeTest extends QueryPlanTest {
+  /** Class of the index expression. */
+  private static final String ACCESS = DateRangeAccess.class.getSimpleName();
+
+  /**
+   * Initializes the tests.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void start() throws BaseXException {
+    // create document with dateTime attributes (with and without timezone) and dates
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("<xml>");
+    for(int d = 1; d <= 28; d++) {
+      final String day = "2012-02-" + (d < 10 ? "0" : "") + d;
+      for(int h = 0; h < 24; h += 6) {
+        final String time = 'T' + (h < 10 ? "0" : "") + h + ":30:00";
+        tb.add("<e ts='" + day + time + "Z'/>");
+        tb.add("<e ts='" + day + time + "+02:00'/>");
+        tb.add("<e ts='" + day + time + "'/>");
+      }
+      tb.add("<d>" + day + "</d><x>" + day + "x</x>");
+    }
+    tb.add("</xml>");
+    new Set(Prop.DATEINDEX, true).execute(context);
+    new CreateDB(NAME, tb.toString()).execute(context);
+    new Set(Prop.DATEINDEX, false).execute(context);
+  }
+
+  /**
+   * Finishes the tests.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Checks the index information.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void info() throws BaseXException {
+    final String info = new InfoIndex(CmdIndexInfo.ATTRIBUTE).execute(context);
+    assertTrue(info.contains(Text.LI_DATES + (28 * 4 * 3)));
+  }
+
+  /**
+   * Tests dateTime ranges.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void dateTime() throws BaseXException {
+    test("count(//e[@ts >= xs:dateTime('2012-02-10T00:00:00Z') and " +
+        "@ts < xs:dateTime('2012-02-11T00:00:00Z')])", CmdIndex.ATTRIBUTE);
+    test("count(//e[@ts > xs:dateTime('2012-02-10T06:30:00+02:00') and " +
+        "@ts <= xs:dateTime('2012-02-12T12:30:00')])", CmdIndex.ATTRIBUTE);
+    test("count(//e[@ts >= xs:dateTime('2012-02-27T12:00:00Z')])", CmdIndex.ATTRIBUTE);
+    test("count(//e[@ts < xs:dateTime('2012-02-01T07:00:00')])", CmdIndex.ATTRIBUTE);
+    test("count(//e[@ts >= xs:dateTime('2013-01-01T00:00:00')])", CmdIndex.ATTRIBUTE);
+  }
+
+  /**
+   * Tests date ranges.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void date() throws BaseXException {
+    test("count(//d[text() >= xs:date('2012-02-10') and " +
+        "text() <= xs:date('2012-02-20')])", CmdIndex.TEXT);
+    test("count(//d[text() > xs:date('2012-02-10Z')])", CmdIndex.TEXT);
+  }
+
+  /**
+   * Tests values that cannot be cast to the date type. Such values are skipped by
+   * the index, and rejected if the index is not used.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void invalid() throws BaseXException {
+    final String[] queries = {
+      "count(//x[text() >= xs:date('2012-02-10')])",
+      "count(//*[text() >= xs:date('2012-02-10')])",
+      "count(//e[@ts >= xs:date('2012-02-10')])"
+    };
+    final String[] results = { "0", "19", "0" };
+    final CmdIndex[] indexes = { CmdIndex.TEXT, CmdIndex.TEXT, CmdIndex.ATTRIBUTE };
+    for(int q = 0; q < queries.length; q++) {
+      check(queries[q], results[q], "exists(//" + ACCESS + ")");
+      new DropIndex(indexes[q]).execute(context);
+      error(queries[q], Err.FUNCAST);
+      new CreateIndex(indexes[q]).execute(context);
+    }
+  }
+
+  /**
+   * Tests comparisons of untyped values without database.
+   */
+  @Test
+  public void untyped() {
+    query("<a>12000-01-01</a> > xs:date('2000-01-01')", "true");
+    query("xs:untypedAtomic('2000-01-01') < xs:date('1999-01-01')", "false");
+    error("xs:untypedAtomic('2000-01-01T00:00:00') >= xs:date('1999-01-01')",
+        Err.FUNCAST);
+    error("<a>x</a> < xs:dateTime('2000-01-01T00:00:00')", Err.FUNCAST);
+  }
+
+  /**
+   * Compares the results of a query with and without index.
+   * @param query query
+   * @param index index type
+   * @throws BaseXException database exception
+   */
+  private static void test(final String query, final CmdIndex index)
+      throws BaseXException {
+    final String result = new XQuery(query).execute(context);
+    new DropIndex(index).execute(context);
+    check(query, result, "not(//" + ACCESS + ")");
+    new CreateIndex(index).execute(context);
+    check(query, result, "exists(//" + ACCESS + ")");
+  }
+}
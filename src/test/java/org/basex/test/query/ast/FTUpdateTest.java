@@ -0,0 +1,123 @@
+package org.basex.test.query.ast;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.query.ft.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the incremental maintenance of full-text indexes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class FTUpdateTest extends QueryPlanTest {
+  /** Index access. */
+  private static final String ACCESS =
+      "exists(//" + FTIndexAccess.class.getSimpleName() + ")";
+
+  /**
+   * Initializes the tests.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    new Set(Prop.FTINDEX, true).execute(context);
+  }
+
+  /**
+   * Finishes the tests.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+    new Set(Prop.FTINDEX, false).execute(context);
+  }
+
+  /**
+   * Tests full-text queries after updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    new CreateDB(NAME, "<X><a>fast red car</a><a>slow blue car</a><b>red</b></X>").
+      execute(context);
+    check("count(//a[text() contains text 'red'])", "1", ACCESS);
+
+    new XQuery("insert node <a>red bike</a> into /X").execute(context);
+    new XQuery("replace value of node (//a/text())[1] with 'fast green car'").
+      execute(context);
+    new XQuery("delete node //b").execute(context);
+    assertTrue(context.data().meta.ftxtindex);
+    check("string-join(//*[text() contains text 'red'], '|')", "red bike", ACCESS);
+    check("count(//a[text() contains text 'car'])", "2", ACCESS);
+    check("count(//a[text() contains text 'gr.*' using wildcards])", "1", ACCESS);
+    check("count(//a[text() contains text 'bikes' using fuzzy])", "1", ACCESS);
+    check("//a[text() contains text 'blue car' ordered distance exactly 0 words]",
+        "<a>slow blue car</a>", ACCESS);
+
+    // updates are persistent, and merged by optimizing the database
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    check("count(//*[text() contains text 'red' ftor 'green'])", "2", ACCESS);
+    new XQuery("delete node //a[. contains text 'bike']").execute(context);
+    check("count(//*[text() contains text 'red' ftor 'green'])", "1", ACCESS);
+    new Optimize().execute(context);
+    assertFalse(context.data().meta.dbfile(DataText.DATAFTX + 'u').exists());
+    check("count(//*[text() contains text 'red' ftor 'green'])", "1", ACCESS);
+    check("count(//a[text() contains text 'car'])", "2", ACCESS);
+  }
+
+  /**
+   * Tests that updates are appended to the update log.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void append() throws IOException {
+    new CreateDB(NAME, "<X><a>red car</a></X>").execute(context);
+    new XQuery("insert node <a>blue bike</a> into /X").execute(context);
+    final IOFile file = context.data().meta.dbfile(DataText.DATAFTX + 'u');
+    final byte[] log = file.read();
+    new XQuery("delete node (//a)[1]").execute(context);
+    final byte[] log2 = file.read();
+    assertTrue(log2.length > log.length && Token.startsWith(log2, log));
+    check("count(//a[text() contains text 'car'])", "0", ACCESS);
+
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    check("count(//a[text() contains text 'car'])", "0", ACCESS);
+    check("count(//a[text() contains text 'bike'])", "1", ACCESS);
+  }
+
+  /**
+   * Tests that updatable full-text indexes with pre values, which have been created
+   * by previous versions, are reported as outdated and rebuilt.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void legacy() throws BaseXException {
+    new CreateDB(NAME, "<X><a>red car</a></X>").execute(context);
+    // simulate index created by a previous version
+    final MetaData meta = context.data().meta;
+    meta.ftxtids = false;
+    meta.dirty = true;
+    new Close().execute(context);
+
+    new Open(NAME).execute(context);
+    assertFalse(context.data().meta.ftxtindex);
+    assertTrue(context.data().meta.oldindex());
+    new Optimize().execute(context);
+    assertTrue(context.data().meta.ftxtids);
+    check("count(//a[text() contains text 'car'])", "1", ACCESS);
+  }
+}
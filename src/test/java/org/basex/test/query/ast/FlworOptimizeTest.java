@@ -1,6 +1,7 @@
 package org.basex.test.query.ast;
 
 import org.basex.core.*;
+import org.basex.core.cmd.Set;
 import org.basex.query.flwor.*;
 import org.basex.util.*;
 import org.junit.*;
@@ -73,4 +74,111 @@ public final class FlworOptimizeTest extends QueryPlanTest {
         "every $for in //For satisfies exactly-one(//Let) << $for"
     );
   }
+
+  /** Tests the evaluation of equi-joins with hash tables. */
+  @Test public void hashJoin() {
+    check("let $x := (1 to 5) ! <a><k>{ . mod 3 }</k></a> " +
+        "let $y := (0 to 2) ! <b><k>{ . }</k><k>{ . + 1 }</k></b> " +
+        "for $a in $x for $b in $y where $a/k = $b/k " +
+        "return $a/k || '/' || string-join($b/k, '-')",
+
+        "1/0-1 1/1-2 2/1-2 2/2-3 0/0-1 1/0-1 1/1-2 2/1-2 2/2-3",
+        "exists(//For[@var eq '$b']/HashJoin)"
+    );
+    // general comparisons: numbers, strings and untyped values
+    check("let $y := (<y> 1 </y>, 2e0, <y>3</y>, <y>05</y>, <y>5</y>) " +
+        "for $a in (1, 2, 3.0, <x>5</x>) for $b in $y[. = $a] " +
+        "return $a || '=' || $b",
+
+        "1= 1  2=2 3=3 5=5",
+        "exists(//HashJoin)"
+    );
+    // floats are compared with single precision
+    check("for $a in xs:float(0.1) for $b in (0.1)[. = $a] return $b", "0.1");
+    check("for $a in (xs:float(0.1), 2) for $b in (0.1, 2)[. = $a] return $b",
+        "0.1 2",
+        "exists(//HashJoin)"
+    );
+    check("for $a in (0.1, 2) for $b in (xs:float(0.1), 2)[. = $a] return $b",
+        "0.1 2",
+        "exists(//HashJoin)"
+    );
+    check("for $a in (0.1, 0.2) for $b in (xs:float(0.1), 1)[. = $a] return $b",
+        "0.1",
+        "exists(//HashJoin)"
+    );
+    // inner clause depends on outer clause
+    check("for $a in 1 to 3 for $b in $a to 3 where $b = $a + 1 return $b",
+        "2 3",
+        "empty(//HashJoin)"
+    );
+  }
+
+  /**
+   * Tests the parallel evaluation of FLWOR expressions.
+   * @throws BaseXException database exception
+   */
+  @Test public void parallel() throws BaseXException {
+    new Set(Prop.FLWORTHREADS, 4).execute(context);
+    try {
+      check("let $s := 3 for $i in 1 to 50 let $j := $i * $s " +
+          "for $k in (1, $j) where $i mod 7 = 0 return $k",
+
+          "1 21 1 42 1 63 1 84 1 105 1 126 1 147",
+          "exists(//ParallelFLWR)"
+      );
+      check("for $a in (1 to 10) ! string() for $b in (3 to 12) ! string() " +
+          "where $a = $b return $a",
+
+          "3 4 5 6 7 8 9 10",
+          "exists(//ParallelFLWR/For/HashJoin)"
+      );
+      // variables of catch clauses and typeswitch cases are bound in each thread
+      check("count(for $i in 1 to 100000 let $s := $i || 'x' where not(contains(" +
+          "try { xs:integer($s) } catch * { $err:description }, $s)) return $i)", "0",
+          "exists(//ParallelFLWR)");
+      check("sum(for $i in 1 to 100000 return typeswitch($i) " +
+          "case $n as xs:integer return $n default return 0)", "5000050000",
+          "exists(//ParallelFLWR)");
+      // global variables are evaluated once
+      check("declare variable $g := string-join(for $i in 1 to 1000 return string($i)); " +
+          "sum(for $i in 1 to 100000 return string-length($g))", "289300000",
+          "exists(//ParallelFLWR)");
+      // node constructors and non-deterministic functions are evaluated sequentially
+      check("count(for $i in 1 to 10 return <a>{ $i }</a>)", "10",
+          "empty(//ParallelFLWR)");
+      check("count(for $i in 1 to 10 return random:double())", "10",
+          "empty(//ParallelFLWR)");
+      new Set(Prop.FLWORTHREADS, 1).execute(context);
+      check("(# db:flworthreads 2 #) { for $i in 1 to 5 return $i * $i }", "1 4 9 16 25",
+          "exists(//ParallelFLWR)");
+    } finally {
+      new Set(Prop.FLWORTHREADS, 1).execute(context);
+    }
+  }
+
+  /**
+   * Tests the sorting of the first tuples of an order by clause.
+   */
+  @Test public void topK() {
+    check("(for $i in (5, 3, 9, 1, 7, 2) order by $i descending return $i)" +
+        "[position() <= 3]",
+
+        "9 7 5",
+        "exists(//Order[@max = 3])"
+    );
+    check("subsequence(for $i in 1 to 10 order by $i mod 3, $i descending " +
+        "return $i, 2, 3)",
+
+        "6 3 10",
+        "exists(//Order[@max = 4])"
+    );
+    check("head(for $s in ('b', 'c', 'a') order by $s return concat($s, '!'))",
+        "a!", "exists(//Order[@max = 1])");
+    check("(for $i in 1 to 6 stable order by $i mod 2 return ($i, -$i))[4]",
+        "-4", "exists(//Order[@max = 4])");
+    // tuples may yield no items
+    check("(for $i in 1 to 6 order by -$i return $i[. mod 2 = 0])[1]",
+        "6", "exists(//Order[not(@max)])");
+  }
 }
@@ -0,0 +1,93 @@
+package org.basex.test.query.ast;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.query.expr.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests if numeric range queries are correctly evaluated with(out) the index.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericRangeTest extends QueryPlanTest {
+  /**
+   * Initializes the tests.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void start() throws BaseXException {
+    // create document with negative, decimal and integer values
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("<xml>");
+    for(int i = 0; i < 800; i++) {
+      tb.add("<n>").add(Token.token(i / 4d - 100)).add("</n>");
+      tb.add("<x>A").add(Token.token(i)).add("</x>");
+    }
+    tb.add("</xml>");
+    new CreateDB(NAME, tb.toString()).execute(context);
+  }
+
+  /**
+   * Finishes the tests.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Tests range queries.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void range() throws BaseXException {
+    final String info = new InfoIndex(CmdIndexInfo.TEXT).execute(context);
+    assertTrue(info.contains(Text.LI_NUMERIC + "800"));
+    test("count(//n[text() >= -10.5 and text() <= 20])", "123");
+    test("count(//n[text() >= -100 and text() <= -99])", "5");
+    test("count(//n[text() >= 99.5 and text() <= 1000])", "2");
+    test("count(//n[text() >= 0.1 and text() <= 0.2])", "0");
+    test("sum(//n[text() >= 1 and text() <= 2])", "7.5");
+  }
+
+  /**
+   * Tests range queries after updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    final String doc = "<xml><n>-1.5</n><n>3</n><n>7</n><n>12</n></xml>";
+    new CreateDB(NAME, doc).execute(context);
+    check("count(//n[text() >= -2 and text() <= 5])", "2",
+        "exists(//" + RangeAccess.class.getSimpleName() + ")");
+    new XQuery("insert node <n>4.5</n> into /xml").execute(context);
+    new XQuery("delete node //n[. = 7]").execute(context);
+    check("count(//n[text() >= -2 and text() <= 5])", "3");
+    check("count(//n[text() >= -2 and text() <= 10])", "3");
+    new Optimize().execute(context);
+    check("count(//n[text() >= -2 and text() <= 10])", "3",
+        "exists(//" + RangeAccess.class.getSimpleName() + ")");
+    new Set(Prop.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Tests a query with and without index.
+   * @param query query
+   * @param result expected result
+   * @throws BaseXException database exception
+   */
+  private void test(final String query, final String result) throws BaseXException {
+    new CreateIndex(CmdIndex.TEXT).execute(context);
+    check(query, result, "exists(//" + RangeAccess.class.getSimpleName() + ")");
+    new DropIndex(CmdIndex.TEXT).execute(context);
+    check(query, result, "not(//" + RangeAccess.class.getSimpleName() + ")");
+  }
+}
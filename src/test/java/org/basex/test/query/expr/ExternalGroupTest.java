@@ -0,0 +1,62 @@
+package org.basex.test.query.expr;
+
+import org.basex.core.*;
+import org.basex.query.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the grouping of tuples with partitions on disk, and the
+ * incremental computation of aggregates.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalGroupTest extends ExternalTest {
+  /** Queries to be compared (groups are sorted, as their order may change). */
+  private static final String[] QUERIES = {
+    "for $i in 1 to 100 group by $m := $i mod 7 order by $m return ($m, $i)",
+    "for $i in 1 to 100 let $s := string($i) group by $m := $i mod 13, $n := $i mod 2 " +
+      "order by $m, $n return ($m, $n, count($i), sum($i), min($s), max($i), $s)",
+    "for $i in 1 to 100 let $d := xs:double($i) div 3 group by $m := $i mod 11 " +
+      "order by $m return <g>{ $m, sum($d), min($d), avg($d) }</g>",
+    "for $i in 1 to 100 group by $m := ($i mod 9)[. > 3] order by $m empty least " +
+      "return count($i)",
+    "for $n in db:open('" + NAME + "')//* let $t := $n/text() group by $m := name($n) " +
+      "order by $m return ($m, count($n), max($t), $n)",
+    // tuples with constructed nodes are grouped in main memory
+    "for $i in 1 to 100 let $a := <a>{ $i }</a> group by $m := $i mod 5 " +
+      "order by $m return ($m, $a, count($a))",
+  };
+
+  /**
+   * Constructor.
+   */
+  public ExternalGroupTest() {
+    super(Prop.GROUPLIMIT, "group");
+  }
+
+  /**
+   * Compares the results of grouping with and without partitions.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void compare() throws BaseXException {
+    compare(QUERIES);
+  }
+
+  /**
+   * Checks the results of incrementally computed aggregates.
+   */
+  @Test
+  public void aggregate() {
+    query("for $i in 1 to 10 group by $m := $i mod 2 order by $m " +
+        "return (count($i), sum($i), min($i), max($i))", "5 30 2 10 5 25 1 9");
+    query("for $i in (1, 'a') let $j := $i[. instance of xs:integer] " +
+        "group by $m := 1 return (count($j), sum($j), min($j), max($j))", "1 1 1 1");
+    query("for $i in 1 to 3 let $e := () group by $m := 1 " +
+        "return (count($e), sum($e), min($e), max($e))", "0 0");
+    query("for $i in (1, 2.5, xs:untypedAtomic('4')) group by $m := 1 " +
+        "return (sum($i), min($i), max($i))", "7.5 1 4");
+    error("for $i in (1, 'a') group by $m := 1 return sum($i)", Err.FUNNUM);
+  }
+}
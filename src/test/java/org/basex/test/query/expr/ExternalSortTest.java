@@ -0,0 +1,55 @@
+package org.basex.test.query.expr;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.junit.*;
+
+/**
+ * This class tests the sorting of tuples with sorted runs on disk.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalSortTest extends ExternalTest {
+  /** Queries to be compared. */
+  private static final String[] QUERIES = {
+    "for $i in 1 to 100 order by $i mod 7, $i descending return $i",
+    "for $i in 1 to 100 order by $i mod 7 return ($i, string($i))",
+    "for $i in 1 to 100 order by ($i mod 13)[. > 3] empty greatest return $i * 1.5e0",
+    "for $i in 1 to 100 let $d := xs:date('2000-01-01') + " +
+      "xs:dayTimeDuration(concat('P', $i mod 17, 'D')) order by $d descending return ($d, xs:float($i) div 3)",
+    "for $n in db:open('" + NAME + "')//* order by name($n), $n descending return $n",
+    "for $n in db:open('" + NAME + "')//text() order by $n return ($n/.., $n)",
+    // tuples with constructed nodes are sorted in main memory
+    "for $i in 1 to 100 order by -$i return <a>{ $i }</a>",
+  };
+
+  /**
+   * Constructor.
+   */
+  public ExternalSortTest() {
+    super(Prop.SORTLIMIT, "sort");
+  }
+
+  /**
+   * Compares the results of sorting with and without runs.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void compare() throws BaseXException {
+    compare(QUERIES);
+  }
+
+  /**
+   * Checks that the temporary files are deleted if not all results are requested.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void head() throws BaseXException {
+    final int files = temp();
+    limit(10);
+    query("(for $i in 1 to 100 order by -$i return $i)[1]", 100);
+    assertEquals(files, temp());
+  }
+}
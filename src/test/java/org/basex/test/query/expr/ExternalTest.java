@@ -0,0 +1,107 @@
+package org.basex.test.query.expr;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * Base class for tests of FLWOR clauses that write tuples to disk if a limit is
+ * exceeded. The results of queries are compared with and without limit.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public abstract class ExternalTest extends AdvancedQueryTest {
+  /** Limits to be tested. */
+  private static final int[] LIMITS = { 1, 2, 10, 99, 100 };
+
+  /** Option for the limit. */
+  private final Object[] option;
+  /** Prefix of the temporary files. */
+  private final String prefix;
+
+  /**
+   * Constructor.
+   * @param opt option for the limit
+   * @param pref prefix of the temporary files
+   */
+  ExternalTest(final Object[] opt, final String pref) {
+    option = opt;
+    prefix = pref;
+  }
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new CreateDB(NAME, "<r>" + "<a>3</a><b>1<c>2</c></b><a>1</a><c>0</c>" +
+        "<a>2</a><b>0</b>" + "</r>").execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Resets the limit.
+   * @throws BaseXException database exception
+   */
+  @After
+  public final void reset() throws BaseXException {
+    new Set(option, 0).execute(context);
+  }
+
+  /**
+   * Compares the results of the specified queries with and without limit,
+   * and checks that all temporary files have been deleted.
+   * @param queries queries
+   * @throws BaseXException database exception
+   */
+  final void compare(final String... queries) throws BaseXException {
+    final int files = temp();
+    for(final String query : queries) {
+      new Set(option, 0).execute(context);
+      final String expected = new XQuery(query).execute(context);
+      for(final int limit : LIMITS) {
+        new Set(option, limit).execute(context);
+        assertEquals(query, expected, new XQuery(query).execute(context));
+      }
+    }
+    assertEquals(files, temp());
+  }
+
+  /**
+   * Sets the limit.
+   * @param limit limit
+   * @throws BaseXException database exception
+   */
+  final void limit(final int limit) throws BaseXException {
+    new Set(option, limit).execute(context);
+  }
+
+  /**
+   * Returns the number of temporary files.
+   * @return number of files
+   */
+  final int temp() {
+    final File[] files = new File(Prop.TMP).listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.startsWith(prefix);
+      }
+    });
+    return files == null ? 0 : files.length;
+  }
+}
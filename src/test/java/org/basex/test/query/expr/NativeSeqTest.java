@@ -0,0 +1,76 @@
+package org.basex.test.query.expr;
+
+import org.basex.query.util.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * This class tests the evaluation of arithmetic expressions, range comparisons and
+ * aggregate functions on sequences that are stored in their native representation.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class NativeSeqTest extends AdvancedQueryTest {
+  /**
+   * Test method.
+   */
+  @Test
+  public void arith() {
+    query("for $i in 1 to 5 return $i * 3", "3 6 9 12 15");
+    query("for $i in (5, 6, 7) return 10 - $i", "5 4 3");
+    query("for $i in (1, 2, 3) return 10 idiv $i", "10 5 3");
+    query("for $i in (-7, 7) return $i mod 3", "-1 1");
+    query("for $i in (1, 2) return $i div 2", "0.5 1");
+    query("for $i in (1, 2) return $i + 0.5e0", "1.5 2.5");
+    query("for $i in (1.5e0, 2e0) return $i * 2", "3 4");
+    query("for $i in (7e0, -7e0) return $i idiv 2", "3 -3");
+    query("for $i in (xs:byte(1), xs:byte(2)) return $i + 1", "2 3");
+    query("for $i in (1, xs:untypedAtomic('2')) return $i + 1", "2 3");
+    query("(for $i in 1 to 1000000 return $i + 1)[last()]", "1000001");
+    error("for $i in (1, 0) return 1 idiv $i", Err.DIVZERO);
+    error("for $i in (1e0, 0e0) return 1 idiv $i", Err.DIVZERO);
+    error("for $i in (1, 2) return $i * 9223372036854775807", Err.RANGE);
+    error("for $i in (1, 'a') return $i + 1", Err.XPTYPENUM);
+  }
+
+  /**
+   * Test method.
+   */
+  @Test
+  public void filter() {
+    query("(1 to 100)[. > 95.5]", "96 97 98 99 100");
+    query("(1 to 100)[. >= 3][. < 6]", "3 4 5");
+    query("(1 to 100)[. > 100]", "");
+    query("(1 to 100)[. < 1.5]", "1");
+    query("count((1 to 1000000000)[. > 999999990])", "10");
+    query("(4, 1, 3, 2)[. > 2]", "4 3");
+    query("(4e0, 1e0, 3e0, 2e0)[. <= 2]", "1 2");
+    query("(1 to 10)[. > xs:double('NaN')]", "");
+    query("for $i in 1 to 5 return $i * 2", "2 4 6 8 10");
+    query("(for $i in 1 to 5 return $i * 2)[. > 5]", "6 8 10");
+  }
+
+  /**
+   * Test method.
+   */
+  @Test
+  public void aggregate() {
+    query("sum(1 to 100000000)", "5000000050000000");
+    query("sum(-5 to 3)", "-9");
+    error("sum(9223372036854775806 to 9223372036854775807)", Err.RANGE);
+    query("avg(1 to 10)", "5.5");
+    query("sum((1, 2, 3, 4))", "10");
+    query("avg((1, 2, 3, 4))", "2.5");
+    query("sum((1.5e0, 2.5e0))", "4");
+    query("avg((1e0, 2e0, 4e0))", "2.3333333333333335");
+    query("min((3, 1, 4, 1, 5))", "1");
+    query("max((3, 1, 4, 1, 5))", "5");
+    query("min(2 to 8)", "2");
+    query("max(2 to 8)", "8");
+    query("max((xs:byte(1), xs:byte(3))) instance of xs:byte", "true");
+    query("min((3e0, xs:double('NaN'), 1e0))", "NaN");
+    query("sum(for $i in 1 to 1000 return $i * 2)", "1001000");
+    query("sum((for $i in 1 to 4 return $i - 1)[. > 1])", "5");
+  }
+}
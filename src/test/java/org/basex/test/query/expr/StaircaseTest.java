@@ -0,0 +1,74 @@
+package org.basex.test.query.expr;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.test.query.*;
+import org.junit.*;
+
+/**
+ * This class tests the set-at-a-time evaluation of location steps.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class StaircaseTest extends AdvancedQueryTest {
+  /** Test document. */
+  private static final String DOC =
+      "<r><a x='1'><b/><a><b y='2'>t</b>u</a></a><c><a/><!--c--></c></r>";
+  /** Paths to be compared. */
+  private static final String[] PATHS = {
+    "$n//a", "$n/descendant-or-self::node()", "$n//b/ancestor::*",
+    "$n/ancestor-or-self::a", "$n/following::b", "$n/child::node()", "$n/@*",
+    "$n/../..", "$n//@x/..", "$n//text()/descendant-or-self::node()",
+    "$n/self::a/*", "$n//*:b", "$n//@*/self::attribute(y)", "$n/following::text()"
+  };
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new CreateDB(NAME).execute(context);
+    for(int d = 0; d < 3; d++) new Add(d + ".xml", DOC).execute(context);
+    new Close().execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Compares the results of node sequences with the results of single nodes.
+   */
+  @Test
+  public void compare() {
+    for(final String path : PATHS) {
+      // node sequences: all documents, and nested elements
+      for(final String nodes : new String[] { "$d",
+          "$d//b/ancestor-or-self::node()", "$d//node()/.." }) {
+        query("let $d := db:open('" + NAME + "') " +
+            "let $f := function($n) { " + path + " } " +
+            "let $s := $f(" + nodes + ") " +
+            "let $o := (for $n in " + nodes + " return $f($n)) | () " +
+            "return count($s) = count($o) and " +
+            "(every $i in 1 to count($s) satisfies $s[$i] is $o[$i])", true);
+      }
+    }
+  }
+
+  /**
+   * Checks the result of a path with a node sequence as context.
+   */
+  @Test
+  public void result() {
+    query("count(db:open('" + NAME + "')//a/ancestor-or-self::*)", 15);
+    query("let $a := db:open('" + NAME + "')//a return count($a//b)", 6);
+    query("let $a := db:open('" + NAME + "')//b return count($a[1]/following::a)", 8);
+  }
+}
@@ -19,4 +19,19 @@ public final class FNPatTest extends AdvancedQueryTest {
     query("replace(' aaa AAA 123','(\\s+\\P{Ll}{3,280}?)','$1@')", " aaa AAA@ 123@");
     error("replace('asdf','a{12,3}','')", Err.REGPAT);
   }
+
+  /** Tests regular expressions that are compiled once. */
+  @Test
+  public void compile() {
+    query("for $s in ('a,b', 'c', 'D;E') return tokenize($s, '[,;]')", "a b c D E");
+    query("for $s in ('a', 'A', 'b') return matches($s, 'a', 'i')", "true true false");
+    query("for $s in ('ab', 'b') return replace($s, 'b', 'x', 'q')", "ax x");
+    query("for $s in ('1', '2') return analyze-string($s, '\\d')//fn:match/string()",
+        "1 2");
+    // invalid expressions are rejected when they are evaluated
+    query("for $s in ('a', 'b') return if($s = 'c') then matches($s, '[') else $s",
+        "a b");
+    error("for $s in ('a', 'b') return matches($s, '[')", Err.REGPAT);
+    error("for $s in ('a', 'b') return matches($s, 'a', 'z')", Err.REGMOD);
+  }
 }
@@ -2,6 +2,7 @@ package org.basex.test.query.func;
 
 import static org.basex.query.func.Function.*;
 
+import org.basex.query.util.*;
 import org.basex.test.query.*;
 import org.junit.*;
 
@@ -60,6 +61,18 @@ public final class FNProfTest extends AdvancedQueryTest {
     }
   }
 
+  /** Test method. */
+  @Test
+  public void plan() {
+    final String plan = _PROF_PLAN.args("for $i in 1 to 10 return $i[. > 5]");
+    query(plan + "/name()", "QueryPlan");
+    query(plan + "//RangeSeq/@items/string()", "10");
+    query(plan + "//CmpR/@calls/string()", "10");
+    query("count(" + plan + "//*[@nanos < 0])", "0");
+    error(_PROF_PLAN.args("delete node <a/>"), Err.BXXQ_UPDATING);
+    error(_PROF_PLAN.args("1+"), Err.INCOMPLETE);
+  }
+
   /** Test method. */
   @Test
   public void currentMs() {
@@ -0,0 +1,116 @@
+package org.basex.test.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.server.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the client/server session API with the non-blocking front end
+ * of the server.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelectorTest extends ClientSessionTest {
+  /** Server reference. */
+  private static BaseXServer server;
+
+  /**
+   * Starts the server with two selector threads.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void startServer() throws IOException {
+    final String key = Prop.DBPREFIX + MainProp.SELECTORS[0];
+    System.setProperty(key, "2");
+    try {
+      server = createServer();
+    } finally {
+      System.clearProperty(key);
+    }
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    stopServer(server);
+  }
+
+  /**
+   * Runs queries in many concurrent sessions, most of which are idle.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void sessions() throws IOException {
+    final ArrayList<ClientSession> sessions = new ArrayList<ClientSession>();
+    try {
+      for(int s = 0; s < 100; s++) sessions.add(createClient());
+      for(int s = 0; s < sessions.size(); s += 10) {
+        assertEquals(Integer.toString(s), sessions.get(s).query(
+            "1 + " + (s - 1)).execute());
+      }
+    } finally {
+      for(final ClientSession cs : sessions) cs.close();
+    }
+  }
+
+  /**
+   * Sends pipelined requests.
+   * @throws Exception exception
+   */
+  @Test
+  public void pipeline() throws Exception {
+    final ClientSession cs = createClient();
+    try {
+      final ArrayList<Future<String>> results = new ArrayList<Future<String>>();
+      for(int i = 0; i < 100; i++) results.add(cs.executeAsync("xquery " + i));
+      for(int i = 0; i < results.size(); i++) {
+        assertEquals(Integer.toString(i), results.get(i).get());
+      }
+      assertEquals("1", cs.query("1").execute());
+    } finally {
+      cs.close();
+    }
+  }
+
+  /**
+   * Returns a result that exceeds the socket buffers, so that writes are stalled.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void largeResult() throws IOException {
+    final ClientSession cs = createClient();
+    try {
+      for(int i = 0; i < 3; i++) {
+        assertEquals(8000000, cs.execute("xquery string-join(" +
+            "for $i in 1 to 1000000 return 'abcdefgh', '')").length());
+      }
+    } finally {
+      cs.close();
+    }
+  }
+
+  /**
+   * Checks if wrong login data is rejected.
+   */
+  @Test
+  public void login() {
+    try {
+      createClient("unknown", "unknown");
+      fail("Login data was not rejected.");
+    } catch(final IOException ex) {
+      assertTrue(Util.message(ex), ex instanceof LoginException);
+    }
+  }
+}
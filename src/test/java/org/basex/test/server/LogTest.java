@@ -0,0 +1,125 @@
+package org.basex.test.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.*;
+import org.basex.server.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the asynchronous writing of log entries.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class LogTest extends SandboxTest {
+  /** Number of threads. */
+  private static final int THREADS = 8;
+  /** Number of entries per thread. */
+  private static final int ENTRIES = 1000;
+
+  /** Deletes the log files. */
+  @Before
+  @After
+  public void delete() {
+    context.log.close();
+    context.log.dir().delete();
+  }
+
+  /**
+   * Writes entries from concurrent threads.
+   * @throws Exception exception
+   */
+  @Test
+  public void write() throws Exception {
+    final Log log = context.log;
+    final Thread[] threads = new Thread[THREADS];
+    for(int t = 0; t < THREADS; t++) {
+      final int n = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for(int e = 0; e < ENTRIES; e++) log.write("T" + n, "user", null, "entry " + e);
+        }
+      };
+      threads[t].start();
+    }
+    for(final Thread t : threads) t.join();
+    log.flush();
+    assertEquals(0, log.queued());
+    // the ring buffer is large enough for all entries
+    assertEquals(0, log.dropped());
+
+    // all entries have been written, and the entries of each thread are ordered
+    final int[] counts = new int[THREADS];
+    int lines = 0;
+    for(final String line : lines()) {
+      final String[] cols = line.split("\t");
+      assertEquals(5, cols.length);
+      assertEquals(Log.REQUEST, cols[3]);
+      final int t = Integer.parseInt(cols[1].substring(1));
+      assertEquals("entry " + counts[t]++, cols[4]);
+      lines++;
+    }
+    assertEquals(THREADS * ENTRIES, lines);
+  }
+
+  /**
+   * Checks if entries are written when the log is closed.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void close() throws IOException {
+    final Log log = context.log;
+    log.write("address", "user", true, "info   with \n whitespaces", "1 ms");
+    log.close();
+    final ArrayList<String> lines = lines();
+    assertEquals(1, lines.size());
+    assertTrue(lines.get(0), lines.get(0).endsWith(
+        "\taddress\tuser\tOK\tinfo with whitespaces\t1 ms"));
+  }
+
+  /**
+   * Checks if queued entries are written when logging is disabled.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void disable() throws IOException {
+    final Log log = context.log;
+    log.write("address", "user", true, "entry");
+    context.mprop.set(MainProp.LOG, false);
+    try {
+      log.write("address", "user", true, "ignored");
+      assertEquals(0, log.queued());
+      final ArrayList<String> lines = lines();
+      assertEquals(1, lines.size());
+      assertTrue(lines.get(0), lines.get(0).endsWith("\tentry"));
+    } finally {
+      context.mprop.set(MainProp.LOG, true);
+    }
+  }
+
+  /**
+   * Returns the lines of all log files.
+   * @return lines
+   * @throws IOException I/O exception
+   */
+  private static ArrayList<String> lines() throws IOException {
+    final ArrayList<String> lines = new ArrayList<String>();
+    for(final IOFile f : context.log.files()) {
+      final NewlineInput nli = new NewlineInput(f);
+      try {
+        for(String l; (l = nli.readLine()) != null;) lines.add(l);
+      } finally {
+        nli.close();
+      }
+    }
+    return lines;
+  }
+}
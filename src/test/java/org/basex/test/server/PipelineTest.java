@@ -0,0 +1,118 @@
+package org.basex.test.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.server.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the client/server session API with pipelined requests.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class PipelineTest extends ClientSessionTest {
+  /** Starts a session and enables pipelining. */
+  @Override
+  @Before
+  public void startSession() {
+    try {
+      final ClientSession cs = createClient();
+      cs.pipeline();
+      session = cs;
+      session.setOutputStream(out);
+    } catch(final IOException ex) {
+      fail(Util.message(ex));
+    }
+  }
+
+  /**
+   * Sends many commands before the responses are requested.
+   * @throws Exception exception
+   */
+  @Test
+  public void commands() throws Exception {
+    session.setOutputStream(null);
+    final ClientSession cs = (ClientSession) session;
+    final ArrayList<Future<String>> results = new ArrayList<Future<String>>();
+    for(int i = 0; i < 100; i++) results.add(cs.executeAsync("xquery " + i + " * 2"));
+    for(int i = results.size() - 1; i >= 0; i--) {
+      assertEquals(Integer.toString(i * 2), results.get(i).get());
+    }
+  }
+
+  /**
+   * Binds variables and executes queries before the responses are requested.
+   * @throws Exception exception
+   */
+  @Test
+  public void queries() throws Exception {
+    final ClientSession cs = (ClientSession) session;
+    cs.setOutputStream(null);
+    final ArrayList<ClientQuery> queries = new ArrayList<ClientQuery>();
+    final ArrayList<Future<String>> results = new ArrayList<Future<String>>();
+    for(int i = 0; i < 10; i++) {
+      final ClientQuery cq = cs.query("declare variable $a external; $a + 1");
+      cq.bindAsync("a", Integer.toString(i), "xs:integer");
+      results.add(cq.executeAsync());
+      queries.add(cq);
+    }
+    for(int i = 0; i < results.size(); i++) {
+      assertEquals(Integer.toString(i + 1), results.get(i).get());
+      queries.get(i).close();
+    }
+  }
+
+  /**
+   * Sends requests from concurrent threads.
+   * @throws Exception exception
+   */
+  @Test
+  public void threads() throws Exception {
+    session.setOutputStream(null);
+    final ClientSession cs = (ClientSession) session;
+    final ArrayList<Future<String>> results = new ArrayList<Future<String>>();
+    final ExecutorService es = Executors.newFixedThreadPool(4);
+    try {
+      for(int i = 0; i < 40; i++) {
+        final int n = i;
+        results.add(es.submit(new Callable<String>() {
+          @Override
+          public String call() throws IOException {
+            return cs.query("sum(1 to " + n + ")").execute();
+          }
+        }));
+      }
+      for(int i = 0; i < results.size(); i++) {
+        assertEquals(Integer.toString(i * (i + 1) / 2), results.get(i).get());
+      }
+    } finally {
+      es.shutdown();
+    }
+  }
+
+  /**
+   * Checks if errors are assigned to the failing request.
+   * @throws Exception exception
+   */
+  @Test
+  public void errors() throws Exception {
+    session.setOutputStream(null);
+    final ClientSession cs = (ClientSession) session;
+    final Future<String> err = cs.executeAsync("xquery 1 +");
+    final Future<String> ok = cs.executeAsync("xquery 1 + 1");
+    assertEquals("2", ok.get());
+    try {
+      err.get();
+      fail("Error expected.");
+    } catch(final ExecutionException ex) {
+      assertTrue(Util.message(ex), ex.getCause() instanceof BaseXException);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package org.basex.test.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.query.value.type.*;
+import org.basex.server.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the streaming of query results in the client/server architecture.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class StreamTest extends SandboxTest {
+  /** Server reference. */
+  private static BaseXServer server;
+  /** Client session. */
+  private ClientSession session;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void startServer() throws IOException {
+    server = createServer();
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    stopServer(server);
+  }
+
+  /**
+   * Starts a session.
+   * @throws IOException I/O exception
+   */
+  @Before
+  public void startSession() throws IOException {
+    session = createClient();
+  }
+
+  /**
+   * Stops the session.
+   * @throws IOException I/O exception
+   */
+  @After
+  public void stopSession() throws IOException {
+    session.close();
+  }
+
+  /**
+   * Streams many items.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void items() throws IOException {
+    final ClientQuery cq = query("for $i in 1 to 100000 return ($i, <a>{ $i }</a>)");
+    for(int i = 1; i <= 100000; i++) {
+      assertEquals(Integer.toString(i), cq.next());
+      assertSame(AtomType.ITR, cq.type());
+      assertEquals("<a>" + i + "</a>", cq.next());
+      assertSame(NodeType.ELM, cq.type());
+    }
+    assertFalse(cq.more());
+    cq.close();
+  }
+
+  /**
+   * Streams items that are larger than a single chunk.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void large() throws IOException {
+    final ClientQuery cq = query("(1 to 3) ! string-join((1 to 100000) ! 'abc')");
+    final String abc = session.query("string-join((1 to 100000) ! 'abc')").execute();
+    for(int i = 0; i < 3; i++) assertEquals(abc, cq.next());
+    assertNull(cq.next());
+    cq.close();
+  }
+
+  /**
+   * Sends other requests while a result is streamed.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void interleave() throws IOException {
+    final ClientQuery cq = query("1 to 100");
+    for(int i = 1; i <= 100; i++) {
+      assertEquals(Integer.toString(i), cq.next());
+      assertEquals(Integer.toString(i * 2), session.execute("xquery " + i + " * 2"));
+    }
+    assertNull(cq.next());
+    cq.close();
+
+    // stream two results at the same time
+    final ClientQuery cq1 = query("1 to 100");
+    final ClientQuery cq2 = query("101 to 200");
+    for(int i = 1; i <= 100; i++) {
+      assertEquals(Integer.toString(i), cq1.next());
+      assertEquals(Integer.toString(i + 100), cq2.next());
+    }
+    assertNull(cq1.next());
+    assertNull(cq2.next());
+    cq1.close();
+    cq2.close();
+  }
+
+  /**
+   * Checks if errors are raised after the items that have been returned.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void error() throws IOException {
+    final ClientQuery cq = query(
+        "for $i in 1 to 10 return if($i = 5) then error() else $i");
+    for(int i = 1; i < 5; i++) assertEquals(Integer.toString(i), cq.next());
+    try {
+      cq.next();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(Util.message(ex), Util.message(ex).contains("FOER0000"));
+    }
+    // the session can still be used
+    assertEquals("1", session.execute("xquery 1"));
+  }
+
+  /**
+   * Checks if an item whose serialization fails is discarded.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void serializationError() throws IOException {
+    final ClientQuery cq = query("1, 2, true#0");
+    assertEquals("1", cq.next());
+    assertEquals("2", cq.next());
+    try {
+      cq.next();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(Util.message(ex), Util.message(ex).contains("FOTY0012"));
+    }
+    assertEquals("1", session.execute("xquery 1"));
+  }
+
+  /**
+   * Returns a query, the result of which will be streamed.
+   * @param query query string
+   * @return query
+   * @throws IOException I/O exception
+   */
+  private ClientQuery query(final String query) throws IOException {
+    final ClientQuery cq = session.query(query);
+    cq.stream(true);
+    return cq;
+  }
+}